@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package org.graalvm.compiler.core.aarch64.test;
+
+import static org.graalvm.compiler.lir.aarch64.phases.AArch64ListSchedulingPhase.Options.AArch64LIRScheduling;
+import static org.junit.Assume.assumeTrue;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.lir.aarch64.phases.AArch64ListSchedulingPhase;
+import org.graalvm.compiler.lir.aarch64.phases.AArch64ListSchedulingPhase.LatencyModel;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.aarch64.AArch64;
+
+/**
+ * Checks that code reordered by {@link AArch64ListSchedulingPhase} computes the same results as
+ * code compiled without it, for each of the supported latency models.
+ */
+public class AArch64ListSchedulingTest extends GraalCompilerTest {
+
+    @Before
+    public void checkAArch64() {
+        assumeTrue("skipping AArch64 specific test", getTarget().arch instanceof AArch64);
+    }
+
+    private void testScheduled(String name, Object... args) {
+        for (LatencyModel model : LatencyModel.values()) {
+            test(new OptionValues(getInitialOptions(), AArch64LIRScheduling, model), name, args);
+        }
+    }
+
+    @Test
+    public void testPhaseInSuite() {
+        OptionValues options = new OptionValues(getInitialOptions(), AArch64LIRScheduling, LatencyModel.CortexA55);
+        Assert.assertNotNull(createLIRSuites(options).getPostAllocationOptimizationStage().findPhaseInstance(AArch64ListSchedulingPhase.class));
+        options = new OptionValues(getInitialOptions(), AArch64LIRScheduling, LatencyModel.None);
+        Assert.assertNull(createLIRSuites(options).getPostAllocationOptimizationStage().findPhaseInstance(AArch64ListSchedulingPhase.class));
+    }
+
+    public static int loadUse(int[] a, int i) {
+        int x = a[i];
+        int y = a[i + 1];
+        int z = a[i + 2];
+        return (x + 1) * (y ^ 3) + (z << 2);
+    }
+
+    @Test
+    public void testLoadUse() {
+        testScheduled("loadUse", new int[]{1, 2, 3, 4}, 0);
+        testScheduled("loadUse", new int[]{-7, Integer.MAX_VALUE, Integer.MIN_VALUE, 4}, 1);
+    }
+
+    public static long multiplyChain(long a, long b, long c, long d) {
+        long x = a * b;
+        long y = c * d;
+        long z = a + d;
+        long w = b - c;
+        return x * z + y * w;
+    }
+
+    @Test
+    public void testMultiplyChain() {
+        testScheduled("multiplyChain", 3L, 5L, 7L, 11L);
+        testScheduled("multiplyChain", Long.MAX_VALUE, -2L, Long.MIN_VALUE, 17L);
+    }
+
+    public static double floatingPoint(double[] a, double s) {
+        double x = a[0] * s;
+        double y = a[1] + s;
+        double z = -a[2];
+        return x * y - Math.abs(z);
+    }
+
+    @Test
+    public void testFloatingPoint() {
+        testScheduled("floatingPoint", new double[]{1.5, -2.25, 3.0}, 0.5);
+        testScheduled("floatingPoint", new double[]{Double.MAX_VALUE, Double.NaN, -0.0}, 2.0);
+    }
+
+    public static int sumLoop(int[] a, int[] b) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            int x = a[i];
+            int y = b[i];
+            sum += (x * y) ^ (x >>> 3);
+        }
+        return sum;
+    }
+
+    @Test
+    public void testLoop() {
+        int[] a = new int[100];
+        int[] b = new int[100];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i * 31 - 7;
+            b[i] = 1000 - i * 13;
+        }
+        testScheduled("sumLoop", a, b);
+    }
+
+    public static long overlappingRegisters(long a, long b) {
+        long t = a + b;
+        long u = t * a;
+        t = b - a;
+        long v = t * b;
+        return u ^ v;
+    }
+
+    @Test
+    public void testOverlappingRegisters() {
+        testScheduled("overlappingRegisters", 12345L, -678L);
+        testScheduled("overlappingRegisters", Long.MAX_VALUE, Long.MIN_VALUE);
+    }
+}
@@ -50,7 +50,11 @@ import org.graalvm.compiler.lir.aarch64.AArch64AddressValue;
 import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp;
 import org.graalvm.compiler.lir.aarch64.AArch64ArrayCompareToOp;
 import org.graalvm.compiler.lir.aarch64.AArch64ArrayEqualsOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArrayFillOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArrayHasNegativesOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArrayHashCodeOp;
 import org.graalvm.compiler.lir.aarch64.AArch64ArrayIndexOfOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArrayRegionEqualsIgnoreCaseOp;
 import org.graalvm.compiler.lir.aarch64.AArch64AtomicMove.AtomicReadAndAddLSEOp;
 import org.graalvm.compiler.lir.aarch64.AArch64AtomicMove.AtomicReadAndAddOp;
 import org.graalvm.compiler.lir.aarch64.AArch64AtomicMove.AtomicReadAndWriteOp;
@@ -613,6 +617,32 @@ public abstract class AArch64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public Variable emitArrayHasNegatives(Value array, Value length) {
+        Variable result = newVariable(LIRKind.value(AArch64Kind.DWORD));
+        append(new AArch64ArrayHasNegativesOp(this, result, asAllocatable(array), asAllocatable(length)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayRegionEqualsIgnoreCase(Value array1, Value array2, Value length) {
+        Variable result = newVariable(LIRKind.value(AArch64Kind.DWORD));
+        append(new AArch64ArrayRegionEqualsIgnoreCaseOp(this, result, asAllocatable(array1), asAllocatable(array2), asAllocatable(length)));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayHashCode(JavaKind elementKind, Value array, Value length, Value initialValue) {
+        Variable result = newVariable(LIRKind.value(AArch64Kind.DWORD));
+        append(new AArch64ArrayHashCodeOp(this, elementKind, result, asAllocatable(array), asAllocatable(length), asAllocatable(initialValue)));
+        return result;
+    }
+
+    @Override
+    public void emitArrayFill(JavaKind kind, Value array, Value length, Value value) {
+        append(new AArch64ArrayFillOp(this, kind, asAllocatable(array), asAllocatable(length), asAllocatable(value)));
+    }
+
     @Override
     public Variable emitArrayIndexOf(int arrayBaseOffset, JavaKind valueKind, boolean findTwoConsecutive, Value arrayPointer, Value arrayLength, Value fromIndex, Value... searchValues) {
         assert searchValues.length == 1;
@@ -29,6 +29,9 @@ import java.util.ListIterator;
 
 import org.graalvm.compiler.debug.GraalError;
 import org.graalvm.compiler.java.DefaultSuitesCreator;
+import org.graalvm.compiler.lir.aarch64.phases.AArch64ListSchedulingPhase;
+import org.graalvm.compiler.lir.aarch64.phases.AArch64ListSchedulingPhase.LatencyModel;
+import org.graalvm.compiler.lir.phases.LIRSuites;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration.Plugins;
 import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.compiler.phases.BasePhase;
@@ -73,4 +76,14 @@ public class AArch64SuitesCreator extends DefaultSuitesCreator {
         }
         return suites;
     }
+
+    @Override
+    public LIRSuites createLIRSuites(OptionValues options) {
+        LIRSuites lirSuites = super.createLIRSuites(options);
+        if (AArch64ListSchedulingPhase.Options.AArch64LIRScheduling.getValue(options) != LatencyModel.None) {
+            /* Scheduling must come last so that no later phase breaks up the schedule again. */
+            lirSuites.getPostAllocationOptimizationStage().appendPhase(new AArch64ListSchedulingPhase());
+        }
+        return lirSuites;
+    }
 }
@@ -55,6 +55,7 @@ import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
 import org.graalvm.compiler.core.common.LIRKind;
 import org.graalvm.compiler.core.common.NumUtil;
 import org.graalvm.compiler.core.common.calc.Condition;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
 import org.graalvm.compiler.core.common.memory.MemoryOrderMode;
 import org.graalvm.compiler.core.common.spi.ForeignCallLinkage;
 import org.graalvm.compiler.core.common.spi.LIRKindTool;
@@ -71,7 +72,11 @@ import org.graalvm.compiler.lir.amd64.AMD64AddressValue;
 import org.graalvm.compiler.lir.amd64.AMD64ArithmeticLIRGeneratorTool;
 import org.graalvm.compiler.lir.amd64.AMD64ArrayCompareToOp;
 import org.graalvm.compiler.lir.amd64.AMD64ArrayEqualsOp;
+import org.graalvm.compiler.lir.amd64.AMD64ArrayFillOp;
+import org.graalvm.compiler.lir.amd64.AMD64ArrayHasNegativesOp;
+import org.graalvm.compiler.lir.amd64.AMD64ArrayHashCodeOp;
 import org.graalvm.compiler.lir.amd64.AMD64ArrayIndexOfOp;
+import org.graalvm.compiler.lir.amd64.AMD64ArrayRegionEqualsIgnoreCaseOp;
 import org.graalvm.compiler.lir.amd64.AMD64Binary;
 import org.graalvm.compiler.lir.amd64.AMD64BinaryConsumer;
 import org.graalvm.compiler.lir.amd64.AMD64ByteSwapOp;
@@ -103,6 +108,7 @@ import org.graalvm.compiler.lir.amd64.AMD64Move.StackLeaOp;
 import org.graalvm.compiler.lir.amd64.AMD64PauseOp;
 import org.graalvm.compiler.lir.amd64.AMD64StringLatin1InflateOp;
 import org.graalvm.compiler.lir.amd64.AMD64StringUTF16CompressOp;
+import org.graalvm.compiler.lir.amd64.AMD64VectorizedArrayLoopOp;
 import org.graalvm.compiler.lir.amd64.AMD64ZapRegistersOp;
 import org.graalvm.compiler.lir.amd64.AMD64ZapStackOp;
 import org.graalvm.compiler.lir.amd64.AMD64ZeroMemoryOp;
@@ -638,6 +644,46 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public Variable emitArrayHasNegatives(Value array, Value length) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayHasNegativesOp(this, result, asAllocatable(array), asAllocatable(length), getMaxVectorSize()));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayRegionEqualsIgnoreCase(Value array1, Value array2, Value length) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayRegionEqualsIgnoreCaseOp(this, result, asAllocatable(array1), asAllocatable(array2), asAllocatable(length), getMaxVectorSize()));
+        return result;
+    }
+
+    @Override
+    public Variable emitArrayHashCode(JavaKind elementKind, Value array, Value length, Value initialValue) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        append(new AMD64ArrayHashCodeOp(this, elementKind, result, asAllocatable(array), asAllocatable(length), asAllocatable(initialValue)));
+        return result;
+    }
+
+    @Override
+    public void emitArrayFill(JavaKind kind, Value array, Value length, Value value) {
+        append(new AMD64ArrayFillOp(this, kind, asAllocatable(array), asAllocatable(length), asAllocatable(value)));
+    }
+
+    @Override
+    public void emitVectorizedArrayMap(ElementwiseOperation op, JavaKind kind, int arrayBaseOffset, Value dst, Value src1, Value src2, boolean scalarSrc2, Value fromIndex, Value length) {
+        append(AMD64VectorizedArrayLoopOp.map(this, op, kind, arrayBaseOffset, asAllocatable(dst), asAllocatable(src1), asAllocatable(src2), scalarSrc2, asAllocatable(fromIndex),
+                        asAllocatable(length), getMaxVectorSize()));
+    }
+
+    @Override
+    public Variable emitVectorizedArrayReduction(ElementwiseOperation op, JavaKind kind, int arrayBaseOffset, Value array, Value fromIndex, Value length, Value initialValue) {
+        Variable result = newVariable(LIRKind.value(kind == JavaKind.Long ? AMD64Kind.QWORD : AMD64Kind.DWORD));
+        append(AMD64VectorizedArrayLoopOp.reduce(this, op, kind, arrayBaseOffset, result, asAllocatable(array), asAllocatable(fromIndex), asAllocatable(length), asAllocatable(initialValue),
+                        getMaxVectorSize()));
+        return result;
+    }
+
     @Override
     public void emitStringLatin1Inflate(Value src, Value dst, Value len) {
         RegisterValue rsrc = AMD64.rsi.asValue(src.getValueKind());
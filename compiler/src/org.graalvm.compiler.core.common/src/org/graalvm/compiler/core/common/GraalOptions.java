@@ -53,6 +53,12 @@ public final class GraalOptions {
     @Option(help = "Minimum probability for methods to be inlined for megamorphic type profiles.", type = OptionType.Expert)
     public static final OptionKey<Double> MegamorphicInliningMinMethodProbability = new OptionKey<>(0.33D);
 
+    @Option(help = "Dispatch interface calls that are not inlined with a type switch over the profiled receiver types and direct calls to their methods (i.e., a polymorphic inline cache in compiled code).", type = OptionType.Expert)
+    public static final OptionKey<Boolean> DirectCallTypeDispatch = new OptionKey<>(false);
+
+    @Option(help = "Minimum total probability of the profiled receiver types for a direct call type dispatch.", type = OptionType.Expert)
+    public static final OptionKey<Double> DirectCallTypeDispatchMinProbability = new OptionKey<>(0.5D);
+
     @Option(help = "Maximum level of recursive inlining.", type = OptionType.Expert)
     public static final OptionKey<Integer> MaximumRecursiveInlining = new OptionKey<>(5);
 
@@ -105,6 +111,15 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<Boolean> PartialUnroll = new OptionKey<>(true);
 
+    @Option(help = "Replaces the bulk of simple counted array loops with vectorized kernels.", type = OptionType.Debug)
+    public static final OptionKey<Boolean> LoopVectorization = new OptionKey<>(false);
+
+    @Option(help = "Nests long-running counted loops without safepoint polls into an outer loop that polls.", type = OptionType.Debug)
+    public static final OptionKey<Boolean> LoopStripMining = new OptionKey<>(false);
+
+    @Option(help = "Maximum number of iterations a strip mined loop runs between two safepoint polls.", type = OptionType.Expert)
+    public static final OptionKey<Integer> LoopStripMiningLength = new OptionKey<>(4096);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionKey<Float> MinimumPeelFrequency = new OptionKey<>(0.35f);
 
@@ -219,6 +234,9 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<Boolean> OptConvertDeoptsToGuards = new OptionKey<>(true);
 
+    @Option(help = "Duplicates code following a merge into its predecessors if this enables further optimizations.", type = OptionType.Debug)
+    public static final OptionKey<Boolean> OptPathDuplication = new OptionKey<>(false);
+
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<Boolean> OptReadElimination = new OptionKey<>(true);
 
@@ -285,6 +303,12 @@ public final class GraalOptions {
     @Option(help = "Alignment in bytes for loop header blocks.", type = OptionType.Expert)
     public static final OptionKey<Integer> LoopHeaderAlignment = new OptionKey<>(16);
 
+    @Option(help = "Emit rarely executed blocks after all other blocks of a method.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> HotColdSplitting = new OptionKey<>(false);
+
+    @Option(help = "Relative frequency below which a block is considered cold by HotColdSplitting.", type = OptionType.Expert)
+    public static final OptionKey<Double> ColdBlockFrequency = new OptionKey<>(1e-3);
+
     @Option(help = "String.indexOf invocations will be evaluated at compile time if the receiver is a constant and its length is lower than this value.", type = OptionType.Expert)
     public static final OptionKey<Integer> StringIndexOfLimit = new OptionKey<>(4096);
 
@@ -47,6 +47,11 @@ import org.graalvm.compiler.core.common.cfg.Loop;
  * backward jumps are always marked as aligned. Aligning the target of conditional jumps does not
  * bring a measurable benefit and is therefore avoided to keep the code size small.
  *
+ * If a cold frequency is given, the code emission order is split into a hot and a cold part. Paths
+ * are not continued into blocks whose relative frequency is below the cold frequency. Such blocks
+ * are only scheduled after all other blocks, so that rarely executed code, e.g., exception and
+ * deoptimization paths, does not break up the hot code of the method.
+ *
  * The linear scan register allocator order has an additional mechanism that prevents merge nodes
  * from being scheduled if there is at least one highly likely predecessor still unscheduled. This
  * increases the probability that the merge node and the corresponding predecessor are more closely
@@ -88,21 +93,48 @@ public final class ComputeBlockOrder {
      * @return sorted list of blocks
      */
     public static <T extends AbstractBlockBase<T>> AbstractBlockBase<?>[] computeCodeEmittingOrder(int blockCount, T startBlock) {
+        return computeCodeEmittingOrder(blockCount, startBlock, 0.0);
+    }
+
+    /**
+     * Computes the block order used for code emission, moving blocks with a relative frequency
+     * below {@code coldFrequency} to the end. These blocks are marked as
+     * {@linkplain AbstractBlockBase#isCold() cold}.
+     *
+     * @return sorted list of blocks
+     */
+    public static <T extends AbstractBlockBase<T>> AbstractBlockBase<?>[] computeCodeEmittingOrder(int blockCount, T startBlock, double coldFrequency) {
         List<T> order = new ArrayList<>();
         BitSet visitedBlocks = new BitSet(blockCount);
         PriorityQueue<T> worklist = initializeWorklist(startBlock, visitedBlocks);
-        computeCodeEmittingOrder(order, worklist, visitedBlocks);
+        if (coldFrequency > 0.0) {
+            List<T> coldBlocks = new ArrayList<>();
+            computeCodeEmittingOrder(order, worklist, visitedBlocks, coldFrequency, coldBlocks);
+            int hotBlockCount = order.size();
+            worklist.addAll(coldBlocks);
+            computeCodeEmittingOrder(order, worklist, visitedBlocks, coldFrequency, null);
+            for (int i = 0; i < order.size(); i++) {
+                order.get(i).setCold(i >= hotBlockCount);
+            }
+        } else {
+            computeCodeEmittingOrder(order, worklist, visitedBlocks, coldFrequency, null);
+        }
         assert checkOrder(order, blockCount);
         return order.toArray(new AbstractBlockBase<?>[0]);
     }
 
     /**
-     * Iteratively adds paths to the code emission block order.
+     * Iteratively adds paths to the code emission block order. If {@code coldBlocks} is not null,
+     * cold blocks are added to it instead of being scheduled.
      */
-    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    private static <T extends AbstractBlockBase<T>> void computeCodeEmittingOrder(List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks, double coldFrequency, List<T> coldBlocks) {
         while (!worklist.isEmpty()) {
             T nextImportantPath = worklist.poll();
-            addPathToCodeEmittingOrder(nextImportantPath, order, worklist, visitedBlocks);
+            if (coldBlocks != null && isCold(nextImportantPath, coldFrequency)) {
+                coldBlocks.add(nextImportantPath);
+            } else {
+                addPathToCodeEmittingOrder(nextImportantPath, order, worklist, visitedBlocks, coldFrequency, coldBlocks);
+            }
         }
     }
 
@@ -161,13 +193,14 @@ public final class ComputeBlockOrder {
     /**
      * Add a linear path to the code emission order greedily following the most likely successor.
      */
-    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks) {
+    private static <T extends AbstractBlockBase<T>> void addPathToCodeEmittingOrder(T initialBlock, List<T> order, PriorityQueue<T> worklist, BitSet visitedBlocks, double coldFrequency,
+                    List<T> coldBlocks) {
         T block = initialBlock;
         while (block != null) {
             if (!skipLoopHeader(block)) {
 
                 // Align unskipped loop headers as they are the target of the backward jump.
-                if (block.isLoopHeader()) {
+                if (block.isLoopHeader() && !isCold(block, coldFrequency)) {
                     block.setAlign(true);
                 }
                 addBlock(block, order);
@@ -200,11 +233,24 @@ public final class ComputeBlockOrder {
             }
             T mostLikelySuccessor = findAndMarkMostLikelySuccessor(block, visitedBlocks);
             enqueueSuccessors(block, worklist, visitedBlocks);
+            if (mostLikelySuccessor != null && coldBlocks != null && isCold(mostLikelySuccessor, coldFrequency)) {
+                // do not continue the hot path into cold code
+                coldBlocks.add(mostLikelySuccessor);
+                mostLikelySuccessor = null;
+            }
             block = mostLikelySuccessor;
         }
 
     }
 
+    /**
+     * Determines if {@code block} is rarely executed. Loop headers and loop ends are never cold,
+     * since a loop header that is skipped is scheduled together with its loop end.
+     */
+    private static boolean isCold(AbstractBlockBase<?> block, double coldFrequency) {
+        return block.getRelativeFrequency() < coldFrequency && !block.isLoopHeader() && !block.isLoopEnd();
+    }
+
     /**
      * Adds a block to the ordering.
      */
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.common.calc;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Binary operations that can be applied lane-wise to the elements of an array region by a
+ * vectorized loop kernel.
+ */
+public enum ElementwiseOperation {
+    ADD(true),
+    SUB(false),
+    MUL(true),
+    DIV(false),
+    AND(true),
+    OR(true),
+    XOR(true);
+
+    /**
+     * Number of bytes processed by one block of a vectorized loop kernel. Kernels always process a
+     * multiple of this many bytes per array, so that backends never have to handle a partial
+     * vector.
+     */
+    public static final int BLOCK_BYTES = 64;
+
+    private final boolean commutative;
+
+    ElementwiseOperation(boolean commutative) {
+        this.commutative = commutative;
+    }
+
+    public boolean isCommutative() {
+        return commutative;
+    }
+
+    /**
+     * Determines if applying this operation in an arbitrary order to the elements of an array of
+     * {@code kind} yields the same result as applying it sequentially.
+     */
+    public boolean isAssociative(JavaKind kind) {
+        return commutative && kind.isNumericInteger();
+    }
+
+    /**
+     * Returns the number of array elements of {@code kind} in one block of a vectorized loop
+     * kernel.
+     */
+    public static int elementsPerBlock(JavaKind kind) {
+        return BLOCK_BYTES / kind.getByteCount();
+    }
+}
@@ -41,6 +41,7 @@ public abstract class AbstractBlockBase<T extends AbstractBlockBase<T>> {
     private int maxChildDomNumber;
 
     private boolean align;
+    private boolean cold;
     private int linearScanNumber;
 
     protected AbstractBlockBase() {
@@ -183,6 +184,17 @@ public abstract class AbstractBlockBase<T extends AbstractBlockBase<T>> {
         this.align = align;
     }
 
+    /**
+     * Determines if this block was moved to the cold part at the end of the code emitting order.
+     */
+    public boolean isCold() {
+        return cold;
+    }
+
+    public void setCold(boolean cold) {
+        this.cold = cold;
+    }
+
     public abstract boolean isExceptionEntry();
 
     public abstract Loop<T> getLoop();
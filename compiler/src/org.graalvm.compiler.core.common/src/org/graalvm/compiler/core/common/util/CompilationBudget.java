@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.common.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+
+/**
+ * Tracks the time spent in and the graph size of a compilation so that phases that only improve
+ * the quality of the generated code can be skipped or run with fewer iterations once a compilation
+ * exceeds its budget. Unlike {@link CompilationAlarm}, exceeding the budget never causes a
+ * compilation to fail.
+ */
+public final class CompilationBudget implements AutoCloseable {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Time in milliseconds after which optional phases of a compilation are skipped or downgraded (0 to disable the limit).",
+                type = OptionType.Expert)
+        public static final OptionKey<Integer> CompilationBudgetTime = new OptionKey<>(0);
+        @Option(help = "Graph node count above which optional phases of a compilation are skipped or downgraded (0 to disable the limit).",
+                type = OptionType.Expert)
+        public static final OptionKey<Integer> CompilationBudgetNodes = new OptionKey<>(0);
+        // @formatter:on
+    }
+
+    /**
+     * Thread local storage for the active compilation budget.
+     */
+    private static final ThreadLocal<CompilationBudget> currentBudget = new ThreadLocal<>();
+
+    private static final CompilationBudget UNLIMITED = new CompilationBudget(0, 0);
+
+    /**
+     * The time at which this budget expires or 0 if there is no time limit.
+     */
+    private final long expiration;
+
+    /**
+     * The node count above which this budget is exhausted or 0 if there is no size limit.
+     */
+    private final int maxNodes;
+
+    /**
+     * The phases skipped or downgraded because this budget was exhausted.
+     */
+    private List<String> skippedPhases;
+
+    private CompilationBudget(long expiration, int maxNodes) {
+        this.expiration = expiration;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Gets the current compilation budget. If there is no current budget, a non-null value is
+     * returned that will always return {@code false} for {@link #isExhausted(int)}.
+     */
+    public static CompilationBudget current() {
+        CompilationBudget budget = currentBudget.get();
+        return budget == null ? UNLIMITED : budget;
+    }
+
+    /**
+     * Determines if this budget is exhausted, i.e., if the compilation already takes longer than
+     * {@link Options#CompilationBudgetTime} or if a graph of {@code nodeCount} nodes exceeds
+     * {@link Options#CompilationBudgetNodes}.
+     */
+    public boolean isExhausted(int nodeCount) {
+        if (this == UNLIMITED) {
+            return false;
+        }
+        return (maxNodes > 0 && nodeCount > maxNodes) || (expiration != 0 && System.currentTimeMillis() > expiration);
+    }
+
+    /**
+     * Records that {@code phase} was skipped or downgraded because this budget is exhausted.
+     */
+    public void recordSkipped(CharSequence phase) {
+        if (this != UNLIMITED) {
+            if (skippedPhases == null) {
+                skippedPhases = new ArrayList<>();
+            }
+            skippedPhases.add(phase.toString());
+        }
+    }
+
+    /**
+     * Gets the phases that were {@linkplain #recordSkipped(CharSequence) skipped or downgraded} so
+     * far in the current compilation.
+     */
+    public List<String> getSkippedPhases() {
+        return skippedPhases == null ? Collections.emptyList() : Collections.unmodifiableList(skippedPhases);
+    }
+
+    @Override
+    public void close() {
+        if (this != UNLIMITED) {
+            currentBudget.set(null);
+        }
+    }
+
+    /**
+     * Starts tracking the budget of a compilation if there isn't already an active budget and
+     * {@link Options#CompilationBudgetTime} or {@link Options#CompilationBudgetNodes} is
+     * {@code > 0}. The returned value can be used in a try-with-resource statement to end the
+     * tracking once the compilation is finished.
+     *
+     * @return a {@link CompilationBudget} if there was no current budget for the calling thread
+     *         before this call otherwise {@code null}
+     */
+    public static CompilationBudget trackCompilationBudget(OptionValues options) {
+        int time = Options.CompilationBudgetTime.getValue(options);
+        int nodes = Options.CompilationBudgetNodes.getValue(options);
+        if ((time > 0 || nodes > 0) && currentBudget.get() == null) {
+            CompilationBudget budget = new CompilationBudget(time > 0 ? System.currentTimeMillis() + time : 0, nodes);
+            currentBudget.set(budget);
+            return budget;
+        }
+        return null;
+    }
+}
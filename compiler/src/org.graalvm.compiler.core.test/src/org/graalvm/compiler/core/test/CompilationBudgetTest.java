@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import java.util.List;
+
+import org.graalvm.compiler.core.common.util.CompilationBudget;
+import org.graalvm.compiler.loop.phases.LoopPartialUnrollPhase;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that compilations which exhaust their {@link CompilationBudget} skip optional phases
+ * without affecting the result of the compiled code.
+ */
+public class CompilationBudgetTest extends GraalCompilerTest {
+
+    static class Point {
+        int x;
+        int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    public static int snippet(int[] array, int n) {
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            Point p = new Point(array[i], i);
+            if (p.x > 0) {
+                sum += p.x;
+            } else {
+                sum -= p.y;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Compiles {@link #snippet} with a budget that is tracked by the test, so that the skipped
+     * phases can be inspected after the compilation.
+     *
+     * @param delayMillis time to wait after starting the budget and before compiling
+     */
+    private List<String> compileWithBudget(OptionValues options, long delayMillis) throws InterruptedException {
+        try (CompilationBudget budget = CompilationBudget.trackCompilationBudget(options)) {
+            Assert.assertNotNull(budget);
+            Thread.sleep(delayMillis);
+            getCode(getResolvedJavaMethod("snippet"), null, true, false, options);
+            return budget.getSkippedPhases();
+        }
+    }
+
+    private static void assertSkipped(List<String> skippedPhases) {
+        Assert.assertTrue("expected skipped partial unrolling: " + skippedPhases, skippedPhases.contains(LoopPartialUnrollPhase.class.getName()));
+    }
+
+    @Test
+    public void testNodeBudget() throws InterruptedException {
+        OptionValues options = new OptionValues(getInitialOptions(), CompilationBudget.Options.CompilationBudgetNodes, 1);
+        assertSkipped(compileWithBudget(options, 0));
+        test(options, "snippet", new int[]{1, -2, 3, -4, 5, -6, 7}, 7);
+    }
+
+    @Test
+    public void testTimeBudget() throws InterruptedException {
+        OptionValues options = new OptionValues(getInitialOptions(), CompilationBudget.Options.CompilationBudgetTime, 1);
+        // the budget expires before the compilation starts
+        assertSkipped(compileWithBudget(options, 10));
+        test(options, "snippet", new int[]{1, -2, 3, -4, 5, -6, 7}, 7);
+    }
+
+    @Test
+    public void testNoBudget() throws InterruptedException {
+        OptionValues options = new OptionValues(getInitialOptions(), CompilationBudget.Options.CompilationBudgetNodes, Integer.MAX_VALUE);
+        Assert.assertTrue(compileWithBudget(options, 0).isEmpty());
+    }
+
+    @Test
+    public void testTracking() {
+        OptionValues options = new OptionValues(getInitialOptions(), CompilationBudget.Options.CompilationBudgetNodes, 10);
+        try (CompilationBudget budget = CompilationBudget.trackCompilationBudget(options)) {
+            Assert.assertNotNull(budget);
+            Assert.assertSame(budget, CompilationBudget.current());
+            Assert.assertNull(CompilationBudget.trackCompilationBudget(options));
+            Assert.assertFalse(budget.isExhausted(10));
+            Assert.assertTrue(budget.isExhausted(11));
+            budget.recordSkipped("LoopPartialUnrollPhase");
+            Assert.assertEquals(1, budget.getSkippedPhases().size());
+        }
+        Assert.assertFalse(CompilationBudget.current().isExhausted(Integer.MAX_VALUE));
+        Assert.assertTrue(CompilationBudget.current().getSkippedPhases().isEmpty());
+    }
+}
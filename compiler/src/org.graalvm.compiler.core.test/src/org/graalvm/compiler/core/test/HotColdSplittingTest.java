@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import static org.graalvm.compiler.api.directives.GraalDirectives.SLOWPATH_PROBABILITY;
+import static org.graalvm.compiler.api.directives.GraalDirectives.injectBranchProbability;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.common.alloc.ComputeBlockOrder;
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests that rarely executed blocks are moved to the end of the code if
+ * {@link GraalOptions#HotColdSplitting} is enabled.
+ */
+public class HotColdSplittingTest extends GraalCompilerTest {
+
+    private static OptionValues getOptions(boolean split) {
+        return new OptionValues(getInitialOptions(), GraalOptions.HotColdSplitting, split);
+    }
+
+    public static int coldBranchSnippet(int[] array, int n) {
+        int sum = 0;
+        if (injectBranchProbability(SLOWPATH_PROBABILITY, n > array.length)) {
+            n = array.length;
+            sum = -1;
+        }
+        for (int i = 0; i < n; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testColdBranch() {
+        int[] array = {1, 2, -3, 4, 5, -6, 7};
+        test(getOptions(true), "coldBranchSnippet", array, array.length);
+        test(getOptions(true), "coldBranchSnippet", array, array.length + 1);
+    }
+
+    public static String exceptionSnippet(Object o) {
+        try {
+            return o.toString();
+        } catch (NullPointerException e) {
+            return "null";
+        }
+    }
+
+    @Test
+    public void testException() {
+        test(getOptions(true), "exceptionSnippet", "value");
+        test(getOptions(true), "exceptionSnippet", (Object) null);
+    }
+
+    private AbstractBlockBase<?>[] computeCodeEmittingOrder(double coldFrequency) {
+        StructuredGraph graph = parseEager("coldBranchSnippet", AllowAssumptions.YES);
+        createCanonicalizerPhase().apply(graph, getProviders());
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+        return ComputeBlockOrder.computeCodeEmittingOrder(cfg.getBlocks().length, cfg.getStartBlock(), coldFrequency);
+    }
+
+    @Test
+    public void testColdBlocksLast() {
+        AbstractBlockBase<?>[] split = computeCodeEmittingOrder(GraalOptions.ColdBlockFrequency.getDefaultValue());
+        Assert.assertFalse(split[0].isCold());
+        boolean cold = false;
+        for (AbstractBlockBase<?> block : split) {
+            Assert.assertTrue("hot block after cold code: " + block, !cold || block.isCold());
+            cold |= block.isCold();
+        }
+        Assert.assertTrue("cold code expected", cold);
+
+        for (AbstractBlockBase<?> block : computeCodeEmittingOrder(0.0)) {
+            Assert.assertFalse(block.isCold());
+        }
+    }
+}
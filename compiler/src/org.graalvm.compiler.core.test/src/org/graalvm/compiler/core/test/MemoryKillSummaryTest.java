@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.core.phases.HighTier;
+import org.graalvm.compiler.java.BytecodeParserOptions;
+import org.graalvm.compiler.nodes.FieldLocationIdentity;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.MemoryKillSummaryPhase;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.graalvm.word.LocationIdentity;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the locations killed by calls that are not inlined according to the
+ * {@link MemoryKillSummaryPhase}.
+ */
+public class MemoryKillSummaryTest extends GraalCompilerTest {
+
+    static final class Box {
+        int value;
+        Object ref;
+
+        Box(int value) {
+            this.value = value;
+        }
+    }
+
+    @Override
+    protected Suites createSuites(OptionValues options) {
+        return super.createSuites(new OptionValues(options, HighTier.Options.Inline, false));
+    }
+
+    private OptionValues getOptions(boolean summaries) {
+        return new OptionValues(getInitialOptions(), MemoryKillSummaryPhase.Options.OptMemoryKillSummaries, summaries, BytecodeParserOptions.InlineDuringParsing, false);
+    }
+
+    private void testWithSummaries(String snippet, Object... args) {
+        test(getOptions(true), snippet, args);
+        test(getOptions(false), snippet, args);
+    }
+
+    private LocationIdentity getKilledLocation(String snippet) {
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES, getOptions(true));
+        new MemoryKillSummaryPhase().apply(graph, getDefaultHighTierContext());
+        LocationIdentity killed = null;
+        for (Invoke invoke : graph.getInvokes()) {
+            Assert.assertNull("expected a single invoke", killed);
+            killed = invoke.getKilledLocationIdentity();
+        }
+        Assert.assertNotNull("expected an invoke", killed);
+        return killed;
+    }
+
+    static int get(Box b) {
+        return b.value;
+    }
+
+    static void increment(Box b) {
+        b.value++;
+    }
+
+    static void setRef(Box b, Object ref) {
+        b.ref = ref;
+    }
+
+    static Box allocate(int value) {
+        return new Box(value);
+    }
+
+    public static int readOnlySnippet(Box b, int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += get(b) + a[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testReadOnly() {
+        Assert.assertEquals(MemoryKill.NO_LOCATION, getKilledLocation("readOnlySnippet"));
+        testWithSummaries("readOnlySnippet", new Box(3), new int[]{1, 2, 3});
+    }
+
+    public static int writeFieldSnippet(Box b, int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            increment(b);
+            sum += b.value + a[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testWriteField() {
+        LocationIdentity killed = getKilledLocation("writeFieldSnippet");
+        Assert.assertTrue(killed.toString(), killed instanceof FieldLocationIdentity);
+        testWithSummaries("writeFieldSnippet", new Box(3), new int[]{1, 2, 3});
+    }
+
+    public static int writeObjectFieldSnippet(Box b, int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            setRef(b, a);
+            sum += b.ref == a ? a[i] : 0;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testWriteObjectField() {
+        Assert.assertTrue(getKilledLocation("writeObjectFieldSnippet").isAny());
+        testWithSummaries("writeObjectFieldSnippet", new Box(3), new int[]{1, 2, 3});
+    }
+
+    public static int allocateSnippet(int[] a) {
+        int sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += allocate(a[i]).value;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testAllocate() {
+        Assert.assertTrue(getKilledLocation("allocateSnippet").isAny());
+        testWithSummaries("allocateSnippet", new int[]{1, 2, 3});
+    }
+}
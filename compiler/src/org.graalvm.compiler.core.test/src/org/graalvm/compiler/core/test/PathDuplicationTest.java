@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.nodes.MergeNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.java.InstanceOfNode;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.common.PathDuplicationPhase;
+import org.junit.Test;
+
+public class PathDuplicationTest extends GraalCompilerTest {
+
+    /**
+     * These tests assume all code paths are reachable so disable profile based dead code removal.
+     */
+    @Override
+    protected OptimisticOptimizations getOptimisticOptimizations() {
+        return OptimisticOptimizations.ALL.remove(OptimisticOptimizations.Optimization.RemoveNeverExecutedCode);
+    }
+
+    public static int staticField;
+
+    public static int instanceOfSnippet(boolean b, Integer i, String s) {
+        Object o;
+        if (b) {
+            staticField = 1;
+            o = i;
+        } else {
+            staticField = 2;
+            o = s;
+        }
+        int integer = o instanceof Integer ? 1 : 2;
+        int string = o instanceof String ? 3 : 4;
+        return integer + string;
+    }
+
+    @Test
+    public void testInstanceOf() {
+        StructuredGraph graph = parseEager("instanceOfSnippet", AllowAssumptions.YES);
+        CanonicalizerPhase canonicalizer = createCanonicalizerPhase();
+        canonicalizer.apply(graph, getProviders());
+        new PathDuplicationPhase().apply(graph, getProviders());
+        canonicalizer.apply(graph, getProviders());
+        assertTrue(graph.getNodes().filter(MergeNode.class).isEmpty(), "merge should have been duplicated");
+        assertTrue(graph.getNodes().filter(InstanceOfNode.class).isEmpty(), "type checks should fold on the duplicated paths");
+
+        test("instanceOfSnippet", true, 42, "foo");
+        test("instanceOfSnippet", true, null, "foo");
+        test("instanceOfSnippet", false, 42, "foo");
+        test("instanceOfSnippet", false, 42, null);
+    }
+
+    public static int arithmeticSnippet(int kind, int x) {
+        int scale;
+        if (kind == 0) {
+            staticField = x;
+            scale = 1;
+        } else {
+            staticField = -x;
+            scale = 4;
+        }
+        staticField = x * scale + (x / scale) - (x % scale);
+        return staticField;
+    }
+
+    @Test
+    public void testArithmetic() {
+        for (int x : new int[]{0, 7, -13, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            test("arithmeticSnippet", 0, x);
+            test("arithmeticSnippet", 1, x);
+        }
+    }
+
+    public static int dispatchSnippet(int[] code, int start) {
+        int acc = start;
+        for (int pc = 0; pc < code.length; pc++) {
+            int operand;
+            switch (code[pc]) {
+                case 0:
+                    staticField++;
+                    operand = 1;
+                    break;
+                case 1:
+                    staticField--;
+                    operand = 2;
+                    break;
+                default:
+                    staticField ^= pc;
+                    operand = 0;
+                    break;
+            }
+            acc = acc * 3 + operand * 5 + (operand == 0 ? pc : -pc);
+        }
+        return acc;
+    }
+
+    @Test
+    public void testDispatch() {
+        test("dispatchSnippet", new int[]{0, 1, 2, 1, 0, 0, 3}, 5);
+        test("dispatchSnippet", new int[0], 5);
+    }
+}
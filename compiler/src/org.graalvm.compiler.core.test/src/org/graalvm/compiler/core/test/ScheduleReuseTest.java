@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.StructuredGraph.ScheduleResult;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.schedule.SchedulePhase;
+import org.graalvm.compiler.phases.schedule.SchedulePhase.SchedulingStrategy;
+import org.junit.Test;
+
+/**
+ * Tests that {@link SchedulePhase.Options#ReuseUnchangedSchedule} only reuses a schedule if the
+ * graph was not edited since it was computed.
+ */
+public class ScheduleReuseTest extends GraalCompilerTest {
+
+    static int sink;
+
+    public static void snippet(int a, int b) {
+        sink = a + b;
+        if (a > b) {
+            sink = a * 3;
+        } else {
+            sink = b;
+        }
+    }
+
+    private final SchedulePhase schedulePhase = new SchedulePhase(SchedulingStrategy.LATEST, true);
+
+    private StructuredGraph parse() {
+        OptionValues options = new OptionValues(getInitialOptions(), SchedulePhase.Options.ReuseUnchangedSchedule, true);
+        return parseEager("snippet", AllowAssumptions.YES, options);
+    }
+
+    private ScheduleResult schedule(StructuredGraph graph) {
+        schedulePhase.apply(graph);
+        return graph.getLastSchedule();
+    }
+
+    private void checkInvalidatedBy(String edit, StructuredGraph graph, Runnable action) {
+        ScheduleResult before = schedule(graph);
+        int editCount = graph.getEditCount();
+        action.run();
+        assertTrue(editCount != graph.getEditCount(), "%s does not change the edit count", edit);
+        assertTrue(schedule(graph) != before, "schedule reused after %s", edit);
+    }
+
+    @Test
+    public void testUnchanged() {
+        StructuredGraph graph = parse();
+        ScheduleResult first = schedule(graph);
+        assertTrue(schedule(graph) == first, "schedule of unchanged graph not reused");
+
+        SchedulePhase mutableSchedulePhase = new SchedulePhase(SchedulingStrategy.LATEST);
+        mutableSchedulePhase.apply(graph);
+        ScheduleResult mutable = graph.getLastSchedule();
+        assertTrue(mutable != first, "schedule of an immutable run reused by a mutable run");
+        mutableSchedulePhase.apply(graph);
+        assertTrue(graph.getLastSchedule() == mutable, "schedule of unchanged graph not reused");
+    }
+
+    @Test
+    public void testDisabled() {
+        StructuredGraph graph = parseEager("snippet", AllowAssumptions.YES, new OptionValues(getInitialOptions(), SchedulePhase.Options.ReuseUnchangedSchedule, false));
+        ScheduleResult first = schedule(graph);
+        assertTrue(schedule(graph) != first, "schedule reused although disabled");
+    }
+
+    @Test
+    public void testInputChange() {
+        StructuredGraph graph = parse();
+        AddNode add = graph.getNodes().filter(AddNode.class).first();
+        checkInvalidatedBy("input change", graph, () -> add.setY(add.getX()));
+    }
+
+    @Test
+    public void testSuccessorChange() {
+        StructuredGraph graph = parse();
+        IfNode ifNode = graph.getNodes(IfNode.TYPE).first();
+        checkInvalidatedBy("successor change", graph, () -> {
+            AbstractBeginNode trueSuccessor = ifNode.trueSuccessor();
+            AbstractBeginNode falseSuccessor = ifNode.falseSuccessor();
+            ifNode.setTrueSuccessor(null);
+            ifNode.setFalseSuccessor(trueSuccessor);
+            ifNode.setTrueSuccessor(falseSuccessor);
+        });
+    }
+
+    @Test
+    public void testNodeAddAndRemove() {
+        StructuredGraph graph = parse();
+        ConstantNode[] constant = new ConstantNode[1];
+        checkInvalidatedBy("node addition", graph, () -> constant[0] = ConstantNode.forInt(0x5EED, graph));
+        checkInvalidatedBy("node removal", graph, () -> constant[0].safeDelete());
+    }
+
+    @Test
+    public void testClearInputs() {
+        StructuredGraph graph = parse();
+        AddNode add = graph.getNodes().filter(AddNode.class).first();
+        ValueNode x = add.getX();
+        ValueNode y = add.getY();
+        ScheduleResult before = schedule(graph);
+        int editCount = graph.getEditCount();
+        add.clearInputs();
+        assertTrue(editCount != graph.getEditCount(), "clearInputs does not change the edit count");
+        add.setX(x);
+        add.setY(y);
+        assertTrue(schedule(graph) != before, "schedule reused after clearInputs");
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test;
+
+import org.graalvm.compiler.api.directives.GraalDirectives;
+import org.graalvm.compiler.lir.alloc.lsra.TraceLinearScanPhase;
+import org.graalvm.compiler.lir.profiling.MoveStatisticsPhase;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Test;
+
+/**
+ * Checks that code compiled with the trace ordered linear scan allocator computes the same
+ * results as the interpreter, both for methods that are allocated along traces and for methods
+ * that fall back to the default block order.
+ */
+public class TraceLinearScanTest extends GraalCompilerTest {
+
+    private OptionValues traceRAOptions() {
+        return new OptionValues(getInitialOptions(), TraceLinearScanPhase.Options.TraceRA, true, MoveStatisticsPhase.Options.LIRMoveStatistics, true);
+    }
+
+    public static int straightLineSnippet(int a, int b) {
+        return a * b + a - b;
+    }
+
+    @Test
+    public void testStraightLine() {
+        test(traceRAOptions(), "straightLineSnippet", 3, 4);
+    }
+
+    public static long coldPathSnippet(int[] values, long seed) {
+        long a = seed;
+        long b = seed * 31;
+        long c = seed ^ 0x5555;
+        for (int i = 0; i < values.length; i++) {
+            int v = values[i];
+            if (GraalDirectives.injectBranchProbability(GraalDirectives.UNLIKELY_PROBABILITY, v < 0)) {
+                // cold path with high register pressure
+                long x = a * v + b;
+                long y = b * v - c;
+                long z = c * v ^ a;
+                GraalDirectives.sideEffect(x + y + z);
+                a = x;
+                b = y;
+                c = z;
+            } else {
+                a += v;
+                b ^= a;
+                c -= b;
+            }
+        }
+        return a + b + c;
+    }
+
+    @Test
+    public void testColdPath() {
+        test(traceRAOptions(), "coldPathSnippet", new int[]{1, 2, -3, 4, 5, -6, 7}, 42L);
+    }
+
+    public static int switchSnippet(int[] values) {
+        int result = 0;
+        for (int value : values) {
+            switch (value & 7) {
+                case 0:
+                    result += value;
+                    break;
+                case 1:
+                    result -= value;
+                    break;
+                case 2:
+                    result *= 3;
+                    break;
+                case 3:
+                    result ^= value;
+                    break;
+                default:
+                    result = result * 31 + value;
+                    break;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testSwitch() {
+        test(traceRAOptions(), "switchSnippet", new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11});
+    }
+}
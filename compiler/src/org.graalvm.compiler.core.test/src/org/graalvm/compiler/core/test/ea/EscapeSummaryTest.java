@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test.ea;
+
+import org.graalvm.compiler.core.phases.HighTier;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.nodes.virtual.CommitAllocationNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.graalvm.compiler.virtual.phases.ea.EscapeSummaryCache;
+import org.junit.Test;
+
+/**
+ * Tests passing virtual objects to calls that are not inlined, with and without parameters that
+ * are local according to the {@link EscapeSummaryCache}.
+ */
+public class EscapeSummaryTest extends GraalCompilerTest {
+
+    static final class Point {
+        int x;
+        int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    static Point lastPoint;
+
+    @Override
+    protected Suites createSuites(OptionValues options) {
+        return super.createSuites(new OptionValues(options, HighTier.Options.Inline, false));
+    }
+
+    private OptionValues getOptions(boolean summaries) {
+        return new OptionValues(getInitialOptions(), EscapeSummaryCache.Options.OptEscapeSummaries, summaries);
+    }
+
+    private void testWithSummaries(String snippet, Object... args) {
+        test(getOptions(true), snippet, args);
+        test(getOptions(false), snippet, args);
+    }
+
+    static int sum(Point p) {
+        return p.x + p.y;
+    }
+
+    static int sumNested(Point p) {
+        return sum(p) + 1;
+    }
+
+    static boolean same(Point a, Point b) {
+        return a == b;
+    }
+
+    static int store(Point p) {
+        lastPoint = p;
+        return p.x;
+    }
+
+    static int modify(Point p) {
+        p.x++;
+        return p.x;
+    }
+
+    public static int readOnlySnippet(int a, int b) {
+        Point p = new Point(a, b);
+        int s = sum(p);
+        return s + p.x * p.y;
+    }
+
+    @Test
+    public void testReadOnly() {
+        testWithSummaries("readOnlySnippet", 3, 4);
+    }
+
+    public static int nestedSnippet(int a, int b) {
+        Point p = new Point(a, b);
+        return sumNested(p) + p.y;
+    }
+
+    @Test
+    public void testNested() {
+        testWithSummaries("nestedSnippet", 3, 4);
+    }
+
+    public static boolean identitySnippet(int a) {
+        Point p = new Point(a, a);
+        return same(p, p);
+    }
+
+    @Test
+    public void testIdentity() {
+        testWithSummaries("identitySnippet", 1);
+    }
+
+    public static boolean storeSnippet(int a) {
+        Point p = new Point(a, a);
+        store(p);
+        return lastPoint == p;
+    }
+
+    @Test
+    public void testStore() {
+        testWithSummaries("storeSnippet", 1);
+    }
+
+    public static int modifySnippet(int a) {
+        Point p = new Point(a, a);
+        modify(p);
+        return p.x;
+    }
+
+    @Test
+    public void testModify() {
+        testWithSummaries("modifySnippet", 1);
+    }
+
+    public static int loopSnippet(int a, int n) {
+        Point p = new Point(a, a + 1);
+        int s = 0;
+        for (int i = 0; i < n; i++) {
+            s += sum(p);
+        }
+        return s + p.x;
+    }
+
+    @Test
+    public void testLoop() {
+        testWithSummaries("loopSnippet", 3, 10);
+
+        OptionValues options = getOptions(true);
+        StructuredGraph graph = parseEager("loopSnippet", AllowAssumptions.YES, options);
+        createSuites(options).getHighTier().apply(graph, getDefaultHighTierContext());
+        ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, true, false);
+        for (CommitAllocationNode commit : graph.getNodes().filter(CommitAllocationNode.class)) {
+            assertTrue(cfg.blockFor(commit).getLoop() == null, "object allocated before the loop is materialized in the loop: %s", commit);
+        }
+    }
+
+    public static int loopAllocationSnippet(int a, int n) {
+        int s = 0;
+        for (int i = 0; i < n; i++) {
+            Point p = new Point(a, i);
+            s += sum(p) + p.y;
+        }
+        return s;
+    }
+
+    @Test
+    public void testLoopAllocation() {
+        testWithSummaries("loopAllocationSnippet", 3, 10);
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.test.inlining;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.java.BytecodeParserOptions;
+import org.graalvm.compiler.java.GraphBuilderPhase;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderConfiguration;
+import org.graalvm.compiler.nodes.spi.ProfileProvider;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.graalvm.compiler.phases.PhaseSuite;
+import org.graalvm.compiler.phases.common.inlining.EncodedGraphCache;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.DefaultProfilingInfo;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaMethodProfile;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.TriState;
+
+public class EncodedGraphCacheTest extends GraalCompilerTest {
+
+    static int callee(int a, int b) {
+        int result = 0;
+        for (int i = a; i < b; i++) {
+            result += i * a;
+        }
+        return result;
+    }
+
+    public static int snippet(int a) {
+        return callee(a, 10) + callee(a + 1, 20);
+    }
+
+    /**
+     * A mature profile without branch or type information that reports a given number of
+     * {@link DeoptimizationReason#UnreachedCode} deoptimizations.
+     */
+    private static final class DeoptimizedProfile implements ProfilingInfo {
+        private final ProfilingInfo delegate = DefaultProfilingInfo.get(TriState.FALSE);
+        private final int codeSize;
+        private final int deoptimizations;
+
+        DeoptimizedProfile(ResolvedJavaMethod method, int deoptimizations) {
+            this.codeSize = method.getCodeSize();
+            this.deoptimizations = deoptimizations;
+        }
+
+        @Override
+        public int getCodeSize() {
+            return codeSize;
+        }
+
+        @Override
+        public double getBranchTakenProbability(int bci) {
+            return delegate.getBranchTakenProbability(bci);
+        }
+
+        @Override
+        public double[] getSwitchProbabilities(int bci) {
+            return delegate.getSwitchProbabilities(bci);
+        }
+
+        @Override
+        public JavaTypeProfile getTypeProfile(int bci) {
+            return delegate.getTypeProfile(bci);
+        }
+
+        @Override
+        public JavaMethodProfile getMethodProfile(int bci) {
+            return delegate.getMethodProfile(bci);
+        }
+
+        @Override
+        public TriState getExceptionSeen(int bci) {
+            return delegate.getExceptionSeen(bci);
+        }
+
+        @Override
+        public TriState getNullSeen(int bci) {
+            return delegate.getNullSeen(bci);
+        }
+
+        @Override
+        public int getExecutionCount(int bci) {
+            return delegate.getExecutionCount(bci);
+        }
+
+        @Override
+        public int getDeoptimizationCount(DeoptimizationReason reason) {
+            return reason == DeoptimizationReason.UnreachedCode ? deoptimizations : 0;
+        }
+
+        @Override
+        public boolean setCompilerIRSize(Class<?> irType, int irSize) {
+            return false;
+        }
+
+        @Override
+        public int getCompilerIRSize(Class<?> irType) {
+            return -1;
+        }
+
+        @Override
+        public boolean isMature() {
+            return true;
+        }
+
+        @Override
+        public void setMature() {
+        }
+    }
+
+    private StructuredGraph inline(String snippet, OptionValues options, PhaseSuite<HighTierContext> graphBuilderSuite) {
+        return inline(snippet, options, graphBuilderSuite, null);
+    }
+
+    @SuppressWarnings("try")
+    private StructuredGraph inline(String snippet, OptionValues options, PhaseSuite<HighTierContext> graphBuilderSuite, ProfileProvider profileProvider) {
+        DebugContext debug = getDebugContext(options, null, null);
+        try (DebugContext.Scope s = debug.scope("EncodedGraphCacheTest")) {
+            ResolvedJavaMethod method = getResolvedJavaMethod(snippet);
+            StructuredGraph graph = parse(builder(method, AllowAssumptions.YES, debug).useProfilingInfo(profileProvider != null).profileProvider(profileProvider), getEagerGraphBuilderSuite());
+            HighTierContext context = new HighTierContext(getProviders(), graphBuilderSuite, OptimisticOptimizations.ALL);
+            createInliningPhase().apply(graph, context);
+            return graph;
+        } catch (Throwable e) {
+            throw debug.handle(e);
+        }
+    }
+
+    private OptionValues getCacheOptions() {
+        EconomicMap<OptionKey<?>, Object> overrides = OptionValues.newOptionMap();
+        overrides.put(EncodedGraphCache.Options.EncodedGraphCacheSize, 1024);
+        overrides.put(BytecodeParserOptions.InlineDuringParsing, false);
+        return new OptionValues(getInitialOptions(), overrides);
+    }
+
+    @Test
+    public void testReuse() {
+        OptionValues options = getCacheOptions();
+        PhaseSuite<HighTierContext> graphBuilderSuite = getDefaultGraphBuilderSuite();
+
+        EncodedGraphCache.clear();
+        long hits = EncodedGraphCache.getHits();
+        StructuredGraph first = inline("snippet", options, graphBuilderSuite);
+        Assert.assertTrue(first.getNodes().filter(Invoke.class).isEmpty());
+        Assert.assertTrue(EncodedGraphCache.getCachedBytes() > 0);
+        // the second call site of the first graph already reuses the graph of callee
+        Assert.assertTrue(EncodedGraphCache.getHits() > hits);
+
+        hits = EncodedGraphCache.getHits();
+        StructuredGraph second = inline("snippet", options, graphBuilderSuite);
+        Assert.assertTrue(second.getNodes().filter(Invoke.class).isEmpty());
+        Assert.assertEquals(hits + 2, EncodedGraphCache.getHits());
+
+        EncodedGraphCache.clear();
+        Assert.assertEquals(0, EncodedGraphCache.getCachedBytes());
+    }
+
+    /**
+     * Creates a copy of {@code suite} with a new graph builder phase, as compilers do to derive the
+     * graph builder suite of an individual compilation.
+     */
+    private static PhaseSuite<HighTierContext> deriveGraphBuilderSuite(PhaseSuite<HighTierContext> suite, boolean retainLocalVariables) {
+        PhaseSuite<HighTierContext> newSuite = suite.copy();
+        GraphBuilderPhase graphBuilderPhase = (GraphBuilderPhase) newSuite.findPhase(GraphBuilderPhase.class).previous();
+        GraphBuilderConfiguration config = graphBuilderPhase.getGraphBuilderConfig().withRetainLocalVariables(retainLocalVariables);
+        newSuite.findPhase(GraphBuilderPhase.class).set(new GraphBuilderPhase(config));
+        return newSuite;
+    }
+
+    @Test
+    public void testReuseWithDerivedSuite() {
+        PhaseSuite<HighTierContext> graphBuilderSuite = getDefaultGraphBuilderSuite();
+
+        EncodedGraphCache.clear();
+        inline("snippet", getCacheOptions(), graphBuilderSuite);
+
+        // equal suite and options that are not the same objects
+        long hits = EncodedGraphCache.getHits();
+        inline("snippet", getCacheOptions(), deriveGraphBuilderSuite(graphBuilderSuite, false));
+        Assert.assertEquals(hits + 2, EncodedGraphCache.getHits());
+
+        // a suite that parses differently must not reuse the cached graphs
+        hits = EncodedGraphCache.getHits();
+        long misses = EncodedGraphCache.getMisses();
+        inline("snippet", getCacheOptions(), deriveGraphBuilderSuite(graphBuilderSuite, true));
+        Assert.assertEquals(misses + 1, EncodedGraphCache.getMisses());
+        Assert.assertEquals(hits + 1, EncodedGraphCache.getHits());
+        EncodedGraphCache.clear();
+    }
+
+    @Test
+    public void testRecompileAfterDeoptimization() {
+        OptionValues options = getCacheOptions();
+        PhaseSuite<HighTierContext> graphBuilderSuite = getDefaultGraphBuilderSuite();
+        int[] deoptimizations = {0};
+        ProfileProvider profileProvider = m -> new DeoptimizedProfile(m, deoptimizations[0]);
+
+        EncodedGraphCache.clear();
+        inline("snippet", options, graphBuilderSuite, profileProvider);
+        long hits = EncodedGraphCache.getHits();
+        inline("snippet", options, graphBuilderSuite, profileProvider);
+        Assert.assertEquals(hits + 2, EncodedGraphCache.getHits());
+
+        // code compiled with the cached graph of callee deoptimized
+        deoptimizations[0]++;
+        hits = EncodedGraphCache.getHits();
+        long misses = EncodedGraphCache.getMisses();
+        StructuredGraph recompiled = inline("snippet", options, graphBuilderSuite, profileProvider);
+        Assert.assertTrue(recompiled.getNodes().filter(Invoke.class).isEmpty());
+        // the stale graph is parsed again for the first call site and reused for the second
+        Assert.assertEquals(misses + 1, EncodedGraphCache.getMisses());
+        Assert.assertEquals(hits + 1, EncodedGraphCache.getHits());
+
+        hits = EncodedGraphCache.getHits();
+        inline("snippet", options, graphBuilderSuite, profileProvider);
+        Assert.assertEquals(hits + 2, EncodedGraphCache.getHits());
+        EncodedGraphCache.clear();
+    }
+
+    @Test
+    public void testDisabled() {
+        EncodedGraphCache.clear();
+        OptionValues options = new OptionValues(getInitialOptions(), BytecodeParserOptions.InlineDuringParsing, false);
+        long hits = EncodedGraphCache.getHits();
+        StructuredGraph graph = inline("snippet", options, getDefaultGraphBuilderSuite());
+        Assert.assertTrue(graph.getNodes().filter(Invoke.class).isEmpty());
+        Assert.assertEquals(hits, EncodedGraphCache.getHits());
+        Assert.assertEquals(0, EncodedGraphCache.getCachedBytes());
+    }
+}
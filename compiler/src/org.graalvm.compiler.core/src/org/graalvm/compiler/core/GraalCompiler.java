@@ -24,15 +24,20 @@
  */
 package org.graalvm.compiler.core;
 
+import java.util.List;
+
 import org.graalvm.compiler.code.CompilationResult;
 import org.graalvm.compiler.core.common.PermanentBailoutException;
 import org.graalvm.compiler.core.common.RetryableBailoutException;
 import org.graalvm.compiler.core.common.util.CompilationAlarm;
+import org.graalvm.compiler.core.common.util.CompilationBudget;
 import org.graalvm.compiler.core.target.Backend;
+import org.graalvm.compiler.debug.CounterKey;
 import org.graalvm.compiler.debug.DebugCloseable;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.debug.DebugContext.CompilerPhaseScope;
 import org.graalvm.compiler.debug.MethodFilter;
+import org.graalvm.compiler.debug.TTY;
 import org.graalvm.compiler.debug.TimerKey;
 import org.graalvm.compiler.lir.asm.CompilationResultBuilderFactory;
 import org.graalvm.compiler.lir.phases.LIRSuites;
@@ -57,6 +62,7 @@ public class GraalCompiler {
 
     private static final TimerKey CompilerTimer = DebugContext.timer("GraalCompiler").doc("Time spent in compilation (excludes code installation).");
     private static final TimerKey FrontEnd = DebugContext.timer("FrontEnd").doc("Time spent processing HIR.");
+    private static final CounterKey CompilationsOverBudget = DebugContext.counter("CompilationsOverBudget").doc("Number of compilations that skipped optional phases.");
 
     /**
      * Encapsulates all the inputs to a {@linkplain GraalCompiler#compile(Request) compilation}.
@@ -139,7 +145,8 @@ public class GraalCompiler {
     @SuppressWarnings("try")
     public static <T extends CompilationResult> T compile(Request<T> r) {
         DebugContext debug = r.graph.getDebug();
-        try (CompilationAlarm alarm = CompilationAlarm.trackCompilationPeriod(r.graph.getOptions())) {
+        try (CompilationAlarm alarm = CompilationAlarm.trackCompilationPeriod(r.graph.getOptions());
+                        CompilationBudget budget = CompilationBudget.trackCompilationBudget(r.graph.getOptions())) {
             assert !r.graph.isFrozen();
             try (DebugContext.Scope s0 = debug.scope("GraalCompiler", r.graph, r.providers.getCodeCache()); DebugCloseable a = CompilerTimer.start(debug)) {
                 emitFrontEnd(r.providers, r.backend, r.graph, r.graphBuilderSuite, r.optimisticOpts, r.profilingInfo, r.suites);
@@ -150,11 +157,33 @@ public class GraalCompiler {
             } catch (Throwable e) {
                 throw debug.handle(e);
             }
+            if (budget != null) {
+                reportSkippedPhases(r.graph, budget);
+            }
             checkForRequestedCrash(r.graph);
             return r.compilationResult;
         }
     }
 
+    /**
+     * Logs the phases that were skipped or downgraded while compiling {@code graph} because
+     * {@code budget} was exhausted. The phases are also printed to {@link TTY} if
+     * {@link GraalCompilerOptions#PrintCompilation} is enabled.
+     */
+    private static void reportSkippedPhases(StructuredGraph graph, CompilationBudget budget) {
+        List<String> skipped = budget.getSkippedPhases();
+        if (skipped.isEmpty()) {
+            return;
+        }
+        DebugContext debug = graph.getDebug();
+        CompilationsOverBudget.increment(debug);
+        debug.log(DebugContext.BASIC_LEVEL, "Compilation budget exhausted, skipped %s", skipped);
+        if (GraalCompilerOptions.PrintCompilation.getValue(graph.getOptions()) && !TTY.isSuppressed()) {
+            String name = graph.method() != null ? graph.method().format("%H.%n(%p)") : graph.name;
+            TTY.println("%s: compilation budget exhausted, skipped %s", name, String.join(", ", skipped));
+        }
+    }
+
     /**
      * Checks whether the {@link GraalCompilerOptions#CrashAt} option indicates that the compilation
      * of {@code graph} should result in an exception.
@@ -453,4 +453,33 @@ public class NodeUsagesTests extends GraphTest {
 
         assertThat(def1.usages(), isNotEmpty());
     }
+
+    @Test
+    public void testUsagesAfterCompression() {
+        OptionValues options = new OptionValues(getOptions(), Graph.Options.CompactNodeStorage, true);
+        Graph graph = new Graph(options, getDebug(options));
+        Def def0 = graph.add(new Def());
+        Use[] uses = new Use[100];
+        for (int i = 0; i < uses.length; i++) {
+            uses[i] = graph.add(new Use(def0, null, null));
+        }
+        for (int i = 0; i < uses.length; i++) {
+            if (i % 10 != 0) {
+                uses[i].safeDelete();
+            }
+        }
+        assertEquals(10, def0.getUsageCount());
+
+        graph.maybeCompress();
+
+        assertEquals(11, graph.getNodeCount());
+        assertEquals(10, def0.getUsageCount());
+        for (int i = 0; i < uses.length; i += 10) {
+            assertThat(def0.usages(), contains(uses[i]));
+        }
+
+        Use use = graph.add(new Use(def0, def0, null));
+        assertEquals(12, def0.getUsageCount());
+        assertThat(def0.usages(), contains(use));
+    }
 }
@@ -65,6 +65,8 @@ public class Graph {
         public static final OptionKey<Boolean> VerifyGraalGraphEdges = new OptionKey<>(false);
         @Option(help = "Graal graph compression is performed when percent of live nodes falls below this value", type = OptionType.Debug)//
         public static final OptionKey<Integer> GraphCompressionThreshold = new OptionKey<>(70);
+        @Option(help = "Release unused node and usage list capacity when a graph is compressed", type = OptionType.Debug)//
+        public static final OptionKey<Boolean> CompactNodeStorage = new OptionKey<>(false);
     }
 
     private enum FreezeState {
@@ -81,6 +83,7 @@ public class Graph {
      */
     public final boolean verifyGraphs;
     public final boolean verifyGraphEdges;
+    private final boolean compactNodeStorage;
 
     /**
      * The set of nodes in the graph, ordered by {@linkplain #register(Node) registration} time.
@@ -125,6 +128,12 @@ public class Graph {
      */
     int compressions;
 
+    /**
+     * The number of edits to this graph, i.e. node registrations and deletions as well as input
+     * and successor edge changes.
+     */
+    int editCount;
+
     NodeEventListener nodeEventListener;
 
     /**
@@ -297,6 +306,7 @@ public class Graph {
 
         verifyGraphs = Options.VerifyGraalGraphs.getValue(options);
         verifyGraphEdges = Options.VerifyGraalGraphEdges.getValue(options);
+        compactNodeStorage = Options.CompactNodeStorage.getValue(options);
     }
 
     int extractOriginalNodeId(Node node) {
@@ -447,6 +457,15 @@ public class Graph {
         return compressions;
     }
 
+    /**
+     * Gets a counter that is incremented whenever a node is added to or removed from this graph or
+     * an input or successor edge of one of its nodes changes. Analysis results derived from the
+     * edges of this graph remain valid as long as this value does not change.
+     */
+    public int getEditCount() {
+        return editCount;
+    }
+
     /**
      * Gets the number of nodes which have been deleted from this graph since it was last
      * {@linkplain #maybeCompress() compressed}.
@@ -921,6 +940,7 @@ public class Graph {
     }
 
     private static final CounterKey GraphCompressions = DebugContext.counter("GraphCompressions");
+    private static final CounterKey GraphNodeSlotsReleased = DebugContext.counter("GraphNodeSlotsReleased");
 
     @SuppressWarnings("unused")
     protected Object beforeNodeIdChange(Node node) {
@@ -934,7 +954,9 @@ public class Graph {
     /**
      * If the {@linkplain Options#GraphCompressionThreshold compression threshold} is met, the list
      * of nodes is compressed such that all non-null entries precede all null entries while
-     * preserving the ordering between the nodes within the list.
+     * preserving the ordering between the nodes within the list. If {@link Options#CompactNodeStorage}
+     * is enabled, spare capacity in the node list and in the usage lists of the live nodes is
+     * released as well.
      */
     public boolean maybeCompress() {
         if (debug.isDumpEnabledForMethod() || debug.isLogEnabledForMethod()) {
@@ -969,12 +991,36 @@ public class Graph {
             Arrays.fill(nodeUsageModCounts, 0);
         }
         nodesSize = nextId;
+        if (compactNodeStorage) {
+            compactNodeStorage();
+        }
         compressions++;
         nodesDeletedBeforeLastCompression += nodesDeletedSinceLastCompression;
         nodesDeletedSinceLastCompression = 0;
         return true;
     }
 
+    /**
+     * Shrinks {@link #nodes} if it is much larger than the number of live nodes and trims the
+     * usage lists of live nodes that waste most of their capacity. Graphs that went through several rounds of inlining and
+     * canonicalization otherwise keep the peak capacity for the rest of the compilation, which
+     * hurts both the footprint and the locality of every subsequent pass over the nodes.
+     */
+    private void compactNodeStorage() {
+        for (int i = 0; i < nodesSize; i++) {
+            nodes[i].trimUsages();
+        }
+        int capacity = nodesSize + (nodesSize >> 2) + 1;
+        if (nodes.length > capacity * 2) {
+            GraphNodeSlotsReleased.add(debug, nodes.length - capacity);
+            nodes = Arrays.copyOf(nodes, capacity);
+            if (isModificationCountsEnabled()) {
+                nodeModCounts = Arrays.copyOf(nodeModCounts, Math.min(nodeModCounts.length, capacity));
+                nodeUsageModCounts = Arrays.copyOf(nodeUsageModCounts, Math.min(nodeUsageModCounts.length, capacity));
+            }
+        }
+    }
+
     /**
      * Returns an {@link Iterable} providing all the live nodes whose type is compatible with
      * {@code type}.
@@ -1096,6 +1142,7 @@ public class Graph {
         int id = nodesSize++;
         nodes[id] = node;
         node.id = id;
+        editCount++;
         if (currentNodeSourcePosition != null && trackNodeSourcePosition()) {
             node.setNodeSourcePosition(currentNodeSourcePosition);
         }
@@ -1167,6 +1214,7 @@ public class Graph {
         }
         nodes[node.id] = null;
         nodesDeletedSinceLastCompression++;
+        editCount++;
 
         if (nodeEventListener != null) {
             nodeEventListener.event(NodeEvent.NODE_REMOVED, node);
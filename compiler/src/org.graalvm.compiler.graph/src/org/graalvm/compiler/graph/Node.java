@@ -236,6 +236,7 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
 
     static final int INLINE_USAGE_COUNT = 2;
     private static final Node[] NO_NODES = {};
+    private static final int MIN_TRIMMED_USAGES = 8;
 
     /**
      * Head of usage list. The elements of the usage list in order are {@link #usage0},
@@ -485,6 +486,24 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
         }
     }
 
+    /**
+     * Releases the unused capacity of {@link #extraUsages} if more than half of it and at least
+     * {@link #MIN_TRIMMED_USAGES} entries are unused. Smaller amounts of spare capacity are kept as
+     * they are likely to be used again and copying the array would cost more than it saves.
+     */
+    void trimUsages() {
+        int unused = extraUsages.length - extraUsagesCount;
+        if (unused < MIN_TRIMMED_USAGES || unused <= extraUsagesCount) {
+            return;
+        }
+        if (extraUsagesCount == 0) {
+            extraUsages = NO_NODES;
+        } else {
+            extraUsages = Arrays.copyOf(extraUsages, extraUsagesCount);
+        }
+    }
+
+
     private void movUsageFromEndTo(int destIndex) {
         if (destIndex >= INLINE_USAGE_COUNT) {
             movUsageFromEndToExtraUsages(destIndex - INLINE_USAGE_COUNT);
@@ -568,8 +587,11 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
     }
 
     final void incModCount() {
-        if (isModificationCountsEnabled() && graph != null) {
-            graph.incModCount(this);
+        if (graph != null) {
+            graph.editCount++;
+            if (isModificationCountsEnabled()) {
+                graph.incModCount(this);
+            }
         }
     }
 
@@ -944,6 +966,7 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
     private void maybeNotifyInputChanged(Node node) {
         if (graph != null) {
             assert !graph.isFrozen();
+            graph.editCount++;
             NodeEventListener listener = graph.nodeEventListener;
             if (listener != null) {
                 listener.event(Graph.NodeEvent.INPUT_CHANGED, node);
@@ -1011,6 +1034,9 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
 
     public void clearInputs() {
         assert assertFalse(isDeleted(), "cannot clear inputs of deleted node");
+        if (graph != null) {
+            graph.editCount++;
+        }
         getNodeClass().unregisterAtInputsAsUsage(this);
     }
 
@@ -1020,6 +1046,9 @@ public abstract class Node implements Cloneable, Formattable, NodeInterface {
 
     public void clearSuccessors() {
         assert assertFalse(isDeleted(), "cannot clear successors of deleted node");
+        if (graph != null) {
+            graph.editCount++;
+        }
         getNodeClass().unregisterAtSuccessorsAsPredecessor(this);
     }
 
@@ -46,10 +46,12 @@ import javax.management.ReflectionException;
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.core.common.SuppressFBWarnings;
 import org.graalvm.compiler.debug.TTY;
+import org.graalvm.compiler.hotspot.DeoptimizationStormDetector;
 import org.graalvm.compiler.hotspot.HotSpotGraalRuntime;
 import org.graalvm.compiler.options.OptionDescriptor;
 import org.graalvm.compiler.options.OptionDescriptors;
 import org.graalvm.compiler.options.OptionsParser;
+import org.graalvm.compiler.phases.common.inlining.EncodedGraphCache;
 import org.graalvm.compiler.serviceprovider.GraalServices;
 
 import jdk.vm.ci.services.Services;
@@ -93,8 +95,46 @@ public final class HotSpotGraalRuntimeMBean implements DynamicMBean {
         }
     }
 
+    private static final String ENCODED_GRAPH_CACHE_HITS = "EncodedGraphCacheHits";
+    private static final String ENCODED_GRAPH_CACHE_MISSES = "EncodedGraphCacheMisses";
+    private static final String ENCODED_GRAPH_CACHE_HIT_RATE = "EncodedGraphCacheHitRate";
+    private static final String ENCODED_GRAPH_CACHE_BYTES = "EncodedGraphCacheBytes";
+    private static final String DEOPT_STORMS = "DeoptStorms";
+    private static final String DEOPT_STORM_THROTTLED_COMPILATIONS = "DeoptStormThrottledCompilations";
+
+    /**
+     * Gets the value of the read-only attribute {@code name} reporting statistics of the
+     * {@link EncodedGraphCache} or the {@link DeoptimizationStormDetector}.
+     *
+     * @return {@code null} if {@code name} does not denote a statistics attribute
+     */
+    private static Object getStatistic(String name) {
+        switch (name) {
+            case ENCODED_GRAPH_CACHE_HITS:
+                return EncodedGraphCache.getHits();
+            case ENCODED_GRAPH_CACHE_MISSES:
+                return EncodedGraphCache.getMisses();
+            case ENCODED_GRAPH_CACHE_HIT_RATE:
+                long hits = EncodedGraphCache.getHits();
+                long lookups = hits + EncodedGraphCache.getMisses();
+                return lookups == 0 ? 0D : (double) hits / lookups;
+            case ENCODED_GRAPH_CACHE_BYTES:
+                return EncodedGraphCache.getCachedBytes();
+            case DEOPT_STORMS:
+                return DeoptimizationStormDetector.getStormCount();
+            case DEOPT_STORM_THROTTLED_COMPILATIONS:
+                return DeoptimizationStormDetector.getThrottledCompilations();
+            default:
+                return null;
+        }
+    }
+
     @Override
     public Object getAttribute(String name) throws AttributeNotFoundException {
+        Object statistic = getStatistic(name);
+        if (statistic != null) {
+            return statistic;
+        }
         String[] result = runtime.getOptionValues(name);
         String value = result[0];
         if (value == null) {
@@ -131,7 +171,10 @@ public final class HotSpotGraalRuntimeMBean implements DynamicMBean {
         for (int i = 0; i < names.length; i++) {
             String value = values[i];
             String name = names[i];
-            if (value == null) {
+            Object statistic = getStatistic(name);
+            if (statistic != null) {
+                list.add(new Attribute(name, statistic));
+            } else if (value == null) {
                 TTY.printf("No such option named %s%n", name);
             } else {
                 if (DEBUG) {
@@ -226,6 +269,13 @@ public final class HotSpotGraalRuntimeMBean implements DynamicMBean {
             }
             attrs.add(new MBeanAttributeInfo(option.getName(), optionValueType.getName(), option.getHelp(), true, true, false));
         }
+        attrs.add(new MBeanAttributeInfo(ENCODED_GRAPH_CACHE_HITS, Long.class.getName(), "Number of inlining candidates decoded from the encoded graph cache", true, false, false));
+        attrs.add(new MBeanAttributeInfo(ENCODED_GRAPH_CACHE_MISSES, Long.class.getName(), "Number of inlining candidates not found in the encoded graph cache", true, false, false));
+        attrs.add(new MBeanAttributeInfo(ENCODED_GRAPH_CACHE_HIT_RATE, Double.class.getName(), "Ratio of encoded graph cache lookups that found a cached graph", true, false, false));
+        attrs.add(new MBeanAttributeInfo(ENCODED_GRAPH_CACHE_BYTES, Long.class.getName(), "Approximate size in bytes of the graphs in the encoded graph cache", true, false, false));
+        attrs.add(new MBeanAttributeInfo(DEOPT_STORMS, Long.class.getName(), "Number of deoptimization storms that temporarily disabled a speculation", true, false, false));
+        attrs.add(new MBeanAttributeInfo(DEOPT_STORM_THROTTLED_COMPILATIONS, Long.class.getName(), "Number of compilations with a speculation disabled by a deoptimization storm", true, false,
+                        false));
         attrs.sort(new Comparator<MBeanAttributeInfo>() {
             @Override
             public int compare(MBeanAttributeInfo o1, MBeanAttributeInfo o2) {
@@ -297,7 +297,6 @@ public class CheckGraalIntrinsics extends GraalTest {
 
             // Compact string support - HotSpot MacroAssembler-based intrinsic or complex C2 logic.
             add(toBeInvestigated,
-                            "java/lang/StringCoding.hasNegatives([BII)Z",
                             "java/lang/StringCoding.implEncodeISOArray([BI[BII)I");
             add(ignore,
                             // handled through an intrinsic for String.equals itself
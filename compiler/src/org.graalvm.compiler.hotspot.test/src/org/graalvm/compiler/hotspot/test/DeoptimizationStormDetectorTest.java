@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot.test;
+
+import static org.graalvm.compiler.hotspot.DeoptimizationStormDetector.Options.DeoptStormBackoff;
+import static org.graalvm.compiler.hotspot.DeoptimizationStormDetector.Options.DeoptStormThreshold;
+import static org.graalvm.compiler.hotspot.DeoptimizationStormDetector.Options.DeoptStormWindow;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.hotspot.DeoptimizationStormDetector;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.OptimisticOptimizations.Optimization;
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+public class DeoptimizationStormDetectorTest extends GraalCompilerTest {
+
+    private static final int THRESHOLD = 3;
+    private static final int WINDOW = 1000;
+    private static final int BACKOFF = 100;
+
+    public static int snippet(int a) {
+        return a + 1;
+    }
+
+    private final Map<DeoptimizationReason, Integer> counts = new EnumMap<>(DeoptimizationReason.class);
+
+    private DeoptimizationStormDetector createDetector() {
+        OptionValues options = new OptionValues(getInitialOptions(), DeoptStormThreshold, THRESHOLD, DeoptStormWindow, WINDOW, DeoptStormBackoff, BACKOFF);
+        return DeoptimizationStormDetector.create(options);
+    }
+
+    private Set<Optimization> compile(DeoptimizationStormDetector detector, ResolvedJavaMethod method, long now) {
+        return detector.throttledOptimizations(method, reason -> counts.getOrDefault(reason, 0), now);
+    }
+
+    private Set<Optimization> deoptAndCompile(DeoptimizationStormDetector detector, ResolvedJavaMethod method, DeoptimizationReason reason, long now) {
+        counts.merge(reason, 1, Integer::sum);
+        return compile(detector, method, now);
+    }
+
+    @Test
+    public void testDisabled() {
+        OptionValues options = new OptionValues(getInitialOptions(), DeoptStormThreshold, 0);
+        Assert.assertNull(DeoptimizationStormDetector.create(options));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        Assert.assertNull(DeoptimizationStormDetector.create(getInitialOptions()));
+    }
+
+    @Test
+    public void testHistoryDroppedAfterDeoptimizationFreeCompilation() {
+        DeoptimizationStormDetector detector = createDetector();
+        ResolvedJavaMethod method = getResolvedJavaMethod("snippet");
+        Assert.assertTrue(compile(detector, method, 0).isEmpty());
+        Assert.assertEquals(0, detector.getTrackedMethodCount());
+
+        Assert.assertTrue(deoptAndCompile(detector, method, DeoptimizationReason.UnreachedCode, 10).isEmpty());
+        Assert.assertEquals(1, detector.getTrackedMethodCount());
+        // the last deoptimization can still contribute to a storm
+        Assert.assertTrue(compile(detector, method, 10 + WINDOW).isEmpty());
+        Assert.assertEquals(1, detector.getTrackedMethodCount());
+        Assert.assertTrue(compile(detector, method, 11 + WINDOW).isEmpty());
+        Assert.assertEquals(0, detector.getTrackedMethodCount());
+
+        // a method in an ongoing storm is tracked until the backoff expired
+        long now = 2 * WINDOW;
+        for (int i = 0; i < THRESHOLD; i++) {
+            deoptAndCompile(detector, method, DeoptimizationReason.UnreachedCode, ++now);
+        }
+        Assert.assertTrue(compile(detector, method, now + 1).contains(Optimization.RemoveNeverExecutedCode));
+        Assert.assertEquals(1, detector.getTrackedMethodCount());
+        Assert.assertTrue(compile(detector, method, now + WINDOW + 1).isEmpty());
+        Assert.assertEquals(0, detector.getTrackedMethodCount());
+    }
+
+    @Test
+    public void testStormDisablesOnlyFailingSpeculation() {
+        DeoptimizationStormDetector detector = createDetector();
+        ResolvedJavaMethod method = getResolvedJavaMethod("snippet");
+        Assert.assertTrue(compile(detector, method, 0).isEmpty());
+        Assert.assertTrue(deoptAndCompile(detector, method, DeoptimizationReason.UnreachedCode, 10).isEmpty());
+        Assert.assertTrue(deoptAndCompile(detector, method, DeoptimizationReason.UnreachedCode, 20).isEmpty());
+        Set<Optimization> throttled = deoptAndCompile(detector, method, DeoptimizationReason.UnreachedCode, 30);
+        Assert.assertEquals(1, throttled.size());
+        Assert.assertTrue(throttled.contains(Optimization.RemoveNeverExecutedCode));
+
+        // deoptimizations for another reason are tracked independently
+        Assert.assertFalse(deoptAndCompile(detector, method, DeoptimizationReason.TypeCheckedInliningViolated, 40).contains(Optimization.UseTypeCheckedInlining));
+
+        // the speculation is enabled again once the backoff expired
+        Assert.assertTrue(compile(detector, method, 30 + BACKOFF).isEmpty());
+    }
+
+    @Test
+    public void testSlowDeoptimizationsAreNoStorm() {
+        DeoptimizationStormDetector detector = createDetector();
+        ResolvedJavaMethod method = getResolvedJavaMethod("snippet");
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(deoptAndCompile(detector, method, DeoptimizationReason.LoopLimitCheck, i * WINDOW).isEmpty());
+        }
+    }
+
+    @Test
+    public void testExponentialBackoff() {
+        DeoptimizationStormDetector detector = createDetector();
+        ResolvedJavaMethod method = getResolvedJavaMethod("snippet");
+        long now = 0;
+        long expectedBackoff = BACKOFF;
+        for (int storm = 0; storm < 3; storm++) {
+            int deopts = 0;
+            do {
+                deopts++;
+                Assert.assertTrue(deopts <= THRESHOLD);
+            } while (!deoptAndCompile(detector, method, DeoptimizationReason.OptimizedTypeCheckViolated, ++now).contains(Optimization.UseTypeCheckHints));
+            Assert.assertTrue(compile(detector, method, now + expectedBackoff - 1).contains(Optimization.UseTypeCheckHints));
+            Assert.assertFalse(compile(detector, method, now + expectedBackoff).contains(Optimization.UseTypeCheckHints));
+            now += expectedBackoff;
+            expectedBackoff *= 2;
+        }
+    }
+}
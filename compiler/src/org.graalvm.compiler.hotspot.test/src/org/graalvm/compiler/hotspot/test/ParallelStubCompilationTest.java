@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot.test;
+
+import static org.graalvm.compiler.hotspot.HotSpotBackend.NEW_ARRAY;
+import static org.graalvm.compiler.hotspot.HotSpotBackend.NEW_MULTI_ARRAY;
+import static org.graalvm.compiler.hotspot.phases.ParallelStubCompilationPhase.Options.ParallelStubCompilation;
+
+import java.util.concurrent.ForkJoinTask;
+
+import org.graalvm.compiler.hotspot.HotSpotForeignCallLinkage;
+import org.graalvm.compiler.hotspot.meta.HotSpotForeignCallsProviderImpl;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelStubCompilationTest extends HotSpotGraalCompilerTest {
+
+    public static int[][] newMultiArraySnippet(int a, int b) {
+        return new int[a][b];
+    }
+
+    public static Object newArraySnippet(int length) {
+        return new Object[length];
+    }
+
+    private HotSpotForeignCallsProviderImpl getForeignCalls() {
+        return (HotSpotForeignCallsProviderImpl) getProviders().getForeignCalls();
+    }
+
+    @Test
+    public void testParallelStubCompilation() {
+        OptionValues options = new OptionValues(getInitialOptions(), ParallelStubCompilation, true);
+        test(options, "newMultiArraySnippet", 3, 4);
+        test(options, "newArraySnippet", 5);
+        Assert.assertNull("stub compilation started for an already compiled stub", getForeignCalls().compileStubAsync(NEW_MULTI_ARRAY));
+        Assert.assertNull("stub compilation started for an already compiled stub", getForeignCalls().compileStubAsync(NEW_ARRAY));
+    }
+
+    @Test
+    public void testLookupJoinsStubCompilation() {
+        HotSpotForeignCallsProviderImpl foreignCalls = getForeignCalls();
+        ForkJoinTask<?> task = foreignCalls.compileStubAsync(NEW_MULTI_ARRAY);
+        HotSpotForeignCallLinkage linkage = foreignCalls.lookupForeignCall(NEW_MULTI_ARRAY);
+        if (task != null) {
+            Assert.assertTrue("lookup returned before the stub compilation finished", task.isDone());
+            Assert.assertFalse(task.isCompletedAbnormally());
+        }
+        Assert.assertNotEquals(0L, linkage.getAddress());
+        Assert.assertNull(foreignCalls.compileStubAsync(NEW_MULTI_ARRAY));
+    }
+}
@@ -24,13 +24,17 @@
  */
 package org.graalvm.compiler.hotspot.test;
 
+import org.graalvm.compiler.core.common.GraalOptions;
 import org.graalvm.compiler.core.test.GraalCompilerTest;
 import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.nodes.AbstractDeoptimizeNode;
+import org.graalvm.compiler.nodes.CallTargetNode.InvokeKind;
 import org.graalvm.compiler.nodes.InvokeNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
 import org.graalvm.compiler.nodes.java.TypeSwitchNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.inlining.InliningPhase;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -133,6 +137,96 @@ public class PolymorphicInliningTest extends GraalCompilerTest {
         assertTrue(getNodeCount(graph, AbstractDeoptimizeNode.class) == 0);
     }
 
+    public int interfaceSnippet(Interface receiver) {
+        return receiver.foo();
+    }
+
+    private StructuredGraph parseInterfaceSnippet(OptionValues options, double notRecordedProbability, ProfiledType... injectedProfile) {
+        return parseInterfaceSnippet(options, Integer.MAX_VALUE, notRecordedProbability, injectedProfile);
+    }
+
+    private StructuredGraph parseInterfaceSnippet(OptionValues options, int maxMethodsPerInlining, double notRecordedProbability, ProfiledType... injectedProfile) {
+        StructuredGraph graph = parseForCompile(getResolvedJavaMethod("interfaceSnippet"), options);
+        injectTypeProfile(graph, "PolymorphicInliningTest$Interface.foo", new JavaTypeProfile(TriState.FALSE, notRecordedProbability, injectedProfile));
+        InliningPhase inlining = (InliningPhase) createInliningPhase();
+        inlining.setMaxMethodsPerInlining(maxMethodsPerInlining);
+        inlining.apply(graph, getDefaultHighTierContext());
+        return graph;
+    }
+
+    private OptionValues getDirectCallOptions() {
+        return new OptionValues(getInitialOptions(), GraalOptions.DirectCallTypeDispatch, true);
+    }
+
+    @Test
+    public void testMegamorphicInterfaceDirectCalls() {
+        MetaAccessProvider metaAccess = getMetaAccess();
+        StructuredGraph graph = parseInterfaceSnippet(getDirectCallOptions(), 0.1D,
+                        new ProfiledType(metaAccess.lookupJavaType(A.class), 0.3D),
+                        new ProfiledType(metaAccess.lookupJavaType(B.class), 0.3D),
+                        new ProfiledType(metaAccess.lookupJavaType(NotInlinableSubClass.class), 0.3D));
+
+        // The callsite is not inlined, but the profiled types are dispatched to direct calls and
+        // only the remaining types take the interface call.
+        assertTrue(getNodeCount(graph, InvokeNode.class) == 4);
+        assertTrue(getNodeCount(graph, TypeSwitchNode.class) == 1);
+        assertTrue(getNodeCount(graph, AbstractDeoptimizeNode.class) == 0);
+        assertTrue(getInvokeCount(graph, InvokeKind.Special) == 3);
+        assertTrue(getInvokeCount(graph, InvokeKind.Interface) == 1);
+    }
+
+    @Test
+    public void testMegamorphicInterfaceDirectCallsLimited() {
+        MetaAccessProvider metaAccess = getMetaAccess();
+        StructuredGraph graph = parseInterfaceSnippet(getDirectCallOptions(), 2, 0.1D,
+                        new ProfiledType(metaAccess.lookupJavaType(A.class), 0.32D),
+                        new ProfiledType(metaAccess.lookupJavaType(NotInlinableSubClass.class), 0.28D),
+                        new ProfiledType(metaAccess.lookupJavaType(B.class), 0.3D));
+
+        // Only the methods of the two most frequent receiver types are called directly.
+        assertTrue(getNodeCount(graph, TypeSwitchNode.class) == 1);
+        assertTrue(getInvokeCount(graph, InvokeKind.Special) == 2);
+        assertTrue(getInvokeCount(graph, InvokeKind.Interface) == 1);
+        for (MethodCallTargetNode callTarget : graph.getNodes(MethodCallTargetNode.TYPE)) {
+            if (callTarget.invokeKind() == InvokeKind.Special && callTarget.usages().isNotEmpty()) {
+                assertTrue(!callTarget.targetMethod().getDeclaringClass().equals(metaAccess.lookupJavaType(NotInlinableSubClass.class)));
+            }
+        }
+    }
+
+    @Test
+    public void testMegamorphicInterfaceDirectCallsDisabled() {
+        MetaAccessProvider metaAccess = getMetaAccess();
+        // disabled by default
+        OptionValues options = getInitialOptions();
+        StructuredGraph graph = parseInterfaceSnippet(options, 0.1D,
+                        new ProfiledType(metaAccess.lookupJavaType(A.class), 0.3D),
+                        new ProfiledType(metaAccess.lookupJavaType(B.class), 0.3D),
+                        new ProfiledType(metaAccess.lookupJavaType(NotInlinableSubClass.class), 0.3D));
+
+        assertTrue(getNodeCount(graph, InvokeNode.class) == 1);
+        assertTrue(getNodeCount(graph, TypeSwitchNode.class) == 0);
+        assertTrue(getInvokeCount(graph, InvokeKind.Interface) == 1);
+    }
+
+    @Test
+    public void testMegamorphicInterfaceRarelyProfiled() {
+        MetaAccessProvider metaAccess = getMetaAccess();
+        StructuredGraph graph = parseInterfaceSnippet(getDirectCallOptions(), 0.7D,
+                        new ProfiledType(metaAccess.lookupJavaType(A.class), 0.1D),
+                        new ProfiledType(metaAccess.lookupJavaType(B.class), 0.1D),
+                        new ProfiledType(metaAccess.lookupJavaType(NotInlinableSubClass.class), 0.1D));
+
+        // The profiled types cover too few calls to be worth the type checks.
+        assertTrue(getNodeCount(graph, InvokeNode.class) == 1);
+        assertTrue(getNodeCount(graph, TypeSwitchNode.class) == 0);
+        assertTrue(getInvokeCount(graph, InvokeKind.Interface) == 1);
+    }
+
+    private static int getInvokeCount(StructuredGraph graph, InvokeKind kind) {
+        return graph.getNodes(MethodCallTargetNode.TYPE).filter(callTarget -> ((MethodCallTargetNode) callTarget).invokeKind() == kind && callTarget.usages().isNotEmpty()).count();
+    }
+
     private static void injectTypeProfile(StructuredGraph graph, String targetMethod, JavaTypeProfile profile) {
         for (MethodCallTargetNode callTargetNode : graph.getNodes(MethodCallTargetNode.TYPE)) {
             if (targetMethod.equals(callTargetNode.targetName())) {
@@ -145,25 +239,29 @@ public class PolymorphicInliningTest extends GraalCompilerTest {
         return graph.getNodes().filter(nodeClass).count();
     }
 
+    private interface Interface {
+        int foo();
+    }
+
     private abstract static class SuperClass {
         abstract int foo();
     }
 
-    private static class A extends SuperClass {
+    private static class A extends SuperClass implements Interface {
         @Override
         public int foo() {
             return 'A';
         }
     }
 
-    private static class B extends SuperClass {
+    private static class B extends SuperClass implements Interface {
         @Override
         public int foo() {
             return 'B';
         }
     }
 
-    private static class NotInlinableSubClass extends SuperClass {
+    private static class NotInlinableSubClass extends SuperClass implements Interface {
         @Override
         public int foo() {
             return 'X';
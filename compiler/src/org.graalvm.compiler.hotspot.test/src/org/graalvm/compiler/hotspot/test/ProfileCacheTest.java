@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.graalvm.compiler.hotspot.ProfileCache;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Assert;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaMethodProfile;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.TriState;
+
+public class ProfileCacheTest extends HotSpotGraalCompilerTest {
+
+    public static int branchSnippet(int a) {
+        if (a > 0) {
+            return a * 2;
+        }
+        return -a;
+    }
+
+    /**
+     * A profile with the same branch probability at every bytecode index.
+     */
+    private static final class FixedProfilingInfo implements ProfilingInfo {
+        private final int codeSize;
+        private final double branchTakenProbability;
+        private final boolean mature;
+        private final int nullCheckDeopts;
+
+        FixedProfilingInfo(ResolvedJavaMethod method, double branchTakenProbability, boolean mature) {
+            this(method, branchTakenProbability, mature, 3);
+        }
+
+        FixedProfilingInfo(ResolvedJavaMethod method, double branchTakenProbability, boolean mature, int nullCheckDeopts) {
+            this.codeSize = method.getCodeSize();
+            this.branchTakenProbability = branchTakenProbability;
+            this.mature = mature;
+            this.nullCheckDeopts = nullCheckDeopts;
+        }
+
+        @Override
+        public int getCodeSize() {
+            return codeSize;
+        }
+
+        @Override
+        public double getBranchTakenProbability(int bci) {
+            return branchTakenProbability;
+        }
+
+        @Override
+        public double[] getSwitchProbabilities(int bci) {
+            return null;
+        }
+
+        @Override
+        public JavaTypeProfile getTypeProfile(int bci) {
+            return null;
+        }
+
+        @Override
+        public JavaMethodProfile getMethodProfile(int bci) {
+            return null;
+        }
+
+        @Override
+        public TriState getExceptionSeen(int bci) {
+            return TriState.FALSE;
+        }
+
+        @Override
+        public TriState getNullSeen(int bci) {
+            return TriState.UNKNOWN;
+        }
+
+        @Override
+        public int getExecutionCount(int bci) {
+            return -1;
+        }
+
+        @Override
+        public int getDeoptimizationCount(DeoptimizationReason reason) {
+            return reason == DeoptimizationReason.NullCheckException ? nullCheckDeopts : 0;
+        }
+
+        @Override
+        public boolean setCompilerIRSize(Class<?> irType, int irSize) {
+            return false;
+        }
+
+        @Override
+        public int getCompilerIRSize(Class<?> irType) {
+            return -1;
+        }
+
+        @Override
+        public boolean isMature() {
+            return mature;
+        }
+
+        @Override
+        public void setMature() {
+        }
+    }
+
+    private OptionValues cacheOptions(File file) {
+        return new OptionValues(getInitialOptions(), ProfileCache.Options.ProfileCacheFile, file.getPath());
+    }
+
+    private static File newCacheFile() throws IOException {
+        File file = File.createTempFile("profiles", ".bin").getAbsoluteFile();
+        Assert.assertTrue(file.delete());
+        return file;
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        File file = newCacheFile();
+        try {
+            ResolvedJavaMethod method = getResolvedJavaMethod("branchSnippet");
+            ProfileCache cache = ProfileCache.create(cacheOptions(file));
+            cache.record(method, new FixedProfilingInfo(method, 0.25, true));
+            // the profile of a method is only recorded once per VM
+            cache.record(method, new FixedProfilingInfo(method, 0.75, true));
+            cache.save();
+
+            ProfileCache loaded = ProfileCache.create(cacheOptions(file));
+            ProfilingInfo info = loaded.getProfilingInfo(method, new FixedProfilingInfo(method, -1, false, 0));
+            Assert.assertTrue(info.isMature());
+            Assert.assertEquals(method.getCodeSize(), info.getCodeSize());
+            Assert.assertEquals(0.25, info.getBranchTakenProbability(0), 0);
+            Assert.assertEquals(TriState.FALSE, info.getExceptionSeen(0));
+            Assert.assertEquals(3, info.getDeoptimizationCount(DeoptimizationReason.NullCheckException));
+            Assert.assertEquals(0, info.getDeoptimizationCount(DeoptimizationReason.ClassCastException));
+
+            // deoptimizations of the current run are not hidden by the recorded profile
+            ProfilingInfo deoptimizing = loaded.getProfilingInfo(method, new FixedProfilingInfo(method, -1, false, 5));
+            Assert.assertEquals(0.25, deoptimizing.getBranchTakenProbability(0), 0);
+            Assert.assertEquals(5, deoptimizing.getDeoptimizationCount(DeoptimizationReason.NullCheckException));
+
+            // a mature VM profile takes precedence over the recorded one
+            ProfilingInfo vmProfile = new FixedProfilingInfo(method, 0.5, true);
+            Assert.assertSame(vmProfile, loaded.getProfilingInfo(method, vmProfile));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testFingerprintMismatch() throws IOException {
+        File file = newCacheFile();
+        try {
+            ResolvedJavaMethod method = getResolvedJavaMethod("branchSnippet");
+            ProfileCache cache = ProfileCache.create(cacheOptions(file));
+            cache.record(method, new FixedProfilingInfo(method, 0.25, true));
+            cache.save();
+
+            /*
+             * Simulate a change of the bytecode by corrupting the fingerprint that follows the
+             * header (magic, version, count) and the key of the single recorded method.
+             */
+            byte[] content = Files.readAllBytes(file.toPath());
+            int keyLength = ((content[12] & 0xff) << 8) | (content[13] & 0xff);
+            content[14 + keyLength + 7] ^= 1;
+            Files.write(file.toPath(), content);
+
+            ProfileCache loaded = ProfileCache.create(cacheOptions(file));
+            ProfilingInfo vmProfile = new FixedProfilingInfo(method, -1, false);
+            Assert.assertSame(vmProfile, loaded.getProfilingInfo(method, vmProfile));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testUnreadableCacheIgnored() throws IOException {
+        File file = newCacheFile();
+        try {
+            Files.write(file.toPath(), new byte[]{0x47, 0x50, 0x52});
+            ResolvedJavaMethod method = getResolvedJavaMethod("branchSnippet");
+            ProfileCache cache = ProfileCache.create(cacheOptions(file));
+            Assert.assertNotNull(cache);
+            ProfilingInfo vmProfile = new FixedProfilingInfo(method, -1, false);
+            Assert.assertSame(vmProfile, cache.getProfilingInfo(method, vmProfile));
+
+            // the unreadable file is replaced by the profiles of this run
+            cache.record(method, new FixedProfilingInfo(method, 0.25, true));
+            cache.save();
+            ProfileCache loaded = ProfileCache.create(cacheOptions(file));
+            Assert.assertEquals(0.25, loaded.getProfilingInfo(method, vmProfile).getBranchTakenProbability(0), 0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testSaveFailureIgnored() throws IOException {
+        File dir = newCacheFile();
+        File file = new File(dir, "profiles.bin");
+        ResolvedJavaMethod method = getResolvedJavaMethod("branchSnippet");
+        ProfileCache cache = ProfileCache.create(cacheOptions(file));
+        cache.record(method, new FixedProfilingInfo(method, 0.25, true));
+        // the directory of the cache file does not exist
+        cache.save();
+        Assert.assertFalse(file.exists());
+    }
+}
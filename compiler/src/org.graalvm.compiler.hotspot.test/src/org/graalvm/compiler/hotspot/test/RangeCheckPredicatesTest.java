@@ -1133,7 +1133,37 @@ public class RangeCheckPredicatesTest extends GraalCompilerTest {
 
     @Test
     public void testLoopUpScalePosExtraIV() {
-        verifyRangeCheckInLoop("rangeCheckPredicatesLoopUpScalePosExtraIV");
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopUpScalePosExtraIV");
+        runNoOutOfBound("rangeCheckPredicatesLoopUpScalePosExtraIV", 1000, getOptionsMainPath(), 0, 19);
+        runOutOfBound("rangeCheckPredicatesLoopUpScalePosExtraIV", 1000, false, 0, 20);
+    }
+
+    public static void rangeCheckPredicatesLoopDownScalePosExtraIV(int[] array, int start, int stop) {
+        int j = 0;
+        for (int i = stop; i > start; i--) {
+            array[j] = i;
+            j += 2;
+        }
+    }
+
+    @Test
+    public void testLoopDownScalePosExtraIV() {
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopDownScalePosExtraIV");
+        runNoOutOfBound("rangeCheckPredicatesLoopDownScalePosExtraIV", 1000, getOptionsMainPath(), 0, 500);
+        runOutOfBound("rangeCheckPredicatesLoopDownScalePosExtraIV", 1000, false, 0, 501);
+    }
+
+    public static void rangeCheckPredicatesLoopUpScalePosSubOffset(int[] array, int start, int stop, int offset) {
+        for (int i = start; i < stop; i++) {
+            array[i - offset] = i;
+        }
+    }
+
+    @Test
+    public void testLoopUpScalePosSubOffset() {
+        verifyNoRangeCheckInLoop("rangeCheckPredicatesLoopUpScalePosSubOffset");
+        runNoOutOfBound("rangeCheckPredicatesLoopUpScalePosSubOffset", 1000, getOptionsMainPath(), 5, 1005, 5);
+        runOutOfBound("rangeCheckPredicatesLoopUpScalePosSubOffset", 1000, false, 4, 1005, 5);
     }
 
     // Guard above exit test
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot.test;
+
+import org.graalvm.compiler.api.directives.GraalDirectives;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.virtual.nodes.StackArrayNode;
+import org.graalvm.compiler.virtual.phases.ea.StackAllocationPhase;
+import org.junit.Test;
+
+/**
+ * Tests arrays that are allocated in the stack frame by the {@link StackAllocationPhase}.
+ */
+public class StackAllocationTest extends GraalCompilerTest {
+
+    private OptionValues getOptions() {
+        return new OptionValues(getInitialOptions(), StackAllocationPhase.Options.StackAllocation, true);
+    }
+
+    private void checkStackArrays(String snippet, int expected) {
+        OptionValues options = getOptions();
+        StructuredGraph graph = parseEager(snippet, AllowAssumptions.YES, options);
+        createSuites(options).getHighTier().apply(graph, getDefaultHighTierContext());
+        assertDeepEquals(expected, graph.getNodes().filter(StackArrayNode.class).count());
+    }
+
+    public static int bytesSnippet(int n) {
+        byte[] buffer = new byte[16];
+        for (int i = 0; i < n; i++) {
+            buffer[i & 15] += (byte) i;
+        }
+        int sum = 0;
+        for (int i = 0; i < buffer.length; i++) {
+            sum = sum * 31 + buffer[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testBytes() {
+        test(getOptions(), "bytesSnippet", 100);
+        // the array is live in the loop header states, which would read all elements per iteration
+        checkStackArrays("bytesSnippet", 0);
+    }
+
+    public static int charsSnippet(int a, int b) {
+        char[] buffer = new char[8];
+        buffer[a] = 'x';
+        buffer[b] = (char) 0xFFFF;
+        return buffer[a] + buffer[b] + buffer[7];
+    }
+
+    @Test
+    public void testChars() {
+        test(getOptions(), "charsSnippet", 1, 2);
+        test(getOptions(), "charsSnippet", 3, 3);
+        checkStackArrays("charsSnippet", 1);
+    }
+
+    public static long outOfBoundsSnippet(int index) {
+        long[] buffer = new long[4];
+        buffer[index] = 42;
+        return buffer[0];
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        test(getOptions(), "outOfBoundsSnippet", 0);
+        test(getOptions(), "outOfBoundsSnippet", 4);
+        test(getOptions(), "outOfBoundsSnippet", -1);
+    }
+
+    public static int deoptimizeSnippet(int a, int b) {
+        int[] buffer = new int[4];
+        buffer[a] = 17;
+        buffer[b] = -1;
+        GraalDirectives.deoptimize();
+        return buffer[0] + buffer[1] * 3 + buffer[2] * 5 + buffer[3] * 7;
+    }
+
+    @Test
+    public void testDeoptimize() {
+        test(getOptions(), "deoptimizeSnippet", 1, 3);
+    }
+
+    public static double deoptimizeInLoopSnippet(int n) {
+        double[] buffer = new double[3];
+        for (int i = 0; i < n; i++) {
+            buffer[i % 3] += i;
+            if (i == 7) {
+                GraalDirectives.deoptimize();
+            }
+        }
+        return buffer[0] + buffer[1] * 2 + buffer[2] * 4;
+    }
+
+    @Test
+    public void testDeoptimizeInLoop() {
+        test(getOptions(), "deoptimizeInLoopSnippet", 10);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot;
+
+import java.util.ArrayList;
+
+import org.graalvm.compiler.hotspot.ProfileCache.BciProfile;
+import org.graalvm.compiler.hotspot.ProfileCache.MethodProfile;
+
+import jdk.vm.ci.hotspot.HotSpotJVMCIRuntime;
+import jdk.vm.ci.hotspot.HotSpotResolvedObjectType;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaMethodProfile;
+import jdk.vm.ci.meta.JavaType;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.JavaTypeProfile.ProfiledType;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.TriState;
+
+/**
+ * A {@link ProfilingInfo} backed by a profile recorded in the {@link ProfileCache}. Deoptimizations
+ * of the current run are taken from the immature profile of the VM.
+ */
+final class CachedProfilingInfo implements ProfilingInfo {
+
+    private final ResolvedJavaMethod method;
+    private final MethodProfile profile;
+    private final ProfilingInfo vmProfile;
+
+    CachedProfilingInfo(ResolvedJavaMethod method, MethodProfile profile, ProfilingInfo vmProfile) {
+        this.method = method;
+        this.profile = profile;
+        this.vmProfile = vmProfile;
+    }
+
+    @Override
+    public int getCodeSize() {
+        return profile.codeSize;
+    }
+
+    @Override
+    public double getBranchTakenProbability(int bci) {
+        BciProfile bciProfile = profile.get(bci);
+        return bciProfile == null ? -1 : bciProfile.branchTakenProbability;
+    }
+
+    @Override
+    public double[] getSwitchProbabilities(int bci) {
+        BciProfile bciProfile = profile.get(bci);
+        return bciProfile == null || bciProfile.switchProbabilities == null ? null : bciProfile.switchProbabilities.clone();
+    }
+
+    /**
+     * Resolves the recorded types relative to the declaring class of the method. Types that are
+     * not loaded (yet) are dropped and accounted for as not recorded.
+     */
+    @Override
+    public JavaTypeProfile getTypeProfile(int bci) {
+        BciProfile bciProfile = profile.get(bci);
+        if (bciProfile == null || !bciProfile.hasTypeProfile()) {
+            return null;
+        }
+        ResolvedJavaType accessingClass = method.getDeclaringClass();
+        if (!(accessingClass instanceof HotSpotResolvedObjectType)) {
+            return null;
+        }
+        ArrayList<ProfiledType> types = new ArrayList<>(bciProfile.typeNames.length);
+        double notRecordedProbability = bciProfile.typeProfileNotRecordedProbability;
+        for (int i = 0; i < bciProfile.typeNames.length; i++) {
+            JavaType type = HotSpotJVMCIRuntime.runtime().lookupType(bciProfile.typeNames[i], (HotSpotResolvedObjectType) accessingClass, false);
+            if (type instanceof ResolvedJavaType) {
+                types.add(new ProfiledType((ResolvedJavaType) type, bciProfile.typeProbabilities[i]));
+            } else {
+                notRecordedProbability += bciProfile.typeProbabilities[i];
+            }
+        }
+        return new JavaTypeProfile(bciProfile.typeProfileNullSeen, Math.min(1.0, notRecordedProbability), types.toArray(new ProfiledType[types.size()]));
+    }
+
+    @Override
+    public JavaMethodProfile getMethodProfile(int bci) {
+        return null;
+    }
+
+    @Override
+    public TriState getExceptionSeen(int bci) {
+        BciProfile bciProfile = profile.get(bci);
+        return bciProfile == null ? TriState.UNKNOWN : bciProfile.exceptionSeen;
+    }
+
+    @Override
+    public TriState getNullSeen(int bci) {
+        BciProfile bciProfile = profile.get(bci);
+        return bciProfile == null ? TriState.UNKNOWN : bciProfile.nullSeen;
+    }
+
+    @Override
+    public int getExecutionCount(int bci) {
+        BciProfile bciProfile = profile.get(bci);
+        return bciProfile == null ? -1 : bciProfile.executionCount;
+    }
+
+    @Override
+    public int getDeoptimizationCount(DeoptimizationReason reason) {
+        return Math.max(profile.getDeoptimizationCount(reason), vmProfile.getDeoptimizationCount(reason));
+    }
+
+    @Override
+    public boolean setCompilerIRSize(Class<?> irType, int irSize) {
+        return false;
+    }
+
+    @Override
+    public int getCompilerIRSize(Class<?> irType) {
+        return -1;
+    }
+
+    @Override
+    public boolean isMature() {
+        return true;
+    }
+
+    @Override
+    public void setMature() {
+    }
+
+    @Override
+    public String toString() {
+        return "CachedProfilingInfo<" + method.format("%H.%n(%p)") + ">";
+    }
+}
@@ -97,6 +97,8 @@ public final class CompilationStatistics {
     private int codeSize;
     @TimeValue private long duration;
     private long memoryUsed;
+    private int parallelStubCompilations;
+    @TimeValue private long stubWait;
     private final boolean osr;
     private final String holder;
     private final String name;
@@ -132,6 +134,22 @@ public final class CompilationStatistics {
         }
     }
 
+    /**
+     * Records that the compilation of a stub called by this compilation was started in parallel
+     * with it.
+     */
+    public void startedParallelStubCompilation() {
+        parallelStubCompilations++;
+    }
+
+    /**
+     * Records the time this compilation spent compiling a stub it calls or waiting for a parallel
+     * compilation of that stub to finish.
+     */
+    public void waitedForStub(long nanos) {
+        stubWait += nanos;
+    }
+
     public static CompilationStatistics current() {
         return current.get().isEmpty() ? null : current.get().getLast();
     }
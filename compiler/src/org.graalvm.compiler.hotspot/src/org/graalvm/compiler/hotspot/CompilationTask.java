@@ -50,6 +50,7 @@ import org.graalvm.compiler.debug.TimerKey;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.options.OptionKey;
 import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.common.inlining.EncodedGraphCache;
 import org.graalvm.compiler.printer.GraalDebugHandlersFactory;
 
 import jdk.vm.ci.code.BailoutException;
@@ -370,6 +371,13 @@ public class CompilationTask {
                             installAsDefault,
                             context);
         } catch (Throwable e) {
+            if (e instanceof BailoutException && !((BailoutException) e).isPermanent() && graph.getAssumptions() != null && !graph.getAssumptions().isEmpty()) {
+                /*
+                 * Installation failed due to invalid dependencies. Graphs of inlined methods built
+                 * based on the invalid assumptions must not be reused by later compilations.
+                 */
+                EncodedGraphCache.evict(graph);
+            }
             throw debug.handle(e);
         }
     }
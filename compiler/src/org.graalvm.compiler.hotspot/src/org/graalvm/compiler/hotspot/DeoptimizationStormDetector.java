@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.graalvm.compiler.phases.OptimisticOptimizations.Optimization;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Detects deoptimization storms, i.e., a method that is repeatedly deoptimized and recompiled
+ * because the same kind of speculation keeps failing, and temporarily disables that speculation
+ * for the method.
+ *
+ * HotSpot counts the deoptimizations of a method per {@link DeoptimizationReason}. Before each
+ * compilation, the increase of these counts since the previous compilation of the method is
+ * recorded for each site, i.e., each method and reason guarding one of the
+ * {@linkplain Optimization optimistic optimizations}. If the compilations of the last
+ * {@link Options#DeoptStormWindow} milliseconds include {@link Options#DeoptStormThreshold}
+ * compilations following deoptimizations at the same site, the corresponding optimization is
+ * disabled for the method for a backoff period. The backoff period starts at
+ * {@link Options#DeoptStormBackoff} milliseconds and doubles each time a storm resumes at the same
+ * site shortly after the previous backoff expired.
+ *
+ * The history of a method is dropped once it is compiled without new deoptimizations and has no
+ * ongoing storm, and at most {@link #MAX_TRACKED_METHODS} methods are tracked at a time, so that
+ * the detector does not keep a record of every method that ever deoptimized. Detection is disabled
+ * by default.
+ *
+ * This complements {@link GraalOptions#DeoptsToDisableOptimisticOptimization}, which disables an
+ * optimization permanently once the total number of deoptimizations crosses a fixed limit,
+ * regardless of how fast they occur. Individual failed speculations are already excluded from
+ * recompilations by the {@link jdk.vm.ci.meta.SpeculationLog}.
+ */
+public final class DeoptimizationStormDetector {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Number of recompilations following deoptimizations for the same reason within " +
+                       "DeoptStormWindow milliseconds after which the speculation is temporarily disabled " +
+                       "for the method. A value of 0 disables deoptimization storm detection.", type = OptionType.Expert)
+        public static final OptionKey<Integer> DeoptStormThreshold = new OptionKey<>(0);
+        @Option(help = "Length in milliseconds of the window in which deoptimization storms are detected.", type = OptionType.Expert)
+        public static final OptionKey<Integer> DeoptStormWindow = new OptionKey<>(10000);
+        @Option(help = "Initial time in milliseconds for which a speculation is disabled after a deoptimization storm. " +
+                       "The time doubles each time a storm resumes at the same site.", type = OptionType.Expert)
+        public static final OptionKey<Integer> DeoptStormBackoff = new OptionKey<>(1000);
+        // @formatter:on
+    }
+
+    /**
+     * The deoptimization reasons tracked by the detector, in the order of the
+     * {@link #OPTIMIZATIONS} they guard. This mirrors the mapping used by
+     * {@link OptimisticOptimizations}.
+     */
+    private static final DeoptimizationReason[] REASONS = {
+                    DeoptimizationReason.UnreachedCode,
+                    DeoptimizationReason.TypeCheckedInliningViolated,
+                    DeoptimizationReason.OptimizedTypeCheckViolated,
+                    DeoptimizationReason.NotCompiledExceptionHandler,
+                    DeoptimizationReason.LoopLimitCheck
+    };
+
+    private static final Optimization[] OPTIMIZATIONS = {
+                    Optimization.RemoveNeverExecutedCode,
+                    Optimization.UseTypeCheckedInlining,
+                    Optimization.UseTypeCheckHints,
+                    Optimization.UseExceptionProbability,
+                    Optimization.UseLoopLimitChecks
+    };
+
+    /**
+     * Limits the backoff period to {@code 2^MAX_BACKOFF_SHIFT} times the initial period.
+     */
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    /**
+     * Maximum number of methods whose deoptimization history is recorded at a time.
+     */
+    public static final int MAX_TRACKED_METHODS = 4096;
+
+    private static final AtomicLong stormCount = new AtomicLong();
+    private static final AtomicLong throttledCompilations = new AtomicLong();
+
+    /**
+     * The history of a single deoptimization reason for a method.
+     */
+    private static final class Site {
+        int lastCount;
+        /**
+         * Ring buffer of the times of the last {@code threshold} compilations that followed a
+         * deoptimization at this site.
+         */
+        final long[] events;
+        int nextEvent;
+        int recordedEvents;
+        long backoff;
+        long backoffUntil;
+
+        Site(int threshold) {
+            this.events = new long[threshold];
+        }
+
+        /**
+         * Records a compilation following a deoptimization at this site.
+         *
+         * @return {@code true} if this event starts a new storm
+         */
+        boolean recordEvent(long now, long window, long initialBackoff) {
+            events[nextEvent] = now;
+            nextEvent = (nextEvent + 1) % events.length;
+            recordedEvents = Math.min(recordedEvents + 1, events.length);
+            if (recordedEvents < events.length || now - events[nextEvent] > window || now < backoffUntil) {
+                return false;
+            }
+            if (backoff == 0 || now - backoffUntil > window) {
+                backoff = initialBackoff;
+            } else {
+                backoff = Math.min(backoff * 2, initialBackoff << MAX_BACKOFF_SHIFT);
+            }
+            backoffUntil = now + backoff;
+            return true;
+        }
+
+        /**
+         * Determines if this site neither throttles an optimization nor has recorded events that
+         * can still contribute to a storm at time {@code now}.
+         */
+        boolean isIdle(long now, long window) {
+            if (now < backoffUntil) {
+                return false;
+            }
+            if (recordedEvents == 0) {
+                return true;
+            }
+            long lastEvent = events[(nextEvent + events.length - 1) % events.length];
+            return now - lastEvent > window;
+        }
+    }
+
+    private final int threshold;
+    private final long window;
+    private final long initialBackoff;
+    private final Map<ResolvedJavaMethod, Site[]> sites = new ConcurrentHashMap<>();
+
+    private DeoptimizationStormDetector(int threshold, long window, long initialBackoff) {
+        this.threshold = threshold;
+        this.window = window;
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * Creates the detector configured by {@code options}, or returns {@code null} if detection is
+     * disabled.
+     */
+    public static DeoptimizationStormDetector create(OptionValues options) {
+        int threshold = Options.DeoptStormThreshold.getValue(options);
+        if (threshold <= 0) {
+            return null;
+        }
+        return new DeoptimizationStormDetector(threshold, Options.DeoptStormWindow.getValue(options), Math.max(1, Options.DeoptStormBackoff.getValue(options)));
+    }
+
+    /**
+     * Records the deoptimizations of {@code method} reported by {@code profilingInfo} and removes
+     * the optimizations of {@code optimisticOpts} that are disabled by an ongoing storm.
+     *
+     * @param profilingInfo the profile of the VM, which must not include deoptimizations of a
+     *            previous run
+     */
+    public OptimisticOptimizations apply(ResolvedJavaMethod method, ProfilingInfo profilingInfo, OptimisticOptimizations optimisticOpts) {
+        Set<Optimization> throttled = throttledOptimizations(method, profilingInfo::getDeoptimizationCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        if (throttled.isEmpty()) {
+            return optimisticOpts;
+        }
+        throttledCompilations.incrementAndGet();
+        return optimisticOpts.remove(throttled.toArray(new Optimization[throttled.size()]));
+    }
+
+    /**
+     * Records the current deoptimization counts of {@code method} at time {@code now} and returns
+     * the optimizations that must not be used when compiling it.
+     *
+     * @param deoptimizationCounts the number of deoptimizations of {@code method} per reason
+     * @param now the current time in milliseconds
+     */
+    public Set<Optimization> throttledOptimizations(ResolvedJavaMethod method, ToIntFunction<DeoptimizationReason> deoptimizationCounts, long now) {
+        Set<Optimization> throttled = EnumSet.noneOf(Optimization.class);
+        Site[] methodSites = sites.get(method);
+        boolean deoptimized = false;
+        boolean idle = true;
+        for (int i = 0; i < REASONS.length; i++) {
+            int count = deoptimizationCounts.applyAsInt(REASONS[i]);
+            if (methodSites == null) {
+                if (count == 0 || sites.size() >= MAX_TRACKED_METHODS) {
+                    continue;
+                }
+                methodSites = sites.computeIfAbsent(method, m -> new Site[REASONS.length]);
+            }
+            synchronized (methodSites) {
+                Site site = methodSites[i];
+                if (site == null) {
+                    if (count == 0) {
+                        continue;
+                    }
+                    site = new Site(threshold);
+                    methodSites[i] = site;
+                }
+                if (count > site.lastCount) {
+                    deoptimized = true;
+                    site.lastCount = count;
+                    if (site.recordEvent(now, window, initialBackoff)) {
+                        stormCount.incrementAndGet();
+                    }
+                }
+                if (now < site.backoffUntil) {
+                    throttled.add(OPTIMIZATIONS[i]);
+                }
+                idle &= site.isIdle(now, window);
+            }
+        }
+        if (methodSites != null && !deoptimized && idle) {
+            /*
+             * The method compiles without deoptimizations and there is no storm in progress. Its
+             * history is not needed anymore.
+             */
+            sites.remove(method, methodSites);
+        }
+        return throttled;
+    }
+
+    /**
+     * Gets the number of methods whose deoptimization history is currently recorded.
+     */
+    public int getTrackedMethodCount() {
+        return sites.size();
+    }
+
+    /**
+     * Gets the number of deoptimization storms detected by all detectors.
+     */
+    public static long getStormCount() {
+        return stormCount.get();
+    }
+
+    /**
+     * Gets the number of compilations for which an optimization was disabled due to a
+     * deoptimization storm.
+     */
+    public static long getThrottledCompilations() {
+        return throttledCompilations.get();
+    }
+}
@@ -83,6 +83,8 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler, Cancellable, JV
     private final HotSpotGraalRuntimeProvider graalRuntime;
     private final CompilationCounters compilationCounters;
     private final BootstrapWatchDog bootstrapWatchDog;
+    private final ProfileCache profileCache;
+    private final DeoptimizationStormDetector deoptStormDetector;
     private List<DebugHandlersFactory> factories;
 
     HotSpotGraalCompiler(HotSpotJVMCIRuntime jvmciRuntime, HotSpotGraalRuntimeProvider graalRuntime, OptionValues options) {
@@ -91,6 +93,11 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler, Cancellable, JV
         // It is sufficient to have one compilation counter object per compiler object.
         this.compilationCounters = Options.CompilationCountLimit.getValue(options) > 0 ? new CompilationCounters(options) : null;
         this.bootstrapWatchDog = graalRuntime.isBootstrapping() && !DebugOptions.BootstrapInitializeOnly.getValue(options) ? BootstrapWatchDog.maybeCreate(graalRuntime) : null;
+        this.profileCache = ProfileCache.create(options);
+        if (profileCache != null && graalRuntime instanceof HotSpotGraalRuntime) {
+            ((HotSpotGraalRuntime) graalRuntime).addShutdownHook(profileCache::save);
+        }
+        this.deoptStormDetector = DeoptimizationStormDetector.create(options);
     }
 
     public List<DebugHandlersFactory> getDebugHandlersFactories() {
@@ -201,6 +208,7 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler, Cancellable, JV
                             entryBCI(entryBCI).
                             speculationLog(speculationLog).
                             useProfilingInfo(useProfilingInfo).
+                            profileProvider(useProfilingInfo ? profileCache : null).
                             compilationId(compilationId).build();
             // @formatter:on
         }
@@ -222,7 +230,14 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler, Cancellable, JV
         Suites suites = getSuites(providers, options);
         LIRSuites lirSuites = getLIRSuites(providers, options);
         ProfilingInfo profilingInfo = useProfilingInfo ? method.getProfilingInfo(!isOSR, isOSR) : DefaultProfilingInfo.get(TriState.FALSE);
+        ProfilingInfo vmProfilingInfo = profilingInfo;
+        if (useProfilingInfo && profileCache != null) {
+            profilingInfo = profileCache.getProfilingInfo(method, profilingInfo);
+        }
         OptimisticOptimizations optimisticOpts = getOptimisticOpts(profilingInfo, options);
+        if (useProfilingInfo && deoptStormDetector != null) {
+            optimisticOpts = deoptStormDetector.apply(method, vmProfilingInfo, optimisticOpts);
+        }
 
         /*
          * Cut off never executed code profiles if there is code, e.g. after the osr loop, that is
@@ -241,6 +256,9 @@ public class HotSpotGraalCompiler implements GraalJVMCICompiler, Cancellable, JV
             ProfilingInfo profile = profilingInfo;
             profile.setCompilerIRSize(StructuredGraph.class, graph.getNodeCount());
         }
+        if (useProfilingInfo && profileCache != null) {
+            profileCache.record(graph);
+        }
 
         return result;
     }
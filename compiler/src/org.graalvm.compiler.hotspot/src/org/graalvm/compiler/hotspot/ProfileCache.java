@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.graalvm.compiler.bytecode.BytecodeStream;
+import org.graalvm.compiler.bytecode.Bytecodes;
+import org.graalvm.compiler.debug.TTY;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.spi.ProfileProvider;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaTypeProfile;
+import jdk.vm.ci.meta.JavaTypeProfile.ProfiledType;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.TriState;
+
+/**
+ * A persistent cache of the profiles used by compilations.
+ *
+ * The profiles of all methods that are part of a compilation are recorded once they are
+ * {@linkplain ProfilingInfo#isMature() mature} and written to
+ * {@link Options#ProfileCacheFile} when the VM shuts down. On the next run, the recorded profiles
+ * are loaded and used for methods whose VM profile is still immature, so that the first
+ * compilations after a restart are based on the same branch probabilities, type profiles and
+ * deoptimization history as the compilations of the previous run.
+ *
+ * Profiles are keyed by the name and signature of a method and are only used if the bytecode of
+ * the method has not changed since they were recorded. The failed speculations of the
+ * {@link jdk.vm.ci.meta.SpeculationLog} are tied to the running VM and are not recorded; the
+ * {@linkplain ProfilingInfo#getDeoptimizationCount(DeoptimizationReason) deoptimization counts},
+ * which disable the corresponding optimistic optimizations, are recorded instead.
+ */
+public final class ProfileCache implements ProfileProvider {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "File in which the profiles used by compilations are stored when the VM exits. " +
+                       "If the file exists at startup, the profiles in it are used for methods whose " +
+                       "profile is not yet mature.", type = OptionType.Expert)
+        public static final OptionKey<String> ProfileCacheFile = new OptionKey<>(null);
+        @Option(help = "Only read profiles from the ProfileCacheFile, do not update it when the VM exits.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> ProfileCacheReadOnly = new OptionKey<>(false);
+        // @formatter:on
+    }
+
+    private static final int MAGIC = 0x47505243;
+    private static final int VERSION = 1;
+
+    private final File file;
+    private final boolean readOnly;
+    private final Map<String, MethodProfile> profiles = new ConcurrentHashMap<>();
+    /**
+     * The keys of the profiles that were recorded by this VM, as opposed to loaded from the file.
+     */
+    private final Set<String> recordedKeys = ConcurrentHashMap.newKeySet();
+
+    private ProfileCache(File file, boolean readOnly) {
+        this.file = file;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Creates the profile cache configured by {@code options}, or returns {@code null} if there is
+     * none. The profiles of a previous run are loaded if the cache file exists. A cache file that
+     * cannot be read is ignored with a warning, the cache then starts out empty.
+     */
+    public static ProfileCache create(OptionValues options) {
+        String path = Options.ProfileCacheFile.getValue(options);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        ProfileCache cache = new ProfileCache(new File(path), Options.ProfileCacheReadOnly.getValue(options));
+        if (cache.file.exists()) {
+            try {
+                cache.load();
+            } catch (IOException | RuntimeException e) {
+                TTY.printf("Warning: Ignoring profile cache %s that cannot be read: %s%n", cache.file, e);
+                cache.profiles.clear();
+            }
+        }
+        return cache;
+    }
+
+    @Override
+    public ProfilingInfo getProfilingInfo(ResolvedJavaMethod method) {
+        return getProfilingInfo(method, method.getProfilingInfo());
+    }
+
+    /**
+     * Returns the recorded profile of {@code method} if {@code vmProfile} is not yet mature and a
+     * profile for the current bytecode of the method is available, {@code vmProfile} otherwise.
+     */
+    public ProfilingInfo getProfilingInfo(ResolvedJavaMethod method, ProfilingInfo vmProfile) {
+        if (vmProfile.isMature()) {
+            return vmProfile;
+        }
+        MethodProfile profile = profiles.get(key(method));
+        if (profile == null || profile.fingerprint != fingerprint(method)) {
+            return vmProfile;
+        }
+        return new CachedProfilingInfo(method, profile, vmProfile);
+    }
+
+    /**
+     * Records the mature profiles of the methods that were used in {@code graph}.
+     */
+    public void record(StructuredGraph graph) {
+        if (readOnly) {
+            return;
+        }
+        record(graph.method());
+        if (graph.getMethods() != null) {
+            for (ResolvedJavaMethod method : graph.getMethods()) {
+                record(method);
+            }
+        }
+    }
+
+    private void record(ResolvedJavaMethod method) {
+        if (method == null || method.getCode() == null || isRecorded(key(method), method)) {
+            return;
+        }
+        record(method, method.getProfilingInfo());
+    }
+
+    /**
+     * Records {@code profile} as the profile of {@code method} if it is mature. Methods whose
+     * profile was already recorded by this VM for the same bytecode are skipped.
+     */
+    public void record(ResolvedJavaMethod method, ProfilingInfo profile) {
+        if (readOnly || !profile.isMature()) {
+            return;
+        }
+        String key = key(method);
+        if (!isRecorded(key, method)) {
+            profiles.put(key, MethodProfile.capture(method, profile));
+            recordedKeys.add(key);
+        }
+    }
+
+    private boolean isRecorded(String key, ResolvedJavaMethod method) {
+        if (!recordedKeys.contains(key)) {
+            return false;
+        }
+        MethodProfile profile = profiles.get(key);
+        return profile != null && profile.fingerprint == fingerprint(method);
+    }
+
+    /**
+     * Writes the recorded profiles to the cache file. Failures are reported as a warning, the
+     * previous content of the file is then kept if possible.
+     */
+    public synchronized void save() {
+        if (readOnly || profiles.isEmpty()) {
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(profiles.size());
+            for (Map.Entry<String, MethodProfile> entry : profiles.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            TTY.printf("Warning: Error writing profile cache %s: %s%n", file, e);
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                TTY.printf("Warning: Error writing profile cache %s%n", file);
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unsupported file format");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                profiles.put(key, MethodProfile.read(in));
+            }
+        }
+    }
+
+    private static String key(ResolvedJavaMethod method) {
+        return method.format("%H.%n") + method.getSignature().toMethodDescriptor();
+    }
+
+    private static long fingerprint(ResolvedJavaMethod method) {
+        byte[] code = method.getCode();
+        if (code == null) {
+            return 0;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(code, 0, code.length);
+        return crc.getValue();
+    }
+
+    /**
+     * The recorded profile of a single method.
+     */
+    static final class MethodProfile {
+        final long fingerprint;
+        final int codeSize;
+        final String[] deoptReasons;
+        final int[] deoptCounts;
+        /**
+         * The bytecode indexes with profile information, in ascending order.
+         */
+        final int[] bcis;
+        final BciProfile[] bciProfiles;
+
+        private MethodProfile(long fingerprint, int codeSize, String[] deoptReasons, int[] deoptCounts, int[] bcis, BciProfile[] bciProfiles) {
+            this.fingerprint = fingerprint;
+            this.codeSize = codeSize;
+            this.deoptReasons = deoptReasons;
+            this.deoptCounts = deoptCounts;
+            this.bcis = bcis;
+            this.bciProfiles = bciProfiles;
+        }
+
+        BciProfile get(int bci) {
+            int index = Arrays.binarySearch(bcis, bci);
+            return index >= 0 ? bciProfiles[index] : null;
+        }
+
+        int getDeoptimizationCount(DeoptimizationReason reason) {
+            for (int i = 0; i < deoptReasons.length; i++) {
+                if (deoptReasons[i].equals(reason.name())) {
+                    return deoptCounts[i];
+                }
+            }
+            return 0;
+        }
+
+        static MethodProfile capture(ResolvedJavaMethod method, ProfilingInfo profile) {
+            ArrayList<String> reasons = new ArrayList<>();
+            ArrayList<Integer> counts = new ArrayList<>();
+            for (DeoptimizationReason reason : DeoptimizationReason.values()) {
+                int count = profile.getDeoptimizationCount(reason);
+                if (count > 0) {
+                    reasons.add(reason.name());
+                    counts.add(count);
+                }
+            }
+
+            ArrayList<Integer> bcis = new ArrayList<>();
+            ArrayList<BciProfile> bciProfiles = new ArrayList<>();
+            BytecodeStream stream = new BytecodeStream(method.getCode());
+            while (stream.currentBC() != Bytecodes.END) {
+                int bci = stream.currentBCI();
+                BciProfile bciProfile = BciProfile.capture(profile, bci);
+                if (bciProfile != null) {
+                    bcis.add(bci);
+                    bciProfiles.add(bciProfile);
+                }
+                stream.next();
+            }
+
+            int[] deoptCounts = new int[counts.size()];
+            for (int i = 0; i < deoptCounts.length; i++) {
+                deoptCounts[i] = counts.get(i);
+            }
+            int[] bciArray = new int[bcis.size()];
+            for (int i = 0; i < bciArray.length; i++) {
+                bciArray[i] = bcis.get(i);
+            }
+            return new MethodProfile(fingerprint(method), method.getCodeSize(), reasons.toArray(new String[reasons.size()]), deoptCounts, bciArray,
+                            bciProfiles.toArray(new BciProfile[bciProfiles.size()]));
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(fingerprint);
+            out.writeInt(codeSize);
+            out.writeInt(deoptReasons.length);
+            for (int i = 0; i < deoptReasons.length; i++) {
+                out.writeUTF(deoptReasons[i]);
+                out.writeInt(deoptCounts[i]);
+            }
+            out.writeInt(bcis.length);
+            for (int i = 0; i < bcis.length; i++) {
+                out.writeInt(bcis[i]);
+                bciProfiles[i].write(out);
+            }
+        }
+
+        static MethodProfile read(DataInputStream in) throws IOException {
+            long fingerprint = in.readLong();
+            int codeSize = in.readInt();
+            int deoptLength = in.readInt();
+            String[] deoptReasons = new String[deoptLength];
+            int[] deoptCounts = new int[deoptLength];
+            for (int i = 0; i < deoptLength; i++) {
+                deoptReasons[i] = in.readUTF();
+                deoptCounts[i] = in.readInt();
+            }
+            int length = in.readInt();
+            int[] bcis = new int[length];
+            BciProfile[] bciProfiles = new BciProfile[length];
+            for (int i = 0; i < length; i++) {
+                bcis[i] = in.readInt();
+                bciProfiles[i] = BciProfile.read(in);
+            }
+            return new MethodProfile(fingerprint, codeSize, deoptReasons, deoptCounts, bcis, bciProfiles);
+        }
+    }
+
+    /**
+     * The recorded profile of a single bytecode. Types are recorded by name and resolved relative
+     * to the profiled method when the profile is used.
+     */
+    static final class BciProfile {
+        final double branchTakenProbability;
+        final double[] switchProbabilities;
+        final TriState exceptionSeen;
+        final TriState nullSeen;
+        final int executionCount;
+        final TriState typeProfileNullSeen;
+        final double typeProfileNotRecordedProbability;
+        final String[] typeNames;
+        final double[] typeProbabilities;
+
+        private BciProfile(double branchTakenProbability, double[] switchProbabilities, TriState exceptionSeen, TriState nullSeen, int executionCount, TriState typeProfileNullSeen,
+                        double typeProfileNotRecordedProbability, String[] typeNames, double[] typeProbabilities) {
+            this.branchTakenProbability = branchTakenProbability;
+            this.switchProbabilities = switchProbabilities;
+            this.exceptionSeen = exceptionSeen;
+            this.nullSeen = nullSeen;
+            this.executionCount = executionCount;
+            this.typeProfileNullSeen = typeProfileNullSeen;
+            this.typeProfileNotRecordedProbability = typeProfileNotRecordedProbability;
+            this.typeNames = typeNames;
+            this.typeProbabilities = typeProbabilities;
+        }
+
+        boolean hasTypeProfile() {
+            return typeNames != null;
+        }
+
+        /**
+         * Captures the profile at {@code bci}, or returns {@code null} if there is no information.
+         */
+        static BciProfile capture(ProfilingInfo profile, int bci) {
+            double branchTakenProbability = profile.getBranchTakenProbability(bci);
+            double[] switchProbabilities = profile.getSwitchProbabilities(bci);
+            TriState exceptionSeen = profile.getExceptionSeen(bci);
+            TriState nullSeen = profile.getNullSeen(bci);
+            int executionCount = profile.getExecutionCount(bci);
+            JavaTypeProfile typeProfile = profile.getTypeProfile(bci);
+            if (branchTakenProbability < 0 && switchProbabilities == null && exceptionSeen == TriState.UNKNOWN && nullSeen == TriState.UNKNOWN && executionCount < 0 && typeProfile == null) {
+                return null;
+            }
+            TriState typeProfileNullSeen = TriState.UNKNOWN;
+            double notRecordedProbability = 0;
+            String[] typeNames = null;
+            double[] typeProbabilities = null;
+            if (typeProfile != null) {
+                ProfiledType[] types = typeProfile.getTypes();
+                typeProfileNullSeen = typeProfile.getNullSeen();
+                notRecordedProbability = typeProfile.getNotRecordedProbability();
+                typeNames = new String[types.length];
+                typeProbabilities = new double[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    typeNames[i] = types[i].getType().getName();
+                    typeProbabilities[i] = types[i].getProbability();
+                }
+            }
+            return new BciProfile(branchTakenProbability, switchProbabilities, exceptionSeen, nullSeen, executionCount, typeProfileNullSeen, notRecordedProbability, typeNames,
+                            typeProbabilities);
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeDouble(branchTakenProbability);
+            writeDoubles(out, switchProbabilities);
+            out.writeByte(exceptionSeen.ordinal());
+            out.writeByte(nullSeen.ordinal());
+            out.writeInt(executionCount);
+            out.writeBoolean(hasTypeProfile());
+            if (hasTypeProfile()) {
+                out.writeByte(typeProfileNullSeen.ordinal());
+                out.writeDouble(typeProfileNotRecordedProbability);
+                out.writeInt(typeNames.length);
+                for (int i = 0; i < typeNames.length; i++) {
+                    out.writeUTF(typeNames[i]);
+                    out.writeDouble(typeProbabilities[i]);
+                }
+            }
+        }
+
+        static BciProfile read(DataInputStream in) throws IOException {
+            double branchTakenProbability = in.readDouble();
+            double[] switchProbabilities = readDoubles(in);
+            TriState exceptionSeen = readTriState(in);
+            TriState nullSeen = readTriState(in);
+            int executionCount = in.readInt();
+            TriState typeProfileNullSeen = TriState.UNKNOWN;
+            double notRecordedProbability = 0;
+            String[] typeNames = null;
+            double[] typeProbabilities = null;
+            if (in.readBoolean()) {
+                typeProfileNullSeen = readTriState(in);
+                notRecordedProbability = in.readDouble();
+                int length = in.readInt();
+                typeNames = new String[length];
+                typeProbabilities = new double[length];
+                for (int i = 0; i < length; i++) {
+                    typeNames[i] = in.readUTF();
+                    typeProbabilities[i] = in.readDouble();
+                }
+            }
+            return new BciProfile(branchTakenProbability, switchProbabilities, exceptionSeen, nullSeen, executionCount, typeProfileNullSeen, notRecordedProbability, typeNames,
+                            typeProbabilities);
+        }
+
+        private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+            if (values == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(values.length);
+                for (double value : values) {
+                    out.writeDouble(value);
+                }
+            }
+        }
+
+        private static double[] readDoubles(DataInputStream in) throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = in.readDouble();
+            }
+            return values;
+        }
+
+        private static TriState readTriState(DataInputStream in) throws IOException {
+            int ordinal = in.readByte();
+            TriState[] values = TriState.values();
+            if (ordinal < 0 || ordinal >= values.length) {
+                throw new IOException("invalid tri-state value " + ordinal);
+            }
+            return values[ordinal];
+        }
+    }
+}
@@ -36,12 +36,16 @@ import static org.graalvm.word.LocationIdentity.any;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.compiler.core.common.LIRKind;
 import org.graalvm.compiler.core.common.spi.ForeignCallDescriptor;
 import org.graalvm.compiler.core.common.spi.ForeignCallSignature;
 import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.hotspot.CompilationStatistics;
 import org.graalvm.compiler.hotspot.HotSpotForeignCallLinkage;
 import org.graalvm.compiler.hotspot.HotSpotForeignCallLinkage.RegisterEffect;
 import org.graalvm.compiler.hotspot.HotSpotForeignCallLinkageImpl;
@@ -85,6 +89,11 @@ public abstract class HotSpotForeignCallsProviderImpl implements HotSpotForeignC
 
     protected final EconomicMap<ForeignCallSignature, HotSpotForeignCallLinkage> foreignCalls = EconomicMap.create();
     protected final EconomicMap<ForeignCallSignature, HotSpotForeignCallDescriptor> signatureMap = EconomicMap.create();
+
+    /**
+     * Stub compilations started by {@link #compileStubAsync} that have not been joined yet.
+     */
+    private final ConcurrentHashMap<ForeignCallSignature, ForkJoinTask<?>> stubCompilations = new ConcurrentHashMap<>();
     protected final MetaAccessProvider metaAccess;
     protected final CodeCacheProvider codeCache;
     protected final WordTypes wordTypes;
@@ -228,10 +237,57 @@ public abstract class HotSpotForeignCallsProviderImpl implements HotSpotForeignC
         if (callTarget == null) {
             throw GraalError.shouldNotReachHere("Missing implementation for runtime call: " + descriptor);
         }
-        callTarget.finalizeAddress(runtime.getHostBackend());
+        CompilationStatistics stats = CompilationStatistics.current();
+        if (stats != null && callTarget.isCompiledStub() && callTarget.getStub() != null && !callTarget.getStub().isCompiled()) {
+            long start = System.nanoTime();
+            finalizeAddress(descriptor.getSignature(), callTarget);
+            stats.waitedForStub(System.nanoTime() - start);
+        } else {
+            finalizeAddress(descriptor.getSignature(), callTarget);
+        }
         return callTarget;
     }
 
+    private void finalizeAddress(ForeignCallSignature signature, HotSpotForeignCallLinkage callTarget) {
+        ForkJoinTask<?> stubCompilation = stubCompilations.get(signature);
+        if (stubCompilation != null) {
+            try {
+                stubCompilation.join();
+            } finally {
+                stubCompilations.remove(signature, stubCompilation);
+            }
+        }
+        callTarget.finalizeAddress(runtime.getHostBackend());
+    }
+
+    /**
+     * Starts compiling the stub linked to by {@code descriptor} on the
+     * {@linkplain ForkJoinPool#commonPool() common pool} if it has not been compiled yet. A
+     * subsequent {@link #lookupForeignCall} of {@code descriptor} joins the compilation and
+     * rethrows any exception it completed with.
+     *
+     * @return the started compilation or {@code null} if {@code descriptor} does not link to a
+     *         stub, the stub has already been compiled or its compilation has already been started
+     */
+    public ForkJoinTask<?> compileStubAsync(ForeignCallDescriptor descriptor) {
+        ForeignCallSignature signature = descriptor.getSignature();
+        HotSpotForeignCallLinkage callTarget = foreignCalls.get(signature);
+        if (callTarget == null || !callTarget.isCompiledStub() || callTarget.getStub() == null || callTarget.getStub().isCompiled()) {
+            return null;
+        }
+        ForkJoinTask<?> task = ForkJoinTask.adapt(new Runnable() {
+            @Override
+            public void run() {
+                callTarget.finalizeAddress(runtime.getHostBackend());
+            }
+        });
+        if (stubCompilations.putIfAbsent(signature, task) != null) {
+            return null;
+        }
+        ForkJoinPool.commonPool().execute(task);
+        return task;
+    }
+
     @Override
     public HotSpotForeignCallDescriptor getDescriptor(ForeignCallSignature signature) {
         HotSpotForeignCallDescriptor descriptor = signatureMap.get(signature);
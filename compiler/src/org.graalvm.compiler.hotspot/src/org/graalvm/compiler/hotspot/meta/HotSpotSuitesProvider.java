@@ -24,6 +24,7 @@
  */
 package org.graalvm.compiler.hotspot.meta;
 
+import static jdk.vm.ci.services.Services.IS_IN_NATIVE_IMAGE;
 import static org.graalvm.compiler.core.common.GraalOptions.GeneratePIC;
 import static org.graalvm.compiler.core.common.GraalOptions.ImmutableCode;
 import static org.graalvm.compiler.core.common.GraalOptions.VerifyPhases;
@@ -40,6 +41,7 @@ import org.graalvm.compiler.hotspot.lir.HotSpotZapRegistersPhase;
 import org.graalvm.compiler.hotspot.lir.VerifyMaxRegisterSizePhase;
 import org.graalvm.compiler.hotspot.phases.AheadOfTimeVerificationPhase;
 import org.graalvm.compiler.hotspot.phases.LoadJavaMirrorWithKlassPhase;
+import org.graalvm.compiler.hotspot.phases.ParallelStubCompilationPhase;
 import org.graalvm.compiler.hotspot.phases.aot.AOTInliningPolicy;
 import org.graalvm.compiler.hotspot.phases.aot.EliminateRedundantInitializationPhase;
 import org.graalvm.compiler.hotspot.phases.aot.ReplaceConstantNodesPhase;
@@ -64,6 +66,7 @@ import org.graalvm.compiler.phases.tiers.LowTierContext;
 import org.graalvm.compiler.phases.tiers.MidTierContext;
 import org.graalvm.compiler.phases.tiers.Suites;
 import org.graalvm.compiler.phases.tiers.SuitesCreator;
+import org.graalvm.compiler.virtual.phases.ea.StackAllocationPhase;
 
 /**
  * HotSpot implementation of {@link SuitesCreator}.
@@ -119,6 +122,18 @@ public class HotSpotSuitesProvider extends SuitesProviderBase {
             }
         }
 
+        if (StackAllocationPhase.Options.StackAllocation.getValue(options)) {
+            ListIterator<BasePhase<? super HighTierContext>> highTierLowering = ret.getHighTier().findPhase(LoweringPhase.class);
+            highTierLowering.previous();
+            highTierLowering.add(new StackAllocationPhase(runtime.getTarget().wordJavaKind));
+        }
+
+        if (ParallelStubCompilationPhase.Options.ParallelStubCompilation.getValue(options) && !IS_IN_NATIVE_IMAGE) {
+            // stub compilations need a thread attached to the VM, which libgraal does not provide
+            // for the threads of the common pool
+            ret.getLowTier().appendPhase(new ParallelStubCompilationPhase());
+        }
+
         return ret;
     }
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.hotspot.phases;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.compiler.core.common.spi.ForeignCallDescriptor;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.hotspot.CompilationStatistics;
+import org.graalvm.compiler.hotspot.meta.HotSpotForeignCallsProviderImpl;
+import org.graalvm.compiler.hotspot.stubs.Stub;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.extended.ForeignCall;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.tiers.LowTierContext;
+
+/**
+ * Starts the compilation of the {@linkplain Stub stubs} called by a graph on the
+ * {@linkplain ForkJoinPool#commonPool() common pool}, so that they are compiled in parallel with
+ * each other and with the backend of the current compilation.
+ *
+ * Stubs are otherwise compiled lazily and one after the other on the compiler thread, when the
+ * foreign call to them is {@linkplain HotSpotForeignCallsProviderImpl#lookupForeignCall looked up}
+ * during LIR generation. That lookup now joins the compilation started by this phase, rethrowing
+ * the exception it failed with. The number of stub compilations started and the time spent
+ * waiting for them are reported by {@link CompilationStatistics}.
+ */
+public class ParallelStubCompilationPhase extends BasePhase<LowTierContext> {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Compile the stubs called by a compilation in parallel with its backend.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> ParallelStubCompilation = new OptionKey<>(false);
+        // @formatter:on
+    }
+
+    private static final CounterKey parallelStubCompilations = DebugContext.counter("ParallelStubCompilations");
+
+    @Override
+    protected void run(StructuredGraph graph, LowTierContext context) {
+        if (!(context.getForeignCalls() instanceof HotSpotForeignCallsProviderImpl)) {
+            return;
+        }
+        HotSpotForeignCallsProviderImpl foreignCalls = (HotSpotForeignCallsProviderImpl) context.getForeignCalls();
+        CompilationStatistics stats = CompilationStatistics.current();
+        EconomicSet<ForeignCallDescriptor> seen = EconomicSet.create();
+        for (Node node : graph.getNodes()) {
+            if (!(node instanceof ForeignCall)) {
+                continue;
+            }
+            ForeignCallDescriptor descriptor = ((ForeignCall) node).getDescriptor();
+            if (seen.add(descriptor) && foreignCalls.compileStubAsync(descriptor) != null) {
+                parallelStubCompilations.increment(graph.getDebug());
+                if (stats != null) {
+                    stats.startedParallelStubCompilation();
+                }
+            }
+        }
+    }
+}
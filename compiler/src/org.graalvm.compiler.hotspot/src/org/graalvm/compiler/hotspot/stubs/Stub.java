@@ -89,7 +89,7 @@ public abstract class Stub {
     /**
      * The code installed for the stub.
      */
-    protected InstalledCode code;
+    protected volatile InstalledCode code;
 
     /**
      * The registers destroyed by this stub (from the caller's perspective).
@@ -185,6 +185,14 @@ public abstract class Stub {
         return DebugContext.disabled(options);
     }
 
+    /**
+     * Determines if the code for this stub has been installed. This does not wait for a
+     * compilation of this stub that is in progress.
+     */
+    public boolean isCompiled() {
+        return code != null;
+    }
+
     /**
      * Gets the code for this stub, compiling it first if necessary.
      */
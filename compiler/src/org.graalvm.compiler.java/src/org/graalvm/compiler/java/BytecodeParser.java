@@ -283,6 +283,7 @@ import org.graalvm.compiler.bytecode.BytecodeSwitch;
 import org.graalvm.compiler.bytecode.BytecodeTableSwitch;
 import org.graalvm.compiler.bytecode.Bytecodes;
 import org.graalvm.compiler.bytecode.Bytes;
+import org.graalvm.compiler.bytecode.ResolvedJavaMethodBytecode;
 import org.graalvm.compiler.bytecode.ResolvedJavaMethodBytecodeProvider;
 import org.graalvm.compiler.core.common.GraalOptions;
 import org.graalvm.compiler.core.common.PermanentBailoutException;
@@ -926,7 +927,7 @@ public class BytecodeParser extends CoreProvidersDelegate implements GraphBuilde
         this.optimisticOpts = graphBuilderInstance.optimisticOpts;
         assert code.getCode() != null : method;
         this.stream = new BytecodeStream(code.getCode());
-        this.profilingInfo = graph.useProfilingInfo() ? code.getProfilingInfo() : null;
+        this.profilingInfo = graph.useProfilingInfo() ? getProfilingInfo(graph, code) : null;
         this.constantPool = code.getConstantPool();
         this.intrinsicContext = intrinsicContext;
         this.entryBCI = entryBCI;
@@ -971,6 +972,18 @@ public class BytecodeParser extends CoreProvidersDelegate implements GraphBuilde
         return false;
     }
 
+    /**
+     * Gets the profile for {@code code}, consulting the
+     * {@linkplain StructuredGraph#getProfileProvider() profile provider} of the graph for bytecode
+     * that comes directly from a method.
+     */
+    private static ProfilingInfo getProfilingInfo(StructuredGraph graph, Bytecode code) {
+        if (graph.getProfileProvider() != null && code instanceof ResolvedJavaMethodBytecode) {
+            return graph.getProfilingInfo(code.getMethod());
+        }
+        return code.getProfilingInfo();
+    }
+
     private int refineTraceLevel(int level) {
         ResolvedJavaMethod tmethod = graph.method();
         if (tmethod == null) {
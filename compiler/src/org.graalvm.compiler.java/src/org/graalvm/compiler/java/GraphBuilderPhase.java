@@ -59,6 +59,23 @@ public class GraphBuilderPhase extends BasePhase<HighTierContext> {
         return graphBuilderConfig;
     }
 
+    /**
+     * Graph builder phases of the same class are equal if their configurations are equal, so that
+     * graph builder suites derived for individual compilations can be compared by their contents.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj != null && obj.getClass() == getClass()) {
+            return graphBuilderConfig.equals(((GraphBuilderPhase) obj).graphBuilderConfig);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return graphBuilderConfig.hashCode();
+    }
+
     // Fully qualified name is a workaround for JDK-8056066
     public static class Instance extends org.graalvm.compiler.phases.Phase {
 
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.aarch64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.asm.aarch64.AArch64Address.AddressingMode.IMMEDIATE_POST_INDEXED;
+import static org.graalvm.compiler.asm.aarch64.AArch64Address.AddressingMode.IMMEDIATE_SIGNED_UNSCALED;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.aarch64.AArch64ASIMDAssembler.ASIMDSize;
+import org.graalvm.compiler.asm.aarch64.AArch64ASIMDAssembler.ElementSize;
+import org.graalvm.compiler.asm.aarch64.AArch64Address;
+import org.graalvm.compiler.asm.aarch64.AArch64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.aarch64.AArch64MacroAssembler;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.aarch64.AArch64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Stores a value into every element of a primitive array region, as done by
+ * {@code java.util.Arrays.fill}.
+ *
+ * The value is replicated in a SIMD register and stored 16 bytes at a time. The last (partial)
+ * chunk is handled by storing the final 16 bytes of the region again. Regions shorter than 16
+ * bytes are filled with two overlapping 8-byte stores or, below 8 bytes, with one 4, 2 and 1 byte
+ * store each as needed.
+ */
+@Opcode("AArch64_ARRAY_FILL")
+public final class AArch64ArrayFillOp extends AArch64LIRInstruction {
+    public static final LIRInstructionClass<AArch64ArrayFillOp> TYPE = LIRInstructionClass.create(AArch64ArrayFillOp.class);
+
+    private static final int CHUNK_SIZE = 16;
+
+    private final JavaKind kind;
+
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value valueValue;
+    @Temp({REG}) protected Value curTemp;
+    @Temp({REG}) protected Value endTemp;
+    @Temp({REG}) protected Value limitTemp;
+    @Temp({REG}) protected Value patternTemp;
+    @Temp({REG}) protected Value vectorTemp;
+
+    public AArch64ArrayFillOp(LIRGeneratorTool tool, JavaKind kind, Value array, Value length, Value value) {
+        super(TYPE);
+        assert kind.isPrimitive() && kind != JavaKind.Void : kind;
+        this.kind = kind;
+        arrayValue = array;
+        lengthValue = length;
+        valueValue = value;
+        LIRKind archWordKind = LIRKind.value(tool.target().arch.getWordKind());
+        curTemp = tool.newVariable(archWordKind);
+        endTemp = tool.newVariable(archWordKind);
+        limitTemp = tool.newVariable(archWordKind);
+        patternTemp = tool.newVariable(archWordKind);
+        vectorTemp = tool.newVariable(LIRKind.value(AArch64Kind.V128_BYTE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AArch64MacroAssembler masm) {
+        Register cur = asRegister(curTemp);
+        Register end = asRegister(endTemp);
+        Register limit = asRegister(limitTemp);
+        Register pattern = asRegister(patternTemp);
+        Register vector = asRegister(vectorTemp);
+
+        Label chunkLoop = new Label();
+        Label wordTail = new Label();
+        Label byteTail = new Label();
+        Label noInt = new Label();
+        Label noShort = new Label();
+        Label done = new Label();
+
+        int elementSize = kind.getByteCount();
+        masm.mov(64, cur, asRegister(arrayValue));
+        masm.sxt(64, 32, end, asRegister(lengthValue));
+        if (elementSize > 1) {
+            masm.lsl(64, end, end, Integer.numberOfTrailingZeros(elementSize));
+        }
+        masm.add(64, end, end, cur);
+        masm.neon.dupVG(ASIMDSize.FullReg, ElementSize.fromSize(elementSize * Byte.SIZE), vector, asRegister(valueValue));
+        masm.neon.umovGX(ElementSize.DoubleWord, pattern, vector, 0);
+
+        // store 16-byte chunks
+        masm.sub(64, limit, end, CHUNK_SIZE);
+        masm.cmp(64, cur, limit);
+        masm.branchConditionally(ConditionFlag.HI, wordTail);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(chunkLoop);
+        masm.fstr(128, vector, AArch64Address.createImmediateAddress(128, IMMEDIATE_POST_INDEXED, cur, CHUNK_SIZE));
+        masm.cmp(64, cur, limit);
+        masm.branchConditionally(ConditionFlag.LO, chunkLoop);
+
+        // the last chunk overlaps with the already filled bytes
+        masm.fstr(128, vector, AArch64Address.createBaseRegisterOnlyAddress(limit));
+        masm.jmp(done);
+
+        // store the first and the last 8 bytes, which overlap
+        masm.bind(wordTail);
+        masm.sub(64, limit, end, cur);
+        masm.cmp(64, limit, 8);
+        masm.branchConditionally(ConditionFlag.LT, byteTail);
+        masm.str(64, pattern, AArch64Address.createBaseRegisterOnlyAddress(cur));
+        masm.str(64, pattern, AArch64Address.createImmediateAddress(64, IMMEDIATE_SIGNED_UNSCALED, end, -8));
+        masm.jmp(done);
+
+        // store the remaining bytes, at most one 4, 2 and 1 byte store each
+        masm.bind(byteTail);
+        if (elementSize <= 4) {
+            masm.tbz(limit, 2, noInt);
+            masm.str(32, pattern, AArch64Address.createImmediateAddress(32, IMMEDIATE_POST_INDEXED, cur, 4));
+            masm.bind(noInt);
+        }
+        if (elementSize <= 2) {
+            masm.tbz(limit, 1, noShort);
+            masm.str(16, pattern, AArch64Address.createImmediateAddress(16, IMMEDIATE_POST_INDEXED, cur, 2));
+            masm.bind(noShort);
+        }
+        if (elementSize == 1) {
+            masm.tbz(limit, 0, done);
+            masm.str(8, pattern, AArch64Address.createBaseRegisterOnlyAddress(cur));
+        }
+        masm.bind(done);
+    }
+}
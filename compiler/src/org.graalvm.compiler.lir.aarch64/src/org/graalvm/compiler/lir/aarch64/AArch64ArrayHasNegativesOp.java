@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.aarch64;
+
+import static jdk.vm.ci.aarch64.AArch64.zr;
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.asm.aarch64.AArch64Address.AddressingMode.IMMEDIATE_PAIR_POST_INDEXED;
+import static org.graalvm.compiler.asm.aarch64.AArch64Address.AddressingMode.IMMEDIATE_PAIR_SIGNED_SCALED;
+import static org.graalvm.compiler.asm.aarch64.AArch64Address.AddressingMode.IMMEDIATE_POST_INDEXED;
+import static org.graalvm.compiler.asm.aarch64.AArch64Address.AddressingMode.IMMEDIATE_SIGNED_UNSCALED;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.aarch64.AArch64Address;
+import org.graalvm.compiler.asm.aarch64.AArch64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.aarch64.AArch64Assembler.ExtendType;
+import org.graalvm.compiler.asm.aarch64.AArch64MacroAssembler;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Determines if a byte array region contains a negative byte. This is the core of
+ * {@code java.lang.StringCoding.hasNegatives}.
+ *
+ * The region is read 16 bytes at a time with {@code ldp} and the sign bits of both words are
+ * tested at once. The last (partial) chunk is handled by re-reading the final 16 bytes of the
+ * region, so the bytes in the overlap are simply tested twice. Regions shorter than 16 bytes are
+ * tested with two overlapping 8-byte loads or, below 8 bytes, byte by byte.
+ */
+@Opcode("AArch64_ARRAY_HAS_NEGATIVES")
+public final class AArch64ArrayHasNegativesOp extends AArch64LIRInstruction {
+    public static final LIRInstructionClass<AArch64ArrayHasNegativesOp> TYPE = LIRInstructionClass.create(AArch64ArrayHasNegativesOp.class);
+
+    private static final long SIGN_BITS = 0x8080808080808080L;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value temp1;
+    @Temp({REG}) protected Value temp2;
+    @Temp({REG}) protected Value temp3;
+    @Temp({REG}) protected Value temp4;
+    @Temp({REG}) protected Value temp5;
+
+    public AArch64ArrayHasNegativesOp(LIRGeneratorTool tool, Value result, Value array, Value length) {
+        super(TYPE);
+        resultValue = result;
+        arrayValue = array;
+        lengthValue = length;
+        LIRKind archWordKind = LIRKind.value(tool.target().arch.getWordKind());
+        temp1 = tool.newVariable(archWordKind);
+        temp2 = tool.newVariable(archWordKind);
+        temp3 = tool.newVariable(archWordKind);
+        temp4 = tool.newVariable(archWordKind);
+        temp5 = tool.newVariable(archWordKind);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AArch64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayValue);
+        Register cur = asRegister(temp1);
+        Register end = asRegister(temp2);
+        Register remaining = asRegister(temp3);
+        Register word1 = asRegister(temp4);
+        Register word2 = asRegister(temp5);
+
+        Label chunkLoop = new Label();
+        Label wordTail = new Label();
+        Label byteTail = new Label();
+        Label byteLoop = new Label();
+        Label found = new Label();
+        Label done = new Label();
+
+        masm.mov(result, 0);
+        masm.mov(64, cur, array);
+        masm.add(64, end, array, asRegister(lengthValue), ExtendType.SXTW, 0);
+        masm.sub(64, remaining, end, cur);
+
+        // test 16-byte chunks
+        masm.cmp(64, remaining, 16);
+        masm.branchConditionally(ConditionFlag.LT, wordTail);
+        // remaining now points to the start of the last chunk
+        masm.sub(64, remaining, end, 16);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(chunkLoop);
+        masm.ldp(64, word1, word2, AArch64Address.createImmediateAddress(64, IMMEDIATE_PAIR_POST_INDEXED, cur, 16));
+        masm.orr(64, word1, word1, word2);
+        masm.ands(64, zr, word1, SIGN_BITS);
+        masm.branchConditionally(ConditionFlag.NE, found);
+        masm.cmp(64, cur, remaining);
+        masm.branchConditionally(ConditionFlag.LO, chunkLoop);
+
+        // the last chunk overlaps with the already tested bytes
+        masm.ldp(64, word1, word2, AArch64Address.createImmediateAddress(64, IMMEDIATE_PAIR_SIGNED_SCALED, remaining, 0));
+        masm.orr(64, word1, word1, word2);
+        masm.ands(64, zr, word1, SIGN_BITS);
+        masm.branchConditionally(ConditionFlag.NE, found);
+        masm.jmp(done);
+
+        // test the first and the last 8 bytes, which overlap
+        masm.bind(wordTail);
+        masm.cmp(64, remaining, 8);
+        masm.branchConditionally(ConditionFlag.LT, byteTail);
+        masm.ldr(64, word1, AArch64Address.createBaseRegisterOnlyAddress(cur));
+        masm.ldr(64, word2, AArch64Address.createImmediateAddress(64, IMMEDIATE_SIGNED_UNSCALED, end, -8));
+        masm.orr(64, word1, word1, word2);
+        masm.ands(64, zr, word1, SIGN_BITS);
+        masm.branchConditionally(ConditionFlag.NE, found);
+        masm.jmp(done);
+
+        // test the remaining bytes
+        masm.bind(byteTail);
+        masm.cbz(64, remaining, done);
+        masm.bind(byteLoop);
+        masm.ldr(8, word1, AArch64Address.createImmediateAddress(8, IMMEDIATE_POST_INDEXED, cur, 1));
+        masm.ands(32, zr, word1, 0x80);
+        masm.branchConditionally(ConditionFlag.NE, found);
+        masm.cmp(64, cur, end);
+        masm.branchConditionally(ConditionFlag.LO, byteLoop);
+        masm.jmp(done);
+
+        masm.bind(found);
+        masm.mov(result, 1);
+        masm.bind(done);
+    }
+}
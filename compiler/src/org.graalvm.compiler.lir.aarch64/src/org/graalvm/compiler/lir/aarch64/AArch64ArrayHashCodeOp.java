@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.aarch64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.asm.aarch64.AArch64Address.AddressingMode.IMMEDIATE_POST_INDEXED;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.aarch64.AArch64ASIMDAssembler.ASIMDSize;
+import org.graalvm.compiler.asm.aarch64.AArch64ASIMDAssembler.ElementSize;
+import org.graalvm.compiler.asm.aarch64.AArch64Address;
+import org.graalvm.compiler.asm.aarch64.AArch64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.aarch64.AArch64MacroAssembler;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.aarch64.AArch64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Computes the polynomial hash {@code h = 31 * h + a[i]} of an array region, as done by
+ * {@code java.util.Arrays.hashCode} and {@code String.hashCode}. The elements are zero-extended
+ * for {@link JavaKind#Boolean} (which stands for Latin-1 bytes) and {@link JavaKind#Char}, and
+ * sign-extended otherwise.
+ *
+ * The hash is split into {@code initial * 31^n + sum(a[i] * 31^(n - 1 - i))}. The sum is
+ * computed with four accumulators of four 32-bit lanes each, which are multiplied by
+ * {@code 31^16} per iteration, then combined into one accumulator and reduced with a final
+ * Horner step. The power of 31 covering the vectorized prefix is tracked alongside, and the
+ * remaining elements are added with the scalar recurrence.
+ */
+@Opcode("AArch64_ARRAY_HASH_CODE")
+public final class AArch64ArrayHashCodeOp extends AArch64LIRInstruction {
+    public static final LIRInstructionClass<AArch64ArrayHashCodeOp> TYPE = LIRInstructionClass.create(AArch64ArrayHashCodeOp.class);
+
+    private static final int LANES = 4;
+    private static final int UNROLL = 4;
+
+    private final JavaKind elementKind;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value arrayValue;
+    @Alive({REG}) protected Value lengthValue;
+    @Alive({REG}) protected Value initialValue;
+    @Temp({REG}) protected Value curTemp;
+    @Temp({REG}) protected Value endTemp;
+    @Temp({REG}) protected Value limitTemp;
+    @Temp({REG}) protected Value powerTemp;
+    @Temp({REG}) protected Value constantTemp;
+    @Temp({REG}) protected Value scratchTemp;
+    @Temp({REG}) protected Value[] vectorTemp;
+
+    public AArch64ArrayHashCodeOp(LIRGeneratorTool tool, JavaKind elementKind, Value result, Value array, Value length, Value initial) {
+        super(TYPE);
+        assert elementKind == JavaKind.Boolean || elementKind == JavaKind.Byte || elementKind == JavaKind.Char || elementKind == JavaKind.Short || elementKind == JavaKind.Int : elementKind;
+        this.elementKind = elementKind;
+        resultValue = result;
+        arrayValue = array;
+        lengthValue = length;
+        initialValue = initial;
+        LIRKind archWordKind = LIRKind.value(tool.target().arch.getWordKind());
+        curTemp = tool.newVariable(archWordKind);
+        endTemp = tool.newVariable(archWordKind);
+        limitTemp = tool.newVariable(archWordKind);
+        powerTemp = tool.newVariable(archWordKind);
+        constantTemp = tool.newVariable(archWordKind);
+        scratchTemp = tool.newVariable(archWordKind);
+        // UNROLL accumulators, the loaded data and the multiplier
+        vectorTemp = new Value[UNROLL + 2];
+        for (int i = 0; i < vectorTemp.length; i++) {
+            vectorTemp[i] = tool.newVariable(LIRKind.value(AArch64Kind.V128_WORD));
+        }
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AArch64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register cur = asRegister(curTemp);
+        Register end = asRegister(endTemp);
+        Register limit = asRegister(limitTemp);
+        Register power = asRegister(powerTemp);
+        Register constant = asRegister(constantTemp);
+        Register scratch = asRegister(scratchTemp);
+        Register[] acc = new Register[UNROLL];
+        for (int i = 0; i < UNROLL; i++) {
+            acc[i] = asRegister(vectorTemp[i]);
+        }
+        Register data = asRegister(vectorTemp[UNROLL]);
+        Register multiplier = asRegister(vectorTemp[UNROLL + 1]);
+
+        Label unrolledLoop = new Label();
+        Label vectorTail = new Label();
+        Label vectorLoop = new Label();
+        Label reduce = new Label();
+        Label scalarTail = new Label();
+        Label scalarLoop = new Label();
+        Label scalarCheck = new Label();
+        Label done = new Label();
+
+        int elementSize = elementKind.getByteCount();
+        int chunkSize = LANES * elementSize;
+
+        masm.mov(64, cur, asRegister(arrayValue));
+        masm.sxt(64, 32, end, asRegister(lengthValue));
+        if (elementSize > 1) {
+            masm.lsl(64, end, end, Integer.numberOfTrailingZeros(elementSize));
+        }
+        masm.add(64, end, end, cur);
+
+        // vectorize only if there is at least one full vector
+        masm.sub(64, limit, end, chunkSize);
+        masm.cmp(64, cur, limit);
+        masm.branchConditionally(ConditionFlag.HI, scalarTail);
+
+        masm.mov(power, 1);
+        for (int i = 0; i < UNROLL; i++) {
+            masm.neon.moviVI(ASIMDSize.FullReg, acc[i], 0);
+        }
+        masm.sub(64, limit, end, UNROLL * chunkSize);
+        masm.cmp(64, cur, limit);
+        masm.branchConditionally(ConditionFlag.HI, vectorTail);
+
+        masm.mov(constant, power(UNROLL * LANES));
+        masm.neon.dupVG(ASIMDSize.FullReg, ElementSize.Word, multiplier, constant);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(unrolledLoop);
+        for (int i = 0; i < UNROLL; i++) {
+            emitVectorLoad(masm, data, cur);
+            masm.neon.mulVVV(ASIMDSize.FullReg, ElementSize.Word, acc[i], acc[i], multiplier);
+            masm.neon.addVVV(ASIMDSize.FullReg, ElementSize.Word, acc[i], acc[i], data);
+        }
+        masm.mul(32, power, power, constant);
+        masm.cmp(64, cur, limit);
+        masm.branchConditionally(ConditionFlag.LS, unrolledLoop);
+
+        // acc[0] = ((acc[0] * 31^4 + acc[1]) * 31^4 + acc[2]) * 31^4 + acc[3]
+        masm.mov(constant, power(LANES));
+        masm.neon.dupVG(ASIMDSize.FullReg, ElementSize.Word, multiplier, constant);
+        for (int i = 1; i < UNROLL; i++) {
+            masm.neon.mulVVV(ASIMDSize.FullReg, ElementSize.Word, acc[0], acc[0], multiplier);
+            masm.neon.addVVV(ASIMDSize.FullReg, ElementSize.Word, acc[0], acc[0], acc[i]);
+        }
+
+        // process the remaining full vectors
+        masm.bind(vectorTail);
+        masm.mov(constant, power(LANES));
+        masm.neon.dupVG(ASIMDSize.FullReg, ElementSize.Word, multiplier, constant);
+        masm.sub(64, limit, end, chunkSize);
+        masm.cmp(64, cur, limit);
+        masm.branchConditionally(ConditionFlag.HI, reduce);
+
+        masm.bind(vectorLoop);
+        emitVectorLoad(masm, data, cur);
+        masm.neon.mulVVV(ASIMDSize.FullReg, ElementSize.Word, acc[0], acc[0], multiplier);
+        masm.neon.addVVV(ASIMDSize.FullReg, ElementSize.Word, acc[0], acc[0], data);
+        masm.mul(32, power, power, constant);
+        masm.cmp(64, cur, limit);
+        masm.branchConditionally(ConditionFlag.LS, vectorLoop);
+
+        // sum = ((acc[0][0] * 31 + acc[0][1]) * 31 + acc[0][2]) * 31 + acc[0][3]
+        masm.bind(reduce);
+        masm.mov(constant, 31);
+        masm.neon.umovGX(ElementSize.Word, result, acc[0], 0);
+        for (int i = 1; i < LANES; i++) {
+            masm.neon.umovGX(ElementSize.Word, scratch, acc[0], i);
+            masm.madd(32, result, result, constant, scratch);
+        }
+        // result = initial * 31^n + sum
+        masm.madd(32, result, asRegister(initialValue), power, result);
+        masm.jmp(scalarCheck);
+
+        masm.bind(scalarTail);
+        masm.mov(32, result, asRegister(initialValue));
+        masm.mov(constant, 31);
+
+        // process the remaining elements
+        masm.bind(scalarCheck);
+        masm.cmp(64, cur, end);
+        masm.branchConditionally(ConditionFlag.HS, done);
+        masm.bind(scalarLoop);
+        emitScalarLoad(masm, scratch, cur);
+        masm.madd(32, result, result, constant, scratch);
+        masm.cmp(64, cur, end);
+        masm.branchConditionally(ConditionFlag.LO, scalarLoop);
+        masm.bind(done);
+    }
+
+    private static int power(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 31;
+        }
+        return result;
+    }
+
+    /**
+     * Loads {@link #LANES} elements from {@code cur} into the 32-bit lanes of {@code dst} and
+     * advances {@code cur}.
+     */
+    private void emitVectorLoad(AArch64MacroAssembler masm, Register dst, Register cur) {
+        int size = LANES * elementKind.getByteCount() * Byte.SIZE;
+        masm.fldr(size, dst, AArch64Address.createImmediateAddress(size, IMMEDIATE_POST_INDEXED, cur, size / Byte.SIZE));
+        switch (elementKind) {
+            case Boolean:
+                masm.neon.uxtlVV(ElementSize.Byte, dst, dst);
+                masm.neon.uxtlVV(ElementSize.HalfWord, dst, dst);
+                break;
+            case Byte:
+                masm.neon.sxtlVV(ElementSize.Byte, dst, dst);
+                masm.neon.sxtlVV(ElementSize.HalfWord, dst, dst);
+                break;
+            case Char:
+                masm.neon.uxtlVV(ElementSize.HalfWord, dst, dst);
+                break;
+            case Short:
+                masm.neon.sxtlVV(ElementSize.HalfWord, dst, dst);
+                break;
+            case Int:
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unexpected element kind " + elementKind);
+        }
+    }
+
+    /**
+     * Loads one element from {@code cur} into {@code dst} and advances {@code cur}.
+     */
+    private void emitScalarLoad(AArch64MacroAssembler masm, Register dst, Register cur) {
+        int size = elementKind.getByteCount() * Byte.SIZE;
+        AArch64Address address = AArch64Address.createImmediateAddress(size, IMMEDIATE_POST_INDEXED, cur, elementKind.getByteCount());
+        switch (elementKind) {
+            case Boolean:
+            case Char:
+            case Int:
+                masm.ldr(size, dst, address);
+                break;
+            case Byte:
+            case Short:
+                masm.ldrs(32, size, dst, address);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unexpected element kind " + elementKind);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.aarch64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.aarch64.AArch64ASIMDAssembler.ASIMDSize;
+import org.graalvm.compiler.asm.aarch64.AArch64ASIMDAssembler.ElementSize;
+import org.graalvm.compiler.asm.aarch64.AArch64Address;
+import org.graalvm.compiler.asm.aarch64.AArch64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.aarch64.AArch64MacroAssembler;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.aarch64.AArch64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Compares two Latin-1 encoded byte array regions ignoring case differences, as done by
+ * {@code java.lang.StringLatin1.regionMatchesCI}.
+ *
+ * Both regions are folded to lower case before they are compared: a byte has bit {@code 0x20}
+ * set if it is in {@code [0x41, 0x5A]} or in {@code [0xC0, 0xDE]} but not {@code 0xD7}. All
+ * other Latin-1 characters are either lower case already or have no lower case counterpart in
+ * Latin-1 and therefore only match themselves.
+ *
+ * The regions are compared 16 bytes at a time with ASIMD instructions. The last (partial) chunk is
+ * handled by comparing the final 16 bytes of the regions again. Regions shorter than 16 bytes are
+ * compared byte by byte.
+ */
+@Opcode("AArch64_ARRAY_REGION_EQUALS_IGNORE_CASE")
+public final class AArch64ArrayRegionEqualsIgnoreCaseOp extends AArch64LIRInstruction {
+    public static final LIRInstructionClass<AArch64ArrayRegionEqualsIgnoreCaseOp> TYPE = LIRInstructionClass.create(AArch64ArrayRegionEqualsIgnoreCaseOp.class);
+
+    private static final int CHUNK_SIZE = 16;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value array1Value;
+    @Alive({REG}) protected Value array2Value;
+    @Alive({REG}) protected Value lengthValue;
+    @Temp({REG}) protected Value indexTemp;
+    @Temp({REG}) protected Value endTemp;
+    @Temp({REG}) protected Value char1Temp;
+    @Temp({REG}) protected Value char2Temp;
+    @Temp({REG}) protected Value scratchTemp;
+    @Temp({REG}) protected Value[] vectorTemp;
+
+    public AArch64ArrayRegionEqualsIgnoreCaseOp(LIRGeneratorTool tool, Value result, Value array1, Value array2, Value length) {
+        super(TYPE);
+        resultValue = result;
+        array1Value = array1;
+        array2Value = array2;
+        lengthValue = length;
+        LIRKind archWordKind = LIRKind.value(tool.target().arch.getWordKind());
+        indexTemp = tool.newVariable(archWordKind);
+        endTemp = tool.newVariable(archWordKind);
+        char1Temp = tool.newVariable(archWordKind);
+        char2Temp = tool.newVariable(archWordKind);
+        scratchTemp = tool.newVariable(archWordKind);
+        vectorTemp = new Value[10];
+        for (int i = 0; i < vectorTemp.length; i++) {
+            vectorTemp[i] = tool.newVariable(LIRKind.value(AArch64Kind.V128_BYTE));
+        }
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AArch64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array1 = asRegister(array1Value);
+        Register array2 = asRegister(array2Value);
+        Register index = asRegister(indexTemp);
+        Register end = asRegister(endTemp);
+        Register char1 = asRegister(char1Temp);
+        Register char2 = asRegister(char2Temp);
+        Register scratch = asRegister(scratchTemp);
+        Register[] vectors = new Register[vectorTemp.length];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = asRegister(vectorTemp[i]);
+        }
+
+        Label chunkLoop = new Label();
+        Label byteTail = new Label();
+        Label byteLoop = new Label();
+        Label nextByte = new Label();
+        Label equal = new Label();
+        Label notEqual = new Label();
+        Label done = new Label();
+
+        masm.mov(index, 0);
+        masm.sxt(64, 32, end, asRegister(lengthValue));
+
+        // compare 16-byte chunks
+        masm.cmp(64, end, CHUNK_SIZE);
+        masm.branchConditionally(ConditionFlag.LT, byteTail);
+        masm.sub(64, end, end, CHUNK_SIZE);
+        // constants used by emitToLowerCase
+        emitBroadcast(masm, vectors[4], scratch, 0x41);
+        emitBroadcast(masm, vectors[5], scratch, 'Z' - 'A');
+        emitBroadcast(masm, vectors[6], scratch, 0xC0);
+        emitBroadcast(masm, vectors[7], scratch, 0xDE - 0xC0);
+        emitBroadcast(masm, vectors[8], scratch, 0xD7);
+        emitBroadcast(masm, vectors[9], scratch, 0x20);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(chunkLoop);
+        emitChunkCompare(masm, vectors, scratch, array1, array2, index, notEqual);
+        masm.add(64, index, index, CHUNK_SIZE);
+        masm.cmp(64, index, end);
+        masm.branchConditionally(ConditionFlag.LT, chunkLoop);
+
+        // the last chunk overlaps with the already compared bytes
+        emitChunkCompare(masm, vectors, scratch, array1, array2, end, notEqual);
+        masm.jmp(equal);
+
+        // compare the remaining bytes
+        masm.bind(byteTail);
+        masm.cbz(64, end, equal);
+        masm.bind(byteLoop);
+        masm.ldr(8, char1, AArch64Address.createRegisterOffsetAddress(array1, index, false));
+        masm.ldr(8, char2, AArch64Address.createRegisterOffsetAddress(array2, index, false));
+        masm.cmp(32, char1, char2);
+        masm.branchConditionally(ConditionFlag.EQ, nextByte);
+        emitToLowerCase(masm, char1, scratch);
+        emitToLowerCase(masm, char2, scratch);
+        masm.cmp(32, char1, char2);
+        masm.branchConditionally(ConditionFlag.NE, notEqual);
+        masm.bind(nextByte);
+        masm.add(64, index, index, 1);
+        masm.cmp(64, index, end);
+        masm.branchConditionally(ConditionFlag.LT, byteLoop);
+
+        masm.bind(equal);
+        masm.mov(result, 1);
+        masm.jmp(done);
+
+        masm.bind(notEqual);
+        masm.mov(result, 0);
+        masm.bind(done);
+    }
+
+    private static void emitBroadcast(AArch64MacroAssembler masm, Register dst, Register scratch, int value) {
+        masm.mov(scratch, value);
+        masm.neon.dupVG(ASIMDSize.FullReg, ElementSize.Byte, dst, scratch);
+    }
+
+    /**
+     * Compares the 16 bytes at {@code array1 + index} with the 16 bytes at {@code array2 + index}
+     * and jumps to {@code notEqual} if they differ.
+     */
+    private static void emitChunkCompare(AArch64MacroAssembler masm, Register[] vectors, Register scratch, Register array1, Register array2, Register index, Label notEqual) {
+        Register vector1 = vectors[0];
+        Register vector2 = vectors[1];
+        masm.fldr(128, vector1, AArch64Address.createRegisterOffsetAddress(array1, index, false));
+        masm.fldr(128, vector2, AArch64Address.createRegisterOffsetAddress(array2, index, false));
+        emitToLowerCase(masm, vectors, vector1);
+        emitToLowerCase(masm, vectors, vector2);
+        masm.neon.eorVVV(ASIMDSize.FullReg, vector1, vector1, vector2);
+        masm.neon.umaxvSV(ASIMDSize.FullReg, ElementSize.Byte, vector1, vector1);
+        masm.neon.umovGX(ElementSize.Byte, scratch, vector1, 0);
+        masm.cbnz(32, scratch, notEqual);
+    }
+
+    /**
+     * Sets bit {@code 0x20} in all upper case Latin-1 letters of {@code vector}.
+     */
+    private static void emitToLowerCase(AArch64MacroAssembler masm, Register[] vectors, Register vector) {
+        Register tmp = vectors[2];
+        Register mask = vectors[3];
+        masm.neon.subVVV(ASIMDSize.FullReg, ElementSize.Byte, tmp, vector, vectors[4]);
+        masm.neon.cmhsVVV(ASIMDSize.FullReg, ElementSize.Byte, mask, vectors[5], tmp);
+        masm.neon.subVVV(ASIMDSize.FullReg, ElementSize.Byte, tmp, vector, vectors[6]);
+        masm.neon.cmhsVVV(ASIMDSize.FullReg, ElementSize.Byte, tmp, vectors[7], tmp);
+        masm.neon.orrVVV(ASIMDSize.FullReg, mask, mask, tmp);
+        // 0xD7 is in the second range but has no lower case counterpart
+        masm.neon.cmeqVVV(ASIMDSize.FullReg, ElementSize.Byte, tmp, vector, vectors[8]);
+        masm.neon.eorVVV(ASIMDSize.FullReg, mask, mask, tmp);
+        masm.neon.andVVV(ASIMDSize.FullReg, mask, mask, vectors[9]);
+        masm.neon.orrVVV(ASIMDSize.FullReg, vector, vector, mask);
+    }
+
+    /**
+     * Sets bit {@code 0x20} in {@code c} if it is an upper case Latin-1 letter.
+     */
+    private static void emitToLowerCase(AArch64MacroAssembler masm, Register c, Register scratch) {
+        Label toLower = new Label();
+        Label done = new Label();
+        masm.sub(32, scratch, c, 0x41);
+        masm.cmp(32, scratch, 'Z' - 'A');
+        masm.branchConditionally(ConditionFlag.LS, toLower);
+        masm.sub(32, scratch, c, 0xC0);
+        masm.cmp(32, scratch, 0xDE - 0xC0);
+        masm.branchConditionally(ConditionFlag.HI, done);
+        masm.cmp(32, c, 0xD7);
+        masm.branchConditionally(ConditionFlag.EQ, done);
+        masm.bind(toLower);
+        masm.orr(32, c, c, 0x20);
+        masm.bind(done);
+    }
+}
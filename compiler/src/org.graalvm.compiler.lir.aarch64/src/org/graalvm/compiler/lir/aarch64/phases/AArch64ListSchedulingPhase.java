@@ -0,0 +1,327 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.aarch64.phases;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static jdk.vm.ci.code.ValueUtil.isIllegal;
+import static jdk.vm.ci.code.ValueUtil.isRegister;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.lir.LIR;
+import org.graalvm.compiler.lir.LIRInstruction;
+import org.graalvm.compiler.lir.LIRInstruction.OperandFlag;
+import org.graalvm.compiler.lir.LIRInstruction.OperandMode;
+import org.graalvm.compiler.lir.ValueConsumer;
+import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp.BinaryConstOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp.BinaryOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp.BinaryShiftOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp.ExtendedAddSubShiftOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp.MultiplyAddSubOp;
+import org.graalvm.compiler.lir.aarch64.AArch64ArithmeticOp.UnaryOp;
+import org.graalvm.compiler.lir.aarch64.AArch64Move.LoadInlineConstant;
+import org.graalvm.compiler.lir.aarch64.AArch64Move.LoadOp;
+import org.graalvm.compiler.lir.aarch64.AArch64Move.Move;
+import org.graalvm.compiler.lir.gen.LIRGenerationResult;
+import org.graalvm.compiler.lir.phases.PostAllocationOptimizationPhase;
+import org.graalvm.compiler.options.EnumOptionKey;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionType;
+
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.Constant;
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Reorders independent instructions within a basic block after register allocation so that the
+ * consumer of a long latency result (typically a load or a multiply) is separated from its
+ * producer. In-order cores such as the Cortex-A55 stall on such load-use sequences, and even
+ * out-of-order cores benefit when the issue window is small.
+ *
+ * Only a conservative set of instructions is moved: plain loads without an implicit exception
+ * state, register to register moves, primitive constant loads and arithmetic instructions that
+ * neither read nor write the condition flags. All of their operands must be registers. Any other
+ * instruction is treated as a barrier that splits the block into independently scheduled
+ * regions. Within a region the dependences are derived from the physical registers read and
+ * written by each instruction. Since a region never contains a store, a call or a memory barrier,
+ * loads do not need to be ordered with respect to each other.
+ */
+public class AArch64ListSchedulingPhase extends PostAllocationOptimizationPhase {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Reorders instructions within AArch64 basic blocks after register allocation " +
+                       "using the latency table of the selected core.", type = OptionType.Expert)
+        public static final EnumOptionKey<LatencyModel> AArch64LIRScheduling = new EnumOptionKey<>(LatencyModel.None);
+        // @formatter:on
+    }
+
+    /**
+     * Result latencies, in cycles, of the instruction classes considered by the scheduler.
+     */
+    public enum LatencyModel {
+        None(0, 0, 0, 0),
+        CortexA55(3, 1, 3, 4),
+        NeoverseN1(4, 1, 2, 3);
+
+        final int load;
+        final int alu;
+        final int multiply;
+        final int floatingPoint;
+
+        LatencyModel(int load, int alu, int multiply, int floatingPoint) {
+            this.load = load;
+            this.alu = alu;
+            this.multiply = multiply;
+            this.floatingPoint = floatingPoint;
+        }
+    }
+
+    /**
+     * Upper bound on the number of instructions scheduled together, which bounds the quadratic
+     * cost of building the dependence graph. Longer runs are split into several regions.
+     */
+    private static final int MAX_REGION_SIZE = 64;
+
+    private static final int NOT_SCHEDULABLE = -1;
+
+    private static final EnumSet<AArch64ArithmeticOp> ALU_OPS = EnumSet.of(AArch64ArithmeticOp.ADD, AArch64ArithmeticOp.SUB, AArch64ArithmeticOp.AND, AArch64ArithmeticOp.OR,
+                    AArch64ArithmeticOp.XOR, AArch64ArithmeticOp.BIC, AArch64ArithmeticOp.ORN, AArch64ArithmeticOp.EON, AArch64ArithmeticOp.LSL, AArch64ArithmeticOp.LSR,
+                    AArch64ArithmeticOp.ASR, AArch64ArithmeticOp.ROR, AArch64ArithmeticOp.NEG, AArch64ArithmeticOp.NOT);
+    private static final EnumSet<AArch64ArithmeticOp> MULTIPLY_OPS = EnumSet.of(AArch64ArithmeticOp.MUL, AArch64ArithmeticOp.MNEG, AArch64ArithmeticOp.SMULH, AArch64ArithmeticOp.UMULH,
+                    AArch64ArithmeticOp.SMULL, AArch64ArithmeticOp.SMNEGL, AArch64ArithmeticOp.MADD, AArch64ArithmeticOp.MSUB, AArch64ArithmeticOp.SMADDL, AArch64ArithmeticOp.SMSUBL);
+    private static final EnumSet<AArch64ArithmeticOp> FLOATING_POINT_OPS = EnumSet.of(AArch64ArithmeticOp.FADD, AArch64ArithmeticOp.FSUB, AArch64ArithmeticOp.FMUL, AArch64ArithmeticOp.FNEG,
+                    AArch64ArithmeticOp.FABS, AArch64ArithmeticOp.FMADD, AArch64ArithmeticOp.FMSUB);
+
+    private static final CounterKey scheduledRegions = DebugContext.counter("AArch64ListScheduling[ScheduledRegions]");
+    private static final CounterKey movedInstructions = DebugContext.counter("AArch64ListScheduling[MovedInstructions]");
+
+    @Override
+    protected void run(TargetDescription target, LIRGenerationResult lirGenRes, PostAllocationOptimizationContext context) {
+        LIR lir = lirGenRes.getLIR();
+        LatencyModel model = Options.AArch64LIRScheduling.getValue(lir.getOptions());
+        if (model == LatencyModel.None) {
+            return;
+        }
+        DebugContext debug = lir.getDebug();
+        for (AbstractBlockBase<?> block : lir.getControlFlowGraph().getBlocks()) {
+            if (block == null) {
+                continue;
+            }
+            ArrayList<LIRInstruction> instructions = lir.getLIRforBlock(block);
+            List<Node> region = new ArrayList<>();
+            for (int i = 0; i <= instructions.size(); i++) {
+                Node node = i < instructions.size() ? createNode(instructions.get(i), model) : null;
+                if (node == null || region.size() == MAX_REGION_SIZE) {
+                    if (region.size() > 1) {
+                        schedule(debug, instructions, i - region.size(), region);
+                    }
+                    region.clear();
+                }
+                if (node != null) {
+                    region.add(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * An instruction of a scheduling region together with its dependences.
+     */
+    private static final class Node implements ValueConsumer {
+        final LIRInstruction instruction;
+        final int latency;
+        final List<Register> defs = new ArrayList<>(1);
+        final List<Register> uses = new ArrayList<>(3);
+        final List<Node> successors = new ArrayList<>();
+        final List<Integer> successorLatencies = new ArrayList<>();
+        boolean registersOnly = true;
+        int index;
+        int height;
+        int predecessors;
+        int earliestCycle;
+
+        Node(LIRInstruction instruction, int latency) {
+            this.instruction = instruction;
+            this.latency = latency;
+        }
+
+        @Override
+        public void visitValue(Value value, OperandMode mode, EnumSet<OperandFlag> flags) {
+            if (isIllegal(value)) {
+                return;
+            }
+            if (!isRegister(value)) {
+                registersOnly = false;
+                return;
+            }
+            if (mode == OperandMode.DEF) {
+                defs.add(asRegister(value));
+            } else {
+                uses.add(asRegister(value));
+            }
+        }
+
+        void addSuccessor(Node successor, int edgeLatency) {
+            successors.add(successor);
+            successorLatencies.add(edgeLatency);
+            successor.predecessors++;
+        }
+
+        static boolean intersects(List<Register> a, List<Register> b) {
+            for (Register r : a) {
+                if (b.contains(r)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static Node createNode(LIRInstruction instruction, LatencyModel model) {
+        int latency = latencyOf(instruction, model);
+        if (latency == NOT_SCHEDULABLE) {
+            return null;
+        }
+        Node node = new Node(instruction, latency);
+        instruction.visitEachInput(node);
+        instruction.visitEachAlive(node);
+        instruction.visitEachTemp(node);
+        instruction.visitEachOutput(node);
+        return node.registersOnly ? node : null;
+    }
+
+    private static int latencyOf(LIRInstruction instruction, LatencyModel model) {
+        if (instruction.hasState() || instruction.destroysCallerSavedRegisters()) {
+            return NOT_SCHEDULABLE;
+        }
+        if (instruction instanceof LoadOp) {
+            return model.load;
+        }
+        if (instruction instanceof Move) {
+            return model.alu;
+        }
+        if (instruction instanceof LoadInlineConstant) {
+            Constant constant = ((LoadInlineConstant) instruction).getConstant();
+            if (constant instanceof JavaConstant && ((JavaConstant) constant).getJavaKind().isPrimitive()) {
+                return model.alu;
+            }
+            return NOT_SCHEDULABLE;
+        }
+        if (instruction instanceof UnaryOp || instruction instanceof BinaryOp || instruction instanceof BinaryConstOp || instruction instanceof BinaryShiftOp ||
+                        instruction instanceof ExtendedAddSubShiftOp || instruction instanceof MultiplyAddSubOp) {
+            AArch64ArithmeticOp op = AArch64ArithmeticOp.valueOf(instruction.name());
+            if (ALU_OPS.contains(op)) {
+                return model.alu;
+            } else if (MULTIPLY_OPS.contains(op)) {
+                return model.multiply;
+            } else if (FLOATING_POINT_OPS.contains(op)) {
+                return model.floatingPoint;
+            }
+        }
+        return NOT_SCHEDULABLE;
+    }
+
+    /**
+     * Builds the dependence graph of {@code region}, which occupies the instructions starting at
+     * {@code start}, and replaces them by a list schedule that prefers the instruction with the
+     * longest latency-weighted path to the end of the region.
+     */
+    private static void schedule(DebugContext debug, List<LIRInstruction> instructions, int start, List<Node> region) {
+        int size = region.size();
+        for (int i = 0; i < size; i++) {
+            Node node = region.get(i);
+            node.index = i;
+            for (int j = 0; j < i; j++) {
+                Node pred = region.get(j);
+                if (Node.intersects(pred.defs, node.uses)) {
+                    pred.addSuccessor(node, pred.latency);
+                } else if (Node.intersects(pred.uses, node.defs) || Node.intersects(pred.defs, node.defs)) {
+                    pred.addSuccessor(node, 0);
+                }
+            }
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            Node node = region.get(i);
+            int height = node.latency;
+            for (int s = 0; s < node.successors.size(); s++) {
+                height = Math.max(height, node.successorLatencies.get(s) + node.successors.get(s).height);
+            }
+            node.height = height;
+        }
+
+        List<Node> ready = new ArrayList<>();
+        for (Node node : region) {
+            if (node.predecessors == 0) {
+                ready.add(node);
+            }
+        }
+        int moved = 0;
+        int cycle = 0;
+        int position = 0;
+        while (position < size) {
+            Node best = null;
+            int nextCycle = Integer.MAX_VALUE;
+            for (Node candidate : ready) {
+                if (candidate.earliestCycle > cycle) {
+                    nextCycle = Math.min(nextCycle, candidate.earliestCycle);
+                } else if (best == null || candidate.height > best.height || (candidate.height == best.height && candidate.index < best.index)) {
+                    best = candidate;
+                }
+            }
+            if (best == null) {
+                // every ready instruction is still waiting for an operand: stall
+                cycle = nextCycle;
+                continue;
+            }
+            ready.remove(best);
+            if (best.index != position) {
+                moved++;
+            }
+            instructions.set(start + position, best.instruction);
+            for (int s = 0; s < best.successors.size(); s++) {
+                Node successor = best.successors.get(s);
+                successor.earliestCycle = Math.max(successor.earliestCycle, cycle + best.successorLatencies.get(s));
+                if (--successor.predecessors == 0) {
+                    ready.add(successor);
+                }
+            }
+            position++;
+            cycle++;
+        }
+        if (moved > 0) {
+            scheduledRegions.increment(debug);
+            movedInstructions.add(debug, moved);
+        }
+    }
+}
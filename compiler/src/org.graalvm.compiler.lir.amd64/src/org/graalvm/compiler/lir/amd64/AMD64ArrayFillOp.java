@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Stores a value into every element of a primitive array region, as done by
+ * {@code java.util.Arrays.fill}.
+ *
+ * The value is broadcast to a YMM register and stored 32 bytes at a time. The last (partial)
+ * vector is handled by storing the final 32 bytes of the region again, which is possible because
+ * every byte of the vector belongs to an element with the same value. Regions shorter than a
+ * vector are filled with 8 byte stores in the same way, and regions shorter than 8 bytes with
+ * one 4, 2 and 1 byte store each as needed.
+ */
+@Opcode("ARRAY_FILL")
+public final class AMD64ArrayFillOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayFillOp> TYPE = LIRInstructionClass.create(AMD64ArrayFillOp.class);
+
+    private static final int VECTOR_SIZE = AVXSize.YMM.getBytes();
+
+    private final JavaKind kind;
+
+    @Alive({REG}) private Value arrayValue;
+    @Alive({REG}) private Value lengthValue;
+    @Alive({REG}) private Value valueValue;
+
+    @Temp({REG}) private Value indexTemp;
+    @Temp({REG}) private Value endTemp;
+    @Temp({REG}) private Value patternTemp;
+    @Temp({REG}) private Value vectorTemp;
+
+    public AMD64ArrayFillOp(LIRGeneratorTool tool, JavaKind kind, Value array, Value length, Value value) {
+        super(TYPE);
+        GraalError.guarantee(isSupported(tool.target().arch), "requires AVX2");
+        assert kind.isPrimitive() && kind != JavaKind.Void : kind;
+        this.kind = kind;
+
+        this.arrayValue = array;
+        this.lengthValue = length;
+        this.valueValue = value;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.endTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.patternTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.vectorTemp = tool.newVariable(LIRKind.value(AMD64Kind.V256_BYTE));
+    }
+
+    public static boolean isSupported(Architecture arch) {
+        return ((AMD64) arch).getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register array = asRegister(arrayValue);
+        Register index = asRegister(indexTemp);
+        Register end = asRegister(endTemp);
+        Register pattern = asRegister(patternTemp);
+        Register vector = asRegister(vectorTemp);
+
+        Label vectorLoop = new Label();
+        Label wordTail = new Label();
+        Label wordLoop = new Label();
+        Label byteTail = new Label();
+        Label noInt = new Label();
+        Label noShort = new Label();
+        Label done = new Label();
+
+        int elementSize = kind.getByteCount();
+        masm.xorl(index, index);
+        masm.movslq(end, asRegister(lengthValue));
+        if (elementSize > 1) {
+            masm.shlq(end, Integer.numberOfTrailingZeros(elementSize));
+        }
+        emitBroadcast(masm, vector, asRegister(valueValue));
+        VexMoveOp.VMOVQ.emitReverse(masm, AVXSize.XMM, pattern, vector);
+
+        // store vectors
+        masm.cmpq(end, VECTOR_SIZE);
+        masm.jcc(ConditionFlag.Less, wordTail);
+        masm.subq(end, VECTOR_SIZE);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        VexMoveOp.VMOVDQU32.emit(masm, AVXSize.YMM, new AMD64Address(array, index, Scale.Times1), vector);
+        masm.addq(index, VECTOR_SIZE);
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, vectorLoop);
+
+        // the last vector overlaps with the already filled bytes
+        VexMoveOp.VMOVDQU32.emit(masm, AVXSize.YMM, new AMD64Address(array, end, Scale.Times1), vector);
+        masm.jmp(done);
+
+        // store 8-byte words
+        masm.bind(wordTail);
+        masm.cmpq(end, 8);
+        masm.jcc(ConditionFlag.Less, byteTail);
+        masm.subq(end, 8);
+
+        masm.bind(wordLoop);
+        masm.movq(new AMD64Address(array, index, Scale.Times1), pattern);
+        masm.addq(index, 8);
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, wordLoop);
+
+        // the last word overlaps with the already filled bytes
+        masm.movq(new AMD64Address(array, end, Scale.Times1), pattern);
+        masm.jmp(done);
+
+        // store the remaining bytes, at most one 4, 2 and 1 byte store each
+        masm.bind(byteTail);
+        if (elementSize <= 4) {
+            masm.testl(end, 4);
+            masm.jcc(ConditionFlag.Zero, noInt);
+            masm.movl(new AMD64Address(array, index, Scale.Times1), pattern);
+            masm.addq(index, 4);
+            masm.bind(noInt);
+        }
+        if (elementSize <= 2) {
+            masm.testl(end, 2);
+            masm.jcc(ConditionFlag.Zero, noShort);
+            masm.movw(new AMD64Address(array, index, Scale.Times1), pattern);
+            masm.addq(index, 2);
+            masm.bind(noShort);
+        }
+        if (elementSize == 1) {
+            masm.testl(end, 1);
+            masm.jcc(ConditionFlag.Zero, done);
+            masm.movb(new AMD64Address(array, index, Scale.Times1), pattern);
+        }
+        masm.bind(done);
+    }
+
+    /**
+     * Replicates the element {@code value} in all lanes of {@code dst}.
+     */
+    private void emitBroadcast(AMD64MacroAssembler masm, Register dst, Register value) {
+        switch (kind.getByteCount()) {
+            case 1:
+                VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, value);
+                VexRMOp.VPBROADCASTB.emit(masm, AVXSize.YMM, dst, dst);
+                break;
+            case 2:
+                VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, value);
+                VexRMOp.VPBROADCASTW.emit(masm, AVXSize.YMM, dst, dst);
+                break;
+            case 4:
+                VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, value);
+                VexRMOp.VPBROADCASTD.emit(masm, AVXSize.YMM, dst, dst);
+                break;
+            case 8:
+                VexMoveOp.VMOVQ.emit(masm, AVXSize.XMM, dst, value);
+                VexRMOp.VPBROADCASTQ.emit(masm, AVXSize.YMM, dst, dst);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unexpected element kind " + kind);
+        }
+    }
+}
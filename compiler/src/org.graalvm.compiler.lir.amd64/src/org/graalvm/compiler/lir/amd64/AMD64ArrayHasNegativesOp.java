@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Determines if a byte array region contains a negative byte. This is the core of
+ * {@code java.lang.StringCoding.hasNegatives}, which decides if a byte sequence can be decoded or
+ * encoded as ASCII without inspecting every character individually.
+ *
+ * The sign bits of one vector of bytes are extracted with {@code pmovmskb} per iteration. The last
+ * (partial) vector is handled by re-reading the final full vector of the region, so the bytes in
+ * the overlap are simply tested twice. Regions shorter than a vector are tested 8 bytes at a time
+ * in a general purpose register, and regions shorter than 8 bytes byte by byte.
+ */
+@Opcode("ARRAY_HAS_NEGATIVES")
+public final class AMD64ArrayHasNegativesOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayHasNegativesOp> TYPE = LIRInstructionClass.create(AMD64ArrayHasNegativesOp.class);
+
+    private static final long SIGN_BITS = 0x8080808080808080L;
+
+    private final AVXSize vectorSize;
+
+    @Def({REG}) private Value resultValue;
+    @Alive({REG}) private Value arrayValue;
+    @Alive({REG}) private Value lengthValue;
+
+    @Temp({REG}) private Value indexTemp;
+    @Temp({REG}) private Value endTemp;
+    @Temp({REG}) private Value scratchTemp;
+    @Temp({REG}) private Value maskTemp;
+    @Temp({REG}) private Value vectorTemp;
+
+    public AMD64ArrayHasNegativesOp(LIRGeneratorTool tool, Value result, Value array, Value length, int maxVectorSize) {
+        super(TYPE);
+        boolean avx2 = ((AMD64) tool.target().arch).getFeatures().contains(CPUFeature.AVX2);
+        this.vectorSize = avx2 && (maxVectorSize < 0 || maxVectorSize >= 32) ? AVXSize.YMM : AVXSize.XMM;
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.endTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.scratchTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.maskTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.vectorTemp = tool.newVariable(LIRKind.value(vectorSize == AVXSize.YMM ? AMD64Kind.V256_BYTE : AMD64Kind.V128_BYTE));
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayValue);
+        Register index = asRegister(indexTemp);
+        Register end = asRegister(endTemp);
+        Register scratch = asRegister(scratchTemp);
+        Register mask = asRegister(maskTemp);
+        Register vector = asRegister(vectorTemp);
+
+        Label vectorLoop = new Label();
+        Label wordTail = new Label();
+        Label wordLoop = new Label();
+        Label byteTail = new Label();
+        Label byteLoop = new Label();
+        Label found = new Label();
+        Label done = new Label();
+
+        masm.xorl(result, result);
+        masm.xorl(index, index);
+        masm.movslq(end, asRegister(lengthValue));
+
+        // compare vectors
+        masm.cmpq(end, vectorSize.getBytes());
+        masm.jcc(ConditionFlag.Less, wordTail);
+        masm.subq(end, vectorSize.getBytes());
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        emitVectorSignMask(masm, scratch, vector, new AMD64Address(array, index, Scale.Times1));
+        masm.testl(scratch, scratch);
+        masm.jcc(ConditionFlag.NotZero, found);
+        masm.addq(index, vectorSize.getBytes());
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, vectorLoop);
+
+        // the last vector overlaps with the already tested bytes
+        emitVectorSignMask(masm, scratch, vector, new AMD64Address(array, end, Scale.Times1));
+        masm.testl(scratch, scratch);
+        masm.jcc(ConditionFlag.NotZero, found);
+        masm.jmp(done);
+
+        // compare 8-byte words
+        masm.bind(wordTail);
+        masm.cmpq(end, 8);
+        masm.jcc(ConditionFlag.Less, byteTail);
+        masm.subq(end, 8);
+        masm.movq(mask, SIGN_BITS);
+
+        masm.bind(wordLoop);
+        masm.movq(scratch, new AMD64Address(array, index, Scale.Times1));
+        masm.testq(scratch, mask);
+        masm.jcc(ConditionFlag.NotZero, found);
+        masm.addq(index, 8);
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, wordLoop);
+
+        // the last word overlaps with the already tested bytes
+        masm.movq(scratch, new AMD64Address(array, end, Scale.Times1));
+        masm.testq(scratch, mask);
+        masm.jcc(ConditionFlag.NotZero, found);
+        masm.jmp(done);
+
+        // compare the remaining bytes
+        masm.bind(byteTail);
+        masm.testq(end, end);
+        masm.jcc(ConditionFlag.Zero, done);
+
+        masm.bind(byteLoop);
+        masm.movsbl(scratch, new AMD64Address(array, index, Scale.Times1));
+        masm.testl(scratch, scratch);
+        masm.jcc(ConditionFlag.Negative, found);
+        masm.incrementq(index, 1);
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, byteLoop);
+        masm.jmp(done);
+
+        masm.bind(found);
+        masm.movl(result, 1);
+        masm.bind(done);
+    }
+
+    /**
+     * Loads one vector from {@code address} and extracts the sign bits of its bytes into
+     * {@code dst}.
+     */
+    private void emitVectorSignMask(AMD64MacroAssembler masm, Register dst, Register vector, AMD64Address address) {
+        if (masm.supports(CPUFeature.AVX)) {
+            VexMoveOp.VMOVDQU32.emit(masm, vectorSize, vector, address);
+            VexRMOp.VPMOVMSKB.emit(masm, vectorSize, dst, vector);
+        } else {
+            masm.movdqu(vector, address);
+            masm.pmovmskb(dst, vector);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.AMD64RMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMRIOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMIOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRVMOp;
+import org.graalvm.compiler.asm.amd64.AMD64BaseAssembler.OperandSize;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.ArrayDataPointerConstant;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Computes the polynomial hash code {@code h = 31 * h + a[i]} of an array region, as done by
+ * {@code java.util.Arrays.hashCode} and {@code String.hashCode}.
+ *
+ * The elements are sign or zero extended to 32 bit lanes. With {@code n} lanes, every lane of an
+ * accumulator vector is multiplied by {@code 31^n} before the next {@code n} elements are added,
+ * so that after the loop lane {@code j} only lacks the factor {@code 31^(n-1-j)}, which is
+ * applied before the lanes are summed up. The main loop uses four independent accumulators to
+ * hide the latency of {@code vpmulld}. The initial hash value is multiplied by the power of 31
+ * corresponding to the number of elements processed with vectors, and the remaining elements are
+ * hashed one at a time.
+ *
+ * {@link JavaKind#Boolean} denotes unsigned bytes, e.g., Latin-1 characters.
+ */
+@Opcode("ARRAY_HASH_CODE")
+public final class AMD64ArrayHashCodeOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayHashCodeOp> TYPE = LIRInstructionClass.create(AMD64ArrayHashCodeOp.class);
+
+    /** Number of 32 bit lanes of a YMM register. */
+    private static final int LANES = 8;
+    /** Number of accumulators of the main loop. */
+    private static final int UNROLL = 4;
+
+    private static final ArrayDataPointerConstant LANE_WEIGHTS = new ArrayDataPointerConstant(laneWeights(), 32);
+
+    private final JavaKind elementKind;
+    private final int elementSize;
+
+    @Def({REG}) private Value resultValue;
+    @Alive({REG}) private Value arrayValue;
+    @Alive({REG}) private Value lengthValue;
+    @Alive({REG}) private Value initialValue;
+
+    @Temp({REG}) private Value indexTemp;
+    @Temp({REG}) private Value endTemp;
+    @Temp({REG}) private Value limitTemp;
+    @Temp({REG}) private Value powerTemp;
+    @Temp({REG}) private Value scratchTemp;
+    @Temp({REG}) private Value[] vectorTemp;
+
+    public AMD64ArrayHashCodeOp(LIRGeneratorTool tool, JavaKind elementKind, Value result, Value array, Value length, Value initial) {
+        super(TYPE);
+        GraalError.guarantee(isSupported(tool.target().arch), "requires AVX2");
+        this.elementKind = elementKind;
+        this.elementSize = elementKind == JavaKind.Boolean ? 1 : elementKind.getByteCount();
+        assert elementKind == JavaKind.Boolean || elementKind == JavaKind.Byte || elementKind == JavaKind.Char || elementKind == JavaKind.Short || elementKind == JavaKind.Int : elementKind;
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.lengthValue = length;
+        this.initialValue = initial;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.endTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.limitTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.powerTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.scratchTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.vectorTemp = new Value[UNROLL + 3];
+        for (int i = 0; i < vectorTemp.length; i++) {
+            vectorTemp[i] = tool.newVariable(LIRKind.value(AMD64Kind.V256_DWORD));
+        }
+    }
+
+    public static boolean isSupported(Architecture arch) {
+        return ((AMD64) arch).getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    private static int powerOf31(int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 31;
+        }
+        return result;
+    }
+
+    private static int[] laneWeights() {
+        int[] weights = new int[LANES];
+        for (int i = 0; i < LANES; i++) {
+            weights[i] = powerOf31(LANES - 1 - i);
+        }
+        return weights;
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array = asRegister(arrayValue);
+        Register index = asRegister(indexTemp);
+        Register end = asRegister(endTemp);
+        Register limit = asRegister(limitTemp);
+        Register power = asRegister(powerTemp);
+        Register scratch = asRegister(scratchTemp);
+        Register[] accumulators = new Register[UNROLL];
+        for (int i = 0; i < UNROLL; i++) {
+            accumulators[i] = asRegister(vectorTemp[i]);
+        }
+        Register data = asRegister(vectorTemp[UNROLL]);
+        Register vectorMultiplier = asRegister(vectorTemp[UNROLL + 1]);
+        Register unrolledMultiplier = asRegister(vectorTemp[UNROLL + 2]);
+        Register accumulator = accumulators[0];
+
+        int vectorBytes = LANES * elementSize;
+        int unrolledBytes = vectorBytes * UNROLL;
+
+        Label unrolledLoop = new Label();
+        Label vectorTail = new Label();
+        Label vectorLoop = new Label();
+        Label reduce = new Label();
+        Label scalarTail = new Label();
+        Label scalarLoop = new Label();
+        Label done = new Label();
+
+        masm.movl(result, asRegister(initialValue));
+        masm.xorl(index, index);
+        masm.movslq(end, asRegister(lengthValue));
+        if (elementSize > 1) {
+            masm.shlq(end, Integer.numberOfTrailingZeros(elementSize));
+        }
+        masm.cmpq(end, vectorBytes);
+        masm.jcc(ConditionFlag.Less, scalarTail);
+
+        masm.movl(power, 1);
+        VexRVMOp.VPXOR.emit(masm, AVXSize.YMM, accumulator, accumulator, accumulator);
+        emitBroadcast(masm, vectorMultiplier, scratch, powerOf31(LANES));
+        masm.cmpq(end, unrolledBytes);
+        masm.jcc(ConditionFlag.Less, vectorTail);
+
+        // hash UNROLL vectors per iteration with independent accumulators
+        for (int i = 1; i < UNROLL; i++) {
+            VexRVMOp.VPXOR.emit(masm, AVXSize.YMM, accumulators[i], accumulators[i], accumulators[i]);
+        }
+        emitBroadcast(masm, unrolledMultiplier, scratch, powerOf31(LANES * UNROLL));
+        masm.movq(limit, end);
+        masm.andq(limit, -unrolledBytes);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(unrolledLoop);
+        for (int i = 0; i < UNROLL; i++) {
+            VexRVMOp.VPMULLD.emit(masm, AVXSize.YMM, accumulators[i], accumulators[i], unrolledMultiplier);
+        }
+        for (int i = 0; i < UNROLL; i++) {
+            emitVectorLoad(masm, data, new AMD64Address(array, index, Scale.Times1, i * vectorBytes));
+            VexRVMOp.VPADDD.emit(masm, AVXSize.YMM, accumulators[i], accumulators[i], data);
+        }
+        masm.imull(power, power, powerOf31(LANES * UNROLL));
+        masm.addq(index, unrolledBytes);
+        masm.cmpq(index, limit);
+        masm.jcc(ConditionFlag.Less, unrolledLoop);
+
+        // combine the accumulators into the first one
+        for (int i = 1; i < UNROLL; i++) {
+            VexRVMOp.VPMULLD.emit(masm, AVXSize.YMM, accumulator, accumulator, vectorMultiplier);
+            VexRVMOp.VPADDD.emit(masm, AVXSize.YMM, accumulator, accumulator, accumulators[i]);
+        }
+
+        // hash the remaining full vectors
+        masm.bind(vectorTail);
+        masm.movq(limit, end);
+        masm.andq(limit, -vectorBytes);
+        masm.cmpq(index, limit);
+        masm.jcc(ConditionFlag.GreaterEqual, reduce);
+
+        masm.bind(vectorLoop);
+        VexRVMOp.VPMULLD.emit(masm, AVXSize.YMM, accumulator, accumulator, vectorMultiplier);
+        emitVectorLoad(masm, data, new AMD64Address(array, index, Scale.Times1));
+        VexRVMOp.VPADDD.emit(masm, AVXSize.YMM, accumulator, accumulator, data);
+        masm.imull(power, power, powerOf31(LANES));
+        masm.addq(index, vectorBytes);
+        masm.cmpq(index, limit);
+        masm.jcc(ConditionFlag.Less, vectorLoop);
+
+        // apply the missing factors to the lanes and sum them up
+        masm.bind(reduce);
+        VexRVMOp.VPMULLD.emit(masm, AVXSize.YMM, accumulator, accumulator, (AMD64Address) crb.recordDataReferenceInCode(LANE_WEIGHTS));
+        VexMRIOp.VEXTRACTI128.emit(masm, AVXSize.YMM, data, accumulator, 1);
+        VexRVMOp.VPADDD.emit(masm, AVXSize.XMM, accumulator, accumulator, data);
+        VexRMIOp.VPSHUFD.emit(masm, AVXSize.XMM, data, accumulator, 0x4E);
+        VexRVMOp.VPADDD.emit(masm, AVXSize.XMM, accumulator, accumulator, data);
+        VexRMIOp.VPSHUFD.emit(masm, AVXSize.XMM, data, accumulator, 0xB1);
+        VexRVMOp.VPADDD.emit(masm, AVXSize.XMM, accumulator, accumulator, data);
+        VexMoveOp.VMOVD.emitReverse(masm, AVXSize.XMM, scratch, accumulator);
+        AMD64RMOp.IMUL.emit(masm, OperandSize.DWORD, result, power);
+        masm.addl(result, scratch);
+
+        // hash the remaining elements
+        masm.bind(scalarTail);
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.GreaterEqual, done);
+
+        masm.bind(scalarLoop);
+        masm.imull(result, result, 31);
+        emitScalarLoad(masm, scratch, new AMD64Address(array, index, Scale.Times1));
+        masm.addl(result, scratch);
+        masm.addq(index, elementSize);
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, scalarLoop);
+
+        masm.bind(done);
+    }
+
+    private static void emitBroadcast(AMD64MacroAssembler masm, Register dst, Register scratch, int value) {
+        masm.movl(scratch, value);
+        VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, scratch);
+        VexRMOp.VPBROADCASTD.emit(masm, AVXSize.YMM, dst, dst);
+    }
+
+    /**
+     * Loads {@link #LANES} elements from {@code address} and extends them to 32 bit lanes.
+     */
+    private void emitVectorLoad(AMD64MacroAssembler masm, Register dst, AMD64Address address) {
+        switch (elementKind) {
+            case Boolean:
+                VexRMOp.VPMOVZXBD.emit(masm, AVXSize.YMM, dst, address);
+                break;
+            case Byte:
+                VexRMOp.VPMOVSXBD.emit(masm, AVXSize.YMM, dst, address);
+                break;
+            case Char:
+                VexRMOp.VPMOVZXWD.emit(masm, AVXSize.YMM, dst, address);
+                break;
+            case Short:
+                VexRMOp.VPMOVSXWD.emit(masm, AVXSize.YMM, dst, address);
+                break;
+            case Int:
+                VexMoveOp.VMOVDQU32.emit(masm, AVXSize.YMM, dst, address);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unexpected element kind " + elementKind);
+        }
+    }
+
+    private void emitScalarLoad(AMD64MacroAssembler masm, Register dst, AMD64Address address) {
+        switch (elementKind) {
+            case Boolean:
+                masm.movzbl(dst, address);
+                break;
+            case Byte:
+                masm.movsbl(dst, address);
+                break;
+            case Char:
+                masm.movzwl(dst, address);
+                break;
+            case Short:
+                masm.movswl(dst, address);
+                break;
+            case Int:
+                masm.movl(dst, address);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unexpected element kind " + elementKind);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRVMOp;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Compares two Latin-1 encoded byte array regions ignoring case differences, as done by
+ * {@code java.lang.StringLatin1.regionMatchesCI}.
+ *
+ * Both regions are folded to lower case before they are compared: a byte has bit {@code 0x20}
+ * set if it is in {@code [0x41, 0x5A]} or in {@code [0xC0, 0xDE]} but not {@code 0xD7}. All
+ * other Latin-1 characters are either lower case already or have no lower case counterpart in
+ * Latin-1 and therefore only match themselves. The range checks use signed byte compares on
+ * values biased such that the lower bound of the range maps to {@code -128}.
+ *
+ * As in {@link AMD64ArrayHasNegativesOp}, the last partial vector is handled by comparing the
+ * final full vector of the regions again. Regions shorter than a vector are compared byte by byte.
+ */
+@Opcode("ARRAY_REGION_EQUALS_IGNORE_CASE")
+public final class AMD64ArrayRegionEqualsIgnoreCaseOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64ArrayRegionEqualsIgnoreCaseOp> TYPE = LIRInstructionClass.create(AMD64ArrayRegionEqualsIgnoreCaseOp.class);
+
+    private final AVXSize vectorSize;
+
+    @Def({REG}) private Value resultValue;
+    @Alive({REG}) private Value array1Value;
+    @Alive({REG}) private Value array2Value;
+    @Alive({REG}) private Value lengthValue;
+
+    @Temp({REG}) private Value indexTemp;
+    @Temp({REG}) private Value endTemp;
+    @Temp({REG}) private Value char1Temp;
+    @Temp({REG}) private Value char2Temp;
+    @Temp({REG}) private Value scratchTemp;
+    @Temp({REG}) private Value[] vectorTemp;
+
+    public AMD64ArrayRegionEqualsIgnoreCaseOp(LIRGeneratorTool tool, Value result, Value array1, Value array2, Value length, int maxVectorSize) {
+        super(TYPE);
+        assert isSupported(tool.target().arch);
+        this.vectorSize = maxVectorSize < 0 || maxVectorSize >= 32 ? AVXSize.YMM : AVXSize.XMM;
+
+        this.resultValue = result;
+        this.array1Value = array1;
+        this.array2Value = array2;
+        this.lengthValue = length;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.endTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.char1Temp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.char2Temp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        this.scratchTemp = tool.newVariable(LIRKind.value(AMD64Kind.DWORD));
+        LIRKind vectorKind = LIRKind.value(vectorSize == AVXSize.YMM ? AMD64Kind.V256_BYTE : AMD64Kind.V128_BYTE);
+        this.vectorTemp = new Value[10];
+        for (int i = 0; i < vectorTemp.length; i++) {
+            vectorTemp[i] = tool.newVariable(vectorKind);
+        }
+    }
+
+    /**
+     * Determines if this op can be emitted on {@code arch}.
+     */
+    public static boolean isSupported(Architecture arch) {
+        return ((AMD64) arch).getFeatures().contains(CPUFeature.AVX2);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register array1 = asRegister(array1Value);
+        Register array2 = asRegister(array2Value);
+        Register index = asRegister(indexTemp);
+        Register end = asRegister(endTemp);
+        Register char1 = asRegister(char1Temp);
+        Register char2 = asRegister(char2Temp);
+        Register scratch = asRegister(scratchTemp);
+        Register[] vectors = new Register[vectorTemp.length];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = asRegister(vectorTemp[i]);
+        }
+
+        Label vectorLoop = new Label();
+        Label byteTail = new Label();
+        Label byteLoop = new Label();
+        Label nextByte = new Label();
+        Label equal = new Label();
+        Label notEqual = new Label();
+        Label done = new Label();
+
+        masm.xorl(index, index);
+        masm.movslq(end, asRegister(lengthValue));
+
+        // compare vectors
+        masm.cmpq(end, vectorSize.getBytes());
+        masm.jcc(ConditionFlag.Less, byteTail);
+        masm.subq(end, vectorSize.getBytes());
+        // constants used by emitToLowerCase
+        emitBroadcast(masm, vectors[4], scratch, 0x80 - 0x41);
+        emitBroadcast(masm, vectors[5], scratch, -128 + ('Z' - 'A' + 1));
+        emitBroadcast(masm, vectors[6], scratch, 0x80 - 0xC0);
+        emitBroadcast(masm, vectors[7], scratch, -128 + (0xDE - 0xC0 + 1));
+        emitBroadcast(masm, vectors[8], scratch, 0xD7);
+        emitBroadcast(masm, vectors[9], scratch, 0x20);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(vectorLoop);
+        emitVectorCompare(masm, vectors, scratch, new AMD64Address(array1, index, Scale.Times1), new AMD64Address(array2, index, Scale.Times1), notEqual);
+        masm.addq(index, vectorSize.getBytes());
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, vectorLoop);
+
+        // the last vector overlaps with the already compared bytes
+        emitVectorCompare(masm, vectors, scratch, new AMD64Address(array1, end, Scale.Times1), new AMD64Address(array2, end, Scale.Times1), notEqual);
+        masm.jmp(equal);
+
+        // compare the remaining bytes
+        masm.bind(byteTail);
+        masm.testq(end, end);
+        masm.jcc(ConditionFlag.Zero, equal);
+
+        masm.bind(byteLoop);
+        masm.movzbl(char1, new AMD64Address(array1, index, Scale.Times1));
+        masm.movzbl(char2, new AMD64Address(array2, index, Scale.Times1));
+        masm.cmpl(char1, char2);
+        masm.jcc(ConditionFlag.Equal, nextByte);
+        emitToLowerCase(masm, char1, scratch);
+        emitToLowerCase(masm, char2, scratch);
+        masm.cmpl(char1, char2);
+        masm.jcc(ConditionFlag.NotEqual, notEqual);
+        masm.bind(nextByte);
+        masm.incrementq(index, 1);
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, byteLoop);
+
+        masm.bind(equal);
+        masm.movl(result, 1);
+        masm.jmp(done);
+
+        masm.bind(notEqual);
+        masm.xorl(result, result);
+        masm.bind(done);
+    }
+
+    private void emitBroadcast(AMD64MacroAssembler masm, Register dst, Register scratch, int value) {
+        masm.movl(scratch, value & 0xFF);
+        VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, scratch);
+        VexRMOp.VPBROADCASTB.emit(masm, vectorSize, dst, dst);
+    }
+
+    /**
+     * Compares one vector at {@code address1} with one vector at {@code address2} and jumps to
+     * {@code notEqual} if they differ.
+     */
+    private void emitVectorCompare(AMD64MacroAssembler masm, Register[] vectors, Register scratch, AMD64Address address1, AMD64Address address2, Label notEqual) {
+        Register vector1 = vectors[0];
+        Register vector2 = vectors[1];
+        VexMoveOp.VMOVDQU32.emit(masm, vectorSize, vector1, address1);
+        VexMoveOp.VMOVDQU32.emit(masm, vectorSize, vector2, address2);
+        emitToLowerCase(masm, vectors, vector1);
+        emitToLowerCase(masm, vectors, vector2);
+        VexRVMOp.VPCMPEQB.emit(masm, vectorSize, vector1, vector1, vector2);
+        VexRMOp.VPMOVMSKB.emit(masm, vectorSize, scratch, vector1);
+        masm.cmpl(scratch, vectorSize == AVXSize.YMM ? 0xFFFFFFFF : 0xFFFF);
+        masm.jcc(ConditionFlag.NotEqual, notEqual);
+    }
+
+    /**
+     * Sets bit {@code 0x20} in all upper case Latin-1 letters of {@code vector}.
+     */
+    private void emitToLowerCase(AMD64MacroAssembler masm, Register[] vectors, Register vector) {
+        Register tmp = vectors[2];
+        Register mask = vectors[3];
+        VexRVMOp.VPADDB.emit(masm, vectorSize, tmp, vector, vectors[4]);
+        VexRVMOp.VPCMPGTB.emit(masm, vectorSize, mask, vectors[5], tmp);
+        VexRVMOp.VPADDB.emit(masm, vectorSize, tmp, vector, vectors[6]);
+        VexRVMOp.VPCMPGTB.emit(masm, vectorSize, tmp, vectors[7], tmp);
+        VexRVMOp.VPOR.emit(masm, vectorSize, mask, mask, tmp);
+        // 0xD7 is in the second range but has no lower case counterpart
+        VexRVMOp.VPCMPEQB.emit(masm, vectorSize, tmp, vector, vectors[8]);
+        VexRVMOp.VPXOR.emit(masm, vectorSize, mask, mask, tmp);
+        VexRVMOp.VPAND.emit(masm, vectorSize, mask, mask, vectors[9]);
+        VexRVMOp.VPOR.emit(masm, vectorSize, vector, vector, mask);
+    }
+
+    /**
+     * Sets bit {@code 0x20} in {@code c} if it is an upper case Latin-1 letter.
+     */
+    private static void emitToLowerCase(AMD64MacroAssembler masm, Register c, Register scratch) {
+        Label toLower = new Label();
+        Label done = new Label();
+        masm.movl(scratch, c);
+        masm.subl(scratch, 0x41);
+        masm.cmpl(scratch, 'Z' - 'A');
+        masm.jcc(ConditionFlag.BelowEqual, toLower);
+        masm.movl(scratch, c);
+        masm.subl(scratch, 0xC0);
+        masm.cmpl(scratch, 0xDE - 0xC0);
+        masm.jcc(ConditionFlag.Above, done);
+        masm.cmpl(c, 0xD7);
+        masm.jcc(ConditionFlag.Equal, done);
+        masm.bind(toLower);
+        masm.orl(c, 0x20);
+        masm.bind(done);
+    }
+}
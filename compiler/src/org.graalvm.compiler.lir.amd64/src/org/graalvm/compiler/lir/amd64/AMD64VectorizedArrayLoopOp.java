@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.ILLEGAL;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import java.util.Objects;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.AMD64BinaryArithmetic;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMRIOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMIOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRVMOp;
+import org.graalvm.compiler.asm.amd64.AMD64BaseAssembler.OperandSize;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits the kernel of a vectorized counted array loop. The kernel either maps a binary
+ * {@link ElementwiseOperation} over one or two arrays and stores the result into a destination
+ * array, or folds the elements of one array into a scalar.
+ *
+ * The number of elements processed by the kernel is always a multiple of
+ * {@link ElementwiseOperation#elementsPerBlock(JavaKind)}, so the loop never has to process a
+ * partial vector. The remaining iterations are executed by the scalar loop following the kernel.
+ */
+@Opcode("VECTORIZED_ARRAY_LOOP")
+public final class AMD64VectorizedArrayLoopOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64VectorizedArrayLoopOp> TYPE = LIRInstructionClass.create(AMD64VectorizedArrayLoopOp.class);
+
+    private final ElementwiseOperation op;
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final Scale arrayIndexScale;
+    private final AVXSize vectorSize;
+    private final boolean reduction;
+    private final boolean scalarSrc2;
+
+    @Def({REG, ILLEGAL}) private Value resultValue;
+    @Alive({REG}) private Value arrayValue;
+    @Alive({REG, ILLEGAL}) private Value src1Value;
+    @Alive({REG, ILLEGAL}) private Value src2Value;
+    @Alive({REG}) private Value fromIndexValue;
+    @Alive({REG}) private Value lengthValue;
+    @Alive({REG, ILLEGAL}) private Value initialValue;
+
+    @Temp({REG}) private Value indexTemp;
+    @Temp({REG}) private Value endTemp;
+    @Temp({REG}) private Value vectorTemp1;
+    @Temp({REG}) private Value vectorTemp2;
+
+    private AMD64VectorizedArrayLoopOp(LIRGeneratorTool tool, ElementwiseOperation op, JavaKind kind, int arrayBaseOffset, boolean reduction, boolean scalarSrc2, Value result, Value array,
+                    Value src1, Value src2, Value fromIndex, Value length, Value initialValue, int maxVectorSize) {
+        super(TYPE);
+        assert isSupported(tool.target().arch, op, kind, reduction) : op + " " + kind;
+        this.op = op;
+        this.kind = kind;
+        this.arrayBaseOffset = arrayBaseOffset;
+        this.arrayIndexScale = Objects.requireNonNull(Scale.fromInt(tool.getProviders().getMetaAccess().getArrayIndexScale(kind)));
+        this.vectorSize = maxVectorSize < 0 || maxVectorSize >= 32 ? AVXSize.YMM : AVXSize.XMM;
+        this.reduction = reduction;
+        this.scalarSrc2 = scalarSrc2;
+
+        this.resultValue = result;
+        this.arrayValue = array;
+        this.src1Value = src1;
+        this.src2Value = src2;
+        this.fromIndexValue = fromIndex;
+        this.lengthValue = length;
+        this.initialValue = initialValue;
+
+        this.indexTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        this.endTemp = tool.newVariable(LIRKind.value(AMD64Kind.QWORD));
+        LIRKind vectorKind = LIRKind.value(vectorSize == AVXSize.YMM ? AMD64Kind.V256_BYTE : AMD64Kind.V128_BYTE);
+        this.vectorTemp1 = tool.newVariable(vectorKind);
+        this.vectorTemp2 = tool.newVariable(vectorKind);
+    }
+
+    /**
+     * Creates an op computing {@code dst[i] = src1[i] op src2[i]} (or {@code src1[i] op src2} if
+     * {@code scalarSrc2}) for {@code i} in {@code [fromIndex, fromIndex + length)}.
+     */
+    public static AMD64VectorizedArrayLoopOp map(LIRGeneratorTool tool, ElementwiseOperation op, JavaKind kind, int arrayBaseOffset, Value dst, Value src1, Value src2, boolean scalarSrc2,
+                    Value fromIndex, Value length, int maxVectorSize) {
+        return new AMD64VectorizedArrayLoopOp(tool, op, kind, arrayBaseOffset, false, scalarSrc2, Value.ILLEGAL, dst, src1, src2, fromIndex, length, Value.ILLEGAL, maxVectorSize);
+    }
+
+    /**
+     * Creates an op folding {@code array[i]} for {@code i} in {@code [fromIndex, fromIndex + length)}
+     * into {@code initialValue}.
+     */
+    public static AMD64VectorizedArrayLoopOp reduce(LIRGeneratorTool tool, ElementwiseOperation op, JavaKind kind, int arrayBaseOffset, Value result, Value array, Value fromIndex, Value length,
+                    Value initialValue, int maxVectorSize) {
+        return new AMD64VectorizedArrayLoopOp(tool, op, kind, arrayBaseOffset, true, false, result, array, Value.ILLEGAL, Value.ILLEGAL, fromIndex, length, initialValue, maxVectorSize);
+    }
+
+    /**
+     * Determines if a kernel for {@code op} on arrays of {@code kind} can be emitted on
+     * {@code arch}.
+     */
+    public static boolean isSupported(Architecture arch, ElementwiseOperation op, JavaKind kind, boolean reduction) {
+        if (!((AMD64) arch).getFeatures().contains(CPUFeature.AVX2)) {
+            return false;
+        }
+        if (reduction) {
+            switch (kind) {
+                case Byte:
+                case Short:
+                case Char:
+                case Int:
+                case Long:
+                    return op == ElementwiseOperation.ADD || op == ElementwiseOperation.AND || op == ElementwiseOperation.OR || op == ElementwiseOperation.XOR;
+                default:
+                    return false;
+            }
+        }
+        switch (kind) {
+            case Byte:
+            case Long:
+                return op != ElementwiseOperation.MUL && op != ElementwiseOperation.DIV;
+            case Short:
+            case Char:
+            case Int:
+                return op != ElementwiseOperation.DIV;
+            case Float:
+            case Double:
+                return op == ElementwiseOperation.ADD || op == ElementwiseOperation.SUB || op == ElementwiseOperation.MUL || op == ElementwiseOperation.DIV;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * The kind of the vector lanes the operation is performed on.
+     */
+    private JavaKind laneKind() {
+        return reduction ? kind.getStackKind() : kind;
+    }
+
+    private int elementsPerIteration() {
+        return vectorSize.getBytes() / laneKind().getByteCount();
+    }
+
+    private AMD64Address elementAddress(Register array, Register index) {
+        return new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register index = asRegister(indexTemp);
+        Register end = asRegister(endTemp);
+        Register vector1 = asRegister(vectorTemp1);
+        Register vector2 = asRegister(vectorTemp2);
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        masm.movslq(index, asRegister(fromIndexValue));
+        masm.movslq(end, asRegister(lengthValue));
+        masm.addq(end, index);
+
+        if (reduction) {
+            // initialize the accumulator with the identity of the operation
+            if (op == ElementwiseOperation.AND) {
+                VexRVMOp.VPCMPEQD.emit(masm, vectorSize, vector2, vector2, vector2);
+            } else {
+                VexRVMOp.VPXOR.emit(masm, vectorSize, vector2, vector2, vector2);
+            }
+        } else if (scalarSrc2) {
+            emitBroadcast(masm, asRegister(src2Value), vector2);
+        }
+
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.GreaterEqual, done);
+
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        if (reduction) {
+            emitWideningLoad(masm, vector1, elementAddress(asRegister(arrayValue), index));
+            getVectorOp(op, laneKind()).emit(masm, vectorSize, vector2, vector2, vector1);
+        } else {
+            VexMoveOp.VMOVDQU32.emit(masm, vectorSize, vector1, elementAddress(asRegister(src1Value), index));
+            if (scalarSrc2) {
+                getVectorOp(op, kind).emit(masm, vectorSize, vector1, vector1, vector2);
+            } else {
+                getVectorOp(op, kind).emit(masm, vectorSize, vector1, vector1, elementAddress(asRegister(src2Value), index));
+            }
+            VexMoveOp.VMOVDQU32.emit(masm, vectorSize, elementAddress(asRegister(arrayValue), index), vector1);
+        }
+        masm.addq(index, elementsPerIteration());
+        masm.cmpq(index, end);
+        masm.jcc(ConditionFlag.Less, loop);
+
+        masm.bind(done);
+        if (reduction) {
+            emitHorizontalReduction(masm, vector2, vector1);
+        }
+    }
+
+    /**
+     * Loads one vector of lanes from {@code address}, widening sub-int elements to int lanes.
+     */
+    private void emitWideningLoad(AMD64MacroAssembler masm, Register dst, AMD64Address address) {
+        switch (kind) {
+            case Byte:
+                VexRMOp.VPMOVSXBD.emit(masm, vectorSize, dst, address);
+                break;
+            case Short:
+                VexRMOp.VPMOVSXWD.emit(masm, vectorSize, dst, address);
+                break;
+            case Char:
+                VexRMOp.VPMOVZXWD.emit(masm, vectorSize, dst, address);
+                break;
+            case Int:
+            case Long:
+                VexMoveOp.VMOVDQU32.emit(masm, vectorSize, dst, address);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    /**
+     * Folds the lanes of {@code accumulator} into a scalar, combines it with the initial value and
+     * writes it to the result register.
+     */
+    private void emitHorizontalReduction(AMD64MacroAssembler masm, Register accumulator, Register tmp) {
+        JavaKind lane = laneKind();
+        VexRVMOp vectorOp = getVectorOp(op, lane);
+        if (vectorSize == AVXSize.YMM) {
+            VexMRIOp.VEXTRACTI128.emit(masm, AVXSize.YMM, tmp, accumulator, 1);
+            vectorOp.emit(masm, AVXSize.XMM, accumulator, accumulator, tmp);
+        }
+        VexRMIOp.VPSHUFD.emit(masm, AVXSize.XMM, tmp, accumulator, 0x4E);
+        vectorOp.emit(masm, AVXSize.XMM, accumulator, accumulator, tmp);
+        if (lane == JavaKind.Int) {
+            VexRMIOp.VPSHUFD.emit(masm, AVXSize.XMM, tmp, accumulator, 0xB1);
+            vectorOp.emit(masm, AVXSize.XMM, accumulator, accumulator, tmp);
+        }
+
+        Register result = asRegister(resultValue);
+        OperandSize size = lane == JavaKind.Long ? OperandSize.QWORD : OperandSize.DWORD;
+        if (lane == JavaKind.Long) {
+            VexMoveOp.VMOVQ.emitReverse(masm, AVXSize.XMM, result, accumulator);
+        } else {
+            VexMoveOp.VMOVD.emitReverse(masm, AVXSize.XMM, result, accumulator);
+        }
+        getScalarOp(op).getRMOpcode(size).emit(masm, size, result, asRegister(initialValue));
+    }
+
+    /**
+     * Fills {@code dst} with copies of the scalar {@code src}.
+     */
+    private void emitBroadcast(AMD64MacroAssembler masm, Register src, Register dst) {
+        switch (kind) {
+            case Byte:
+                VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, src);
+                VexRMOp.VPBROADCASTB.emit(masm, vectorSize, dst, dst);
+                break;
+            case Short:
+            case Char:
+                VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, src);
+                VexRMOp.VPBROADCASTW.emit(masm, vectorSize, dst, dst);
+                break;
+            case Int:
+                VexMoveOp.VMOVD.emit(masm, AVXSize.XMM, dst, src);
+                VexRMOp.VPBROADCASTD.emit(masm, vectorSize, dst, dst);
+                break;
+            case Long:
+                VexMoveOp.VMOVQ.emit(masm, AVXSize.XMM, dst, src);
+                VexRMOp.VPBROADCASTQ.emit(masm, vectorSize, dst, dst);
+                break;
+            case Float:
+                VexRMOp.VPBROADCASTD.emit(masm, vectorSize, dst, src);
+                break;
+            case Double:
+                VexRMOp.VPBROADCASTQ.emit(masm, vectorSize, dst, src);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere(kind.toString());
+        }
+    }
+
+    private static AMD64BinaryArithmetic getScalarOp(ElementwiseOperation op) {
+        switch (op) {
+            case ADD:
+                return AMD64BinaryArithmetic.ADD;
+            case AND:
+                return AMD64BinaryArithmetic.AND;
+            case OR:
+                return AMD64BinaryArithmetic.OR;
+            case XOR:
+                return AMD64BinaryArithmetic.XOR;
+            default:
+                throw GraalError.shouldNotReachHere(op.toString());
+        }
+    }
+
+    private static VexRVMOp getVectorOp(ElementwiseOperation op, JavaKind laneKind) {
+        switch (op) {
+            case AND:
+                return VexRVMOp.VPAND;
+            case OR:
+                return VexRVMOp.VPOR;
+            case XOR:
+                return VexRVMOp.VPXOR;
+            default:
+                break;
+        }
+        switch (laneKind) {
+            case Byte:
+                return op == ElementwiseOperation.ADD ? VexRVMOp.VPADDB : VexRVMOp.VPSUBB;
+            case Short:
+            case Char:
+                switch (op) {
+                    case ADD:
+                        return VexRVMOp.VPADDW;
+                    case SUB:
+                        return VexRVMOp.VPSUBW;
+                    case MUL:
+                        return VexRVMOp.VPMULLW;
+                    default:
+                        break;
+                }
+                break;
+            case Int:
+                switch (op) {
+                    case ADD:
+                        return VexRVMOp.VPADDD;
+                    case SUB:
+                        return VexRVMOp.VPSUBD;
+                    case MUL:
+                        return VexRVMOp.VPMULLD;
+                    default:
+                        break;
+                }
+                break;
+            case Long:
+                return op == ElementwiseOperation.ADD ? VexRVMOp.VPADDQ : VexRVMOp.VPSUBQ;
+            case Float:
+                switch (op) {
+                    case ADD:
+                        return VexRVMOp.VADDPS;
+                    case SUB:
+                        return VexRVMOp.VSUBPS;
+                    case MUL:
+                        return VexRVMOp.VMULPS;
+                    case DIV:
+                        return VexRVMOp.VDIVPS;
+                    default:
+                        break;
+                }
+                break;
+            case Double:
+                switch (op) {
+                    case ADD:
+                        return VexRVMOp.VADDPD;
+                    case SUB:
+                        return VexRVMOp.VSUBPD;
+                    case MUL:
+                        return VexRVMOp.VMULPD;
+                    case DIV:
+                        return VexRVMOp.VDIVPD;
+                    default:
+                        break;
+                }
+                break;
+            default:
+                break;
+        }
+        throw GraalError.shouldNotReachHere(op + " " + laneKind);
+    }
+
+    @Override
+    public boolean needsClearUpperVectorRegisters() {
+        return true;
+    }
+}
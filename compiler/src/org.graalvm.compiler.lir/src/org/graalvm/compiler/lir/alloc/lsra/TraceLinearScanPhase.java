@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.alloc.lsra;
+
+import java.util.ArrayList;
+
+import org.graalvm.compiler.core.common.alloc.RegisterAllocationConfig;
+import org.graalvm.compiler.core.common.alloc.Trace;
+import org.graalvm.compiler.core.common.alloc.TraceBuilderResult;
+import org.graalvm.compiler.core.common.alloc.TraceBuilderResult.TrivialTracePredicate;
+import org.graalvm.compiler.core.common.alloc.TraceStatisticsPrinter;
+import org.graalvm.compiler.core.common.alloc.UniDirectionalTraceBuilder;
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.lir.LIR;
+import org.graalvm.compiler.lir.alloc.RegisterAllocationPhase;
+import org.graalvm.compiler.lir.alloc.lsra.ssa.SSALinearScan;
+import org.graalvm.compiler.lir.gen.LIRGenerationResult;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool.MoveFactory;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+
+import jdk.vm.ci.code.TargetDescription;
+
+/**
+ * Linear scan register allocation along profile-ordered traces.
+ *
+ * The blocks of the {@link LIR} are partitioned into traces by the
+ * {@link UniDirectionalTraceBuilder}, which greedily follows the most frequent successor starting
+ * at the most frequent unprocessed block. The traces are then concatenated, hottest first, and
+ * the result is used as the block order of the {@link LinearScan linear scan allocator}. Since
+ * lifetime intervals are laid out along this order, values used on the hot paths get short,
+ * contiguous intervals while the cold parts of the method are moved to the end, so that spill
+ * decisions and split positions are driven by the execution profile rather than by the
+ * {@linkplain LIR#linearScanOrder() default block order}.
+ *
+ * The trace order preserves the property that every block except the start block is preceded by
+ * at least one of its predecessors, which is all the linear scan allocator requires. Methods for
+ * which the traces do not pay off fall back to the default order, see
+ * {@link #useTraceOrder(TraceBuilderResult, int, OptionValues)}.
+ */
+public final class TraceLinearScanPhase extends RegisterAllocationPhase {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Allocate registers with the linear scan allocator along profile-ordered traces instead of the default block order.", type = OptionType.Debug)
+        public static final OptionKey<Boolean> TraceRA = new OptionKey<>(false);
+        @Option(help = "Maximum number of blocks of a method for which trace ordered register allocation is used.", type = OptionType.Expert)
+        public static final OptionKey<Integer> TraceRAMaxBlocks = new OptionKey<>(2000);
+        @Option(help = "Minimum ratio between the number of blocks and the number of traces for which trace ordered register allocation is used.", type = OptionType.Expert)
+        public static final OptionKey<Double> TraceRAMinBlocksPerTrace = new OptionKey<>(1.5);
+        // @formatter:on
+    }
+
+    private static final CounterKey traceOrderedAllocations = DebugContext.counter("TraceRA[allocations]");
+    private static final CounterKey fallbackAllocations = DebugContext.counter("TraceRA[fallbacks]");
+    private static final CounterKey tracesCounter = DebugContext.counter("TraceRA[traces]");
+
+    private static final TrivialTracePredicate NO_TRIVIAL_TRACES = new TrivialTracePredicate() {
+        @Override
+        public boolean isTrivialTrace(Trace trace) {
+            return false;
+        }
+    };
+
+    @Override
+    protected void run(TargetDescription target, LIRGenerationResult lirGenRes, AllocationContext context) {
+        LIR lir = lirGenRes.getLIR();
+        DebugContext debug = lir.getDebug();
+        AbstractBlockBase<?>[] defaultOrder = lir.linearScanOrder();
+
+        TraceBuilderResult traces = UniDirectionalTraceBuilder.computeTraces(debug, defaultOrder[0], defaultOrder, NO_TRIVIAL_TRACES);
+        TraceStatisticsPrinter.printTraceStatistics(debug, traces, lirGenRes.getCompilationUnitName());
+        tracesCounter.add(debug, traces.getTraces().size());
+
+        AbstractBlockBase<?>[] sortedBlocks = defaultOrder;
+        if (useTraceOrder(traces, defaultOrder.length, lir.getOptions())) {
+            sortedBlocks = traceOrder(traces, defaultOrder.length);
+            traceOrderedAllocations.increment(debug);
+        } else {
+            fallbackAllocations.increment(debug);
+        }
+        try {
+            // the allocator expects the linear scan number to be the index into its block order
+            for (int i = 0; i < sortedBlocks.length; i++) {
+                sortedBlocks[i].setLinearScanNumber(i);
+            }
+            allocate(target, lirGenRes, context, sortedBlocks);
+        } finally {
+            // later phases depend on the numbering of the default order
+            for (int i = 0; i < defaultOrder.length; i++) {
+                defaultOrder[i].setLinearScanNumber(i);
+            }
+        }
+    }
+
+    private void allocate(TargetDescription target, LIRGenerationResult lirGenRes, AllocationContext context, AbstractBlockBase<?>[] sortedBlocks) {
+        MoveFactory spillMoveFactory = context.spillMoveFactory;
+        RegisterAllocationConfig registerAllocationConfig = context.registerAllocationConfig;
+        final LinearScan allocator = new SSALinearScan(target, lirGenRes, spillMoveFactory, registerAllocationConfig, sortedBlocks, getNeverSpillConstants());
+        allocator.allocate(target, lirGenRes, context);
+    }
+
+    /**
+     * Decides whether the traces are worth allocating along. We fall back to the default order if
+     * the method is too large, since long-lived values get fragmented intervals with many lifetime
+     * holes when the cold traces are moved away, or if the traces are too short to separate hot
+     * from cold code, i.e., if the control flow is too complex for the profile to yield long
+     * straight-line paths. A single trace already is the default order.
+     */
+    static boolean useTraceOrder(TraceBuilderResult traces, int blockCount, OptionValues options) {
+        int traceCount = traces.getTraces().size();
+        if (traceCount <= 1) {
+            return false;
+        }
+        if (blockCount > Options.TraceRAMaxBlocks.getValue(options)) {
+            return false;
+        }
+        return blockCount >= traceCount * Options.TraceRAMinBlocksPerTrace.getValue(options);
+    }
+
+    private static AbstractBlockBase<?>[] traceOrder(TraceBuilderResult traces, int blockCount) {
+        ArrayList<AbstractBlockBase<?>> order = new ArrayList<>(blockCount);
+        for (Trace trace : traces.getTraces()) {
+            for (AbstractBlockBase<?> block : trace.getBlocks()) {
+                order.add(block);
+            }
+        }
+        assert order.size() == blockCount : "not all blocks are covered by traces: " + order.size() + " vs. " + blockCount;
+        assert verifyOrder(order);
+        return order.toArray(new AbstractBlockBase<?>[blockCount]);
+    }
+
+    private static boolean verifyOrder(ArrayList<AbstractBlockBase<?>> order) {
+        int[] position = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            position[order.get(i).getId()] = i;
+        }
+        for (int i = 1; i < order.size(); i++) {
+            AbstractBlockBase<?> block = order.get(i);
+            boolean hasEarlierPredecessor = false;
+            for (AbstractBlockBase<?> pred : block.getPredecessors()) {
+                if (position[pred.getId()] < i) {
+                    hasEarlierPredecessor = true;
+                    break;
+                }
+            }
+            assert hasEarlierPredecessor : "no predecessor of " + block + " is allocated before it";
+        }
+        return true;
+    }
+}
@@ -27,6 +27,7 @@ package org.graalvm.compiler.lir.gen;
 import org.graalvm.compiler.core.common.CompressEncoding;
 import org.graalvm.compiler.core.common.LIRKind;
 import org.graalvm.compiler.core.common.calc.Condition;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
 import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
 import org.graalvm.compiler.core.common.memory.MemoryOrderMode;
 import org.graalvm.compiler.core.common.spi.CodeGenProviders;
@@ -248,6 +249,36 @@ public interface LIRGeneratorTool extends DiagnosticLIRGeneratorTool, ValueKindF
         throw GraalError.unimplemented("String.indexOf substitution is not implemented on this architecture");
     }
 
+    @SuppressWarnings("unused")
+    default Variable emitArrayHasNegatives(Value array, Value length) {
+        throw GraalError.unimplemented("StringCoding.hasNegatives substitution is not implemented on this architecture");
+    }
+
+    @SuppressWarnings("unused")
+    default Variable emitArrayRegionEqualsIgnoreCase(Value array1, Value array2, Value length) {
+        throw GraalError.unimplemented("StringLatin1.regionMatchesCI substitution is not implemented on this architecture");
+    }
+
+    @SuppressWarnings("unused")
+    default Variable emitArrayHashCode(JavaKind elementKind, Value array, Value length, Value initialValue) {
+        throw GraalError.unimplemented("Array hashCode substitution is not implemented on this architecture");
+    }
+
+    @SuppressWarnings("unused")
+    default void emitArrayFill(JavaKind kind, Value array, Value length, Value value) {
+        throw GraalError.unimplemented("Arrays.fill substitution is not implemented on this architecture");
+    }
+
+    @SuppressWarnings("unused")
+    default void emitVectorizedArrayMap(ElementwiseOperation op, JavaKind kind, int arrayBaseOffset, Value dst, Value src1, Value src2, boolean scalarSrc2, Value fromIndex, Value length) {
+        throw GraalError.unimplemented("Vectorized array loops are not implemented on this architecture");
+    }
+
+    @SuppressWarnings("unused")
+    default Variable emitVectorizedArrayReduction(ElementwiseOperation op, JavaKind kind, int arrayBaseOffset, Value array, Value fromIndex, Value length, Value initialValue) {
+        throw GraalError.unimplemented("Vectorized array loops are not implemented on this architecture");
+    }
+
     /*
      * The routines emitStringLatin1Inflate/3 and emitStringUTF16Compress/3 models a simplified
      * version of
@@ -27,9 +27,11 @@ package org.graalvm.compiler.lir.phases;
 import org.graalvm.compiler.debug.Assertions;
 import org.graalvm.compiler.lir.alloc.AllocationStageVerifier;
 import org.graalvm.compiler.lir.alloc.lsra.LinearScanPhase;
+import org.graalvm.compiler.lir.alloc.lsra.TraceLinearScanPhase;
 import org.graalvm.compiler.lir.dfa.LocationMarkerPhase;
 import org.graalvm.compiler.lir.dfa.MarkBasePointersPhase;
 import org.graalvm.compiler.lir.phases.AllocationPhase.AllocationContext;
+import org.graalvm.compiler.lir.profiling.MoveStatisticsPhase;
 import org.graalvm.compiler.lir.stackslotalloc.LSStackSlotAllocator;
 import org.graalvm.compiler.lir.stackslotalloc.SimpleStackSlotAllocator;
 import org.graalvm.compiler.options.OptionValues;
@@ -38,7 +40,12 @@ public class AllocationStage extends LIRPhaseSuite<AllocationContext> {
 
     public AllocationStage(OptionValues options) {
         appendPhase(new MarkBasePointersPhase());
-        appendPhase(new LinearScanPhase());
+        boolean traceRA = TraceLinearScanPhase.Options.TraceRA.getValue(options);
+        if (traceRA) {
+            appendPhase(new TraceLinearScanPhase());
+        } else {
+            appendPhase(new LinearScanPhase());
+        }
 
         // build frame map
         if (LSStackSlotAllocator.Options.LIROptLSStackSlotAllocator.getValue(options)) {
@@ -46,6 +53,9 @@ public class AllocationStage extends LIRPhaseSuite<AllocationContext> {
         } else {
             appendPhase(new SimpleStackSlotAllocator());
         }
+        if (MoveStatisticsPhase.Options.LIRMoveStatistics.getValue(options)) {
+            appendPhase(new MoveStatisticsPhase(traceRA ? "TraceLSRA" : "LSRA"));
+        }
         // currently we mark locations only if we do register allocation
         appendPhase(new LocationMarkerPhase());
 
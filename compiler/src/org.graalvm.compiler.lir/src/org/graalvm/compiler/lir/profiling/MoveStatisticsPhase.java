@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.profiling;
+
+import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
+import org.graalvm.compiler.core.common.cfg.BlockMap;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.lir.LIR;
+import org.graalvm.compiler.lir.gen.LIRGenerationResult;
+import org.graalvm.compiler.lir.phases.AllocationPhase;
+import org.graalvm.compiler.lir.profiling.MoveProfiler.MoveStatistics;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+
+import jdk.vm.ci.code.TargetDescription;
+
+/**
+ * Reports the number of move instructions left in the {@link LIR} after register allocation, per
+ * {@link MoveType} and in total, as debug counters prefixed with the name of the register
+ * allocator. Moves that touch the stack are reported separately as spill moves. In addition to
+ * the static counts, the moves weighted by the relative frequency of their block are logged, which
+ * approximates their dynamic cost. Running the same workload with different register allocators
+ * allows comparing them.
+ */
+public class MoveStatisticsPhase extends AllocationPhase {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Report the number of moves and spill moves after register allocation as debug counters.", type = OptionType.Debug)
+        public static final OptionKey<Boolean> LIRMoveStatistics = new OptionKey<>(false);
+        // @formatter:on
+    }
+
+    private final CounterKey[] moveCounters;
+    private final CounterKey movesCounter;
+    private final CounterKey spillMovesCounter;
+    private final String allocatorName;
+
+    public MoveStatisticsPhase(String allocatorName) {
+        this.allocatorName = allocatorName;
+        MoveType[] types = MoveType.values();
+        this.moveCounters = new CounterKey[types.length];
+        for (MoveType type : types) {
+            moveCounters[type.ordinal()] = DebugContext.counter("%s[%s]", allocatorName, type);
+        }
+        this.movesCounter = DebugContext.counter("%s[Moves]", allocatorName);
+        this.spillMovesCounter = DebugContext.counter("%s[SpillMoves]", allocatorName);
+    }
+
+    @Override
+    protected void run(TargetDescription target, LIRGenerationResult lirGenRes, AllocationContext context) {
+        LIR lir = lirGenRes.getLIR();
+        DebugContext debug = lir.getDebug();
+        BlockMap<MoveStatistics> statistics = MoveProfiler.profile(lir);
+
+        int moves = 0;
+        int spillMoves = 0;
+        double weightedMoves = 0;
+        double weightedSpillMoves = 0;
+        for (AbstractBlockBase<?> block : lir.getControlFlowGraph().getBlocks()) {
+            MoveStatistics blockStatistics = statistics.get(block);
+            if (blockStatistics == null) {
+                continue;
+            }
+            for (MoveType type : MoveType.values()) {
+                int count = blockStatistics.get(type);
+                moveCounters[type.ordinal()].add(debug, count);
+                moves += count;
+                weightedMoves += count * block.getRelativeFrequency();
+                if (isSpillMove(type)) {
+                    spillMoves += count;
+                    weightedSpillMoves += count * block.getRelativeFrequency();
+                }
+            }
+        }
+        movesCounter.add(debug, moves);
+        spillMovesCounter.add(debug, spillMoves);
+        debug.log("%s: %s moves: %d (weighted %.2f), spill moves: %d (weighted %.2f)", allocatorName, lirGenRes.getCompilationUnitName(), moves, weightedMoves, spillMoves, weightedSpillMoves);
+    }
+
+    private static boolean isSpillMove(MoveType type) {
+        return type != MoveType.REG2REG && type != MoveType.CONST2REG;
+    }
+}
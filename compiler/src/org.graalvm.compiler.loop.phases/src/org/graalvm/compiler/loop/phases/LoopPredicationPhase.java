@@ -176,14 +176,20 @@ public class LoopPredicationPhase extends BasePhase<MidTierContext> {
 
         ValueNode offset = null;
 
-        if (iv.offsetIsZero(counter)) {
-            offset = graph.unique(ConstantNode.forInt(0));
-        } else {
-            offset = iv.offsetNode(counter);
+        if (scale != null) {
+            if (iv.offsetIsZero(counter)) {
+                offset = graph.unique(ConstantNode.forInt(0));
+            } else {
+                offset = iv.offsetNode(counter);
+            }
         }
 
-        if (offset == null || scale == null || !loop.isOutsideLoop(offset)) {
-            return;
+        if (offset == null || !loop.isOutsideLoop(offset)) {
+            if (!isAffineInCounter(loop, iv, counter)) {
+                return;
+            }
+            scale = iv.constantStride() / counter.constantStride();
+            offset = affineOffset(graph, iv, counter, scale);
         }
 
         long scaleCon = scale;
@@ -191,6 +197,40 @@ public class LoopPredicationPhase extends BasePhase<MidTierContext> {
         replaceGuardNode(loop, guard, range, graph, scaleCon, offset);
     }
 
+    /**
+     * Determines if {@code iv} can be expressed as {@code scale * counter + offset} with a constant
+     * scale and a loop invariant offset based on the strides of both induction variables. This
+     * covers induction variables that are not derived from {@code counter}, e.g., a second index
+     * that is incremented along with the loop counter, and derived induction variables whose
+     * offset is not directly available, e.g., {@code (i + 1) * 2}.
+     *
+     * Both induction variables advance by their constant stride in each iteration, so in iteration
+     * {@code k}, {@code iv = iv.init + k * iv.stride} and {@code counter = counter.init + k *
+     * counter.stride}. If {@code iv.stride} is a multiple of {@code counter.stride}, then
+     * {@code iv = scale * counter + (iv.init - scale * counter.init)} with
+     * {@code scale = iv.stride / counter.stride}. The range check predicate is computed with 64-bit
+     * arithmetic, so the values checked at both ends of the iteration range are exact and an
+     * overflow of {@code iv} within the loop makes the predicate fail.
+     */
+    private static boolean isAffineInCounter(LoopEx loop, InductionVariable iv, InductionVariable counter) {
+        if (loop.counted().isInverted() || !iv.isConstantStride() || !counter.isConstantStride()) {
+            // the body iv of an inverted loop is not the limit checked iv
+            return false;
+        }
+        if (((IntegerStamp) iv.valueNode().stamp(NodeView.DEFAULT)).getBits() != 32) {
+            return false;
+        }
+        long counterStride = counter.constantStride();
+        long ivStride = iv.constantStride();
+        return counterStride != 0 && ivStride % counterStride == 0 && Math.abs(ivStride / counterStride) <= Integer.MAX_VALUE;
+    }
+
+    private static ValueNode affineOffset(StructuredGraph graph, InductionVariable iv, InductionVariable counter, long scale) {
+        ValueNode ivInit = IntegerConvertNode.convert(iv.initNode(), StampFactory.forInteger(64), graph, NodeView.DEFAULT);
+        ValueNode counterInit = IntegerConvertNode.convert(counter.initNode(), StampFactory.forInteger(64), graph, NodeView.DEFAULT);
+        return MathUtil.sub(graph, ivInit, MathUtil.mul(graph, counterInit, ConstantNode.forLong(scale, graph)));
+    }
+
     private static void replaceGuardNode(LoopEx loop, GuardNode guard, ValueNode range, StructuredGraph graph, long scaleCon, ValueNode offset) {
         final InductionVariable counter = loop.counted().getLimitCheckedIV();
         ValueNode rangeLong = IntegerConvertNode.convert(range, StampFactory.forInteger(64), graph, NodeView.DEFAULT);
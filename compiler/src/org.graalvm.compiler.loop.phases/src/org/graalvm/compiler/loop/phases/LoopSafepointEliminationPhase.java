@@ -24,6 +24,10 @@
  */
 package org.graalvm.compiler.loop.phases;
 
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStripMining;
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStripMiningLength;
+import static org.graalvm.compiler.loop.phases.LoopStripMiningPhase.isStripMiningCandidate;
+
 import org.graalvm.compiler.core.common.type.IntegerStamp;
 import org.graalvm.compiler.core.common.type.Stamp;
 import org.graalvm.compiler.nodes.FixedNode;
@@ -88,8 +92,15 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
     protected final void run(StructuredGraph graph, MidTierContext context) {
         LoopsData loops = context.getLoopsDataProvider().getLoopsData(graph);
         loops.detectedCountedLoops();
+        boolean stripMining = LoopStripMining.getValue(graph.getOptions());
+        int stripLength = LoopStripMiningLength.getValue(graph.getOptions());
         for (LoopEx loop : loops.countedLoops()) {
-            if (loop.loop().getChildren().isEmpty() && (loop.loopBegin().isPreLoop() || loop.loopBegin().isPostLoop() || loopIsIn32BitRange(loop))) {
+            if (loop.loop().getChildren().isEmpty()) {
+                boolean shortRunning = loop.loopBegin().isPreLoop() || loop.loopBegin().isPostLoop() || loopIsIn32BitRange(loop);
+                boolean stripMine = stripMining && isStripMiningCandidate(loop, stripLength);
+                if (!shortRunning && !stripMine) {
+                    continue;
+                }
                 boolean hasSafepoint = false;
                 for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
                     hasSafepoint |= loopEnd.canSafepoint();
@@ -104,8 +115,18 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
                             continue;
                         }
                     }
-                    loop.loopBegin().disableSafepoint();
-                    onSafepointDisabledLoopBegin(loop);
+                    if (stripMine) {
+                        /*
+                         * The poll moves to the outer loop created by LoopStripMiningPhase. Loops
+                         * that are not short running keep polling on every iteration until they
+                         * are actually strip mined.
+                         */
+                        loop.loopBegin().setStripMinedInner(true);
+                    }
+                    if (shortRunning) {
+                        loop.loopBegin().disableSafepoint();
+                        onSafepointDisabledLoopBegin(loop);
+                    }
                 }
             }
         }
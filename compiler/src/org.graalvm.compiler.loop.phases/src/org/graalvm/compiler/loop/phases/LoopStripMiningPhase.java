@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStripMiningLength;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.AbstractEndNode;
+import org.graalvm.compiler.nodes.BeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.EndNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.LoopExitNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.StateSplit;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.CompareNode;
+import org.graalvm.compiler.nodes.calc.ConditionalNode;
+import org.graalvm.compiler.nodes.calc.IntegerBelowNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.loop.BasicInductionVariable;
+import org.graalvm.compiler.nodes.loop.CountedLoopInfo;
+import org.graalvm.compiler.nodes.loop.InductionVariable;
+import org.graalvm.compiler.nodes.loop.InductionVariable.Direction;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
+
+import jdk.vm.ci.code.CodeUtil;
+
+/**
+ * Strip mines counted loops selected by {@link LoopSafepointEliminationPhase}. Such loops are
+ * marked as {@link LoopBeginNode#isStripMinedInner() strip mined inner} loops and are nested into a
+ * new outer loop:
+ *
+ * <pre>
+ * for (int i = start; i < limit;) {
+ *     body(i);
+ *     i += stride;
+ * }
+ * </pre>
+ *
+ * becomes
+ *
+ * <pre>
+ * int i = start;
+ * do {
+ *     int stripLimit = i < limit && stride * length |<| limit - i ? i + stride * length : limit;
+ *     for (; i < stripLimit;) {
+ *         body(i);
+ *         i += stride;
+ *     }
+ *     safepoint();
+ * } while (i < limit);
+ * </pre>
+ *
+ * The inner loop is free of safepoint polls while the outer loop end keeps its poll, which bounds
+ * the time to safepoint to {@link org.graalvm.compiler.core.common.GraalOptions#LoopStripMiningLength
+ * length} iterations of the original loop.
+ *
+ * This phase runs after value proxies were removed, so values defined in the inner loop can be
+ * used after the outer loop without additional proxies.
+ */
+public class LoopStripMiningPhase extends BasePhase<MidTierContext> {
+
+    private static final CounterKey STRIP_MINED_LOOPS = DebugContext.counter("LoopStripMined");
+
+    /**
+     * Determines if {@code loop} has a shape that {@link LoopStripMiningPhase} can transform and
+     * runs long enough for strip mining to pay off.
+     */
+    public static boolean isStripMiningCandidate(LoopEx loop, int stripLength) {
+        if (!loop.isCounted() || !loop.loop().getChildren().isEmpty() || stripLength <= 0) {
+            return false;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        if (loopBegin.isPreLoop() || loopBegin.isPostLoop() || loopBegin.isStripMinedOuter() || loopBegin.stateAfter() == null) {
+            return false;
+        }
+        CountedLoopInfo counted = loop.counted();
+        if (counted.isInverted() || counted.isLimitIncluded() || counted.isUnsignedCheck() || counted.getDirection() != Direction.Up) {
+            return false;
+        }
+        InductionVariable iv = counted.getLimitCheckedIV();
+        if (!(iv instanceof BasicInductionVariable) || !iv.isConstantStride() || iv.constantStride() <= 0) {
+            return false;
+        }
+        if (iv.constantStride() > CodeUtil.maxValue(counted.getStamp().getBits()) / stripLength) {
+            return false;
+        }
+        if (counted.isConstantMaxTripCount() && counted.constantMaxTripCount().isLessOrEqualTo(stripLength)) {
+            return false;
+        }
+        if (!(counted.getLimitTest().condition() instanceof IntegerLessThanNode)) {
+            return false;
+        }
+        IntegerLessThanNode compare = (IntegerLessThanNode) counted.getLimitTest().condition();
+        if (!(compare.getX() == iv.valueNode() && compare.getY() == counted.getLimit()) && !(compare.getX() == counted.getLimit() && compare.getY() == iv.valueNode())) {
+            return false;
+        }
+        if (loopBegin.loopExits().count() != 1 || loopBegin.loopExits().first() != counted.getCountedExit()) {
+            return false;
+        }
+        // The inner loop exit re-executes the loop header on deoptimization.
+        for (FixedNode node = loopBegin.next(); node != counted.getLimitTest(); node = ((FixedWithNextNode) node).next()) {
+            if (!(node instanceof FixedWithNextNode) || (node instanceof StateSplit && ((StateSplit) node).hasSideEffect())) {
+                return false;
+            }
+        }
+        return loop.canStripMine();
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        int stripLength = LoopStripMiningLength.getValue(graph.getOptions());
+        LoopsData loops = context.getLoopsDataProvider().getLoopsData(graph);
+        loops.detectedCountedLoops();
+        List<StripMiningCandidate> candidates = new ArrayList<>();
+        for (LoopEx loop : loops.loops()) {
+            LoopBeginNode loopBegin = loop.loopBegin();
+            if (loopBegin.isStripMinedInner()) {
+                if (isStripMiningCandidate(loop, stripLength)) {
+                    candidates.add(new StripMiningCandidate(loop));
+                } else {
+                    /*
+                     * The loop shape changed since it was selected. Its safepoint poll is only
+                     * removed here, so it keeps polling unless it is known to be short running.
+                     */
+                    loopBegin.setStripMinedInner(false);
+                }
+            }
+        }
+        for (StripMiningCandidate candidate : candidates) {
+            stripMine(graph, candidate, stripLength);
+            STRIP_MINED_LOOPS.increment(graph.getDebug());
+        }
+    }
+
+    /**
+     * The parts of a counted loop needed for strip mining, captured before any loop is transformed
+     * so that the transformation does not depend on stale loop data.
+     */
+    private static final class StripMiningCandidate {
+        final LoopBeginNode loopBegin;
+        final ValuePhiNode counter;
+        final long stride;
+        final ValueNode limit;
+        final IfNode limitTest;
+        final AbstractBeginNode body;
+        final LoopExitNode exit;
+
+        StripMiningCandidate(LoopEx loop) {
+            CountedLoopInfo counted = loop.counted();
+            this.loopBegin = loop.loopBegin();
+            this.counter = ((BasicInductionVariable) counted.getLimitCheckedIV()).valueNode();
+            this.stride = counted.getLimitCheckedIV().constantStride();
+            this.limit = counted.getLimit();
+            this.limitTest = counted.getLimitTest();
+            this.body = counted.getBody();
+            this.exit = (LoopExitNode) counted.getCountedExit();
+        }
+    }
+
+    private static void stripMine(StructuredGraph graph, StripMiningCandidate candidate, int stripLength) {
+        LoopBeginNode innerBegin = candidate.loopBegin;
+        AbstractEndNode forwardEnd = innerBegin.forwardEnd();
+        innerBegin.disableSafepoint();
+
+        LoopBeginNode outerBegin = graph.add(new LoopBeginNode());
+        EndNode outerForwardEnd = graph.add(new EndNode());
+        forwardEnd.replaceAtPredecessor(outerForwardEnd);
+        outerBegin.addForwardEnd(outerForwardEnd);
+        outerBegin.setNext(forwardEnd);
+        LoopEndNode outerLoopEnd = graph.add(new LoopEndNode(outerBegin));
+        outerBegin.setStripMinedOuter(true);
+
+        /*
+         * Every inner loop phi gets a corresponding outer loop phi: it is initialized with the
+         * value entering the original loop and carries the value the inner loop exits with into
+         * the next strip.
+         */
+        FrameState outerState = innerBegin.stateAfter().duplicateWithVirtualState();
+        ValueNode outerCounter = null;
+        for (PhiNode phi : innerBegin.phis().snapshot()) {
+            PhiNode outerPhi = phi.duplicateOn(outerBegin);
+            outerPhi.addInput(phi.valueAt(forwardEnd));
+            outerPhi.addInput(phi);
+            phi.setValueAt(forwardEnd, outerPhi);
+            outerState.applyToVirtual(state -> state.replaceAllInputs(phi, outerPhi));
+            if (phi == candidate.counter) {
+                outerCounter = outerPhi;
+            }
+        }
+        assert outerCounter != null : "counter must be a phi of " + innerBegin;
+        outerBegin.setStateAfter(outerState);
+
+        // The inner loop runs at most stripLength iterations without overflowing the counter.
+        IntegerStamp stamp = (IntegerStamp) candidate.counter.stamp(NodeView.DEFAULT);
+        ValueNode limit = candidate.limit;
+        ValueNode stripSpan = ConstantNode.forIntegerBits(stamp.getBits(), candidate.stride * stripLength, graph);
+        ValueNode stripEnd = graph.addOrUniqueWithInputs(AddNode.create(outerCounter, stripSpan, NodeView.DEFAULT));
+        ValueNode remaining = graph.addOrUniqueWithInputs(SubNode.create(limit, outerCounter, NodeView.DEFAULT));
+        LogicNode fullStrip = graph.addOrUniqueWithInputs(IntegerBelowNode.create(stripSpan, remaining, NodeView.DEFAULT));
+        LogicNode entered = graph.addOrUniqueWithInputs(IntegerLessThanNode.create(outerCounter, limit, NodeView.DEFAULT));
+        ValueNode clampedEnd = graph.addOrUniqueWithInputs(ConditionalNode.create(fullStrip, stripEnd, limit, NodeView.DEFAULT));
+        ValueNode stripLimit = graph.addOrUniqueWithInputs(ConditionalNode.create(entered, clampedEnd, limit, NodeView.DEFAULT));
+
+        IfNode limitTest = candidate.limitTest;
+        CompareNode compare = (CompareNode) limitTest.condition();
+        CompareNode innerCompare = (CompareNode) compare.copyWithInputs();
+        innerCompare.replaceFirstInput(limit, stripLimit);
+        limitTest.setCondition(innerCompare);
+
+        // After the inner loop exits, the original limit test decides whether another strip runs.
+        LoopExitNode innerExit = candidate.exit;
+        FixedNode continuation = innerExit.next();
+        innerExit.setNext(null);
+        LoopExitNode outerExit = graph.add(new LoopExitNode(outerBegin));
+        outerExit.setNext(continuation);
+        outerExit.setStateAfter(innerExit.stateAfter());
+        /*
+         * Leaving the inner loop does not leave the original loop. Deoptimizing there resumes at
+         * the loop header, whose limit test decides with the original limit whether to continue.
+         * This is valid because no side effect happens between the header and the limit test.
+         */
+        innerExit.setStateAfter(innerBegin.stateAfter());
+        BeginNode nextStrip = graph.add(new BeginNode());
+        nextStrip.setNext(outerLoopEnd);
+
+        boolean bodyOnTrue = limitTest.trueSuccessor() == candidate.body;
+        double innerFrequency = innerBegin.loopFrequency();
+        double outerFrequency = Math.max(1.0, innerFrequency / stripLength);
+        double nextStripProbability = 1.0 - 1.0 / outerFrequency;
+        IfNode outerTest = graph.add(new IfNode(compare, bodyOnTrue ? nextStrip : outerExit, bodyOnTrue ? outerExit : nextStrip,
+                        limitTest.getProfileData().copy(bodyOnTrue ? nextStripProbability : 1.0 - nextStripProbability)));
+        innerExit.setNext(outerTest);
+
+        outerBegin.setLoopFrequency(innerBegin.profileData().copy(outerFrequency));
+        innerBegin.setLoopFrequency(innerBegin.profileData().copy(Math.min(innerFrequency, stripLength)));
+        graph.getDebug().dump(DebugContext.DETAILED_LEVEL, graph, "After strip mining %s", innerBegin);
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedGuardNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.PiNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.AndNode;
+import org.graalvm.compiler.nodes.calc.BinaryArithmeticNode;
+import org.graalvm.compiler.nodes.calc.ConditionalNode;
+import org.graalvm.compiler.nodes.calc.FloatDivNode;
+import org.graalvm.compiler.nodes.calc.IntegerConvertNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.calc.MinNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.NarrowNode;
+import org.graalvm.compiler.nodes.calc.OrNode;
+import org.graalvm.compiler.nodes.calc.SignExtendNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.calc.XorNode;
+import org.graalvm.compiler.nodes.calc.ZeroExtendNode;
+import org.graalvm.compiler.nodes.extended.VectorizedArrayMapNode;
+import org.graalvm.compiler.nodes.extended.VectorizedArrayReductionNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.loop.BasicInductionVariable;
+import org.graalvm.compiler.nodes.loop.CountedLoopInfo;
+import org.graalvm.compiler.nodes.loop.InductionVariable;
+import org.graalvm.compiler.nodes.loop.InductionVariable.Direction;
+import org.graalvm.compiler.nodes.loop.LoopEx;
+import org.graalvm.compiler.nodes.loop.LoopsData;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.nodes.type.StampTool;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.serviceprovider.SpeculationReasonGroup;
+
+import jdk.vm.ci.code.BytecodePosition;
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import jdk.vm.ci.meta.SpeculationLog;
+
+/**
+ * Vectorizes simple counted loops over arrays of primitive values. A loop qualifies if its body
+ * is a straight-line sequence of indexed array accesses using the loop counter as index and it
+ * either
+ *
+ * <ul>
+ * <li>stores {@code src1[i] op src2[i]} or {@code src1[i] op x} into {@code dst[i]}, where
+ * {@code x} is loop invariant, or</li>
+ * <li>folds {@code a[i]} into an accumulator with an associative operation.</li>
+ * </ul>
+ *
+ * The bulk of the iterations is executed by a {@link VectorizedArrayMapNode} or
+ * {@link VectorizedArrayReductionNode} inserted before the loop, processing a multiple of
+ * {@link ElementwiseOperation#elementsPerBlock(JavaKind)} elements that are known to be within
+ * the bounds of all accessed arrays. The original loop is kept as the scalar post loop and
+ * continues with the first unprocessed index, so it executes the remaining iterations and throws
+ * any exception the original loop would have thrown.
+ *
+ * This phase runs in the high tier, before array accesses are lowered, so that the accesses can
+ * still be recognized as {@link LoadIndexedNode}s and {@link StoreIndexedNode}s.
+ */
+public class LoopVectorizationPhase extends BasePhase<CoreProviders> {
+
+    private static final CounterKey VECTORIZED_MAP = DebugContext.counter("LoopVectorizedMap");
+    private static final CounterKey VECTORIZED_REDUCTION = DebugContext.counter("LoopVectorizedReduction");
+
+    private static final SpeculationReasonGroup LOOP_VECTORIZATION_NULL_CHECK = new SpeculationReasonGroup("LoopVectorizationNullCheck", BytecodePosition.class);
+
+    /**
+     * The operation of a vectorizable loop body.
+     */
+    private static final class VectorizableLoop {
+        final ElementwiseOperation op;
+        final JavaKind kind;
+        final ValuePhiNode counter;
+        /** The destination array of a map or the source array of a reduction. */
+        final ValueNode array;
+        final ValueNode src1;
+        final ValueNode src2;
+        final boolean scalarSrc2;
+        /** The accumulator of a reduction or {@code null} for a map. */
+        final ValuePhiNode accumulator;
+
+        VectorizableLoop(ElementwiseOperation op, JavaKind kind, ValuePhiNode counter, ValueNode array, ValueNode src1, ValueNode src2, boolean scalarSrc2, ValuePhiNode accumulator) {
+            this.op = op;
+            this.kind = kind;
+            this.counter = counter;
+            this.array = array;
+            this.src1 = src1;
+            this.src2 = src2;
+            this.scalarSrc2 = scalarSrc2;
+            this.accumulator = accumulator;
+        }
+
+        boolean isReduction() {
+            return accumulator != null;
+        }
+
+        List<ValueNode> arrays() {
+            List<ValueNode> arrays = new ArrayList<>(3);
+            arrays.add(array);
+            if (!isReduction()) {
+                arrays.add(src1);
+                if (!scalarSrc2) {
+                    arrays.add(src2);
+                }
+            }
+            return arrays;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("try")
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        if (!graph.hasLoops()) {
+            return;
+        }
+        DebugContext debug = graph.getDebug();
+        LoopsData data = context.getLoopsDataProvider().getLoopsData(graph);
+        try (DebugContext.Scope s = debug.scope("vectorization", data.getCFG())) {
+            for (LoopEx loop : data.loops()) {
+                // Only inner most loops.
+                if (!loop.loop().getChildren().isEmpty()) {
+                    continue;
+                }
+                VectorizableLoop candidate = analyze(loop, context);
+                if (candidate != null && vectorize(loop, candidate, context)) {
+                    (candidate.isReduction() ? VECTORIZED_REDUCTION : VECTORIZED_MAP).increment(debug);
+                    debug.dump(DebugContext.DETAILED_LEVEL, graph, "Vectorized %s", loop);
+                }
+            }
+        } catch (Throwable t) {
+            throw debug.handle(t);
+        }
+    }
+
+    private static VectorizableLoop analyze(LoopEx loop, CoreProviders context) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        if (!loopBegin.isSimpleLoop() || loopBegin.getLoopEndCount() != 1 || loopBegin.loopExits().count() != 1 || loopBegin.stateAfter() == null) {
+            return null;
+        }
+        if (!loop.detectCounted()) {
+            return null;
+        }
+        CountedLoopInfo counted = loop.counted();
+        if (counted.isInverted() || counted.isUnsignedCheck() || counted.isLimitIncluded() || counted.getDirection() != Direction.Up || loopBegin.next() != counted.getLimitTest()) {
+            return null;
+        }
+        InductionVariable iv = counted.getLimitCheckedIV();
+        if (!(iv instanceof BasicInductionVariable) || !iv.isConstantStride() || iv.constantStride() != 1 ||
+                        ((IntegerStamp) iv.valueNode().stamp(NodeView.DEFAULT)).getBits() != 32) {
+            return null;
+        }
+        ValuePhiNode counter = (ValuePhiNode) iv.valueNode();
+
+        // The body must be a straight-line sequence of array accesses at the counter.
+        List<LoadIndexedNode> loads = new ArrayList<>(2);
+        StoreIndexedNode store = null;
+        LoopEndNode loopEnd = loopBegin.getSingleLoopEnd();
+        FixedNode current = counted.getBody().next();
+        while (current != loopEnd) {
+            if (current.getClass() == LoadIndexedNode.class) {
+                loads.add((LoadIndexedNode) current);
+            } else if (current.getClass() == StoreIndexedNode.class && store == null) {
+                store = (StoreIndexedNode) current;
+            } else {
+                return null;
+            }
+            AccessIndexedNode access = (AccessIndexedNode) current;
+            if (access.index() != counter || !loop.isOutsideLoop(access.array())) {
+                return null;
+            }
+            current = ((FixedWithNextNode) current).next();
+        }
+        if (loads.isEmpty()) {
+            return null;
+        }
+        JavaKind kind = loads.get(0).elementKind();
+        for (LoadIndexedNode load : loads) {
+            if (load.elementKind() != kind || !isPrimitiveArrayOf(load.array(), kind)) {
+                return null;
+            }
+        }
+
+        ValuePhiNode accumulator = null;
+        for (PhiNode phi : loopBegin.phis()) {
+            if (phi == counter) {
+                continue;
+            }
+            if (accumulator != null || !(phi instanceof ValuePhiNode)) {
+                return null;
+            }
+            accumulator = (ValuePhiNode) phi;
+        }
+
+        VectorizableLoop candidate;
+        if (store != null) {
+            if (accumulator != null || store.elementKind() != kind || !isPrimitiveArrayOf(store.array(), kind)) {
+                return null;
+            }
+            candidate = analyzeMap(loop, counter, store, kind, loads);
+        } else {
+            if (accumulator == null || loads.size() != 1) {
+                return null;
+            }
+            candidate = analyzeReduction(loopBegin, counter, accumulator, loads.get(0));
+        }
+        if (candidate == null || !context.getLowerer().supportsVectorizedArrayLoop(candidate.op, kind, candidate.isReduction())) {
+            return null;
+        }
+        if (counted.isConstantMaxTripCount() && counted.constantMaxTripCount().isLessThan(ElementwiseOperation.elementsPerBlock(kind))) {
+            return null;
+        }
+        return candidate;
+    }
+
+    private static VectorizableLoop analyzeMap(LoopEx loop, ValuePhiNode counter, StoreIndexedNode store, JavaKind kind, List<LoadIndexedNode> loads) {
+        ValueNode value = skipNarrowing(store.value(), kind);
+        ElementwiseOperation op = elementwiseOperation(value);
+        if (op == null) {
+            return null;
+        }
+        BinaryArithmeticNode<?> arithmetic = (BinaryArithmeticNode<?>) value;
+        ValueNode x = arithmetic.getX();
+        ValueNode y = arithmetic.getY();
+        if (!isLoadOf(x, counter, kind) && op.isCommutative()) {
+            ValueNode tmp = x;
+            x = y;
+            y = tmp;
+        }
+        if (!isLoadOf(x, counter, kind)) {
+            return null;
+        }
+        for (LoadIndexedNode load : loads) {
+            // Every load may throw, so all of them have to be covered by the kernel.
+            if (load != x && load != y) {
+                return null;
+            }
+        }
+        if (isLoadOf(y, counter, kind)) {
+            return new VectorizableLoop(op, kind, counter, store.array(), ((LoadIndexedNode) x).array(), ((LoadIndexedNode) y).array(), false, null);
+        } else if (loop.isOutsideLoop(y) && y.getStackKind() == kind.getStackKind()) {
+            return new VectorizableLoop(op, kind, counter, store.array(), ((LoadIndexedNode) x).array(), y, true, null);
+        }
+        return null;
+    }
+
+    private static VectorizableLoop analyzeReduction(LoopBeginNode loopBegin, ValuePhiNode counter, ValuePhiNode accumulator, LoadIndexedNode load) {
+        JavaKind kind = load.elementKind();
+        if (accumulator.getStackKind() != kind.getStackKind()) {
+            return null;
+        }
+        ValueNode value = accumulator.valueAt(loopBegin.getSingleLoopEnd());
+        ElementwiseOperation op = elementwiseOperation(value);
+        if (op == null || !op.isAssociative(kind)) {
+            return null;
+        }
+        BinaryArithmeticNode<?> arithmetic = (BinaryArithmeticNode<?>) value;
+        if (!(arithmetic.getX() == accumulator && arithmetic.getY() == load) && !(arithmetic.getX() == load && arithmetic.getY() == accumulator)) {
+            return null;
+        }
+        return new VectorizableLoop(op, kind, counter, load.array(), null, null, false, accumulator);
+    }
+
+    private static ElementwiseOperation elementwiseOperation(ValueNode value) {
+        if (value instanceof AddNode) {
+            return ElementwiseOperation.ADD;
+        } else if (value instanceof SubNode) {
+            return ElementwiseOperation.SUB;
+        } else if (value instanceof MulNode) {
+            return ElementwiseOperation.MUL;
+        } else if (value instanceof FloatDivNode) {
+            return ElementwiseOperation.DIV;
+        } else if (value instanceof AndNode) {
+            return ElementwiseOperation.AND;
+        } else if (value instanceof OrNode) {
+            return ElementwiseOperation.OR;
+        } else if (value instanceof XorNode) {
+            return ElementwiseOperation.XOR;
+        }
+        return null;
+    }
+
+    /**
+     * Skips conversions that do not change the bits of {@code value} stored into an array of
+     * {@code kind}.
+     */
+    private static ValueNode skipNarrowing(ValueNode value, JavaKind kind) {
+        if (!kind.isNumericInteger()) {
+            return value;
+        }
+        int elementBits = kind.getBitCount();
+        ValueNode result = value;
+        while (true) {
+            if ((result instanceof SignExtendNode || result instanceof ZeroExtendNode) && ((IntegerConvertNode<?, ?>) result).getInputBits() >= elementBits) {
+                result = ((IntegerConvertNode<?, ?>) result).getValue();
+            } else if (result instanceof NarrowNode && ((NarrowNode) result).getResultBits() >= elementBits) {
+                result = ((NarrowNode) result).getValue();
+            } else {
+                return result;
+            }
+        }
+    }
+
+    private static boolean isLoadOf(ValueNode value, ValuePhiNode counter, JavaKind kind) {
+        if (value.getClass() != LoadIndexedNode.class) {
+            return false;
+        }
+        LoadIndexedNode load = (LoadIndexedNode) value;
+        return load.index() == counter && load.elementKind() == kind;
+    }
+
+    private static boolean isPrimitiveArrayOf(ValueNode array, JavaKind kind) {
+        ResolvedJavaType type = StampTool.typeOrNull(array);
+        return type != null && type.isArray() && type.getComponentType().getJavaKind() == kind;
+    }
+
+    private static boolean vectorize(LoopEx loop, VectorizableLoop candidate, CoreProviders context) {
+        StructuredGraph graph = loop.loopBegin().graph();
+        LoopBeginNode loopBegin = loop.loopBegin();
+        FixedNode insertionPoint = loopBegin.forwardEnd();
+
+        FrameState stateAfter = null;
+        if (!candidate.isReduction()) {
+            // The kernel is a side effect, so deoptimization after it has to resume at the loop
+            // header with the counter advanced past the processed elements.
+            if (loopBegin.stateAfter().virtualObjectMappingCount() > 0) {
+                return false;
+            }
+            stateAfter = loopBegin.stateAfter();
+        }
+
+        List<ValueNode> arrays = candidate.arrays();
+        SpeculationLog.Speculation speculation = null;
+        for (ValueNode array : arrays) {
+            if (!StampTool.isPointerNonNull(array)) {
+                SpeculationLog speculationLog = graph.getSpeculationLog();
+                if (speculationLog == null) {
+                    return false;
+                }
+                FrameState state = loopBegin.stateAfter();
+                SpeculationLog.SpeculationReason reason = LOOP_VECTORIZATION_NULL_CHECK.createSpeculationReason(new BytecodePosition(null, state.getMethod(), state.bci));
+                if (!speculationLog.maySpeculate(reason)) {
+                    return false;
+                }
+                speculation = speculationLog.speculate(reason);
+                break;
+            }
+        }
+
+        ValueNode init = candidate.counter.valueAt(loopBegin.forwardEnd());
+        ValueNode safeEnd = loop.counted().getLimit();
+        List<ValueNode> nonNullArrays = new ArrayList<>(arrays.size());
+        for (ValueNode array : arrays) {
+            int previous = arrays.indexOf(array);
+            if (previous < nonNullArrays.size()) {
+                // The same array is accessed more than once.
+                nonNullArrays.add(nonNullArrays.get(previous));
+                continue;
+            }
+            ValueNode nonNullArray = array;
+            if (!StampTool.isPointerNonNull(array)) {
+                LogicNode isNull = graph.addOrUniqueWithInputs(IsNullNode.create(array));
+                FixedGuardNode guard = graph.add(new FixedGuardNode(isNull, DeoptimizationReason.NullCheckException, DeoptimizationAction.InvalidateRecompile, speculation, true));
+                graph.addBeforeFixed(insertionPoint, guard);
+                nonNullArray = graph.addOrUnique(new PiNode(array, array.stamp(NodeView.DEFAULT).join(StampFactory.objectNonNull()), guard));
+            }
+            nonNullArrays.add(nonNullArray);
+            ArrayLengthNode length = graph.add(new ArrayLengthNode(nonNullArray));
+            graph.addBeforeFixed(insertionPoint, length);
+            safeEnd = graph.addOrUniqueWithInputs(MinNode.create(safeEnd, length, NodeView.DEFAULT));
+        }
+
+        // count = 0 <= init < safeEnd ? (safeEnd - init) & -elementsPerBlock : 0
+        ValueNode zero = ConstantNode.forInt(0, graph);
+        ValueNode blockMask = ConstantNode.forInt(-ElementwiseOperation.elementsPerBlock(candidate.kind), graph);
+        ValueNode blocks = graph.addOrUniqueWithInputs(AndNode.create(SubNode.create(safeEnd, init, NodeView.DEFAULT), blockMask, NodeView.DEFAULT));
+        ValueNode inBounds = graph.addOrUniqueWithInputs(ConditionalNode.create(IntegerLessThanNode.create(init, safeEnd, NodeView.DEFAULT), blocks, zero, NodeView.DEFAULT));
+        ValueNode count = graph.addOrUniqueWithInputs(ConditionalNode.create(IntegerLessThanNode.create(init, zero, NodeView.DEFAULT), zero, inBounds, NodeView.DEFAULT));
+        ValueNode newStart = graph.addOrUniqueWithInputs(AddNode.create(init, count, NodeView.DEFAULT));
+
+        if (candidate.isReduction()) {
+            ValueNode initialValue = candidate.accumulator.valueAt(loopBegin.forwardEnd());
+            VectorizedArrayReductionNode reduction = graph.add(new VectorizedArrayReductionNode(candidate.op, candidate.kind, nonNullArrays.get(0), init, count, initialValue));
+            graph.addBeforeFixed(insertionPoint, reduction);
+            candidate.accumulator.setValueAt(loopBegin.forwardEnd(), reduction);
+        } else {
+            ValueNode src2 = candidate.scalarSrc2 ? candidate.src2 : nonNullArrays.get(2);
+            VectorizedArrayMapNode map = graph.add(new VectorizedArrayMapNode(candidate.op, candidate.kind, nonNullArrays.get(0), nonNullArrays.get(1), src2, candidate.scalarSrc2, init, count));
+            FrameState mapState = stateAfter.duplicate();
+            mapState.replaceAllInputs(candidate.counter, newStart);
+            map.setStateAfter(mapState);
+            graph.addBeforeFixed(insertionPoint, map);
+        }
+        candidate.counter.setValueAt(loopBegin.forwardEnd(), newStart);
+        loopBegin.setPostLoop();
+        return true;
+    }
+
+    @Override
+    public float codeSizeIncrease() {
+        return 2.0f;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import org.graalvm.compiler.api.directives.GraalDirectives;
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Test;
+
+public class LoopStripMiningTest extends GraalCompilerTest {
+
+    private boolean expectStripMined;
+
+    @Override
+    protected void checkMidTierGraph(StructuredGraph graph) {
+        boolean outer = false;
+        boolean inner = false;
+        for (LoopBeginNode loopBegin : graph.getNodes(LoopBeginNode.TYPE)) {
+            outer |= loopBegin.isStripMinedOuter();
+            inner |= loopBegin.isStripMinedInner();
+            if (loopBegin.isStripMinedInner() || loopBegin.isStripMinedOuter()) {
+                for (LoopEndNode loopEnd : loopBegin.loopEnds()) {
+                    assertTrue(loopEnd.canSafepoint() == loopBegin.isStripMinedOuter(), "only the outer loop of %s polls", loopBegin);
+                }
+            }
+        }
+        assertTrue(outer == expectStripMined && inner == expectStripMined, "expected strip mined loops: %s", expectStripMined);
+    }
+
+    private OptionValues stripMiningOptions() {
+        return new OptionValues(getInitialOptions(), GraalOptions.LoopStripMining, true, GraalOptions.LoopStripMiningLength, 16, GraalOptions.LoopVectorization, false);
+    }
+
+    private void testStripMining(boolean stripMined, String name, Object... args) {
+        expectStripMined = stripMined;
+        test(stripMiningOptions(), name, args);
+    }
+
+    private static final int[][] RANGES = {{0, 0}, {5, 1}, {0, 1}, {0, 15}, {0, 16}, {0, 17}, {-50, 50}, {3, 1000},
+                    {Integer.MAX_VALUE - 100, Integer.MAX_VALUE}, {Integer.MIN_VALUE, Integer.MIN_VALUE + 100}};
+
+    public static long sumSnippet(int start, int limit) {
+        long sum = 0;
+        for (int i = start; i < limit; i++) {
+            sum += i * 31L;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSum() {
+        for (int[] range : RANGES) {
+            testStripMining(true, "sumSnippet", range[0], range[1]);
+        }
+    }
+
+    public static int strideSnippet(int start, int limit) {
+        int hash = 1;
+        for (int i = start; i < limit; i += 3) {
+            hash = hash * 31 + i;
+        }
+        return hash;
+    }
+
+    @Test
+    public void testStride() {
+        for (int[] range : RANGES) {
+            if (range[1] < Integer.MAX_VALUE - 3) {
+                testStripMining(true, "strideSnippet", range[0], range[1]);
+            }
+        }
+    }
+
+    public static long longCounterSnippet(long start, long limit) {
+        long sum = 0;
+        for (long i = start; i < limit; i++) {
+            sum += i * 31L;
+        }
+        return sum;
+    }
+
+    /**
+     * Loops with a counter outside the int range keep their safepoint poll on every iteration
+     * unless they are strip mined.
+     */
+    @Test
+    public void testLongCounter() {
+        for (long[] range : new long[][]{{0, 0}, {0, 17}, {-50, 50}, {Long.MAX_VALUE - 100, Long.MAX_VALUE}, {Integer.MAX_VALUE - 10L, Integer.MAX_VALUE + 40L}}) {
+            testStripMining(true, "longCounterSnippet", range[0], range[1]);
+        }
+    }
+
+    public static int[] arraySnippet(int[] array) {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = array[i] * 3 + i;
+        }
+        return array;
+    }
+
+    @Test
+    public void testArray() {
+        for (int length : new int[]{0, 1, 16, 17, 100}) {
+            testStripMining(true, "arraySnippet", new int[length]);
+        }
+    }
+
+    public static long constantTripCountSnippet() {
+        long sum = 0;
+        for (int i = 0; i < 8; i++) {
+            sum += GraalDirectives.opaque(i);
+        }
+        return sum;
+    }
+
+    @Test
+    public void testShortLoop() {
+        testStripMining(false, "constantTripCountSnippet");
+    }
+
+    public static long neverStripMineSnippet(int start, int limit) {
+        long sum = 0;
+        for (int i = start; i < limit; i++) {
+            GraalDirectives.neverStripMine();
+            sum += i;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testNeverStripMine() {
+        testStripMining(false, "neverStripMineSnippet", 0, 1000);
+    }
+}
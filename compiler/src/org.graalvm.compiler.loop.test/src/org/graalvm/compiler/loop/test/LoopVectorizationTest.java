@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.extended.VectorizedArrayMapNode;
+import org.graalvm.compiler.nodes.extended.VectorizedArrayReductionNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.SpeculationLog;
+
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    private final SpeculationLog speculationLog;
+
+    private ElementwiseOperation expectedOp;
+    private JavaKind expectedKind;
+    private boolean expectedReduction;
+
+    public LoopVectorizationTest() {
+        speculationLog = getCodeCache().createSpeculationLog();
+    }
+
+    @Override
+    protected SpeculationLog getSpeculationLog() {
+        speculationLog.collectFailedSpeculations();
+        return speculationLog;
+    }
+
+    @Override
+    protected OptimisticOptimizations getOptimisticOptimizations() {
+        return OptimisticOptimizations.ALL;
+    }
+
+    @Override
+    protected void checkHighTierGraph(StructuredGraph graph) {
+        if (expectedOp == null || !getProviders().getLowerer().supportsVectorizedArrayLoop(expectedOp, expectedKind, expectedReduction)) {
+            return;
+        }
+        if (expectedReduction) {
+            assertTrue(graph.getNodes().filter(VectorizedArrayReductionNode.class).isNotEmpty(), "expected a vectorized reduction");
+        } else {
+            assertTrue(graph.getNodes().filter(VectorizedArrayMapNode.class).isNotEmpty(), "expected a vectorized map");
+        }
+    }
+
+    private void expect(ElementwiseOperation op, JavaKind kind, boolean reduction) {
+        expectedOp = op;
+        expectedKind = kind;
+        expectedReduction = reduction;
+    }
+
+    private void testVectorization(String name, Object... args) {
+        test(new OptionValues(getInitialOptions(), GraalOptions.LoopVectorization, true), name, args);
+    }
+
+    private static final int[] LENGTHS = {0, 1, 15, 16, 17, 63, 64, 65, 130, 1000};
+
+    private static int[] ints(int length) {
+        int[] result = new int[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i * 0x9E3779B9;
+        }
+        return result;
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] result = new byte[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (byte) (i * 31 + 7);
+        }
+        return result;
+    }
+
+    private static char[] chars(int length) {
+        char[] result = new char[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = (char) (i * 4099 + 11);
+        }
+        return result;
+    }
+
+    private static long[] longs(int length) {
+        long[] result = new long[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i * 0x9E3779B97F4A7C15L;
+        }
+        return result;
+    }
+
+    private static double[] doubles(int length) {
+        double[] result = new double[length];
+        for (int i = 0; i < length; i++) {
+            result[i] = i * 1.5 - 17;
+        }
+        return result;
+    }
+
+    public static int[] addInts(int[] a, int[] b, int from, int to) {
+        int[] result = new int[a.length];
+        for (int i = from; i < to; i++) {
+            result[i] = a[i] + b[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testAddInts() {
+        expect(ElementwiseOperation.ADD, JavaKind.Int, false);
+        for (int length : LENGTHS) {
+            testVectorization("addInts", ints(length), ints(length), 0, length);
+            testVectorization("addInts", ints(length), ints(length), length / 3, length);
+        }
+        // Exceptions are thrown by the post loop. They may change the profile or make a
+        // speculation fail so that the loop is no longer vectorized.
+        expect(null, null, false);
+        for (int length : LENGTHS) {
+            testVectorization("addInts", ints(length), ints(length / 2), 0, length);
+            testVectorization("addInts", ints(length), ints(length), -1, length);
+        }
+        testVectorization("addInts", ints(100), null, 0, 100);
+        testVectorization("addInts", ints(100), null, 0, 0);
+    }
+
+    public static int[] mulIntsInPlace(int[] a, int factor, int n) {
+        int[] result = a.clone();
+        for (int i = 0; i < n; i++) {
+            result[i] = result[i] * factor;
+        }
+        return result;
+    }
+
+    @Test
+    public void testMulIntsInPlace() {
+        expect(ElementwiseOperation.MUL, JavaKind.Int, false);
+        for (int length : LENGTHS) {
+            testVectorization("mulIntsInPlace", ints(length), 31, length);
+            testVectorization("mulIntsInPlace", ints(length), -7, length / 2);
+        }
+        expect(null, null, false);
+        testVectorization("mulIntsInPlace", ints(100), 3, 101);
+    }
+
+    public static byte[] xorBytes(byte[] a, byte[] b, byte[] result, int n) {
+        for (int i = 0; i < n; i++) {
+            result[i] = (byte) (a[i] ^ b[i]);
+        }
+        return result;
+    }
+
+    @Test
+    public void testXorBytes() {
+        expect(ElementwiseOperation.XOR, JavaKind.Byte, false);
+        for (int length : LENGTHS) {
+            testVectorization("xorBytes", bytes(length), bytes(length + 3), new byte[length], length);
+        }
+        expect(null, null, false);
+        testVectorization("xorBytes", bytes(100), bytes(100), new byte[50], 100);
+    }
+
+    public static char[] subChars(char[] a, char x, int n) {
+        char[] result = new char[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = (char) (a[i] - x);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSubChars() {
+        expect(ElementwiseOperation.SUB, JavaKind.Char, false);
+        for (int length : LENGTHS) {
+            testVectorization("subChars", chars(length), (char) 1000, length);
+        }
+    }
+
+    public static double[] divDoubles(double[] a, double[] b, int n) {
+        double[] result = new double[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = a[i] / b[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testDivDoubles() {
+        expect(ElementwiseOperation.DIV, JavaKind.Double, false);
+        for (int length : LENGTHS) {
+            testVectorization("divDoubles", doubles(length), doubles(length), length);
+        }
+    }
+
+    public static int sumBytes(byte[] a, int from, int to) {
+        int sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSumBytes() {
+        expect(ElementwiseOperation.ADD, JavaKind.Byte, true);
+        for (int length : LENGTHS) {
+            testVectorization("sumBytes", bytes(length), 0, length);
+            testVectorization("sumBytes", bytes(length), 1, length);
+        }
+        expect(null, null, false);
+        testVectorization("sumBytes", bytes(100), 0, 101);
+        testVectorization("sumBytes", null, 0, 100);
+    }
+
+    public static int sumChars(char[] a, int n) {
+        int sum = 42;
+        for (int i = 0; i < n; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSumChars() {
+        expect(ElementwiseOperation.ADD, JavaKind.Char, true);
+        for (int length : LENGTHS) {
+            testVectorization("sumChars", chars(length), length);
+        }
+    }
+
+    public static long orLongs(long[] a, int n) {
+        long result = 0;
+        for (int i = 0; i < n; i++) {
+            result |= a[i];
+        }
+        return result;
+    }
+
+    @Test
+    public void testOrLongs() {
+        expect(ElementwiseOperation.OR, JavaKind.Long, true);
+        for (int length : LENGTHS) {
+            testVectorization("orLongs", longs(length), length);
+        }
+    }
+
+    public static int andInts(int[] a, int n) {
+        int result = -1;
+        for (int i = 0; i < n; i++) {
+            result &= a[i] | 0x10101;
+        }
+        return result;
+    }
+
+    @Test
+    public void testNotVectorized() {
+        // the loaded value is not folded directly into the accumulator
+        expect(null, null, false);
+        for (int length : LENGTHS) {
+            testVectorization("andInts", ints(length), length);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.microbenchmarks.graal;
+
+import org.graalvm.compiler.graph.Graph;
+import org.graalvm.compiler.microbenchmarks.graal.util.GraalState;
+import org.graalvm.compiler.microbenchmarks.graal.util.MethodSpec;
+import org.graalvm.compiler.microbenchmarks.graal.util.ScheduleState;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.phases.common.CanonicalizerPhase;
+import org.graalvm.compiler.phases.common.FloatingReadPhase;
+import org.graalvm.compiler.serviceprovider.GraalServices;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the number of bytes allocated per graph node by the phases that dominate the node
+ * traffic of a compilation: canonicalization, scheduling and floating read creation. The
+ * {@code bytesPerNode} secondary result is the main figure of merit; compare runs with
+ * {@code -Dgraal.CompactNodeStorage=true} to see the effect of {@link Graph.Options#CompactNodeStorage}.
+ */
+public class GraphFootprintBenchmark extends GraalBenchmark {
+
+    @MethodSpec(declaringClass = String.class, name = "equals")
+    public static class StringEquals extends ScheduleState {
+    }
+
+    @MethodSpec(declaringClass = SchedulePhaseBenchmark.class, name = "intersectionSnippet")
+    public static class Intersection extends ScheduleState {
+    }
+
+    /**
+     * Accumulates the allocated bytes and the number of processed nodes of each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long allocatedBytes;
+        public long nodes;
+
+        private long start;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allocatedBytes = 0;
+            nodes = 0;
+        }
+
+        public double bytesPerNode() {
+            return nodes == 0 ? 0 : (double) allocatedBytes / nodes;
+        }
+
+        void begin() {
+            start = GraalServices.getCurrentThreadAllocatedBytes();
+        }
+
+        void end(StructuredGraph graph) {
+            allocatedBytes += GraalServices.getCurrentThreadAllocatedBytes() - start;
+            nodes += graph.getNodeCount();
+        }
+    }
+
+    @Benchmark
+    public void canonicalizeStringEquals(StringEquals s, GraalState g, Footprint f) {
+        f.begin();
+        CanonicalizerPhase.create().apply(s.graph, g.providers);
+        f.end(s.graph);
+    }
+
+    @Benchmark
+    public void scheduleStringEquals(StringEquals s, Footprint f) {
+        f.begin();
+        s.schedule.apply(s.graph);
+        f.end(s.graph);
+    }
+
+    @Benchmark
+    public void floatingReadsStringEquals(StringEquals s, Footprint f) {
+        f.begin();
+        new FloatingReadPhase().apply(s.graph);
+        f.end(s.graph);
+    }
+
+    @Benchmark
+    public void canonicalizeIntersection(Intersection s, GraalState g, Footprint f) {
+        f.begin();
+        CanonicalizerPhase.create().apply(s.graph, g.providers);
+        f.end(s.graph);
+    }
+
+    @Benchmark
+    public void scheduleIntersection(Intersection s, Footprint f) {
+        f.begin();
+        s.schedule.apply(s.graph);
+        f.end(s.graph);
+    }
+
+    @Benchmark
+    public void floatingReadsIntersection(Intersection s, Footprint f) {
+        f.begin();
+        new FloatingReadPhase().apply(s.graph);
+        f.end(s.graph);
+    }
+}
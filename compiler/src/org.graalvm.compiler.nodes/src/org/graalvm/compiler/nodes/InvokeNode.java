@@ -49,6 +49,7 @@ import org.graalvm.compiler.nodeinfo.NodeCycles;
 import org.graalvm.compiler.nodeinfo.NodeInfo;
 import org.graalvm.compiler.nodeinfo.NodeSize;
 import org.graalvm.compiler.nodeinfo.Verbosity;
+import org.graalvm.compiler.nodes.StructuredGraph.StageFlag;
 import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
 import org.graalvm.compiler.nodes.memory.AbstractMemoryCheckpoint;
 import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
@@ -78,7 +79,7 @@ public final class InvokeNode extends AbstractMemoryCheckpoint implements Invoke
     protected int bci;
     protected boolean polymorphic;
     protected InlineControl inlineControl;
-    protected final LocationIdentity identity;
+    protected LocationIdentity identity;
 
     public InvokeNode(CallTargetNode callTarget, int bci) {
         this(callTarget, bci, callTarget.returnStamp().getTrustedStamp());
@@ -179,6 +180,15 @@ public final class InvokeNode extends AbstractMemoryCheckpoint implements Invoke
         return identity;
     }
 
+    /**
+     * Narrows the locations killed by this invoke, e.g., based on a summary of the memory effects
+     * of the callee. This must happen before the memory graph is built.
+     */
+    public void setKilledLocationIdentity(LocationIdentity identity) {
+        assert graph() == null || graph().isBeforeStage(StageFlag.FLOATING_READS) : this;
+        this.identity = identity;
+    }
+
     @Override
     public void generate(NodeLIRBuilderTool gen) {
         gen.emitInvoke(this);
@@ -61,6 +61,7 @@ import org.graalvm.compiler.nodes.cfg.Block;
 import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
 import org.graalvm.compiler.nodes.java.ExceptionObjectNode;
 import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
+import org.graalvm.compiler.nodes.spi.ProfileProvider;
 import org.graalvm.compiler.nodes.spi.VirtualizableAllocation;
 import org.graalvm.compiler.nodes.util.GraphUtil;
 import org.graalvm.compiler.options.OptionValues;
@@ -204,6 +205,7 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
         private CompilationIdentifier compilationId = CompilationIdentifier.INVALID_COMPILATION_ID;
         private int entryBCI = JVMCICompiler.INVOCATION_ENTRY_BCI;
         private boolean useProfilingInfo = true;
+        private ProfileProvider profileProvider;
         private boolean recordInlinedMethods = true;
         private boolean trackNodeSourcePosition;
         private final OptionValues options;
@@ -307,6 +309,18 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
             return this;
         }
 
+        public ProfileProvider getProfileProvider() {
+            return profileProvider;
+        }
+
+        /**
+         * @see StructuredGraph#getProfileProvider()
+         */
+        public Builder profileProvider(ProfileProvider provider) {
+            this.profileProvider = provider;
+            return this;
+        }
+
         public boolean getRecordInlinedMethods() {
             return recordInlinedMethods;
         }
@@ -337,6 +351,7 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
                             assumptions,
                             speculationLog,
                             useProfilingInfo,
+                            profileProvider,
                             isSubstitution,
                             inlinedMethods,
                             trackNodeSourcePosition,
@@ -430,6 +445,7 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
     }
 
     private final boolean useProfilingInfo;
+    private final ProfileProvider profileProvider;
     private final Cancellable cancellable;
     private final boolean isSubstitution;
 
@@ -479,6 +495,7 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
                     Assumptions assumptions,
                     SpeculationLog speculationLog,
                     boolean useProfilingInfo,
+                    ProfileProvider profileProvider,
                     boolean isSubstitution,
                     List<ResolvedJavaMethod> methods,
                     boolean trackNodeSourcePosition,
@@ -497,6 +514,7 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
         this.methods = methods;
         this.speculationLog = speculationLog;
         this.useProfilingInfo = useProfilingInfo;
+        this.profileProvider = profileProvider;
         this.isSubstitution = isSubstitution;
         assert checkIsSubstitutionInvariants(method, isSubstitution);
         this.cancellable = cancellable;
@@ -708,6 +726,7 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
                         assumptions == null ? null : new Assumptions(),
                         speculationLog,
                         useProfilingInfo,
+                        profileProvider,
                         isSubstitution,
                         methods != null ? new ArrayList<>(methods) : null,
                         trackNodeSourcePositionForCopy,
@@ -1043,12 +1062,23 @@ public final class StructuredGraph extends Graph implements JavaMethodContext {
         return getProfilingInfo(method());
     }
 
+    /**
+     * Gets the {@link ProfileProvider} that supplies the profiles of the methods in this graph, or
+     * {@code null} if the profiles are taken from the methods directly.
+     */
+    public ProfileProvider getProfileProvider() {
+        return profileProvider;
+    }
+
     /**
      * Gets the profiling info for a given method that is or will be part of this graph, taking into
-     * account {@link #useProfilingInfo()}.
+     * account {@link #useProfilingInfo()} and the {@link #getProfileProvider() profile provider}.
      */
     public ProfilingInfo getProfilingInfo(ResolvedJavaMethod m) {
         if (useProfilingInfo && m != null) {
+            if (profileProvider != null) {
+                return profileProvider.getProfilingInfo(m);
+            }
             return m.getProfilingInfo();
         } else {
             return DefaultProfilingInfo.get(TriState.UNKNOWN);
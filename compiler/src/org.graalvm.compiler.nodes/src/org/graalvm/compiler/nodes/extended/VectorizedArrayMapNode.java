@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.nodes.extended;
+
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.NodeCycles;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodeinfo.NodeSize;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.memory.AbstractMemoryCheckpoint;
+import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Computes {@code dst[i] = src1[i] op src2[i]} (or {@code dst[i] = src1[i] op src2} if
+ * {@link #isScalarOperand()}) for all {@code i} in {@code [fromIndex, fromIndex + length)} with
+ * vector instructions. The arrays must be non-null, the region must be within the bounds of all
+ * arrays and {@code length} must be a multiple of
+ * {@link ElementwiseOperation#elementsPerBlock(JavaKind)}.
+ */
+@NodeInfo(cycles = NodeCycles.CYCLES_UNKNOWN, size = NodeSize.SIZE_64)
+public final class VectorizedArrayMapNode extends AbstractMemoryCheckpoint implements LIRLowerable, SingleMemoryKill {
+
+    public static final NodeClass<VectorizedArrayMapNode> TYPE = NodeClass.create(VectorizedArrayMapNode.class);
+
+    protected final ElementwiseOperation op;
+    protected final JavaKind elementKind;
+    protected final boolean scalarOperand;
+
+    @Input protected ValueNode dst;
+    @Input protected ValueNode src1;
+    @Input protected ValueNode src2;
+    @Input protected ValueNode fromIndex;
+    @Input protected ValueNode length;
+
+    public VectorizedArrayMapNode(ElementwiseOperation op, JavaKind elementKind, ValueNode dst, ValueNode src1, ValueNode src2, boolean scalarOperand, ValueNode fromIndex, ValueNode length) {
+        super(TYPE, StampFactory.forVoid());
+        this.op = op;
+        this.elementKind = elementKind;
+        this.scalarOperand = scalarOperand;
+        this.dst = dst;
+        this.src1 = src1;
+        this.src2 = src2;
+        this.fromIndex = fromIndex;
+        this.length = length;
+    }
+
+    public ElementwiseOperation getOp() {
+        return op;
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    /**
+     * Determines if {@link #getSrc2()} is a scalar value applied to every element rather than an
+     * array.
+     */
+    public boolean isScalarOperand() {
+        return scalarOperand;
+    }
+
+    public ValueNode getDst() {
+        return dst;
+    }
+
+    public ValueNode getSrc1() {
+        return src1;
+    }
+
+    public ValueNode getSrc2() {
+        return src2;
+    }
+
+    public ValueNode getFromIndex() {
+        return fromIndex;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    @Override
+    public LocationIdentity getKilledLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        int baseOffset = gen.getLIRGeneratorTool().getMetaAccess().getArrayBaseOffset(elementKind);
+        gen.getLIRGeneratorTool().emitVectorizedArrayMap(op, elementKind, baseOffset, gen.operand(dst), gen.operand(src1), gen.operand(src2), scalarOperand, gen.operand(fromIndex),
+                        gen.operand(length));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.nodes.extended;
+
+import static org.graalvm.compiler.nodeinfo.InputType.Memory;
+
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.NodeCycles;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodeinfo.NodeSize;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValueNodeUtil;
+import org.graalvm.compiler.nodes.memory.MemoryAccess;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Folds {@code array[i]} for all {@code i} in {@code [fromIndex, fromIndex + length)} into
+ * {@code initialValue} with vector instructions. Sub-int elements are widened to {@code int}
+ * according to their kind before they are combined. The array must be non-null, the region must
+ * be within its bounds and {@code length} must be a multiple of
+ * {@link ElementwiseOperation#elementsPerBlock(JavaKind)}.
+ */
+@NodeInfo(cycles = NodeCycles.CYCLES_UNKNOWN, size = NodeSize.SIZE_64)
+public final class VectorizedArrayReductionNode extends FixedWithNextNode implements LIRLowerable, MemoryAccess {
+
+    public static final NodeClass<VectorizedArrayReductionNode> TYPE = NodeClass.create(VectorizedArrayReductionNode.class);
+
+    protected final ElementwiseOperation op;
+    protected final JavaKind elementKind;
+
+    @Input protected ValueNode array;
+    @Input protected ValueNode fromIndex;
+    @Input protected ValueNode length;
+    @Input protected ValueNode initialValue;
+
+    @OptionalInput(Memory) protected MemoryKill lastLocationAccess;
+
+    public VectorizedArrayReductionNode(ElementwiseOperation op, JavaKind elementKind, ValueNode array, ValueNode fromIndex, ValueNode length, ValueNode initialValue) {
+        super(TYPE, StampFactory.forKind(elementKind.getStackKind()));
+        assert elementKind.isNumericInteger() && op.isAssociative(elementKind) : op + " " + elementKind;
+        this.op = op;
+        this.elementKind = elementKind;
+        this.array = array;
+        this.fromIndex = fromIndex;
+        this.length = length;
+        this.initialValue = initialValue;
+    }
+
+    public ElementwiseOperation getOp() {
+        return op;
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    public ValueNode getArray() {
+        return array;
+    }
+
+    public ValueNode getFromIndex() {
+        return fromIndex;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    public ValueNode getInitialValue() {
+        return initialValue;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        int baseOffset = gen.getLIRGeneratorTool().getMetaAccess().getArrayBaseOffset(elementKind);
+        gen.setResult(this, gen.getLIRGeneratorTool().emitVectorizedArrayReduction(op, elementKind, baseOffset, gen.operand(array), gen.operand(fromIndex), gen.operand(length),
+                        gen.operand(initialValue)));
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+
+    @Override
+    public MemoryKill getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryKill lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
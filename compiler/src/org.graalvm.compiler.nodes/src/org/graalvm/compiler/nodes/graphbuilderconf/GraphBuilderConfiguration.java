@@ -467,4 +467,27 @@ public final class GraphBuilderConfiguration {
     public Plugins getPlugins() {
         return plugins;
     }
+
+    /**
+     * Configurations are equal if they have the same settings and share their {@link Plugins}.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof GraphBuilderConfiguration) {
+            GraphBuilderConfiguration that = (GraphBuilderConfiguration) obj;
+            return eagerResolving == that.eagerResolving && unresolvedIsError == that.unresolvedIsError && bytecodeExceptionMode == that.bytecodeExceptionMode &&
+                            omitAssertions == that.omitAssertions && insertFullInfopoints == that.insertFullInfopoints && trackNodeSourcePosition == that.trackNodeSourcePosition &&
+                            retainLocalVariables == that.retainLocalVariables && replaceLocalsWithConstants == that.replaceLocalsWithConstants &&
+                            skippedExceptionTypes.equals(that.skippedExceptionTypes) && plugins == that.plugins;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(plugins) ^ bytecodeExceptionMode.hashCode() ^ (trackNodeSourcePosition ? 1 : 0) ^ (retainLocalVariables ? 2 : 0);
+    }
 }
@@ -187,6 +187,10 @@ public class DerivedOffsetInductionVariable extends DerivedInductionVariable {
         if (!base.offsetIsZero(ref)) {
             return null;
         }
+        if (value instanceof SubNode && base.valueNode() == value.getX()) {
+            // base - offset: the offset of this iv is the negated offset
+            return null;
+        }
         return offset;
     }
 
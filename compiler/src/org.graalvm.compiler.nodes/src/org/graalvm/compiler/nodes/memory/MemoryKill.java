@@ -25,6 +25,7 @@
 package org.graalvm.compiler.nodes.memory;
 
 import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
 import org.graalvm.compiler.nodes.ValueNodeInterface;
 import org.graalvm.word.LocationIdentity;
 
@@ -38,4 +39,10 @@ import org.graalvm.word.LocationIdentity;
  */
 public interface MemoryKill extends ValueNodeInterface {
 
+    /**
+     * Special {@link LocationIdentity} for a {@link SingleMemoryKill} that is known not to kill any
+     * location, e.g., a call to a method that only reads memory. As an immutable location it is
+     * ignored when building and scheduling the memory graph.
+     */
+    LocationIdentity NO_LOCATION = NamedLocationIdentity.immutable("NO_LOCATION");
 }
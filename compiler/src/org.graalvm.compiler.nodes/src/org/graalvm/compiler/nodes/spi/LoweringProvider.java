@@ -24,6 +24,7 @@
  */
 package org.graalvm.compiler.nodes.spi;
 
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
 import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.calc.RoundNode;
@@ -70,4 +71,11 @@ public interface LoweringProvider {
      */
     boolean supportsRounding();
 
+    /**
+     * Indicates whether this target platform can emit a vectorized kernel applying {@code op} to
+     * the elements of arrays of {@code elementKind}, either element-wise into a destination array
+     * or, if {@code reduction} is true, folding them into a scalar.
+     */
+    boolean supportsVectorizedArrayLoop(ElementwiseOperation op, JavaKind elementKind, boolean reduction);
+
 }
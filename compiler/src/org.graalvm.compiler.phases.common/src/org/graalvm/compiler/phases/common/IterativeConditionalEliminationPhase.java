@@ -26,6 +26,7 @@ package org.graalvm.compiler.phases.common;
 
 import org.graalvm.compiler.core.common.GraalOptions;
 import org.graalvm.compiler.core.common.PermanentBailoutException;
+import org.graalvm.compiler.core.common.util.CompilationBudget;
 import org.graalvm.compiler.debug.TTY;
 import org.graalvm.compiler.graph.Graph.NodeEventScope;
 import org.graalvm.compiler.graph.Node;
@@ -53,6 +54,7 @@ public class IterativeConditionalEliminationPhase extends BasePhase<CoreProvider
     protected void run(StructuredGraph graph, CoreProviders context) {
         final int maxIterations = GraalOptions.ConditionalEliminationMaxIterations.getValue(graph.getOptions());
         EconomicSetNodeEventListener listener = new EconomicSetNodeEventListener();
+        CompilationBudget budget = CompilationBudget.current();
         int count = 0;
 
         while (true) {
@@ -67,6 +69,11 @@ public class IterativeConditionalEliminationPhase extends BasePhase<CoreProvider
             canonicalizer.applyIncremental(graph, context, listener.getNodes());
             listener.getNodes().clear();
 
+            if (budget.isExhausted(graph.getNodeCount())) {
+                // keep the result of the iterations done so far
+                budget.recordSkipped(getName() + " iterations");
+                break;
+            }
             if (count >= maxIterations) {
                 if (DEBUG_PHASE) {
                     if (count >= DEBUG_MAX_ITERATIONS - 5) {
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractDeoptimizeNode;
+import org.graalvm.compiler.nodes.CallTargetNode;
+import org.graalvm.compiler.nodes.FieldLocationIdentity;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.InvokeNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.StaticDeoptimizingNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.extended.BytecodeExceptionNode;
+import org.graalvm.compiler.nodes.java.AbstractNewObjectNode;
+import org.graalvm.compiler.nodes.java.AccessFieldNode;
+import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
+import org.graalvm.compiler.nodes.java.NewMultiArrayNode;
+import org.graalvm.compiler.nodes.java.StoreFieldNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.code.BailoutException;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Narrows the {@linkplain InvokeNode#getKilledLocationIdentity() locations killed} by calls that
+ * are not inlined, based on summaries of the memory effects of the callees. Without a summary a
+ * call kills {@link LocationIdentity#any()}, which pins all reads in a loop that contains the call.
+ * A call to a method that only reads memory kills {@link MemoryKill#NO_LOCATION}, and a call to a
+ * method that writes a single primitive field or primitive array location kills only that
+ * location.
+ *
+ * A summary only describes the effects of a callee that returns normally. An exception thrown out
+ * of the callee is never caught by the compiled caller since {@link InvokeNode}s have no exception
+ * edge. Callees with exception handlers are therefore not summarized, while deoptimizations that
+ * only raise an implicit exception are allowed. Anything else the summary cannot describe precisely
+ * (allocations, monitors, volatile accesses, object stores with their GC barriers, other memory
+ * kills, calls that are not statically bound) makes the callee kill {@link LocationIdentity#any()}.
+ *
+ * Summaries are computed from a graph of the callee that is built without profiles, assumptions or
+ * speculation, and are cached for all compilations.
+ */
+public class MemoryKillSummaryPhase extends BasePhase<HighTierContext> {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Use summaries of the memory effects of callees to narrow the locations killed by calls that are not inlined.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> OptMemoryKillSummaries = new OptionKey<>(false);
+        @Option(help = "Maximum bytecode size of a method for which a memory kill summary is computed.", type = OptionType.Expert)
+        public static final OptionKey<Integer> MemoryKillSummaryMaxBytecodeSize = new OptionKey<>(150);
+        @Option(help = "Maximum depth of nested calls followed when computing a memory kill summary.", type = OptionType.Expert)
+        public static final OptionKey<Integer> MemoryKillSummaryMaxDepth = new OptionKey<>(3);
+        // @formatter:on
+    }
+
+    private static final CounterKey counterNarrowedInvokes = DebugContext.counter("MemoryKillSummary_NarrowedInvokes");
+
+    /**
+     * Summaries shared by all compilations. The keys are weak so that the cache does not keep
+     * methods alive.
+     */
+    private static final Map<ResolvedJavaMethod, LocationIdentity> SUMMARIES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    protected void run(StructuredGraph graph, HighTierContext context) {
+        Summarizer summarizer = null;
+        for (Invoke invoke : graph.getInvokes()) {
+            if (invoke instanceof InvokeNode && invoke.getKilledLocationIdentity().isAny()) {
+                if (summarizer == null) {
+                    summarizer = new Summarizer(graph, context);
+                }
+                LocationIdentity killed = summarizer.getKilledLocation((InvokeNode) invoke, 0);
+                if (!killed.isAny()) {
+                    ((InvokeNode) invoke).setKilledLocationIdentity(killed);
+                    counterNarrowedInvokes.increment(graph.getDebug());
+                }
+            }
+        }
+    }
+
+    /**
+     * Combines the locations killed by two code sequences.
+     */
+    static LocationIdentity union(LocationIdentity a, LocationIdentity b) {
+        if (a.equals(MemoryKill.NO_LOCATION) || a.equals(b)) {
+            return b;
+        } else if (b.equals(MemoryKill.NO_LOCATION)) {
+            return a;
+        }
+        return LocationIdentity.any();
+    }
+
+    private static final class Summarizer {
+
+        private final StructuredGraph caller;
+        private final HighTierContext context;
+        private final int maxBytecodeSize;
+        private final int maxDepth;
+
+        Summarizer(StructuredGraph caller, HighTierContext context) {
+            OptionValues options = caller.getOptions();
+            this.caller = caller;
+            this.context = new HighTierContext(context.getProviders(), context.getGraphBuilderSuite(), OptimisticOptimizations.NONE);
+            this.maxBytecodeSize = Options.MemoryKillSummaryMaxBytecodeSize.getValue(options);
+            this.maxDepth = Options.MemoryKillSummaryMaxDepth.getValue(options);
+        }
+
+        LocationIdentity getKilledLocation(Invoke invoke, int depth) {
+            if (!(invoke instanceof InvokeNode) || ((InvokeNode) invoke).classInit() != null) {
+                return LocationIdentity.any();
+            }
+            CallTargetNode callTarget = invoke.callTarget();
+            if (!(callTarget instanceof MethodCallTargetNode)) {
+                return LocationIdentity.any();
+            }
+            ResolvedJavaMethod target = callTarget.targetMethod();
+            if (target == null || !(callTarget.invokeKind().isDirect() || target.canBeStaticallyBound())) {
+                return LocationIdentity.any();
+            }
+            if (target.isStatic() && !target.getDeclaringClass().isInitialized()) {
+                // the call could run a class initializer
+                return LocationIdentity.any();
+            }
+            return getSummary(target, depth);
+        }
+
+        private LocationIdentity getSummary(ResolvedJavaMethod method, int depth) {
+            LocationIdentity summary = SUMMARIES.get(method);
+            if (summary == null) {
+                if (depth >= maxDepth) {
+                    return LocationIdentity.any();
+                }
+                // provisional entry for recursive calls
+                SUMMARIES.put(method, LocationIdentity.any());
+                summary = computeSummary(method, depth);
+                SUMMARIES.put(method, summary);
+            }
+            return summary;
+        }
+
+        @SuppressWarnings("try")
+        private LocationIdentity computeSummary(ResolvedJavaMethod method, int depth) {
+            if (!method.hasBytecodes() || method.getCodeSize() > maxBytecodeSize || method.isSynchronized() || method.getExceptionHandlers().length != 0) {
+                return LocationIdentity.any();
+            }
+            DebugContext debug = caller.getDebug();
+            StructuredGraph graph = new StructuredGraph.Builder(caller.getOptions(), debug, AllowAssumptions.NO).method(method).useProfilingInfo(false).build();
+            try (DebugContext.Scope s = debug.scope("MemoryKillSummary", graph)) {
+                context.getGraphBuilderSuite().apply(graph, context);
+            } catch (BailoutException e) {
+                return LocationIdentity.any();
+            } catch (Throwable e) {
+                throw debug.handle(e);
+            }
+            for (ResolvedJavaMethod inlined : graph.getMethods()) {
+                if (inlined.getExceptionHandlers().length != 0) {
+                    return LocationIdentity.any();
+                }
+            }
+            LocationIdentity killed = MemoryKill.NO_LOCATION;
+            for (Node node : graph.getNodes()) {
+                killed = union(killed, getNodeKilledLocation(node, depth));
+                if (killed.isAny()) {
+                    break;
+                }
+            }
+            return killed;
+        }
+
+        private LocationIdentity getNodeKilledLocation(Node node, int depth) {
+            if (node instanceof Invoke) {
+                return getKilledLocation((Invoke) node, depth + 1);
+            } else if (node instanceof AccessFieldNode && ((AccessFieldNode) node).isVolatile()) {
+                return LocationIdentity.any();
+            } else if (node instanceof StoreFieldNode) {
+                StoreFieldNode store = (StoreFieldNode) node;
+                if (store.field().getJavaKind() == JavaKind.Object) {
+                    return LocationIdentity.any();
+                }
+                return new FieldLocationIdentity(store.field());
+            } else if (node instanceof StoreIndexedNode) {
+                JavaKind elementKind = ((StoreIndexedNode) node).elementKind();
+                if (elementKind == JavaKind.Object) {
+                    return LocationIdentity.any();
+                }
+                return NamedLocationIdentity.getArrayLocation(elementKind);
+            } else if (node instanceof BytecodeExceptionNode) {
+                // the exception always leaves the method
+                return MemoryKill.NO_LOCATION;
+            } else if (node instanceof StaticDeoptimizingNode) {
+                return isImplicitExceptionReason(((StaticDeoptimizingNode) node).getReason()) ? MemoryKill.NO_LOCATION : LocationIdentity.any();
+            } else if (node instanceof AbstractDeoptimizeNode || node instanceof MemoryKill || node instanceof AbstractNewObjectNode || node instanceof NewMultiArrayNode) {
+                return LocationIdentity.any();
+            }
+            return MemoryKill.NO_LOCATION;
+        }
+
+        /**
+         * Determines if a deoptimization with {@code reason} resumes in the interpreter only to
+         * throw an implicit exception.
+         */
+        private static boolean isImplicitExceptionReason(DeoptimizationReason reason) {
+            switch (reason) {
+                case NullCheckException:
+                case BoundsCheckException:
+                case ClassCastException:
+                case ArrayStoreException:
+                case ArithmeticException:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+}
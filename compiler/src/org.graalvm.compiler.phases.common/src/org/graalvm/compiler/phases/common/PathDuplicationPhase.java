@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeStack;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.AbstractEndNode;
+import org.graalvm.compiler.nodes.AbstractMergeNode;
+import org.graalvm.compiler.nodes.BeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ControlSinkNode;
+import org.graalvm.compiler.nodes.DeoptimizingGuard;
+import org.graalvm.compiler.nodes.EndNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.Invoke;
+import org.graalvm.compiler.nodes.LogicConstantNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.MergeNode;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.ProxyNode;
+import org.graalvm.compiler.nodes.ReturnNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.cfg.Block;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.nodes.java.AbstractNewObjectNode;
+import org.graalvm.compiler.nodes.spi.Canonicalizable;
+import org.graalvm.compiler.nodes.spi.CanonicalizerTool;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.nodes.spi.CoreProvidersDelegate;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.contract.NodeCostUtil;
+
+import jdk.vm.ci.meta.Assumptions;
+
+/**
+ * Duplicates the straight-line code following a {@link MergeNode} into the merge predecessors if
+ * this exposes optimization opportunities on the individual paths.
+ *
+ * For every predecessor of a merge the phase simulates the canonicalization of the merge tail with
+ * the {@link PhiNode phis} replaced by the values flowing in from that predecessor. Every node
+ * that would fold (e.g., arithmetic on constants, type checks on values with a precise type or
+ * guards with a constant condition) as well as every allocation that could stay virtual contributes
+ * its estimated cycles, weighted with the frequency of the predecessor, to the benefit of the
+ * duplication. The tail is only duplicated if this benefit outweighs the code size increase. The
+ * actual folding is left to the canonicalizer and later phases such as conditional elimination and
+ * partial escape analysis.
+ *
+ * Only tails without control flow are duplicated. They must end in a {@link ControlSinkNode}, in an
+ * {@link EndNode} of another merge or in a {@link LoopEndNode}, e.g. at the end of a
+ * {@code switch}-based dispatch loop.
+ */
+public class PathDuplicationPhase extends BasePhase<CoreProviders> {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Maximum estimated size of a merge tail that is duplicated into the merge predecessors.", type = OptionType.Expert)
+        public static final OptionKey<Integer> PathDuplicationMaxTailSize = new OptionKey<>(64);
+        @Option(help = "Maximum number of predecessors of a merge whose tail is duplicated.", type = OptionType.Expert)
+        public static final OptionKey<Integer> PathDuplicationMaxPredecessors = new OptionKey<>(8);
+        @Option(help = "Minimum ratio between the frequency weighted cycles saved by a duplication "
+                     + "and the code size it adds.", type = OptionType.Expert)
+        public static final OptionKey<Double> PathDuplicationMinBenefitRatio = new OptionKey<>(0.5);
+        @Option(help = "Maximum relative increase of the graph size caused by path duplication.", type = OptionType.Expert)
+        public static final OptionKey<Double> PathDuplicationMaxGraphGrowth = new OptionKey<>(0.5);
+        // @formatter:on
+    }
+
+    private static final int MAX_ITERATIONS = 4;
+
+    private static final CounterKey counterDuplicatedMerges = DebugContext.counter("PathDuplication_DuplicatedMerges");
+    private static final CounterKey counterRejectedMerges = DebugContext.counter("PathDuplication_RejectedMerges");
+
+    @Override
+    public boolean checkContract() {
+        // this phase trades code size for speed by design
+        return false;
+    }
+
+    @Override
+    protected boolean isOptional() {
+        return true;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        OptionValues options = graph.getOptions();
+        double minBenefitRatio = Options.PathDuplicationMinBenefitRatio.getValue(options);
+        int budget = (int) (NodeCostUtil.computeGraphSize(graph) * Options.PathDuplicationMaxGraphGrowth.getValue(options));
+        SimulationTool tool = new SimulationTool(context, graph.getAssumptions(), options);
+
+        boolean changed = true;
+        for (int iteration = 0; changed && iteration < MAX_ITERATIONS && budget > 0; iteration++) {
+            changed = false;
+            ControlFlowGraph cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+            // merges whose predecessors or tail changed need a fresh control flow graph
+            EconomicSet<AbstractMergeNode> modified = EconomicSet.create(Equivalence.IDENTITY);
+            for (MergeNode merge : graph.getNodes(MergeNode.TYPE).snapshot()) {
+                if (!merge.isAlive() || modified.contains(merge)) {
+                    continue;
+                }
+                MergeTail tail = MergeTail.create(merge, options);
+                if (tail == null) {
+                    continue;
+                }
+                int sizeIncrease = tail.size * (merge.forwardEndCount() - 1);
+                if (sizeIncrease > budget) {
+                    continue;
+                }
+                double benefit = 0;
+                for (EndNode end : merge.forwardEnds()) {
+                    Block block = cfg.blockFor(end);
+                    if (block != null) {
+                        benefit += tail.simulate(end, tool) * block.getRelativeFrequency();
+                    }
+                }
+                if (benefit <= sizeIncrease * minBenefitRatio) {
+                    counterRejectedMerges.increment(graph.getDebug());
+                    continue;
+                }
+                for (EndNode end : merge.forwardEnds()) {
+                    AbstractBeginNode predecessorBegin = AbstractBeginNode.prevBegin(end);
+                    if (predecessorBegin instanceof AbstractMergeNode) {
+                        modified.add((AbstractMergeNode) predecessorBegin);
+                    }
+                }
+                AbstractMergeNode successor = tail.duplicate();
+                if (successor != null) {
+                    modified.add(successor);
+                }
+                budget -= sizeIncrease;
+                changed = true;
+                counterDuplicatedMerges.increment(graph.getDebug());
+                graph.getDebug().dump(DebugContext.DETAILED_LEVEL, graph, "After duplicating tail of %s", merge);
+            }
+        }
+    }
+
+    /**
+     * The straight-line code dominated by a merge together with all floating nodes that depend on
+     * the merge, its phis or its fixed nodes.
+     */
+    private static final class MergeTail {
+        final MergeNode merge;
+        final List<FixedWithNextNode> fixedNodes;
+        final FixedNode terminal;
+        final AbstractMergeNode successor;
+        final EconomicSet<Node> duplicatedNodes;
+        final int size;
+
+        private MergeTail(MergeNode merge, List<FixedWithNextNode> fixedNodes, FixedNode terminal, AbstractMergeNode successor, EconomicSet<Node> duplicatedNodes, int size) {
+            this.merge = merge;
+            this.fixedNodes = fixedNodes;
+            this.terminal = terminal;
+            this.successor = successor;
+            this.duplicatedNodes = duplicatedNodes;
+            this.size = size;
+        }
+
+        static MergeTail create(MergeNode merge, OptionValues options) {
+            if (merge.forwardEndCount() < 2 || merge.forwardEndCount() > Options.PathDuplicationMaxPredecessors.getValue(options)) {
+                return null;
+            }
+            if (merge.memoryPhis().isNotEmpty()) {
+                return null;
+            }
+            List<FixedWithNextNode> fixedNodes = new ArrayList<>();
+            FixedNode current = merge.next();
+            while (current instanceof FixedWithNextNode) {
+                if (current instanceof AbstractBeginNode || current instanceof Invoke) {
+                    return null;
+                }
+                fixedNodes.add((FixedWithNextNode) current);
+                current = ((FixedWithNextNode) current).next();
+            }
+            AbstractMergeNode successor = null;
+            if (current instanceof EndNode) {
+                successor = ((EndNode) current).merge();
+                if (successor instanceof LoopBeginNode) {
+                    // a loop begin must keep a single forward end
+                    return null;
+                }
+            } else if (current instanceof LoopEndNode) {
+                successor = ((LoopEndNode) current).loopBegin();
+            } else if (!(current instanceof ControlSinkNode) || (current instanceof ReturnNode && ((ReturnNode) current).getMemoryMap() != null)) {
+                return null;
+            }
+            if (fixedNodes.isEmpty() && successor != null) {
+                // nothing to gain from duplicating a plain end
+                return null;
+            }
+
+            EconomicSet<Node> region = EconomicSet.create(Equivalence.IDENTITY);
+            NodeStack worklist = new NodeStack();
+            region.add(merge);
+            worklist.push(merge);
+            for (PhiNode phi : merge.phis()) {
+                region.add(phi);
+                worklist.push(phi);
+            }
+            for (FixedWithNextNode fixed : fixedNodes) {
+                region.add(fixed);
+                worklist.push(fixed);
+            }
+            if (successor == null) {
+                region.add(current);
+                worklist.push(current);
+            }
+            while (!worklist.isEmpty()) {
+                Node node = worklist.pop();
+                for (Node usage : node.usages()) {
+                    if (region.contains(usage)) {
+                        continue;
+                    }
+                    if (usage instanceof PhiNode && ((PhiNode) usage).merge() == successor) {
+                        // values flowing into the successor merge are remapped per copy
+                        continue;
+                    }
+                    if (usage instanceof FixedNode || usage instanceof PhiNode || usage instanceof ProxyNode) {
+                        return null;
+                    }
+                    region.add(usage);
+                    worklist.push(usage);
+                }
+            }
+
+            EconomicSet<Node> duplicatedNodes = EconomicSet.create(Equivalence.IDENTITY);
+            List<Node> sizedNodes = new ArrayList<>();
+            FrameState mergeState = merge.stateAfter();
+            for (Node node : region) {
+                if (node == merge || (node instanceof PhiNode && ((PhiNode) node).merge() == merge)) {
+                    continue;
+                }
+                if (node == mergeState && mergeState.usages().filter(usage -> usage != merge).isEmpty()) {
+                    // the state of the merge itself is not needed on the duplicated paths
+                    continue;
+                }
+                duplicatedNodes.add(node);
+                sizedNodes.add(node);
+            }
+            int size = NodeCostUtil.computeNodesSize(sizedNodes);
+            if (size > Options.PathDuplicationMaxTailSize.getValue(options)) {
+                return null;
+            }
+            return new MergeTail(merge, fixedNodes, current, successor, duplicatedNodes, size);
+        }
+
+        /**
+         * Estimates the cycles saved on the path through {@code end} if the tail was duplicated
+         * into this predecessor and canonicalized.
+         */
+        double simulate(EndNode end, CanonicalizerTool tool) {
+            EconomicMap<Node, Node> simulated = EconomicMap.create(Equivalence.IDENTITY);
+            double saved = 0;
+            for (PhiNode phi : merge.phis()) {
+                ValueNode value = phi.valueAt(end);
+                simulated.put(phi, value);
+                if (phi instanceof ValuePhiNode && value instanceof AbstractNewObjectNode && phi.hasUsages()) {
+                    // the allocation no longer escapes into a phi and can stay virtual
+                    saved += value.estimatedNodeCycles().value;
+                }
+            }
+            for (Node node : duplicatedNodes) {
+                saved += simulate(node, simulated, tool);
+            }
+            return saved;
+        }
+
+        private double simulate(Node node, EconomicMap<Node, Node> simulated, CanonicalizerTool tool) {
+            if (node == null || simulated.containsKey(node) || !duplicatedNodes.contains(node)) {
+                return 0;
+            }
+            double saved = 0;
+            Node result = node;
+            if (node instanceof Canonicalizable.Unary<?>) {
+                @SuppressWarnings("unchecked")
+                Canonicalizable.Unary<Node> unary = (Canonicalizable.Unary<Node>) node;
+                Node value = unary.getValue();
+                saved += simulate(value, simulated, tool);
+                Node forValue = lookup(value, simulated);
+                if (forValue != value) {
+                    result = unary.canonical(tool, forValue);
+                }
+            } else if (node instanceof Canonicalizable.Binary<?>) {
+                @SuppressWarnings("unchecked")
+                Canonicalizable.Binary<Node> binary = (Canonicalizable.Binary<Node>) node;
+                Node x = binary.getX();
+                Node y = binary.getY();
+                saved += simulate(x, simulated, tool) + simulate(y, simulated, tool);
+                Node forX = lookup(x, simulated);
+                Node forY = lookup(y, simulated);
+                if (forX != x || forY != y) {
+                    result = binary.canonical(tool, forX, forY);
+                }
+            } else if (node instanceof DeoptimizingGuard) {
+                DeoptimizingGuard guard = (DeoptimizingGuard) node;
+                Node condition = guard.getCondition();
+                saved += simulate(condition, simulated, tool);
+                Node forCondition = lookup(condition, simulated);
+                if (forCondition instanceof LogicConstantNode && ((LogicConstantNode) forCondition).getValue() != guard.isNegated()) {
+                    // the guard always succeeds on this path
+                    result = null;
+                }
+            }
+            simulated.put(node, result == null ? node : result);
+            if (result != node) {
+                saved += savedCycles(node, result);
+            }
+            return saved;
+        }
+
+        private static Node lookup(Node node, EconomicMap<Node, Node> simulated) {
+            Node result = simulated.get(node);
+            return result == null ? node : result;
+        }
+
+        private static int savedCycles(Node node, Node replacement) {
+            int cycles = node.estimatedNodeCycles().value;
+            if (replacement == null || replacement instanceof ConstantNode || replacement instanceof LogicConstantNode || replacement.isAlive()) {
+                return cycles;
+            }
+            return Math.max(0, cycles - replacement.estimatedNodeCycles().value);
+        }
+
+        /**
+         * Duplicates the tail into every predecessor of the merge and removes the merge.
+         *
+         * @return the merge or loop begin the tail flows into, or {@code null} if the tail ends in
+         *         a {@link ControlSinkNode}
+         */
+        AbstractMergeNode duplicate() {
+            StructuredGraph graph = merge.graph();
+            List<EndNode> ends = merge.forwardEnds().snapshot();
+            FrameState mergeState = merge.stateAfter();
+            for (EndNode end : ends) {
+                BeginNode begin = graph.add(new BeginNode());
+                EconomicMap<Node, Node> replacements = EconomicMap.create(Equivalence.IDENTITY);
+                replacements.put(merge, begin);
+                for (PhiNode phi : merge.phis()) {
+                    replacements.put(phi, phi.valueAt(end));
+                }
+                UnmodifiableEconomicMap<Node, Node> duplicates = graph.addDuplicates(duplicatedNodes, graph, duplicatedNodes.size(), replacements);
+                if (fixedNodes.isEmpty()) {
+                    begin.setNext((FixedNode) duplicates.get(terminal));
+                } else {
+                    begin.setNext((FixedNode) duplicates.get(fixedNodes.get(0)));
+                }
+                FixedWithNextNode last = fixedNodes.isEmpty() ? begin : (FixedWithNextNode) duplicates.get(fixedNodes.get(fixedNodes.size() - 1));
+                if (terminal instanceof EndNode) {
+                    EndNode newEnd = graph.add(new EndNode());
+                    last.setNext(newEnd);
+                    successor.addForwardEnd(newEnd);
+                    addSuccessorPhiInputs(duplicates, replacements);
+                } else if (terminal instanceof LoopEndNode) {
+                    LoopEndNode loopEnd = (LoopEndNode) terminal;
+                    LoopEndNode newEnd = graph.add(new LoopEndNode((LoopBeginNode) successor));
+                    if (!loopEnd.canSafepoint()) {
+                        newEnd.disableSafepoint();
+                    }
+                    if (!loopEnd.canGuestSafepoint()) {
+                        newEnd.disableGuestSafepoint();
+                    }
+                    last.setNext(newEnd);
+                    addSuccessorPhiInputs(duplicates, replacements);
+                }
+                if (mergeState != null && duplicates.get(mergeState) != null) {
+                    Node stateCopy = duplicates.get(mergeState);
+                    if (stateCopy.hasNoUsages()) {
+                        GraphUtil.killWithUnusedFloatingInputs(stateCopy);
+                    }
+                }
+                end.replaceAtPredecessor(begin);
+            }
+            GraphUtil.killCFG(merge);
+            for (EndNode end : ends) {
+                if (end.isAlive()) {
+                    end.safeDelete();
+                }
+            }
+            return successor;
+        }
+
+        private void addSuccessorPhiInputs(UnmodifiableEconomicMap<Node, Node> duplicates, EconomicMap<Node, Node> replacements) {
+            for (PhiNode phi : successor.phis()) {
+                ValueNode value = phi.valueAt((AbstractEndNode) terminal);
+                Node newValue = duplicates.get(value);
+                if (newValue == null) {
+                    newValue = replacements.get(value);
+                }
+                phi.addInput(newValue == null ? value : (ValueNode) newValue);
+            }
+        }
+    }
+
+    private static final class SimulationTool extends CoreProvidersDelegate implements CanonicalizerTool {
+
+        private final Assumptions assumptions;
+        private final OptionValues options;
+
+        SimulationTool(CoreProviders providers, Assumptions assumptions, OptionValues options) {
+            super(providers);
+            this.assumptions = assumptions;
+            this.options = options;
+        }
+
+        @Override
+        public Assumptions getAssumptions() {
+            return assumptions;
+        }
+
+        @Override
+        public boolean canonicalizeReads() {
+            return true;
+        }
+
+        @Override
+        public boolean allUsagesAvailable() {
+            return false;
+        }
+
+        @Override
+        public Integer smallestCompareWidth() {
+            return null;
+        }
+
+        @Override
+        public boolean supportsRounding() {
+            return getLowerer().supportsRounding();
+        }
+
+        @Override
+        public OptionValues getOptions() {
+            return options;
+        }
+    }
+}
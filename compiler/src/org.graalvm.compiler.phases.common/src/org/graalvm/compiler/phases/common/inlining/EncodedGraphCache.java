@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common.inlining;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.collections.UnmodifiableMapCursor;
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.EncodedGraph;
+import org.graalvm.compiler.nodes.GraphDecoder;
+import org.graalvm.compiler.nodes.GraphEncoder;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.spi.ProfileProvider;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.code.Architecture;
+import jdk.vm.ci.code.TargetDescription;
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.ProfilingInfo;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+
+/**
+ * A process wide cache of the {@linkplain EncodedGraph encoded} graphs produced by parsing the
+ * bytecodes of inlining candidates. A graph parsed for one compilation is reused by later
+ * compilations that parse the same method with an equal graph builder suite,
+ * {@link OptimisticOptimizations} and options instead of parsing its bytecodes again. Graph builder
+ * suites and options are compared by their contents rather than by identity since compilers derive
+ * a new suite or new options for individual compilations, for example for OSR compilations or to
+ * retain local variables.
+ *
+ * The size of the cache is bounded by {@link Options#EncodedGraphCacheSize}. Graphs are only cached
+ * if their profiling information is mature and if they do not contain speculations, as those are
+ * specific to the compilation that created them. A graph built with profiling information also
+ * records the deoptimization counts of the methods it was parsed from. Once code compiled from it
+ * deoptimizes in one of these methods, for example at a branch that the profile showed as never
+ * taken, the graph is discarded and parsed again with the updated profile instead of repeating the
+ * same speculation. Graphs that recorded assumptions must be {@linkplain #evict(StructuredGraph)
+ * evicted} when installing code that used them fails because of invalid dependencies. When running
+ * as libgraal, the cache is part of the libgraal isolate heap.
+ */
+public final class EncodedGraphCache {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Maximum size in kilobytes of the process wide cache of parsed graphs of inlining candidates (0 to disable the cache).", type = OptionType.Expert)
+        public static final OptionKey<Integer> EncodedGraphCacheSize = new OptionKey<>(0);
+        // @formatter:on
+    }
+
+    private static final CounterKey CacheHits = DebugContext.counter("EncodedGraphCacheHits").doc("Number of inlining candidates decoded from the encoded graph cache.");
+    private static final CounterKey CacheMisses = DebugContext.counter("EncodedGraphCacheMisses").doc("Number of inlining candidates not found in the encoded graph cache.");
+    private static final CounterKey CacheStale = DebugContext.counter("EncodedGraphCacheStale").doc("Number of cached graphs discarded because their methods deoptimized since.");
+
+    /**
+     * Approximate size of a reference in the {@linkplain EncodedGraph#getObjects() object table} of
+     * an encoded graph.
+     */
+    private static final int OBJECT_REFERENCE_SIZE = 8;
+
+    private static final class Key {
+        private final ResolvedJavaMethod method;
+        private final OptimisticOptimizations optimisticOpts;
+        /**
+         * Copy of the phases of the graph builder suite. The suite itself is not retained as it
+         * may be specific to a single compilation.
+         */
+        private final List<BasePhase<? super HighTierContext>> graphBuilderPhases;
+        private final OptionValues options;
+        private final boolean useProfilingInfo;
+        private final ProfileProvider profileProvider;
+        private final boolean allowAssumptions;
+        private final boolean trackNodeSourcePosition;
+        private final boolean trackUnsafeAccess;
+
+        Key(ResolvedJavaMethod method, HighTierContext context, StructuredGraph caller, boolean trackNodeSourcePosition) {
+            this.method = method;
+            this.optimisticOpts = context.getOptimisticOptimizations();
+            this.graphBuilderPhases = new ArrayList<>(context.getGraphBuilderSuite().getPhases());
+            this.options = caller.getOptions();
+            this.useProfilingInfo = caller.useProfilingInfo();
+            this.profileProvider = caller.getProfileProvider();
+            this.allowAssumptions = caller.getAssumptions() != null;
+            this.trackNodeSourcePosition = trackNodeSourcePosition;
+            this.trackUnsafeAccess = caller.isUnsafeAccessTrackingEnabled();
+        }
+
+        @Override
+        public int hashCode() {
+            return method.hashCode() ^ optimisticOpts.hashCode() ^ graphBuilderPhases.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key that = (Key) obj;
+                return method.equals(that.method) && optimisticOpts.equals(that.optimisticOpts) && graphBuilderPhases.equals(that.graphBuilderPhases) && equalOptions(options, that.options) &&
+                                useProfilingInfo == that.useProfilingInfo && profileProvider == that.profileProvider && allowAssumptions == that.allowAssumptions && trackNodeSourcePosition == that.trackNodeSourcePosition &&
+                                trackUnsafeAccess == that.trackUnsafeAccess;
+            }
+            return false;
+        }
+    }
+
+    private static boolean equalOptions(OptionValues a, OptionValues b) {
+        if (a == b) {
+            return true;
+        }
+        UnmodifiableEconomicMap<OptionKey<?>, Object> mapA = a.getMap();
+        UnmodifiableEconomicMap<OptionKey<?>, Object> mapB = b.getMap();
+        if (mapA.size() != mapB.size()) {
+            return false;
+        }
+        UnmodifiableMapCursor<OptionKey<?>, Object> cursor = mapA.getEntries();
+        while (cursor.advance()) {
+            if (!mapB.containsKey(cursor.getKey()) || !Objects.equals(cursor.getValue(), mapB.get(cursor.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class CachedGraph {
+        private final EncodedGraph encodedGraph;
+        /**
+         * The {@linkplain #deoptimizationCount total deoptimization count} of the methods the
+         * graph was parsed from at the time it was cached.
+         */
+        private final int deoptimizationCount;
+
+        CachedGraph(EncodedGraph encodedGraph, int deoptimizationCount) {
+            this.encodedGraph = encodedGraph;
+            this.deoptimizationCount = deoptimizationCount;
+        }
+    }
+
+    /**
+     * Access ordered map of the cached graphs. All accesses are guarded by the map itself.
+     */
+    private static final LinkedHashMap<Key, CachedGraph> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Approximate number of bytes occupied by the graphs in {@link #cache}.
+     */
+    private static long cachedBytes;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private EncodedGraphCache() {
+    }
+
+    public static boolean isEnabled(OptionValues options) {
+        return Options.EncodedGraphCacheSize.getValue(options) > 0 && !GraalOptions.GeneratePIC.getValue(options);
+    }
+
+    /**
+     * Gets a new graph for {@code method} decoded from the cache.
+     *
+     * @return {@code null} if there is no cached graph for {@code method} that can be used for
+     *         inlining into {@code caller}
+     */
+    public static StructuredGraph lookup(ResolvedJavaMethod method, HighTierContext context, StructuredGraph caller, boolean trackNodeSourcePosition) {
+        Architecture architecture = getArchitecture(context);
+        if (architecture == null || context.getGraphBuilderSuite() == null) {
+            return null;
+        }
+        Key key = new Key(method, context, caller, trackNodeSourcePosition);
+        CachedGraph cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        DebugContext debug = caller.getDebug();
+        if (cached != null && cached.deoptimizationCount != deoptimizationCount(caller, method, cached.encodedGraph)) {
+            CacheStale.increment(debug);
+            synchronized (cache) {
+                if (cache.remove(key, cached)) {
+                    cachedBytes -= sizeOf(cached.encodedGraph);
+                }
+            }
+            cached = null;
+        }
+        if (cached == null) {
+            misses.incrementAndGet();
+            CacheMisses.increment(debug);
+            return null;
+        }
+        EncodedGraph encodedGraph = cached.encodedGraph;
+        hits.incrementAndGet();
+        CacheHits.increment(debug);
+        StructuredGraph graph = new StructuredGraph.Builder(caller.getOptions(), debug, caller.allowAssumptions()).method(method).trackNodeSourcePosition(trackNodeSourcePosition).useProfilingInfo(
+                        caller.useProfilingInfo()).profileProvider(caller.getProfileProvider()).speculationLog(caller.getSpeculationLog()).build();
+        if (!caller.isUnsafeAccessTrackingEnabled()) {
+            graph.disableUnsafeAccessTracking();
+        }
+        new GraphDecoder(architecture, graph).decode(encodedGraph);
+        if (graph.getAssumptions() != null && encodedGraph.getAssumptions() != null) {
+            graph.getAssumptions().record(encodedGraph.getAssumptions());
+        }
+        if (encodedGraph.getInlinedMethods() != null) {
+            for (ResolvedJavaMethod inlinedMethod : encodedGraph.getInlinedMethods()) {
+                graph.recordMethod(inlinedMethod);
+            }
+        }
+        if (encodedGraph.hasUnsafeAccess()) {
+            graph.markUnsafeAccess();
+        }
+        return graph;
+    }
+
+    /**
+     * Adds the graph parsed for {@code method} to the cache if it can be shared with other
+     * compilations.
+     */
+    public static void put(ResolvedJavaMethod method, HighTierContext context, StructuredGraph caller, boolean trackNodeSourcePosition, StructuredGraph graph) {
+        Architecture architecture = getArchitecture(context);
+        if (architecture == null || context.getGraphBuilderSuite() == null) {
+            return;
+        }
+        if (caller.useProfilingInfo() && !caller.getProfilingInfo(method).isMature()) {
+            return;
+        }
+        EncodedGraph encodedGraph = GraphEncoder.encodeSingleGraph(graph, architecture);
+        for (Object object : encodedGraph.getObjects()) {
+            if (object instanceof SpeculationLog.Speculation && !SpeculationLog.NO_SPECULATION.equals(object)) {
+                return;
+            }
+        }
+        long size = sizeOf(encodedGraph);
+        long maxSize = Options.EncodedGraphCacheSize.getValue(caller.getOptions()) * 1024L;
+        if (size > maxSize) {
+            return;
+        }
+        Key key = new Key(method, context, caller, trackNodeSourcePosition);
+        CachedGraph cached = new CachedGraph(encodedGraph, deoptimizationCount(caller, method, encodedGraph));
+        synchronized (cache) {
+            CachedGraph previous = cache.put(key, cached);
+            if (previous != null) {
+                cachedBytes -= sizeOf(previous.encodedGraph);
+            }
+            cachedBytes += size;
+            Iterator<CachedGraph> iter = cache.values().iterator();
+            while (cachedBytes > maxSize && iter.hasNext()) {
+                cachedBytes -= sizeOf(iter.next().encodedGraph);
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the sum of the deoptimization counts in the profiles of {@code method} and the methods
+     * inlined into its graph, as seen by {@code caller}. A change of this value means that code
+     * compiled from the graph deoptimized, so that the speculations based on the profile the graph
+     * was built with may no longer hold.
+     *
+     * @return -1 if {@code caller} does not use profiling information
+     */
+    private static int deoptimizationCount(StructuredGraph caller, ResolvedJavaMethod method, EncodedGraph encodedGraph) {
+        if (!caller.useProfilingInfo()) {
+            return -1;
+        }
+        int count = deoptimizationCount(caller.getProfilingInfo(method));
+        if (encodedGraph.getInlinedMethods() != null) {
+            for (ResolvedJavaMethod inlinedMethod : encodedGraph.getInlinedMethods()) {
+                count += deoptimizationCount(caller.getProfilingInfo(inlinedMethod));
+            }
+        }
+        return count;
+    }
+
+    private static int deoptimizationCount(ProfilingInfo profile) {
+        int count = 0;
+        for (DeoptimizationReason reason : DeoptimizationReason.values()) {
+            count += profile.getDeoptimizationCount(reason);
+        }
+        return count;
+    }
+
+    /**
+     * Removes the graphs of all methods inlined into {@code graph} that recorded assumptions. This
+     * must be called if installing the code compiled from {@code graph} failed because of invalid
+     * dependencies as the cache may contain graphs that were built based on those dependencies.
+     */
+    public static void evict(StructuredGraph graph) {
+        if (graph.getMethods().isEmpty()) {
+            return;
+        }
+        synchronized (cache) {
+            Iterator<Map.Entry<Key, CachedGraph>> iter = cache.entrySet().iterator();
+            while (iter.hasNext()) {
+                Map.Entry<Key, CachedGraph> entry = iter.next();
+                Assumptions assumptions = entry.getValue().encodedGraph.getAssumptions();
+                if (assumptions != null && !assumptions.isEmpty() && graph.getMethods().contains(entry.getKey().method)) {
+                    cachedBytes -= sizeOf(entry.getValue().encodedGraph);
+                    iter.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all graphs from the cache.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    /**
+     * Gets the number of lookups that found a cached graph.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not find a cached graph.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the approximate number of bytes occupied by the cached graphs.
+     */
+    public static long getCachedBytes() {
+        synchronized (cache) {
+            return cachedBytes;
+        }
+    }
+
+    private static long sizeOf(EncodedGraph encodedGraph) {
+        return encodedGraph.getEncoding().length + (long) encodedGraph.getNumObjects() * OBJECT_REFERENCE_SIZE;
+    }
+
+    private static Architecture getArchitecture(HighTierContext context) {
+        TargetDescription target = context.getReplacements().getInjectedArgument(TargetDescription.class);
+        return target == null ? null : target.arch;
+    }
+}
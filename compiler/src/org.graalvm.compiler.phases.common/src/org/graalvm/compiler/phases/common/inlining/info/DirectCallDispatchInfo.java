@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.phases.common.inlining.info;
+
+import org.graalvm.collections.EconomicSet;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.phases.common.inlining.info.elem.Inlineable;
+import org.graalvm.compiler.phases.util.Providers;
+
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Represents an interface call that is not inlined but is dispatched to the methods of its
+ * profiled receiver types with direct calls, see
+ * {@link MultiTypeGuardInlineInfo#devirtualizeWithDirectCalls}. There are no methods to inline,
+ * the call is only rewritten when it is {@linkplain #tryToDevirtualizeInvoke(Providers)
+ * devirtualized}.
+ */
+public class DirectCallDispatchInfo extends AbstractInlineInfo {
+
+    private final MultiTypeGuardInlineInfo dispatch;
+
+    public DirectCallDispatchInfo(MultiTypeGuardInlineInfo dispatch) {
+        super(dispatch.invoke());
+        this.dispatch = dispatch;
+    }
+
+    @Override
+    public int numberOfMethods() {
+        return 0;
+    }
+
+    @Override
+    public ResolvedJavaMethod methodAt(int index) {
+        throw GraalError.shouldNotReachHere();
+    }
+
+    @Override
+    public Inlineable inlineableElementAt(int index) {
+        throw GraalError.shouldNotReachHere();
+    }
+
+    @Override
+    public double probabilityAt(int index) {
+        throw GraalError.shouldNotReachHere();
+    }
+
+    @Override
+    public double relevanceAt(int index) {
+        throw GraalError.shouldNotReachHere();
+    }
+
+    @Override
+    public void setInlinableElement(int index, Inlineable inlineableElement) {
+        throw GraalError.shouldNotReachHere();
+    }
+
+    @Override
+    public EconomicSet<Node> inline(CoreProviders providers, String reason) {
+        throw GraalError.shouldNotReachHere("no methods to inline");
+    }
+
+    @Override
+    public void tryToDevirtualizeInvoke(Providers providers) {
+        dispatch.devirtualizeWithDirectCalls(providers);
+    }
+
+    @Override
+    public boolean shouldInline() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "direct call dispatch " + dispatch;
+    }
+}
@@ -24,6 +24,9 @@
  */
 package org.graalvm.compiler.phases.common.inlining.info;
 
+import static org.graalvm.compiler.core.common.GraalOptions.DirectCallTypeDispatch;
+import static org.graalvm.compiler.core.common.GraalOptions.DirectCallTypeDispatchMinProbability;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -57,6 +60,7 @@ import org.graalvm.compiler.nodes.java.TypeSwitchNode;
 import org.graalvm.compiler.nodes.spi.CoreProviders;
 import org.graalvm.compiler.nodes.spi.StampProvider;
 import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.compiler.phases.common.inlining.InliningUtil;
 import org.graalvm.compiler.phases.common.inlining.info.elem.Inlineable;
 import org.graalvm.compiler.phases.util.Providers;
@@ -193,7 +197,31 @@ public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
     }
 
     private EconomicSet<Node> inlineMultipleMethods(StructuredGraph graph, CoreProviders providers, String reason) {
+        AbstractBeginNode[] successors = new AbstractBeginNode[concretes.size() + 1];
+        PhiNode returnValuePhi = createDispatchToMultipleInvokes(graph, successors, true, providers);
+
+        EconomicSet<Node> canonicalizeNodes = EconomicSet.create(Equivalence.DEFAULT);
+        // do the actual inlining for every invoke
+        for (int i = 0; i < concretes.size(); i++) {
+            Invoke invokeForInlining = (Invoke) successors[i].next();
+            canonicalizeNodes.addAll(doInline(i, invokeForInlining, reason));
+        }
+        if (returnValuePhi != null) {
+            canonicalizeNodes.add(returnValuePhi);
+        }
+        return canonicalizeNodes;
+    }
+
+    /**
+     * Replaces the invoke with a switch on the type of the receiver that leads to one copy of the
+     * invoke per concrete method, plus the original invoke or a deoptimization for unknown types.
+     *
+     * @param successors receives the blocks of the copies, followed by the block for unknown types
+     * @return the phi for the return values or {@code null} if the invoke returns {@code void}
+     */
+    private PhiNode createDispatchToMultipleInvokes(StructuredGraph graph, AbstractBeginNode[] successors, boolean useForInlining, CoreProviders providers) {
         int numberOfMethods = concretes.size();
+        assert successors.length == numberOfMethods + 1;
         FixedNode continuation = invoke.next();
 
         // setup merge and phi nodes for results and exceptions
@@ -223,9 +251,8 @@ public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
         }
 
         // create one separate block for each invoked method
-        AbstractBeginNode[] successors = new AbstractBeginNode[numberOfMethods + 1];
         for (int i = 0; i < numberOfMethods; i++) {
-            successors[i] = createInvocationBlock(graph, invoke, returnMerge, returnValuePhi, exceptionMerge, exceptionObjectPhi, true);
+            successors[i] = createInvocationBlock(graph, invoke, returnMerge, returnValuePhi, exceptionMerge, exceptionObjectPhi, useForInlining);
         }
 
         // create the successor for an unknown type
@@ -259,8 +286,6 @@ public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
         }
         invoke.asNode().safeDelete();
 
-        ArrayList<PiNode> replacementNodes = new ArrayList<>();
-
         // prepare the anchors for the invokes
         for (int i = 0; i < numberOfMethods; i++) {
             AbstractBeginNode node = successors[i];
@@ -279,22 +304,8 @@ public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
             invokeForInlining.callTarget().replaceFirstInput(receiver, anchoredReceiver);
 
             assert !anchoredReceiver.isDeleted() : anchoredReceiver;
-            replacementNodes.add(anchoredReceiver);
-        }
-        if (shouldFallbackToInvoke()) {
-            replacementNodes.add(null);
-        }
-
-        EconomicSet<Node> canonicalizeNodes = EconomicSet.create(Equivalence.DEFAULT);
-        // do the actual inlining for every invoke
-        for (int i = 0; i < numberOfMethods; i++) {
-            Invoke invokeForInlining = (Invoke) successors[i].next();
-            canonicalizeNodes.addAll(doInline(i, invokeForInlining, reason));
         }
-        if (returnValuePhi != null) {
-            canonicalizeNodes.add(returnValuePhi);
-        }
-        return canonicalizeNodes;
+        return returnValuePhi;
     }
 
     protected EconomicSet<Node> doInline(int index, Invoke invokeForInlining, String reason) {
@@ -437,11 +448,11 @@ public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
         if (hasSingleMethod()) {
             devirtualizeWithTypeSwitch(graph(), InvokeKind.Special, concretes.get(0), providers.getStampProvider(), providers.getConstantReflection());
         } else {
-            tryToDevirtualizeMultipleMethods(graph(), providers.getStampProvider(), providers.getConstantReflection());
+            tryToDevirtualizeMultipleMethods(graph(), providers);
         }
     }
 
-    private void tryToDevirtualizeMultipleMethods(StructuredGraph graph, StampProvider stampProvider, ConstantReflectionProvider constantReflection) {
+    private void tryToDevirtualizeMultipleMethods(StructuredGraph graph, CoreProviders providers) {
         MethodCallTargetNode methodCallTarget = (MethodCallTargetNode) invoke.callTarget();
         if (methodCallTarget.invokeKind() == InvokeKind.Interface && !speculationFailed) {
             ResolvedJavaMethod targetMethod = methodCallTarget.targetMethod();
@@ -453,10 +464,48 @@ public class MultiTypeGuardInlineInfo extends AbstractInlineInfo {
             if (!leastCommonType.isInterface() && targetMethod.getDeclaringClass().isAssignableFrom(leastCommonType)) {
                 ResolvedJavaMethod baseClassTargetMethod = leastCommonType.resolveConcreteMethod(targetMethod, contextType);
                 if (baseClassTargetMethod != null) {
-                    devirtualizeWithTypeSwitch(graph, InvokeKind.Virtual, leastCommonType.resolveConcreteMethod(targetMethod, contextType), stampProvider, constantReflection);
+                    devirtualizeWithTypeSwitch(graph, InvokeKind.Virtual, leastCommonType.resolveConcreteMethod(targetMethod, contextType), providers.getStampProvider(),
+                                    providers.getConstantReflection());
+                    return;
                 }
             }
         }
+        if (shouldDispatchWithDirectCalls()) {
+            devirtualizeWithDirectCalls(providers);
+        }
+    }
+
+    /**
+     * Determines if {@link #devirtualizeWithDirectCalls} should be used for this interface call,
+     * i.e., if the profiled receiver types cover enough of the calls to make up for the type checks
+     * in front of the itable lookup for the remaining receivers.
+     */
+    public boolean shouldDispatchWithDirectCalls() {
+        MethodCallTargetNode methodCallTarget = (MethodCallTargetNode) invoke.callTarget();
+        OptionValues options = graph().getOptions();
+        if (methodCallTarget.invokeKind() != InvokeKind.Interface || !DirectCallTypeDispatch.getValue(options)) {
+            return false;
+        }
+        double profiledProbability = 0;
+        for (double probability : methodProbabilities) {
+            profiledProbability += probability;
+        }
+        return profiledProbability >= DirectCallTypeDispatchMinProbability.getValue(options);
+    }
+
+    /**
+     * Replaces the invoke with a switch on the profiled receiver types that calls the concrete
+     * method of each type directly, i.e., a polymorphic inline cache compiled into the caller.
+     * This avoids the itable lookup for the profiled types if the methods are not inlined.
+     */
+    public void devirtualizeWithDirectCalls(CoreProviders providers) {
+        StructuredGraph graph = graph();
+        graph.getDebug().log("Direct call type dispatch for %s", this);
+        AbstractBeginNode[] successors = new AbstractBeginNode[concretes.size() + 1];
+        createDispatchToMultipleInvokes(graph, successors, false, providers);
+        for (int i = 0; i < concretes.size(); i++) {
+            InliningUtil.replaceInvokeCallTarget((Invoke) successors[i].next(), graph, InvokeKind.Special, concretes.get(i));
+        }
     }
 
     private void devirtualizeWithTypeSwitch(StructuredGraph graph, InvokeKind kind, ResolvedJavaMethod target, StampProvider stampProvider, ConstantReflectionProvider constantReflection) {
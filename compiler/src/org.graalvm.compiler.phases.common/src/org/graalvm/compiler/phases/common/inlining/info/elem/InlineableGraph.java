@@ -41,6 +41,7 @@ import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.phases.common.CanonicalizerPhase;
 import org.graalvm.compiler.phases.common.DeadCodeEliminationPhase;
+import org.graalvm.compiler.phases.common.inlining.EncodedGraphCache;
 import org.graalvm.compiler.phases.common.inlining.InliningUtil;
 import org.graalvm.compiler.phases.graph.FixedNodeRelativeFrequencyCache;
 import org.graalvm.compiler.phases.tiers.HighTierContext;
@@ -184,15 +185,23 @@ public class InlineableGraph implements Inlineable {
 
     /**
      * This method builds the IR nodes for the given <code>method</code> and canonicalizes them.
-     * Provided profiling info is mature, the resulting graph is cached. The caller is responsible
-     * for cloning before modification.
+     * Provided profiling info is mature, the resulting graph is cached in the
+     * {@link EncodedGraphCache}. The returned graph is never shared and can be modified by the
+     * caller.
      * </p>
      */
     @SuppressWarnings("try")
     private static StructuredGraph parseBytecodes(ResolvedJavaMethod method, HighTierContext context, CanonicalizerPhase canonicalizer, StructuredGraph caller, boolean trackNodeSourcePosition) {
+        boolean useCache = EncodedGraphCache.isEnabled(caller.getOptions());
+        if (useCache) {
+            StructuredGraph cached = EncodedGraphCache.lookup(method, context, caller, trackNodeSourcePosition);
+            if (cached != null) {
+                return cached;
+            }
+        }
         DebugContext debug = caller.getDebug();
         StructuredGraph newGraph = new StructuredGraph.Builder(caller.getOptions(), debug, caller.allowAssumptions()).method(method).trackNodeSourcePosition(trackNodeSourcePosition).useProfilingInfo(
-                        caller.useProfilingInfo()).speculationLog(caller.getSpeculationLog()).build();
+                        caller.useProfilingInfo()).profileProvider(caller.getProfileProvider()).speculationLog(caller.getSpeculationLog()).build();
         try (DebugContext.Scope s = debug.scope("InlineGraph", newGraph)) {
             if (!caller.isUnsafeAccessTrackingEnabled()) {
                 newGraph.disableUnsafeAccessTracking();
@@ -206,6 +215,9 @@ public class InlineableGraph implements Inlineable {
 
             canonicalizer.apply(newGraph, context);
 
+            if (useCache) {
+                EncodedGraphCache.put(method, context, caller, trackNodeSourcePosition, newGraph);
+            }
             return newGraph;
         } catch (Throwable e) {
             throw debug.handle(e);
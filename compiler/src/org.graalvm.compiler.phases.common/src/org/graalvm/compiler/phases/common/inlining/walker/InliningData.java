@@ -30,6 +30,7 @@ import static org.graalvm.compiler.core.common.GraalOptions.MegamorphicInliningM
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Iterator;
@@ -61,6 +62,7 @@ import org.graalvm.compiler.phases.OptimisticOptimizations;
 import org.graalvm.compiler.phases.common.CanonicalizerPhase;
 import org.graalvm.compiler.phases.common.inlining.InliningUtil;
 import org.graalvm.compiler.phases.common.inlining.info.AssumptionInlineInfo;
+import org.graalvm.compiler.phases.common.inlining.info.DirectCallDispatchInfo;
 import org.graalvm.compiler.phases.common.inlining.info.ExactInlineInfo;
 import org.graalvm.compiler.phases.common.inlining.info.InlineInfo;
 import org.graalvm.compiler.phases.common.inlining.info.MultiTypeGuardInlineInfo;
@@ -108,6 +110,7 @@ public class InliningData {
     private static final CounterKey counterInliningPerformed = DebugContext.counter("InliningPerformed");
     private static final CounterKey counterInliningRuns = DebugContext.counter("InliningRuns");
     private static final CounterKey counterInliningConsidered = DebugContext.counter("InliningConsidered");
+    private static final CounterKey counterDirectCallDispatches = DebugContext.counter("InliningDirectCallDispatches");
 
     /**
      * Call hierarchy from outer most call (i.e., compilation unit) to inner most callee.
@@ -360,7 +363,7 @@ public class InliningData {
                                     concreteMethods.size());
                     inliningLog.addDecision(invoke, false, "InliningPhase", null, null,
                                     "no methods remaining after filtering less frequent methods (%d methods previously)", concreteMethods.size());
-                    return null;
+                    return getDirectCallDispatchInfo(invoke, targetMethod, ptypes, speculationFailed, speculation);
                 }
 
                 concreteMethods = newConcreteMethods;
@@ -370,7 +373,7 @@ public class InliningData {
             if (concreteMethods.size() > maxMethodPerInlining) {
                 InliningUtil.traceNotInlinedMethod(invoke, inliningDepth(), targetMethod, "polymorphic call with more than %d target methods", maxMethodPerInlining);
                 inliningLog.addDecision(invoke, false, "InliningPhase", null, null, "polymorphic call with more than %d target methods", maxMethodPerInlining);
-                return null;
+                return getDirectCallDispatchInfo(invoke, targetMethod, ptypes, speculationFailed, speculation);
             }
 
             // Clean out types whose methods are no longer available.
@@ -401,13 +404,62 @@ public class InliningData {
                     InliningUtil.traceNotInlinedMethod(invoke, inliningDepth(), targetMethod, "it is a polymorphic method call and at least one invoked method cannot be inlined");
                     inliningLog.addDecision(invoke, false, "InliningPhase", null, null,
                                     "it is a polymorphic method call and at least one invoked method cannot be inlined");
-                    return null;
+                    return getDirectCallDispatchInfo(invoke, targetMethod, ptypes, speculationFailed, speculation);
                 }
             }
             return new MultiTypeGuardInlineInfo(invoke, concreteMethods, usedTypes, typesToConcretes, notRecordedTypeProbability, speculationFailed, speculation);
         }
     }
 
+    /**
+     * Gets the info for dispatching an interface call that is not inlined to the methods of the
+     * profiled receiver types with direct calls, if the profile covers enough of the calls. Like
+     * inlining, the dispatch calls at most {@link #maxMethodPerInlining} different methods, those of
+     * the most frequent receiver types. Receivers of other types still take the interface call.
+     *
+     * @return {@code null} if the call should not be dispatched with direct calls
+     */
+    private DirectCallDispatchInfo getDirectCallDispatchInfo(Invoke invoke, ResolvedJavaMethod targetMethod, JavaTypeProfile.ProfiledType[] ptypes, boolean speculationFailed,
+                    SpeculationLog.Speculation speculation) {
+        OptionValues options = invoke.asNode().getOptions();
+        if (((MethodCallTargetNode) invoke.callTarget()).invokeKind() != InvokeKind.Interface || !context.getOptimisticOptimizations().devirtualizeInvokes(options)) {
+            return null;
+        }
+        ResolvedJavaType contextType = invoke.getContextType();
+        ArrayList<ResolvedJavaMethod> concreteMethods = new ArrayList<>();
+        ArrayList<JavaTypeProfile.ProfiledType> usedTypes = new ArrayList<>();
+        ArrayList<Integer> typesToConcretes = new ArrayList<>();
+        double notRecordedTypeProbability = ((MethodCallTargetNode) invoke.callTarget()).getProfile().getNotRecordedProbability();
+        JavaTypeProfile.ProfiledType[] sortedTypes = ptypes.clone();
+        Arrays.sort(sortedTypes, (a, b) -> Double.compare(b.getProbability(), a.getProbability()));
+        for (JavaTypeProfile.ProfiledType type : sortedTypes) {
+            ResolvedJavaMethod concrete = type.getType().resolveConcreteMethod(targetMethod, contextType);
+            if (concrete == null || !concrete.isConcrete()) {
+                notRecordedTypeProbability += type.getProbability();
+                continue;
+            }
+            int index = concreteMethods.indexOf(concrete);
+            if (index < 0) {
+                if (concreteMethods.size() >= maxMethodPerInlining) {
+                    notRecordedTypeProbability += type.getProbability();
+                    continue;
+                }
+                index = concreteMethods.size();
+                concreteMethods.add(concrete);
+            }
+            usedTypes.add(type);
+            typesToConcretes.add(index);
+        }
+        if (concreteMethods.isEmpty()) {
+            return null;
+        }
+        MultiTypeGuardInlineInfo info = new MultiTypeGuardInlineInfo(invoke, concreteMethods, usedTypes, typesToConcretes, notRecordedTypeProbability, speculationFailed, speculation);
+        if (info.shouldDispatchWithDirectCalls()) {
+            return new DirectCallDispatchInfo(info);
+        }
+        return null;
+    }
+
     private InlineInfo getAssumptionInlineInfo(Invoke invoke, ResolvedJavaMethod concrete, AssumptionResult<?> takenAssumption) {
         assert concrete.isConcrete();
         if (checkTargetConditions(invoke, concrete)) {
@@ -524,7 +576,11 @@ public class InliningData {
         Invoke invoke = callsiteHolder.popInvoke();
         InlineInfo info = getInlineInfo(invoke);
 
-        if (info != null) {
+        if (info instanceof DirectCallDispatchInfo) {
+            // there is nothing to inline, so the call is rewritten right away
+            info.tryToDevirtualizeInvoke(context.getProviders());
+            counterDirectCallDispatches.increment(debug);
+        } else if (info != null) {
             info.populateInlinableElements(context, currentGraph().graph(), canonicalizer, rootGraph.getOptions());
             double invokeProbability = callsiteHolder.invokeProbability(invoke);
             double invokeRelevance = callsiteHolder.invokeRelevance(invoke);
@@ -28,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.core.common.util.CompilationBudget;
 import org.graalvm.compiler.debug.CounterKey;
 import org.graalvm.compiler.debug.DebugCloseable;
 import org.graalvm.compiler.debug.DebugContext;
@@ -89,6 +90,12 @@ public abstract class BasePhase<C> implements PhaseSizeContract {
      */
     private final MemUseTrackerKey memUseTracker;
 
+    /**
+     * Counts calls to {@link #apply(StructuredGraph, Object, boolean)} that were skipped because
+     * the {@linkplain CompilationBudget compilation budget} was exhausted.
+     */
+    private final CounterKey skippedCount;
+
     /** Lazy initialization to create pattern only when assertions are enabled. */
     static class NamePatternHolder {
         static final Pattern NAME_PATTERN = Pattern.compile("[A-Z][A-Za-z0-9]+");
@@ -116,11 +123,18 @@ public abstract class BasePhase<C> implements PhaseSizeContract {
          */
         private final MemUseTrackerKey memUseTracker;
 
+        /**
+         * Counts calls to {@link BasePhase#apply(StructuredGraph, Object, boolean)} that were
+         * skipped because the {@linkplain CompilationBudget compilation budget} was exhausted.
+         */
+        private final CounterKey skippedCount;
+
         public BasePhaseStatistics(Class<?> clazz) {
             timer = DebugContext.timer("PhaseTime_%s", clazz).doc("Time spent in phase.");
             executionCount = DebugContext.counter("PhaseCount_%s", clazz).doc("Number of phase executions.");
             memUseTracker = DebugContext.memUseTracker("PhaseMemUse_%s", clazz).doc("Memory allocated in phase.");
             inputNodesCount = DebugContext.counter("PhaseNodes_%s", clazz).doc("Number of nodes input to phase.");
+            skippedCount = DebugContext.counter("PhaseSkipped_%s", clazz).doc("Number of phase executions skipped due to an exhausted compilation budget.");
         }
     }
 
@@ -141,6 +155,7 @@ public abstract class BasePhase<C> implements PhaseSizeContract {
         executionCount = statistics.executionCount;
         memUseTracker = statistics.memUseTracker;
         inputNodesCount = statistics.inputNodesCount;
+        skippedCount = statistics.skippedCount;
     }
 
     public final void apply(final StructuredGraph graph, final C context) {
@@ -190,6 +205,15 @@ public abstract class BasePhase<C> implements PhaseSizeContract {
         }
 
         DebugContext debug = graph.getDebug();
+        if (isOptional()) {
+            CompilationBudget budget = CompilationBudget.current();
+            if (budget.isExhausted(graph.getNodeCount())) {
+                budget.recordSkipped(getName());
+                skippedCount.increment(debug);
+                debug.log(DebugContext.BASIC_LEVEL, "Skipping %s: compilation budget exhausted", getName());
+                return;
+            }
+        }
         try (CompilerPhaseScope cps = getClass() != PhaseSuite.class ? debug.enterCompilerPhase(getName()) : null;
                         DebugCloseable a = timer.start(debug);
                         DebugContext.Scope s = debug.scope(getClass(), this);
@@ -301,6 +325,14 @@ public abstract class BasePhase<C> implements PhaseSizeContract {
 
     protected abstract void run(StructuredGraph graph, C context);
 
+    /**
+     * Determines if this phase only improves the quality of the generated code and may therefore
+     * be skipped once the {@linkplain CompilationBudget compilation budget} is exhausted.
+     */
+    protected boolean isOptional() {
+        return false;
+    }
+
     @Override
     public String contractorName() {
         return getName().toString();
@@ -45,6 +45,9 @@ import org.graalvm.compiler.core.common.SuppressFBWarnings;
 import org.graalvm.compiler.core.common.cfg.AbstractControlFlowGraph;
 import org.graalvm.compiler.core.common.cfg.BlockMap;
 import org.graalvm.compiler.debug.Assertions;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Graph;
 import org.graalvm.compiler.graph.Graph.NodeEvent;
 import org.graalvm.compiler.graph.Graph.NodeEventListener;
 import org.graalvm.compiler.graph.Graph.NodeEventScope;
@@ -86,12 +89,25 @@ import org.graalvm.compiler.nodes.memory.FloatingReadNode;
 import org.graalvm.compiler.nodes.memory.MultiMemoryKill;
 import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
 import org.graalvm.compiler.nodes.spi.ValueProxy;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
 import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.compiler.phases.Phase;
 import org.graalvm.word.LocationIdentity;
 
 public final class SchedulePhase extends Phase {
 
+    public static class Options {
+
+        // @formatter:off
+        @Option(help = "Reuse the last schedule of a graph if the graph has not been edited since the schedule was computed.", type = OptionType.Debug)
+        public static final OptionKey<Boolean> ReuseUnchangedSchedule = new OptionKey<>(false);
+        // @formatter:on
+    }
+
+    private static final CounterKey counterSchedulesReused = DebugContext.counter("SchedulesReused");
+
     public enum SchedulingStrategy {
         EARLIEST_WITH_GUARD_ORDER,
         EARLIEST,
@@ -153,12 +169,59 @@ public final class SchedulePhase extends Phase {
     @Override
     @SuppressWarnings("try")
     protected void run(StructuredGraph graph) {
+        if (Options.ReuseUnchangedSchedule.getValue(graph.getOptions()) && isLastScheduleReusable(graph)) {
+            counterSchedulesReused.increment(graph.getDebug());
+            return;
+        }
         try (NodeEventScope scope = verifyImmutableGraph(graph)) {
             Instance inst = new Instance();
             inst.run(graph, selectedStrategy, immutableGraph);
         }
     }
 
+    private boolean isLastScheduleReusable(StructuredGraph graph) {
+        ScheduleResult lastSchedule = graph.getLastSchedule();
+        if (lastSchedule instanceof RecordedScheduleResult) {
+            return ((RecordedScheduleResult) lastSchedule).isReusableFor(graph, selectedStrategy, immutableGraph);
+        }
+        return false;
+    }
+
+    /**
+     * A schedule together with the parameters and the graph state it was computed for. Such a
+     * schedule is still up to date as long as the {@linkplain Graph#getEditCount() edit count} of
+     * the graph does not change, so running the {@link SchedulePhase} again with the same strategy
+     * can reuse it instead of scheduling the whole graph from scratch. Changes to profile data that
+     * do not edit the graph do not invalidate the schedule; the node placement stays correct but may
+     * no longer match the updated block frequencies.
+     */
+    private static final class RecordedScheduleResult extends ScheduleResult {
+        private final SchedulingStrategy strategy;
+        private final boolean immutableGraph;
+        private final int editCount;
+        private final GuardsStage guardsStage;
+        private final boolean beforeValueProxyRemoval;
+
+        RecordedScheduleResult(StructuredGraph graph, ControlFlowGraph cfg, NodeMap<Block> nodeToBlockMap, BlockMap<List<Node>> blockToNodesMap, SchedulingStrategy strategy,
+                        boolean immutableGraph) {
+            super(cfg, nodeToBlockMap, blockToNodesMap);
+            this.strategy = strategy;
+            this.immutableGraph = immutableGraph;
+            this.editCount = graph.getEditCount();
+            this.guardsStage = graph.getGuardsStage();
+            this.beforeValueProxyRemoval = graph.isBeforeStage(StageFlag.VALUE_PROXY_REMOVAL);
+        }
+
+        boolean isReusableFor(StructuredGraph graph, SchedulingStrategy requestedStrategy, boolean requestedImmutableGraph) {
+            /*
+             * A schedule computed for an immutable graph did not delete dead nodes, which a
+             * mutable run is expected to do.
+             */
+            return strategy == requestedStrategy && (!immutableGraph || requestedImmutableGraph) && editCount == graph.getEditCount() && guardsStage == graph.getGuardsStage() &&
+                            beforeValueProxyRemoval == graph.isBeforeStage(StageFlag.VALUE_PROXY_REMOVAL);
+        }
+    }
+
     public static void run(StructuredGraph graph, SchedulingStrategy strategy, ControlFlowGraph cfg) {
         Instance inst = new Instance(cfg);
         inst.run(graph, strategy, false);
@@ -186,6 +249,7 @@ public final class SchedulePhase extends Phase {
         public void run(StructuredGraph graph, SchedulingStrategy selectedStrategy, boolean immutableGraph) {
             // assert GraphOrder.assertNonCyclicGraph(graph);
 
+            boolean recordSchedule = this.cfg == null;
             if (this.cfg == null) {
                 this.cfg = ControlFlowGraph.compute(graph, true, true, true, false);
             }
@@ -217,7 +281,11 @@ public final class SchedulePhase extends Phase {
             }
             cfg.setNodeToBlock(currentNodeMap);
 
-            graph.setLastSchedule(new ScheduleResult(this.cfg, this.nodeToBlockMap, this.blockToNodesMap));
+            if (recordSchedule) {
+                graph.setLastSchedule(new RecordedScheduleResult(graph, this.cfg, this.nodeToBlockMap, this.blockToNodesMap, selectedStrategy, immutableGraph));
+            } else {
+                graph.setLastSchedule(new ScheduleResult(this.cfg, this.nodeToBlockMap, this.blockToNodesMap));
+            }
         }
 
         @SuppressFBWarnings(value = "RCN_REDUNDANT_NULLCHECK_WOULD_HAVE_BEEN_A_NPE", justification = "false positive found by findbugs")
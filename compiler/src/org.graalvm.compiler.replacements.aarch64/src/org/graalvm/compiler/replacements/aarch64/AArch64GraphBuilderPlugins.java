@@ -31,6 +31,8 @@ import static org.graalvm.compiler.replacements.nodes.UnaryMathIntrinsicNode.Una
 import static org.graalvm.compiler.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.SIN;
 import static org.graalvm.compiler.replacements.nodes.UnaryMathIntrinsicNode.UnaryOperation.TAN;
 
+import java.util.Arrays;
+
 import org.graalvm.compiler.core.common.GraalOptions;
 import org.graalvm.compiler.nodes.NodeView;
 import org.graalvm.compiler.nodes.ValueNode;
@@ -46,6 +48,8 @@ import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registratio
 import org.graalvm.compiler.nodes.java.ArrayLengthNode;
 import org.graalvm.compiler.nodes.spi.Replacements;
 import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.replacements.ArraysSubstitutions;
+import org.graalvm.compiler.replacements.StringCodingSubstitutions;
 import org.graalvm.compiler.replacements.StringLatin1Substitutions;
 import org.graalvm.compiler.replacements.StringUTF16Substitutions;
 import org.graalvm.compiler.replacements.TargetGraphBuilderPlugins;
@@ -77,7 +81,9 @@ public class AArch64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
                 if (JavaVersionUtil.JAVA_SPEC >= 9 && GraalOptions.EmitStringSubstitutions.getValue(options)) {
                     registerStringLatin1Plugins(invocationPlugins, replacements);
                     registerStringUTF16Plugins(invocationPlugins, replacements);
+                    registerStringCodingPlugins(invocationPlugins, replacements);
                 }
+                registerArraysPlugins(invocationPlugins, replacements);
             }
         });
     }
@@ -282,6 +288,8 @@ public class AArch64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
             r.register2("compareTo", byte[].class, byte[].class, new ArrayCompareToPlugin(JavaKind.Byte, JavaKind.Byte));
             r.register2("compareToUTF16", byte[].class, byte[].class, new ArrayCompareToPlugin(JavaKind.Byte, JavaKind.Char));
             r.registerMethodSubstitution(StringLatin1Substitutions.class, "indexOf", byte[].class, int.class, int.class);
+            r.registerMethodSubstitution(StringLatin1Substitutions.class, "regionMatchesCI", byte[].class, int.class, byte[].class, int.class, int.class);
+            r.registerMethodSubstitution(StringLatin1Substitutions.class, "hashCode", byte[].class);
         }
     }
 
@@ -292,7 +300,40 @@ public class AArch64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
             r.register2("compareTo", byte[].class, byte[].class, new ArrayCompareToPlugin(JavaKind.Char, JavaKind.Char));
             r.register2("compareToLatin1", byte[].class, byte[].class, new ArrayCompareToPlugin(JavaKind.Char, JavaKind.Byte, true));
             r.registerMethodSubstitution(StringUTF16Substitutions.class, "indexOfCharUnsafe", byte[].class, int.class, int.class, int.class);
+            r.registerMethodSubstitution(StringUTF16Substitutions.class, "hashCode", byte[].class);
+        }
+    }
+
+    private static void registerStringCodingPlugins(InvocationPlugins plugins, Replacements replacements) {
+        if (JavaVersionUtil.JAVA_SPEC >= 9) {
+            Registration r = new Registration(plugins, "java.lang.StringCoding", replacements);
+            r.setAllowOverwrite(true);
+            r.registerMethodSubstitution(StringCodingSubstitutions.class, "hasNegatives", byte[].class, int.class, int.class);
         }
     }
 
+    private static void registerArraysPlugins(InvocationPlugins plugins, Replacements replacements) {
+        Registration r = new Registration(plugins, Arrays.class, replacements);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", byte[].class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", char[].class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", short[].class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", int[].class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", boolean[].class, boolean.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", boolean[].class, int.class, int.class, boolean.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", byte[].class, byte.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", byte[].class, int.class, int.class, byte.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", char[].class, char.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", char[].class, int.class, int.class, char.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", short[].class, short.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", short[].class, int.class, int.class, short.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", int[].class, int.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", int[].class, int.class, int.class, int.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", long[].class, long.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", long[].class, int.class, int.class, long.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", float[].class, float.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", float[].class, int.class, int.class, float.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", double[].class, double.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", double[].class, int.class, int.class, double.class);
+    }
+
 }
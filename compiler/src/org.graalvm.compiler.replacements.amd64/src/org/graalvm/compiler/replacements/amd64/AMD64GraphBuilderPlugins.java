@@ -35,6 +35,9 @@ import static org.graalvm.compiler.replacements.nodes.UnaryMathIntrinsicNode.Una
 import java.util.Arrays;
 
 import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.lir.amd64.AMD64ArrayFillOp;
+import org.graalvm.compiler.lir.amd64.AMD64ArrayHashCodeOp;
+import org.graalvm.compiler.lir.amd64.AMD64ArrayRegionEqualsIgnoreCaseOp;
 import org.graalvm.compiler.nodes.ConstantNode;
 import org.graalvm.compiler.nodes.NamedLocationIdentity;
 import org.graalvm.compiler.nodes.PauseNode;
@@ -53,6 +56,7 @@ import org.graalvm.compiler.nodes.memory.address.IndexAddressNode;
 import org.graalvm.compiler.nodes.spi.Replacements;
 import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.compiler.replacements.ArraysSubstitutions;
+import org.graalvm.compiler.replacements.StringCodingSubstitutions;
 import org.graalvm.compiler.replacements.StringLatin1Substitutions;
 import org.graalvm.compiler.replacements.StringUTF16Substitutions;
 import org.graalvm.compiler.replacements.TargetGraphBuilderPlugins;
@@ -89,12 +93,14 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
                     if (JavaVersionUtil.JAVA_SPEC <= 8) {
                         registerStringPlugins(invocationPlugins, replacements);
                     } else {
-                        registerStringLatin1Plugins(invocationPlugins, replacements);
-                        registerStringUTF16Plugins(invocationPlugins, replacements);
+                        registerStringLatin1Plugins(invocationPlugins, arch, replacements);
+                        registerStringUTF16Plugins(invocationPlugins, arch, replacements);
+                        registerStringCodingPlugins(invocationPlugins, replacements);
                     }
                 }
                 registerMathPlugins(invocationPlugins, useFMAIntrinsics, arch, replacements);
                 registerArraysEqualsPlugins(invocationPlugins, replacements);
+                registerArraysPlugins(invocationPlugins, arch, replacements);
             }
         });
     }
@@ -248,7 +254,7 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
         }
     }
 
-    private static void registerStringLatin1Plugins(InvocationPlugins plugins, Replacements replacements) {
+    private static void registerStringLatin1Plugins(InvocationPlugins plugins, AMD64 arch, Replacements replacements) {
         Registration r = new Registration(plugins, "java.lang.StringLatin1", replacements);
         r.setAllowOverwrite(true);
         r.register2("compareTo", byte[].class, byte[].class, new ArrayCompareToPlugin(JavaKind.Byte, JavaKind.Byte));
@@ -257,9 +263,21 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
         r.registerMethodSubstitution(AMD64StringLatin1Substitutions.class, "inflate", byte[].class, int.class, byte[].class, int.class, int.class);
         r.registerMethodSubstitution(StringLatin1Substitutions.class, "indexOf", byte[].class, int.class, byte[].class, int.class, int.class);
         r.registerMethodSubstitution(StringLatin1Substitutions.class, "indexOf", byte[].class, int.class, int.class);
+        if (AMD64ArrayRegionEqualsIgnoreCaseOp.isSupported(arch)) {
+            r.registerMethodSubstitution(StringLatin1Substitutions.class, "regionMatchesCI", byte[].class, int.class, byte[].class, int.class, int.class);
+        }
+        if (AMD64ArrayHashCodeOp.isSupported(arch)) {
+            r.registerMethodSubstitution(StringLatin1Substitutions.class, "hashCode", byte[].class);
+        }
     }
 
-    private static void registerStringUTF16Plugins(InvocationPlugins plugins, Replacements replacements) {
+    private static void registerStringCodingPlugins(InvocationPlugins plugins, Replacements replacements) {
+        Registration r = new Registration(plugins, "java.lang.StringCoding", replacements);
+        r.setAllowOverwrite(true);
+        r.registerMethodSubstitution(StringCodingSubstitutions.class, "hasNegatives", byte[].class, int.class, int.class);
+    }
+
+    private static void registerStringUTF16Plugins(InvocationPlugins plugins, AMD64 arch, Replacements replacements) {
         Registration r = new Registration(plugins, "java.lang.StringUTF16", replacements);
         r.setAllowOverwrite(true);
         r.register2("compareTo", byte[].class, byte[].class, new ArrayCompareToPlugin(JavaKind.Char, JavaKind.Char));
@@ -269,6 +287,9 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
         r.registerMethodSubstitution(StringUTF16Substitutions.class, "indexOfUnsafe", byte[].class, int.class, byte[].class, int.class, int.class);
         r.registerMethodSubstitution(StringUTF16Substitutions.class, "indexOfLatin1Unsafe", byte[].class, int.class, byte[].class, int.class, int.class);
         r.registerMethodSubstitution(StringUTF16Substitutions.class, "indexOfCharUnsafe", byte[].class, int.class, int.class, int.class);
+        if (AMD64ArrayHashCodeOp.isSupported(arch)) {
+            r.registerMethodSubstitution(StringUTF16Substitutions.class, "hashCode", byte[].class);
+        }
         Registration r2 = new Registration(plugins, StringUTF16Substitutions.class, replacements);
         r2.register2("getChar", byte[].class, int.class, new InvocationPlugin() {
             @Override
@@ -287,4 +308,36 @@ public class AMD64GraphBuilderPlugins implements TargetGraphBuilderPlugins {
         r.registerMethodSubstitution(ArraysSubstitutions.class, "equals", double[].class, double[].class);
     }
 
+    private static void registerArraysPlugins(InvocationPlugins plugins, AMD64 arch, Replacements replacements) {
+        Registration r = new Registration(plugins, Arrays.class, replacements);
+        if (AMD64ArrayHashCodeOp.isSupported(arch)) {
+            r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", byte[].class);
+            r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", char[].class);
+            r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", short[].class);
+            r.registerMethodSubstitution(ArraysSubstitutions.class, "hashCode", int[].class);
+        }
+        if (AMD64ArrayFillOp.isSupported(arch)) {
+            registerArraysFillPlugins(r);
+        }
+    }
+
+    private static void registerArraysFillPlugins(Registration r) {
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", boolean[].class, boolean.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", boolean[].class, int.class, int.class, boolean.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", byte[].class, byte.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", byte[].class, int.class, int.class, byte.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", char[].class, char.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", char[].class, int.class, int.class, char.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", short[].class, short.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", short[].class, int.class, int.class, short.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", int[].class, int.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", int[].class, int.class, int.class, int.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", long[].class, long.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", long[].class, int.class, int.class, long.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", float[].class, float.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", float[].class, int.class, int.class, float.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", double[].class, double.class);
+        r.registerMethodSubstitution(ArraysSubstitutions.class, "fill", double[].class, int.class, int.class, double.class);
+    }
+
 }
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.test;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.replacements.ArraysSubstitutions;
+import org.graalvm.compiler.replacements.StringLatin1Substitutions;
+import org.graalvm.compiler.replacements.StringUTF16Substitutions;
+import org.graalvm.compiler.replacements.nodes.ArrayFillNode;
+import org.graalvm.compiler.replacements.nodes.ArrayHashCodeNode;
+import org.graalvm.compiler.serviceprovider.JavaVersionUtil;
+import org.graalvm.compiler.test.AddExports;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.aarch64.AArch64;
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the {@code Arrays.hashCode} and {@code Arrays.fill} substitutions provided by
+ * {@link ArraysSubstitutions} and the {@code hashCode} substitutions of
+ * {@link StringLatin1Substitutions} and {@link StringUTF16Substitutions}.
+ */
+@AddExports({"java.base/java.lang"})
+public final class ArrayHashCodeFillTest extends MethodSubstitutionTest {
+
+    private static final int MAX_LENGTH = 150;
+
+    @Before
+    public void checkArchitecture() {
+        assumeTrue(getTarget().arch instanceof AMD64 || getTarget().arch instanceof AArch64);
+    }
+
+    private InstalledCode getIntrinsicCode(ResolvedJavaMethod method, Class<?> expectedNode) {
+        StructuredGraph graph = getReplacements().getIntrinsicGraph(method, CompilationIdentifier.INVALID_COMPILATION_ID, getDebugContext(), AllowAssumptions.YES, null);
+        assumeTrue("no intrinsic for " + method.format("%H.%n(%p)") + " on this platform", graph != null);
+        assertInGraph(graph, expectedNode);
+        return getCode(method, graph);
+    }
+
+    /**
+     * Creates an array with values that cover the sign and zero extension of sub-word elements.
+     */
+    private static Object createArray(Class<?> componentType, int length) {
+        Object array = Array.newInstance(componentType, length);
+        for (int i = 0; i < length; i++) {
+            int value = i * 0x9E3779B1 + 0x7F;
+            if (componentType == byte.class) {
+                Array.setByte(array, i, (byte) value);
+            } else if (componentType == char.class) {
+                Array.setChar(array, i, (char) value);
+            } else if (componentType == short.class) {
+                Array.setShort(array, i, (short) value);
+            } else {
+                Array.setInt(array, i, value);
+            }
+        }
+        return array;
+    }
+
+    private void testArraysHashCode(Class<?> componentType) {
+        Class<?> arrayType = Array.newInstance(componentType, 0).getClass();
+        ResolvedJavaMethod method = getResolvedJavaMethod(Arrays.class, "hashCode", arrayType);
+        InstalledCode code = getIntrinsicCode(method, ArrayHashCodeNode.class);
+
+        testHashCode(method, code, (Object) null);
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            testHashCode(method, code, createArray(componentType, length));
+        }
+    }
+
+    private void testHashCode(ResolvedJavaMethod method, InstalledCode code, Object array) {
+        Object expected = invokeSafe(method, null, array);
+        Object actual = executeVarargsSafe(code, array);
+        assertDeepEquals(expected, actual);
+    }
+
+    @Test
+    public void testHashCodeByte() {
+        testArraysHashCode(byte.class);
+    }
+
+    @Test
+    public void testHashCodeChar() {
+        testArraysHashCode(char.class);
+    }
+
+    @Test
+    public void testHashCodeShort() {
+        testArraysHashCode(short.class);
+    }
+
+    @Test
+    public void testHashCodeInt() {
+        testArraysHashCode(int.class);
+    }
+
+    @Test
+    public void testStringLatin1HashCode() throws ClassNotFoundException {
+        assumeTrue(JavaVersionUtil.JAVA_SPEC > 8);
+        ResolvedJavaMethod method = getResolvedJavaMethod(Class.forName("java.lang.StringLatin1"), "hashCode", byte[].class);
+        InstalledCode code = getIntrinsicCode(method, ArrayHashCodeNode.class);
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            testHashCode(method, code, createArray(byte.class, length));
+        }
+    }
+
+    @Test
+    public void testStringUTF16HashCode() throws ClassNotFoundException {
+        assumeTrue(JavaVersionUtil.JAVA_SPEC > 8);
+        ResolvedJavaMethod method = getResolvedJavaMethod(Class.forName("java.lang.StringUTF16"), "hashCode", byte[].class);
+        InstalledCode code = getIntrinsicCode(method, ArrayHashCodeNode.class);
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            testHashCode(method, code, createArray(byte.class, 2 * length));
+        }
+    }
+
+    private void testArraysFill(Class<?> componentType, Object value) {
+        Class<?> arrayType = Array.newInstance(componentType, 0).getClass();
+        ResolvedJavaMethod fill = getResolvedJavaMethod(Arrays.class, "fill", arrayType, componentType);
+        InstalledCode fillCode = getIntrinsicCode(fill, ArrayFillNode.class);
+        ResolvedJavaMethod fillRange = getResolvedJavaMethod(Arrays.class, "fill", arrayType, int.class, int.class, componentType);
+        InstalledCode fillRangeCode = getIntrinsicCode(fillRange, ArrayFillNode.class);
+
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            Object expected = Array.newInstance(componentType, length);
+            Object actual = Array.newInstance(componentType, length);
+            invokeSafe(fill, null, expected, value);
+            executeVarargsSafe(fillCode, actual, value);
+            assertDeepEquals(expected, actual);
+
+            // the elements around the region must not be touched
+            for (int fromIndex = 0; fromIndex < 3 && fromIndex <= length; fromIndex++) {
+                int toIndex = length - (length - fromIndex) / 3;
+                expected = Array.newInstance(componentType, length);
+                actual = Array.newInstance(componentType, length);
+                invokeSafe(fillRange, null, expected, fromIndex, toIndex, value);
+                executeVarargsSafe(fillRangeCode, actual, fromIndex, toIndex, value);
+                assertDeepEquals(expected, actual);
+            }
+        }
+
+        // invalid ranges deoptimize and throw in the interpreter
+        Object array = Array.newInstance(componentType, 4);
+        for (int[] range : new int[][]{{-1, 2}, {3, 2}, {0, 5}}) {
+            Result expected = executeExpected(fillRange, null, array, range[0], range[1], value);
+            Result actual;
+            try {
+                actual = new Result(fillRangeCode.executeVarargs(array, range[0], range[1], value), null);
+            } catch (Throwable t) {
+                actual = new Result(null, t);
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testFillBoolean() {
+        testArraysFill(boolean.class, true);
+    }
+
+    @Test
+    public void testFillByte() {
+        testArraysFill(byte.class, (byte) 0xA5);
+    }
+
+    @Test
+    public void testFillChar() {
+        testArraysFill(char.class, (char) 0xBEEF);
+    }
+
+    @Test
+    public void testFillShort() {
+        testArraysFill(short.class, (short) -2);
+    }
+
+    @Test
+    public void testFillInt() {
+        testArraysFill(int.class, 0x12345678);
+    }
+
+    @Test
+    public void testFillLong() {
+        testArraysFill(long.class, 0x0123456789ABCDEFL);
+    }
+
+    @Test
+    public void testFillFloat() {
+        testArraysFill(float.class, Float.intBitsToFloat(0x7FC12345));
+    }
+
+    @Test
+    public void testFillDouble() {
+        testArraysFill(double.class, -0.0d);
+    }
+}
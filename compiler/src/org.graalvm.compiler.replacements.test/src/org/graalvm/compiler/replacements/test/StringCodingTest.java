@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.test;
+
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import org.graalvm.compiler.core.common.CompilationIdentifier;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.replacements.StringCodingSubstitutions;
+import org.graalvm.compiler.replacements.StringLatin1Substitutions;
+import org.graalvm.compiler.replacements.nodes.ArrayHasNegativesNode;
+import org.graalvm.compiler.replacements.nodes.ArrayRegionEqualsIgnoreCaseNode;
+import org.graalvm.compiler.serviceprovider.JavaVersionUtil;
+import org.graalvm.compiler.test.AddExports;
+import org.junit.Before;
+import org.junit.Test;
+
+import jdk.vm.ci.aarch64.AArch64;
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.code.InstalledCode;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Tests the substitutions for {@code StringCoding.hasNegatives} and
+ * {@code StringLatin1.regionMatchesCI} provided by {@link StringCodingSubstitutions} and
+ * {@link StringLatin1Substitutions}.
+ */
+@AddExports({"java.base/java.lang"})
+public final class StringCodingTest extends MethodSubstitutionTest {
+
+    private static final int MAX_LENGTH = 100;
+
+    @Before
+    public void checkArchitecture() {
+        assumeFalse(JavaVersionUtil.JAVA_SPEC <= 8);
+        assumeTrue(getTarget().arch instanceof AMD64 || getTarget().arch instanceof AArch64);
+    }
+
+    private InstalledCode getIntrinsicCode(ResolvedJavaMethod method, Class<?> expectedNode) {
+        StructuredGraph graph = getReplacements().getIntrinsicGraph(method, CompilationIdentifier.INVALID_COMPILATION_ID, getDebugContext(), AllowAssumptions.YES, null);
+        assumeTrue("no intrinsic for " + method.format("%H.%n(%p)") + " on this platform", graph != null);
+        assertInGraph(graph, expectedNode);
+        return getCode(method, graph);
+    }
+
+    @Test
+    public void testHasNegatives() throws ClassNotFoundException {
+        // StringCoding.hasNegatives was renamed to countPositives in JDK 19
+        assumeTrue(JavaVersionUtil.JAVA_SPEC < 19);
+        ResolvedJavaMethod method = getResolvedJavaMethod(Class.forName("java.lang.StringCoding"), "hasNegatives", byte[].class, int.class, int.class);
+        InstalledCode code = getIntrinsicCode(method, ArrayHasNegativesNode.class);
+
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            byte[] array = new byte[length + 2];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = (byte) ('a' + i % 26);
+            }
+            testHasNegatives(method, code, array, length);
+            for (int negative = 0; negative < array.length; negative++) {
+                array[negative] = (byte) 0x80;
+                testHasNegatives(method, code, array, length);
+                array[negative] = (byte) 0xFF;
+                testHasNegatives(method, code, array, length);
+                array[negative] = (byte) ('a' + negative % 26);
+            }
+        }
+    }
+
+    private void testHasNegatives(ResolvedJavaMethod method, InstalledCode code, byte[] array, int length) {
+        for (int offset = 0; offset <= array.length - length; offset++) {
+            Object expected = invokeSafe(method, null, array, offset, length);
+            Object actual = executeVarargsSafe(code, array, offset, length);
+            assertDeepEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testRegionMatchesCI() throws ClassNotFoundException {
+        ResolvedJavaMethod method = getResolvedJavaMethod(Class.forName("java.lang.StringLatin1"), "regionMatchesCI", byte[].class, int.class, byte[].class, int.class, int.class);
+        InstalledCode code = getIntrinsicCode(method, ArrayRegionEqualsIgnoreCaseNode.class);
+
+        // every Latin-1 character against every other one
+        byte[] value = new byte[1];
+        byte[] other = new byte[1];
+        for (int c1 = 0; c1 < 256; c1++) {
+            for (int c2 = 0; c2 < 256; c2++) {
+                value[0] = (byte) c1;
+                other[0] = (byte) c2;
+                testRegionMatchesCI(method, code, value, 0, other, 0, 1);
+            }
+        }
+
+        // mismatches at every position of regions of different lengths
+        for (int length = 0; length < MAX_LENGTH; length++) {
+            value = new byte[length + 1];
+            other = new byte[length + 1];
+            for (int i = 0; i < value.length; i++) {
+                int c = 0xC0 + i % 0x20;
+                value[i] = (byte) c;
+                other[i] = (byte) (c == 0xD7 || c == 0xDF ? c : c + 0x20);
+            }
+            for (int offset = 0; offset < 2 && offset <= value.length - length; offset++) {
+                testRegionMatchesCI(method, code, value, offset, other, offset, length);
+                testRegionMatchesCI(method, code, value, offset, other, value.length - length, length);
+            }
+            for (int mismatch = 0; mismatch < length; mismatch++) {
+                byte saved = other[mismatch];
+                other[mismatch] = (byte) 0xD7;
+                testRegionMatchesCI(method, code, value, 0, other, 0, length);
+                other[mismatch] = (byte) 0xF7;
+                testRegionMatchesCI(method, code, value, 0, other, 0, length);
+                other[mismatch] = saved;
+            }
+        }
+    }
+
+    private void testRegionMatchesCI(ResolvedJavaMethod method, InstalledCode code, byte[] value, int toffset, byte[] other, int ooffset, int length) {
+        Object expected = invokeSafe(method, null, value, toffset, other, ooffset, length);
+        Object actual = executeVarargsSafe(code, value, toffset, other, ooffset, length);
+        assertDeepEquals(expected, actual);
+    }
+}
@@ -24,11 +24,24 @@
  */
 package org.graalvm.compiler.replacements;
 
+import static org.graalvm.compiler.api.directives.GraalDirectives.SLOWPATH_PROBABILITY;
+import static org.graalvm.compiler.api.directives.GraalDirectives.injectBranchProbability;
+
 import java.util.Arrays;
 
 import org.graalvm.compiler.api.replacements.ClassSubstitution;
+import org.graalvm.compiler.api.replacements.Fold.InjectedParameter;
 import org.graalvm.compiler.api.replacements.MethodSubstitution;
+import org.graalvm.compiler.nodes.DeoptimizeNode;
 import org.graalvm.compiler.replacements.nodes.ArrayEqualsNode;
+import org.graalvm.compiler.replacements.nodes.ArrayFillNode;
+import org.graalvm.compiler.replacements.nodes.ArrayHashCodeNode;
+import org.graalvm.compiler.word.Word;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.MetaAccessProvider;
 
 // JaCoCo Exclude
 
@@ -38,6 +51,25 @@ import org.graalvm.compiler.replacements.nodes.ArrayEqualsNode;
 @ClassSubstitution(Arrays.class)
 public class ArraysSubstitutions {
 
+    /** Marker value for the {@link InjectedParameter} injected parameter. */
+    public static final MetaAccessProvider INJECTED = null;
+
+    private static Word pointer(Object array, int fromIndex, JavaKind kind) {
+        return Word.objectToTrackedPointer(array).add(ReplacementsUtil.getArrayBaseOffset(INJECTED, kind)).add(fromIndex * ReplacementsUtil.arrayIndexScale(INJECTED, kind));
+    }
+
+    /**
+     * The range checks of {@code Arrays.rangeCheck}. The exceptions are thrown by the interpreter
+     * after deoptimization.
+     */
+    private static void checkRange(int arrayLength, int fromIndex, int toIndex) {
+        if (injectBranchProbability(SLOWPATH_PROBABILITY, fromIndex > toIndex) ||
+                        injectBranchProbability(SLOWPATH_PROBABILITY, fromIndex < 0) ||
+                        injectBranchProbability(SLOWPATH_PROBABILITY, toIndex > arrayLength)) {
+            DeoptimizeNode.deopt(DeoptimizationAction.None, DeoptimizationReason.BoundsCheckException);
+        }
+    }
+
     @MethodSubstitution
     public static boolean equals(boolean[] a, boolean[] a2) {
         if (a == a2) {
@@ -125,4 +157,124 @@ public class ArraysSubstitutions {
         }
         return ArrayEqualsNode.equals(a, a2, a.length);
     }
+
+    @MethodSubstitution
+    public static int hashCode(byte[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(pointer(a, 0, JavaKind.Byte), a.length, 1, JavaKind.Byte, JavaKind.Byte);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(char[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(pointer(a, 0, JavaKind.Char), a.length, 1, JavaKind.Char, JavaKind.Char);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(short[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(pointer(a, 0, JavaKind.Short), a.length, 1, JavaKind.Short, JavaKind.Short);
+    }
+
+    @MethodSubstitution
+    public static int hashCode(int[] a) {
+        if (a == null) {
+            return 0;
+        }
+        return ArrayHashCodeNode.hashCode(pointer(a, 0, JavaKind.Int), a.length, 1, JavaKind.Int, JavaKind.Int);
+    }
+
+    @MethodSubstitution
+    public static void fill(boolean[] a, boolean val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Boolean), a.length, val ? 1 : 0, JavaKind.Boolean);
+    }
+
+    @MethodSubstitution
+    public static void fill(boolean[] a, int fromIndex, int toIndex, boolean val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Boolean), toIndex - fromIndex, val ? 1 : 0, JavaKind.Boolean);
+    }
+
+    @MethodSubstitution
+    public static void fill(byte[] a, byte val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Byte), a.length, val, JavaKind.Byte);
+    }
+
+    @MethodSubstitution
+    public static void fill(byte[] a, int fromIndex, int toIndex, byte val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Byte), toIndex - fromIndex, val, JavaKind.Byte);
+    }
+
+    @MethodSubstitution
+    public static void fill(char[] a, char val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Char), a.length, val, JavaKind.Char);
+    }
+
+    @MethodSubstitution
+    public static void fill(char[] a, int fromIndex, int toIndex, char val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Char), toIndex - fromIndex, val, JavaKind.Char);
+    }
+
+    @MethodSubstitution
+    public static void fill(short[] a, short val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Short), a.length, val, JavaKind.Short);
+    }
+
+    @MethodSubstitution
+    public static void fill(short[] a, int fromIndex, int toIndex, short val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Short), toIndex - fromIndex, val, JavaKind.Short);
+    }
+
+    @MethodSubstitution
+    public static void fill(int[] a, int val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Int), a.length, val, JavaKind.Int);
+    }
+
+    @MethodSubstitution
+    public static void fill(int[] a, int fromIndex, int toIndex, int val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Int), toIndex - fromIndex, val, JavaKind.Int);
+    }
+
+    @MethodSubstitution
+    public static void fill(long[] a, long val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Long), a.length, val, JavaKind.Long);
+    }
+
+    @MethodSubstitution
+    public static void fill(long[] a, int fromIndex, int toIndex, long val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Long), toIndex - fromIndex, val, JavaKind.Long);
+    }
+
+    @MethodSubstitution
+    public static void fill(float[] a, float val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Float), a.length, Float.floatToRawIntBits(val), JavaKind.Float);
+    }
+
+    @MethodSubstitution
+    public static void fill(float[] a, int fromIndex, int toIndex, float val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Float), toIndex - fromIndex, Float.floatToRawIntBits(val), JavaKind.Float);
+    }
+
+    @MethodSubstitution
+    public static void fill(double[] a, double val) {
+        ArrayFillNode.fill(pointer(a, 0, JavaKind.Double), a.length, Double.doubleToRawLongBits(val), JavaKind.Double);
+    }
+
+    @MethodSubstitution
+    public static void fill(double[] a, int fromIndex, int toIndex, double val) {
+        checkRange(a.length, fromIndex, toIndex);
+        ArrayFillNode.fill(pointer(a, fromIndex, JavaKind.Double), toIndex - fromIndex, Double.doubleToRawLongBits(val), JavaKind.Double);
+    }
 }
@@ -40,6 +40,7 @@ import java.util.List;
 
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
 import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
 import org.graalvm.compiler.core.common.spi.ForeignCallsProvider;
 import org.graalvm.compiler.core.common.spi.MetaAccessExtensionProvider;
 import org.graalvm.compiler.core.common.type.AbstractPointerStamp;
@@ -1291,4 +1292,9 @@ public abstract class DefaultJavaLoweringProvider implements LoweringProvider {
     public boolean supportsOptimizedFilling(OptionValues options) {
         return false;
     }
+
+    @Override
+    public boolean supportsVectorizedArrayLoop(ElementwiseOperation op, JavaKind elementKind, boolean reduction) {
+        return false;
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements;
+
+import static org.graalvm.compiler.api.directives.GraalDirectives.SLOWPATH_PROBABILITY;
+import static org.graalvm.compiler.api.directives.GraalDirectives.UNLIKELY_PROBABILITY;
+import static org.graalvm.compiler.api.directives.GraalDirectives.injectBranchProbability;
+import static org.graalvm.compiler.replacements.ReplacementsUtil.byteArrayBaseOffset;
+import static org.graalvm.compiler.replacements.ReplacementsUtil.byteArrayIndexScale;
+
+import org.graalvm.compiler.api.replacements.ClassSubstitution;
+import org.graalvm.compiler.api.replacements.Fold.InjectedParameter;
+import org.graalvm.compiler.api.replacements.MethodSubstitution;
+import org.graalvm.compiler.nodes.DeoptimizeNode;
+import org.graalvm.compiler.replacements.nodes.ArrayHasNegativesNode;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.word.Pointer;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.MetaAccessProvider;
+
+// JaCoCo Exclude
+
+/**
+ * Substitutions for {@code java.lang.StringCoding} methods.
+ *
+ * Since JDK 9.
+ */
+@ClassSubstitution(className = "java.lang.StringCoding", optional = true)
+public class StringCodingSubstitutions {
+
+    /** Marker value for the {@link InjectedParameter} injected parameter. */
+    public static final MetaAccessProvider INJECTED = null;
+
+    /**
+     * Intrinsic for {@code java.lang.StringCoding.hasNegatives([BII)Z}.
+     *
+     * <pre>
+     * &#64;IntrinsicCandidate
+     * public static boolean hasNegatives(byte[] ba, int off, int len)
+     * </pre>
+     */
+    @MethodSubstitution
+    public static boolean hasNegatives(byte[] ba, int off, int len) {
+        if (injectBranchProbability(UNLIKELY_PROBABILITY, len <= 0)) {
+            return false;
+        }
+        if (injectBranchProbability(SLOWPATH_PROBABILITY, off < 0) ||
+                        injectBranchProbability(SLOWPATH_PROBABILITY, off > ba.length - len)) {
+            DeoptimizeNode.deopt(DeoptimizationAction.None, DeoptimizationReason.BoundsCheckException);
+        }
+
+        Pointer pointer = Word.objectToTrackedPointer(ba).add(byteArrayBaseOffset(INJECTED)).add(off * byteArrayIndexScale(INJECTED));
+        return ArrayHasNegativesNode.hasNegatives(pointer, len);
+    }
+}
@@ -26,6 +26,7 @@
 package org.graalvm.compiler.replacements;
 
 import static org.graalvm.compiler.api.directives.GraalDirectives.LIKELY_PROBABILITY;
+import static org.graalvm.compiler.api.directives.GraalDirectives.SLOWPATH_PROBABILITY;
 import static org.graalvm.compiler.api.directives.GraalDirectives.UNLIKELY_PROBABILITY;
 import static org.graalvm.compiler.api.directives.GraalDirectives.injectBranchProbability;
 import static org.graalvm.compiler.replacements.ReplacementsUtil.byteArrayBaseOffset;
@@ -34,10 +35,15 @@ import static org.graalvm.compiler.replacements.ReplacementsUtil.byteArrayIndexS
 import org.graalvm.compiler.api.replacements.ClassSubstitution;
 import org.graalvm.compiler.api.replacements.Fold.InjectedParameter;
 import org.graalvm.compiler.api.replacements.MethodSubstitution;
+import org.graalvm.compiler.nodes.DeoptimizeNode;
+import org.graalvm.compiler.replacements.nodes.ArrayHashCodeNode;
+import org.graalvm.compiler.replacements.nodes.ArrayRegionEqualsIgnoreCaseNode;
 import org.graalvm.compiler.replacements.nodes.ArrayRegionEqualsNode;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.word.Pointer;
 
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
 import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.MetaAccessProvider;
 
@@ -119,4 +125,31 @@ public class StringLatin1Substitutions {
             return -1;
         }
     }
+
+    /**
+     * Substitution for {@code java.lang.StringLatin1.regionMatchesCI([BI[BII)Z}. The callers in
+     * {@link String} have already checked the offsets against the string lengths.
+     */
+    @MethodSubstitution
+    public static boolean regionMatchesCI(byte[] value, int toffset, byte[] other, int ooffset, int len) {
+        if (injectBranchProbability(UNLIKELY_PROBABILITY, len <= 0)) {
+            return true;
+        }
+        if (injectBranchProbability(SLOWPATH_PROBABILITY, toffset < 0) ||
+                        injectBranchProbability(SLOWPATH_PROBABILITY, toffset > value.length - len) ||
+                        injectBranchProbability(SLOWPATH_PROBABILITY, ooffset < 0) ||
+                        injectBranchProbability(SLOWPATH_PROBABILITY, ooffset > other.length - len)) {
+            DeoptimizeNode.deopt(DeoptimizationAction.None, DeoptimizationReason.BoundsCheckException);
+        }
+        return ArrayRegionEqualsIgnoreCaseNode.regionEqualsIgnoreCase(byteOffsetPointer(value, toffset), byteOffsetPointer(other, ooffset), len);
+    }
+
+    /**
+     * Substitution for {@code java.lang.StringLatin1.hashCode([B)I}, which backs
+     * {@link String#hashCode()} for Latin-1 strings. The bytes are hashed as unsigned values.
+     */
+    @MethodSubstitution
+    public static int hashCode(byte[] value) {
+        return ArrayHashCodeNode.hashCode(pointer(value), value.length, 0, JavaKind.Byte, JavaKind.Boolean);
+    }
 }
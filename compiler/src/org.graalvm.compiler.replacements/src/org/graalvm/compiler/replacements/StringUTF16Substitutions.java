@@ -36,6 +36,7 @@ import org.graalvm.compiler.api.replacements.Fold.InjectedParameter;
 import org.graalvm.compiler.api.replacements.MethodSubstitution;
 import org.graalvm.compiler.nodes.extended.JavaReadNode;
 import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.replacements.nodes.ArrayHashCodeNode;
 import org.graalvm.compiler.replacements.nodes.ArrayRegionEqualsNode;
 import org.graalvm.compiler.word.Word;
 import org.graalvm.word.Pointer;
@@ -141,4 +142,13 @@ public class StringUTF16Substitutions {
             return -1;
         }
     }
+
+    /**
+     * Substitution for {@code java.lang.StringUTF16.hashCode([B)I}, which backs
+     * {@link String#hashCode()} for UTF-16 strings.
+     */
+    @MethodSubstitution
+    public static int hashCode(byte[] value) {
+        return ArrayHashCodeNode.hashCode(pointer(value), length(value), 0, JavaKind.Byte, JavaKind.Char);
+    }
 }
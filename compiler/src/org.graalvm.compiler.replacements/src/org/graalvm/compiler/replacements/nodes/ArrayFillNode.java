@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.nodes;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.InputType;
+import org.graalvm.compiler.nodeinfo.NodeCycles;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodeinfo.NodeSize;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+
+import jdk.vm.ci.meta.JavaKind;
+
+// JaCoCo Exclude
+
+/**
+ * Stores a value into every element of a primitive array region. Floating point values are passed
+ * as their raw bits and booleans as {@code 0} or {@code 1}.
+ */
+@NodeInfo(allowedUsageTypes = {InputType.Memory}, cycles = NodeCycles.CYCLES_UNKNOWN, size = NodeSize.SIZE_64)
+public final class ArrayFillNode extends FixedWithNextNode implements LIRLowerable, SingleMemoryKill {
+
+    public static final NodeClass<ArrayFillNode> TYPE = NodeClass.create(ArrayFillNode.class);
+
+    /** {@link JavaKind} of the array elements. */
+    protected final JavaKind kind;
+
+    /** Pointer to the first element of the array region. */
+    @Input protected ValueNode array;
+
+    /** Number of elements in the array region. */
+    @Input protected ValueNode length;
+
+    /** Value to store. */
+    @Input protected ValueNode value;
+
+    public ArrayFillNode(ValueNode array, ValueNode length, ValueNode value, JavaKind kind) {
+        super(TYPE, StampFactory.forVoid());
+        this.kind = kind;
+        this.array = array;
+        this.length = length;
+        this.value = value;
+    }
+
+    @NodeIntrinsic
+    public static native void fill(Pointer array, int length, int value, @ConstantNodeParameter JavaKind kind);
+
+    @NodeIntrinsic
+    public static native void fill(Pointer array, int length, long value, @ConstantNodeParameter JavaKind kind);
+
+    public ValueNode getArray() {
+        return array;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    public ValueNode getValue() {
+        return value;
+    }
+
+    public JavaKind getKind() {
+        return kind;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        gen.getLIRGeneratorTool().emitArrayFill(kind, gen.operand(array), gen.operand(length), gen.operand(value));
+    }
+
+    @Override
+    public LocationIdentity getKilledLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(kind);
+    }
+}
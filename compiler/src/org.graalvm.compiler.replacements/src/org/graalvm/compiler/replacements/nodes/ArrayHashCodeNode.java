@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.replacements.nodes;
+
+import static org.graalvm.compiler.nodeinfo.InputType.Memory;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.nodeinfo.NodeCycles;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodeinfo.NodeSize;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValueNodeUtil;
+import org.graalvm.compiler.nodes.memory.MemoryAccess;
+import org.graalvm.compiler.nodes.memory.MemoryKill;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+import org.graalvm.word.Pointer;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+// JaCoCo Exclude
+
+/**
+ * Computes the polynomial hash {@code h = 31 * h + a[i]} of an array region, starting with a given
+ * initial value. {@link JavaKind#Boolean} as element kind denotes unsigned bytes, as used by
+ * Latin-1 strings.
+ */
+@NodeInfo(cycles = NodeCycles.CYCLES_UNKNOWN, size = NodeSize.SIZE_128)
+public final class ArrayHashCodeNode extends FixedWithNextNode implements LIRLowerable, MemoryAccess {
+
+    public static final NodeClass<ArrayHashCodeNode> TYPE = NodeClass.create(ArrayHashCodeNode.class);
+
+    /** {@link JavaKind} of the array. */
+    protected final JavaKind arrayKind;
+
+    /** {@link JavaKind} of the hashed elements. */
+    protected final JavaKind elementKind;
+
+    /** Pointer to the first element of the array region. */
+    @Input protected ValueNode array;
+
+    /** Number of elements in the array region. */
+    @Input protected ValueNode length;
+
+    /** Hash value the recurrence starts with. */
+    @Input protected ValueNode initialValue;
+
+    @OptionalInput(Memory) protected MemoryKill lastLocationAccess;
+
+    public ArrayHashCodeNode(ValueNode array, ValueNode length, ValueNode initialValue, JavaKind arrayKind, JavaKind elementKind) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        this.arrayKind = arrayKind;
+        this.elementKind = elementKind;
+        this.array = array;
+        this.length = length;
+        this.initialValue = initialValue;
+    }
+
+    @NodeIntrinsic
+    public static native int hashCode(Pointer array, int length, int initialValue, @ConstantNodeParameter JavaKind arrayKind, @ConstantNodeParameter JavaKind elementKind);
+
+    public ValueNode getArray() {
+        return array;
+    }
+
+    public ValueNode getLength() {
+        return length;
+    }
+
+    public ValueNode getInitialValue() {
+        return initialValue;
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value result = gen.getLIRGeneratorTool().emitArrayHashCode(elementKind, gen.operand(array), gen.operand(length), gen.operand(initialValue));
+        gen.setResult(this, result);
+    }
+
+    @Override
+    public LocationIdentity getLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(arrayKind);
+    }
+
+    @Override
+    public MemoryKill getLastLocationAccess() {
+        return lastLocationAccess;
+    }
+
+    @Override
+    public void setLastLocationAccess(MemoryKill lla) {
+        updateUsages(ValueNodeUtil.asNode(lastLocationAccess), ValueNodeUtil.asNode(lla));
+        lastLocationAccess = lla;
+    }
+}
@@ -101,6 +101,7 @@ import org.graalvm.compiler.truffle.compiler.phases.InstrumentPhase;
 import org.graalvm.compiler.truffle.compiler.phases.InstrumentTruffleBoundariesPhase;
 import org.graalvm.compiler.truffle.compiler.phases.VerifyFrameDoesNotEscapePhase;
 import org.graalvm.compiler.truffle.compiler.phases.inlining.AgnosticInliningPhase;
+import org.graalvm.compiler.truffle.compiler.phases.inlining.CancelledCompilationCache;
 import org.graalvm.compiler.truffle.compiler.substitutions.GraphBuilderInvocationPluginProvider;
 import org.graalvm.compiler.truffle.compiler.substitutions.KnownTruffleTypes;
 import org.graalvm.compiler.truffle.compiler.substitutions.TruffleDecodingPlugins;
@@ -164,6 +165,8 @@ public abstract class PartialEvaluator {
 
     protected final TruffleConstantFieldProvider compilationLocalConstantProvider;
 
+    private final CancelledCompilationCache cancelledCompilationCache = new CancelledCompilationCache();
+
     public PartialEvaluator(TruffleCompilerConfiguration config, GraphBuilderConfiguration configForRoot, KnownTruffleTypes knownFields) {
         this.config = config;
         this.providers = config.lastTier().providers();
@@ -203,6 +206,13 @@ public abstract class PartialEvaluator {
         return EconomicMap.create();
     }
 
+    /**
+     * Gets the cache of partially evaluated callee graphs retained across cancelled compilations.
+     */
+    public CancelledCompilationCache getCancelledCompilationCache() {
+        return cancelledCompilationCache;
+    }
+
     /**
      * Gets the instrumentation manager associated with this compiler, creating it first if
      * necessary. Each compiler instance has its own instrumentation manager.
@@ -547,6 +547,10 @@ public abstract class TruffleCompilerImpl implements TruffleCompilerBase {
                 listener.onFailure(compilable, t.toString(), bailout != null, permanentBailout, task.tier());
             }
             throw t;
+        } finally {
+            if (!task.isCancelled()) {
+                partialEvaluator.getCancelledCompilationCache().evict(options, compilable);
+            }
         }
     }
 
@@ -79,15 +79,21 @@ public final class AgnosticInliningPhase extends BasePhase<CoreProviders> {
     protected void run(StructuredGraph graph, CoreProviders coreProviders) {
         final InliningPolicy policy = getInliningPolicyProvider(request.isFirstTier()).get(request.options, coreProviders);
         final CallTree tree = new CallTree(partialEvaluator, request, policy);
-        tree.dumpBasic("Before Inline");
-        if (optionsAllowInlining()) {
-            policy.run(tree);
-            tree.dumpBasic("After Inline");
-            tree.collectTargetsToDequeue(request.task.inliningData());
-            tree.updateTracingInfo(request.task.inliningData());
+        try {
+            tree.dumpBasic("Before Inline");
+            if (optionsAllowInlining()) {
+                policy.run(tree);
+                tree.dumpBasic("After Inline");
+                tree.collectTargetsToDequeue(request.task.inliningData());
+                tree.updateTracingInfo(request.task.inliningData());
+            }
+            tree.finalizeGraph();
+            tree.trace();
+        } finally {
+            if (request.task.isCancelled()) {
+                tree.getGraphManager().retainGraphs();
+            }
         }
-        tree.finalizeGraph();
-        tree.trace();
     }
 
     private boolean optionsAllowInlining() {
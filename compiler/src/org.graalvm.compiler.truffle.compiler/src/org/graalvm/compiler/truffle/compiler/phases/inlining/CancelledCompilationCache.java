@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.compiler.phases.inlining;
+
+import static jdk.vm.ci.services.Services.IS_IN_NATIVE_IMAGE;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.truffle.common.CompilableTruffleAST;
+import org.graalvm.compiler.truffle.options.PolyglotCompilerOptions;
+import org.graalvm.options.OptionValues;
+
+import jdk.vm.ci.meta.JavaConstant;
+
+/**
+ * Retains the partially evaluated callee graphs of a compilation so that they can be reused if the
+ * compilation gets cancelled and the call target is compiled again. The graphs of a compilation
+ * are dropped as soon as it completes without being cancelled.
+ *
+ * The graphs are keyed by the call target of the compilation root. Call targets belong to a single
+ * engine, so retained graphs are never shared between engines. The graphs are only handed out if
+ * the root was not rewritten in the meantime, i.e., its node rewriting assumption is the same, and
+ * each graph is only reused if the Truffle assumptions it was partially evaluated under are still
+ * valid.
+ *
+ * The cache is bounded by {@link PolyglotCompilerOptions#CancelledCompilationCacheCapacity} call
+ * targets, evicting the least recently cancelled compilation first. It is only supported on the
+ * HotSpot (non-libgraal) Truffle runtime: in libgraal, the compilable and the object constants of a
+ * graph are handles that are only valid within the compilation that created them.
+ */
+public final class CancelledCompilationCache {
+
+    private final Map<CompilableTruffleAST, Retained> retained = new LinkedHashMap<>();
+    private final AtomicLong reusedGraphs = new AtomicLong();
+
+    private static boolean isEnabled(OptionValues options) {
+        return !IS_IN_NATIVE_IMAGE && options.get(PolyglotCompilerOptions.CancelledCompilationCacheCapacity) > 0;
+    }
+
+    /**
+     * Drops the graphs retained for {@code compilable}. Called when a compilation of
+     * {@code compilable} completes without being cancelled.
+     */
+    public void evict(OptionValues options, CompilableTruffleAST compilable) {
+        if (!isEnabled(options)) {
+            return;
+        }
+        synchronized (retained) {
+            retained.remove(compilable);
+        }
+    }
+
+    /**
+     * Returns the number of retained graphs that were reused by a compilation.
+     */
+    public long getReusedGraphCount() {
+        return reusedGraphs.get();
+    }
+
+    void put(OptionValues options, CompilableTruffleAST compilable, boolean firstTier, EconomicMap<CompilableTruffleAST, GraphManager.Entry> entries) {
+        if (!isEnabled(options) || entries.isEmpty()) {
+            return;
+        }
+        int capacity = options.get(PolyglotCompilerOptions.CancelledCompilationCacheCapacity);
+        Retained entry = new Retained(firstTier, compilable.getNodeRewritingAssumptionConstant(), entries);
+        synchronized (retained) {
+            retained.remove(compilable);
+            retained.put(compilable, entry);
+            Iterator<CompilableTruffleAST> eldest = retained.keySet().iterator();
+            while (retained.size() > capacity) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the graphs retained for {@code compilable} by a previous compilation in
+     * the same tier, or {@code null} if there are none or {@code compilable} was rewritten since.
+     */
+    EconomicMap<CompilableTruffleAST, GraphManager.Entry> take(OptionValues options, CompilableTruffleAST compilable, boolean firstTier) {
+        if (!isEnabled(options)) {
+            return null;
+        }
+        Retained entry;
+        synchronized (retained) {
+            entry = retained.remove(compilable);
+        }
+        if (entry == null || entry.firstTier != firstTier || !entry.nodeRewritingAssumption.equals(compilable.getNodeRewritingAssumptionConstant())) {
+            return null;
+        }
+        return entry.entries;
+    }
+
+    void graphReused() {
+        reusedGraphs.incrementAndGet();
+    }
+
+    private static final class Retained {
+        final boolean firstTier;
+        final JavaConstant nodeRewritingAssumption;
+        final EconomicMap<CompilableTruffleAST, GraphManager.Entry> entries;
+
+        Retained(boolean firstTier, JavaConstant nodeRewritingAssumption, EconomicMap<CompilableTruffleAST, GraphManager.Entry> entries) {
+            this.firstTier = firstTier;
+            this.nodeRewritingAssumption = nodeRewritingAssumption;
+            this.entries = entries;
+        }
+    }
+}
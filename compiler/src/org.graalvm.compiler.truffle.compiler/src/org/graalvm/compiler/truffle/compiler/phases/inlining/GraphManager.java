@@ -24,14 +24,17 @@
  */
 package org.graalvm.compiler.truffle.compiler.phases.inlining;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.graalvm.collections.EconomicMap;
 import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.nodes.EncodedGraph;
 import org.graalvm.compiler.nodes.Invoke;
 import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.StaticDeoptimizingNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
 import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
@@ -43,7 +46,11 @@ import org.graalvm.compiler.truffle.compiler.PEAgnosticInlineInvokePlugin;
 import org.graalvm.compiler.truffle.compiler.PartialEvaluator;
 import org.graalvm.compiler.truffle.compiler.nodes.TruffleAssumption;
 
+import jdk.vm.ci.meta.Assumptions;
+import jdk.vm.ci.meta.ConstantReflectionProvider;
+import jdk.vm.ci.meta.ResolvedJavaField;
 import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
 
 final class GraphManager {
 
@@ -52,6 +59,12 @@ final class GraphManager {
     private final EconomicMap<ResolvedJavaMethod, EncodedGraph> graphCacheForInlining;
     private final EconomicMap<CompilableTruffleAST, GraphManager.Entry> irCache = EconomicMap.create();
     private final PartialEvaluator.Request rootRequest;
+    /**
+     * Graphs retained by a cancelled compilation of the same root, taken lazily on the first
+     * {@link #pe} call.
+     */
+    private EconomicMap<CompilableTruffleAST, GraphManager.Entry> retainedIrCache;
+    private boolean retainedIrCacheTaken;
 
     GraphManager(PartialEvaluator partialEvaluator, PartialEvaluator.Request rootRequest) {
         this.partialEvaluator = partialEvaluator;
@@ -62,17 +75,74 @@ final class GraphManager {
     Entry pe(CompilableTruffleAST truffleAST) {
         Entry entry = irCache.get(truffleAST);
         if (entry == null) {
-            final PEAgnosticInlineInvokePlugin plugin = newPlugin();
-            final PartialEvaluator.Request request = newRequest(truffleAST, false);
-            request.graph.getAssumptions().record(new TruffleAssumption(truffleAST.getNodeRewritingAssumptionConstant()));
-            partialEvaluator.doGraphPE(request, plugin, graphCacheForInlining);
-            partialEvaluator.truffleTier(request);
-            entry = new Entry(request.graph, plugin);
+            entry = copyRetained(truffleAST);
+            if (entry == null) {
+                final PEAgnosticInlineInvokePlugin plugin = newPlugin();
+                final PartialEvaluator.Request request = newRequest(truffleAST, false);
+                request.graph.getAssumptions().record(new TruffleAssumption(truffleAST.getNodeRewritingAssumptionConstant()));
+                partialEvaluator.doGraphPE(request, plugin, graphCacheForInlining);
+                partialEvaluator.truffleTier(request);
+                entry = new Entry(request.graph, plugin);
+            }
             irCache.put(truffleAST, entry);
         }
         return entry;
     }
 
+    private Entry copyRetained(CompilableTruffleAST truffleAST) {
+        if (!retainedIrCacheTaken) {
+            retainedIrCacheTaken = true;
+            retainedIrCache = partialEvaluator.getCancelledCompilationCache().take(rootRequest.options, rootRequest.compilable, rootRequest.isFirstTier());
+        }
+        if (retainedIrCache == null) {
+            return null;
+        }
+        Entry retained = retainedIrCache.removeKey(truffleAST);
+        if (retained == null || !isReusable(retained.graph)) {
+            return null;
+        }
+        partialEvaluator.getCancelledCompilationCache().graphReused();
+        return retained.copy(rootRequest.debug);
+    }
+
+    /**
+     * A retained graph can only be reused if all the Truffle assumptions it was partially evaluated
+     * under are still valid. Speculations are owned by the speculation log of the compilation that
+     * made them, so graphs containing any are not reused either.
+     */
+    private boolean isReusable(StructuredGraph graph) {
+        ConstantReflectionProvider constantReflection = partialEvaluator.getProviders().getConstantReflection();
+        ResolvedJavaField isValidField = partialEvaluator.getKnownTruffleTypes().fieldOptimizedAssumptionIsValid;
+        for (Assumptions.Assumption assumption : graph.getAssumptions()) {
+            if (assumption instanceof TruffleAssumption && !constantReflection.readFieldValue(isValidField, ((TruffleAssumption) assumption).getAssumption()).asBoolean()) {
+                return false;
+            }
+        }
+        for (Node node : graph.getNodes()) {
+            if (node instanceof StaticDeoptimizingNode && !SpeculationLog.NO_SPECULATION.equals(((StaticDeoptimizingNode) node).getSpeculation())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hands the partially evaluated callee graphs of this compilation over to the
+     * {@link CancelledCompilationCache}, together with the retained graphs that were not needed
+     * yet. Only called for cancelled compilations, whose recompilation can reuse the graphs.
+     */
+    void retainGraphs() {
+        if (retainedIrCache != null) {
+            for (CompilableTruffleAST truffleAST : retainedIrCache.getKeys()) {
+                if (!irCache.containsKey(truffleAST)) {
+                    irCache.put(truffleAST, retainedIrCache.get(truffleAST));
+                }
+            }
+            retainedIrCache = null;
+        }
+        partialEvaluator.getCancelledCompilationCache().put(rootRequest.options, rootRequest.compilable, rootRequest.isFirstTier(), irCache);
+    }
+
     private PartialEvaluator.Request newRequest(CompilableTruffleAST truffleAST, boolean finalize) {
         return partialEvaluator.new Request(
                         rootRequest.options,
@@ -126,6 +196,37 @@ final class GraphManager {
                             graph.getNodes(LoopBeginNode.TYPE).count() == 0 &&
                             graph.getNodeCount() < TRIVIAL_NODE_COUNT_LIMIT;
         }
+
+        private Entry(StructuredGraph graph, EconomicMap<Invoke, TruffleCallNode> invokeToTruffleCallNode, List<Invoke> indirectInvokes, boolean trivial) {
+            this.graph = graph;
+            this.invokeToTruffleCallNode = invokeToTruffleCallNode;
+            this.indirectInvokes = indirectInvokes;
+            this.trivial = trivial;
+        }
+
+        /**
+         * Copies this entry into a compilation using {@code debug}, mapping the invokes to their
+         * duplicates in the copied graph.
+         */
+        Entry copy(DebugContext debug) {
+            final EconomicMap<Invoke, TruffleCallNode> copiedInvokes = EconomicMap.create();
+            final List<Invoke> copiedIndirectInvokes = new ArrayList<>();
+            StructuredGraph copy = graph.copy(graph.name, duplicates -> {
+                for (Invoke original : invokeToTruffleCallNode.getKeys()) {
+                    Invoke replacement = (Invoke) duplicates.get((Node) original);
+                    if (replacement != null) {
+                        copiedInvokes.put(replacement, invokeToTruffleCallNode.get(original));
+                    }
+                }
+                for (Invoke original : indirectInvokes) {
+                    Invoke replacement = (Invoke) duplicates.get((Node) original);
+                    if (replacement != null) {
+                        copiedIndirectInvokes.add(replacement);
+                    }
+                }
+            }, debug, debug.getOptions());
+            return new Entry(copy, copiedInvokes, copiedIndirectInvokes, trivial);
+        }
     }
 
 }
@@ -391,6 +391,9 @@ public final class PolyglotCompilerOptions {
     @Option(help = "Maximum depth for recursive inlining.", category = OptionCategory.EXPERT)
     public static final OptionKey<Integer> InliningRecursionDepth = new OptionKey<>(2);
 
+    @Option(help = "Maximum number of call targets an indirect call site dispatches to through direct calls, making them candidates for splitting and inlining (0 disabled).", category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> IndirectCallCacheLimit = new OptionKey<>(0);
+
     // Splitting
 
     @Option(help = "Enable automatic duplication of compilation profiles (splitting).",
@@ -491,7 +494,13 @@ public final class PolyglotCompilerOptions {
             "On runtimes which doesn't support it the option has no effect.",
             category = OptionCategory.EXPERT)
     public static final OptionKey<Integer> EncodedGraphCachePurgeDelay = new OptionKey<>(10_000);
-    
+
+    @Option(help = "Maximum number of call targets whose partially evaluated callee graphs are retained for reuse when their compilation is cancelled and restarted (0 disabled). " +
+            "The option is only supported on the HotSpot (non-libgraal) Truffle runtime. " +
+            "On runtimes which do not support it the option has no effect.",
+            category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> CancelledCompilationCacheCapacity = new OptionKey<>(0);
+
     @Option(help = "Forces the frame clearing mechanism to be executed, even if Frame.clear() is not used.",
             category = OptionCategory.EXPERT)
     public static final OptionKey<Boolean> ForceFrameLivenessAnalysis = new OptionKey<>(false);
@@ -503,6 +512,14 @@ public final class PolyglotCompilerOptions {
     @Option(help = "Use a traversing compilation queue.", category = OptionCategory.INTERNAL)
     public static final OptionKey<Boolean> TraversingCompilationQueue = new OptionKey<>(true);
 
+    @Option(help = "Use a compilation queue with separate first and last tier lanes per engine. Compiler threads serve the lanes in a round-robin fashion, " +
+            "so that each engine gets a fair share of the compiler threads. Dynamic compilation thresholds are not supported by this queue.", category = OptionCategory.EXPERT)
+    public static final OptionKey<Boolean> EngineFairCompilationQueue = new OptionKey<>(false);
+
+    @Option(help = "Number of compiler threads the engine fair compilation queue keeps available for first tier compilations by not starting more last tier compilations of multi-tier engines. " +
+            "At least one compiler thread is always available for last tier compilations.", category = OptionCategory.EXPERT)
+    public static final OptionKey<Integer> FirstTierReservedCompilerThreads = new OptionKey<>(1);
+
     @Option(help = "Traversing queue uses rate as priority for both tier.", category = OptionCategory.INTERNAL)
     public static final OptionKey<Boolean> TraversingQueueWeightingBothTiers = new OptionKey<>(true);
 
@@ -521,6 +538,22 @@ public final class PolyglotCompilerOptions {
     @Option(help = "The desired maximum compilation queue load. When the load rises above this value, the compilation thresholds are increased. The load is scaled by the number of compiler threads.", category = OptionCategory.INTERNAL)
     public static final OptionKey<Integer> DynamicCompilationThresholdsMaxNormalLoad = new OptionKey<>(90);
 
+    // Warmup cache
+
+    @Option(help = "Store the guest language roots compiled by the engine, and their tier, to the given file when the engine is closed. " +
+            "The file can be used with engine.WarmupCacheLoad to shorten the warmup of later engines. Existing entries of the file are preserved.",
+            category = OptionCategory.EXPERT)
+    public static final OptionKey<String> WarmupCacheStore = new OptionKey<>("");
+
+    @Option(help = "Load a file stored with engine.WarmupCacheStore and submit the roots listed in it for compilation as soon as they are executed for the first time.",
+            category = OptionCategory.EXPERT)
+    public static final OptionKey<String> WarmupCacheLoad = new OptionKey<>("");
+
+    @Option(help = "Store the runtime profiles of the cached roots (call and loop counts, argument and return type profiles, splitting decisions) with engine.WarmupCacheStore " +
+            "and restore them when the roots are created by an engine using engine.WarmupCacheLoad.",
+            category = OptionCategory.EXPERT)
+    public static final OptionKey<Boolean> WarmupCacheProfiles = new OptionKey<>(true);
+
     // Language agnostic inlining
 
     @Option(help = "Print detailed information for inlining (i.e. the entire explored call tree).", category = OptionCategory.INTERNAL)
@@ -138,6 +138,32 @@ public class BackgroundCompileQueue {
                 protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
                     return (RunnableFuture<T>) new CompilationTask.ExecutorServiceWrapper((CompilationTask) callable);
                 }
+
+                @Override
+                public void execute(Runnable command) {
+                    if (compilationQueue instanceof EngineFairBlockingQueue) {
+                        /*
+                         * Start missing core threads without a first task, so that the task is
+                         * handed out by the queue, which limits the running last tier tasks.
+                         */
+                        prestartAllCoreThreads();
+                    }
+                    super.execute(command);
+                }
+
+                @Override
+                protected void beforeExecute(Thread t, Runnable r) {
+                    if (compilationQueue instanceof EngineFairBlockingQueue) {
+                        ((EngineFairBlockingQueue) compilationQueue).beforeExecute(r);
+                    }
+                }
+
+                @Override
+                protected void afterExecute(Runnable r, Throwable t) {
+                    if (compilationQueue instanceof EngineFairBlockingQueue) {
+                        ((EngineFairBlockingQueue) compilationQueue).afterExecute(r);
+                    }
+                }
             };
 
             if (compilerIdleDelay > 0) {
@@ -152,7 +178,10 @@ public class BackgroundCompileQueue {
     }
 
     private BlockingQueue<Runnable> createQueue(OptimizedCallTarget callTarget, int threads) {
-        if (callTarget.getOptionValue(PolyglotCompilerOptions.TraversingCompilationQueue)) {
+        if (callTarget.getOptionValue(PolyglotCompilerOptions.EngineFairCompilationQueue)) {
+            int reserved = Math.max(0, Math.min(callTarget.getOptionValue(PolyglotCompilerOptions.FirstTierReservedCompilerThreads), threads - 1));
+            return new EngineFairBlockingQueue(threads - reserved);
+        } else if (callTarget.getOptionValue(PolyglotCompilerOptions.TraversingCompilationQueue)) {
             if (callTarget.getOptionValue(PolyglotCompilerOptions.DynamicCompilationThresholds) && callTarget.getOptionValue(PolyglotCompilerOptions.BackgroundCompilation)) {
                 double minScale = callTarget.getOptionValue(PolyglotCompilerOptions.DynamicCompilationThresholdsMinScale);
                 int minNormalLoad = callTarget.getOptionValue(PolyglotCompilerOptions.DynamicCompilationThresholdsMinNormalLoad);
@@ -230,6 +259,16 @@ public class BackgroundCompileQueue {
         return Collections.unmodifiableCollection(queuedTargets);
     }
 
+    /**
+     * Called after the queued compilations of {@code engine} were cancelled.
+     */
+    public void flush(EngineData engine) {
+        BlockingQueue<Runnable> queue = this.compilationQueue;
+        if (queue instanceof EngineFairBlockingQueue) {
+            ((EngineFairBlockingQueue) queue).flush(engine);
+        }
+    }
+
     public void shutdownAndAwaitTermination(long timeout) {
         final ExecutorService threadPool;
         synchronized (this) {
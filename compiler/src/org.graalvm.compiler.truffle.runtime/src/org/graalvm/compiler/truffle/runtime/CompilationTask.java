@@ -63,6 +63,8 @@ public final class CompilationTask implements TruffleCompilationTask, Callable<V
     private volatile Future<?> future;
     private volatile boolean cancelled;
     private volatile boolean started;
+    private final long queuedTime;
+    private volatile long startedTime;
     // Traversing queue related
     private int lastCount;
     private long lastTime;
@@ -78,6 +80,7 @@ public final class CompilationTask implements TruffleCompilationTask, Callable<V
         OptimizedCallTarget target = targetRef.get();
         lastCount = target != null ? target.getCallAndLoopCount() : Integer.MIN_VALUE;
         lastTime = System.nanoTime();
+        queuedTime = lastTime;
         lastWeight = target != null ? target.getCallAndLoopCount() : -1;
         engineData = target != null ? target.engine : null;
 
@@ -136,14 +139,32 @@ public final class CompilationTask implements TruffleCompilationTask, Callable<V
             return false;
         }
         started = true;
+        startedTime = System.nanoTime();
         return true;
     }
 
+    /**
+     * Returns the time in nanoseconds this task waited in the compilation queue before it was
+     * started, or {@code 0} if it was not started yet.
+     */
+    public long getQueueTime() {
+        long time = startedTime;
+        return time == 0L ? 0L : time - queuedTime;
+    }
+
     @Override
     public boolean isCancelled() {
         return cancelled;
     }
 
+    boolean isInitialization() {
+        return priority.tier == BackgroundCompileQueue.Priority.Tier.INITIALIZATION;
+    }
+
+    EngineData getEngineData() {
+        return engineData;
+    }
+
     @Override
     public boolean isLastTier() {
         return priority.tier == BackgroundCompileQueue.Priority.Tier.LAST;
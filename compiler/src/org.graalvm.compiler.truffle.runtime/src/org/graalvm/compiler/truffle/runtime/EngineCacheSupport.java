@@ -45,6 +45,18 @@ public interface EngineCacheSupport extends GraalRuntimeServiceProvider {
 
     Object tryLoadingCachedEngine(OptionValues options, Function<String, TruffleLogger> loggerFactory);
 
+    /**
+     * Called when a call target that is not a split of another call target is created.
+     */
+    default void onCallTargetCreated(OptimizedCallTarget target) {
+    }
+
+    /**
+     * Called when {@code target} is executed for the first time.
+     */
+    default void onCallTargetInitialized(OptimizedCallTarget target) {
+    }
+
     final class Disabled implements EngineCacheSupport {
 
         @Override
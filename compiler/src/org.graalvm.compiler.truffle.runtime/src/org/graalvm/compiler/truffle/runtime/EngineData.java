@@ -38,6 +38,7 @@ import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.Compi
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.CompileOnly;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.FirstTierCompilationThreshold;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.FirstTierMinInvokeThreshold;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.IndirectCallCacheLimit;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.Inlining;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.LastTierCompilationThreshold;
 import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.MinInvokeThreshold;
@@ -118,6 +119,7 @@ public final class EngineData {
 
     // inlining options
     @CompilationFinal public boolean inlining;
+    @CompilationFinal public int indirectCallCacheLimit;
 
     // compilation options
     @CompilationFinal public boolean compilation;
@@ -255,6 +257,7 @@ public final class EngineData {
 
         // inlining options
         this.inlining = options.get(Inlining) && options.get(Mode) != EngineModeEnum.LATENCY;
+        this.indirectCallCacheLimit = options.get(IndirectCallCacheLimit);
 
         // compilation options
         this.compilation = options.get(Compilation);
@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compilation queue with a first tier and a last tier lane per {@link EngineData engine}, used
+ * instead of the {@link TraversingBlockingQueue} when
+ * {@link org.graalvm.compiler.truffle.options.PolyglotCompilerOptions#EngineFairCompilationQueue}
+ * is enabled.
+ *
+ * A compiler thread first looks for initialization tasks, then for first tier tasks and only then
+ * for last tier tasks. Within one tier the lanes are visited in a round-robin fashion, starting at a
+ * different lane for each request, so that each engine gets a fair share of the compiler threads.
+ * Within a lane the task is picked as in the {@link TraversingBlockingQueue}. Each lane is guarded
+ * by its own lock, so compiler threads and interpreter threads only contend when they access the
+ * lane of the same engine.
+ *
+ * At most {@code maxRunningLastTier} last tier compilations of multi-tier engines are handed out at
+ * the same time, so that the remaining compiler threads are available for first tier compilations
+ * even if long last tier compilations are running. This only holds for tasks that are taken from
+ * the queue, so the executor must not hand tasks directly to new threads. It must also report
+ * started and finished tasks with {@link #beforeExecute(Runnable)} and
+ * {@link #afterExecute(Runnable)}.
+ */
+final class EngineFairBlockingQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final Lane[] NO_LANES = new Lane[0];
+
+    private final int maxRunningLastTier;
+
+    /**
+     * Initialization tasks and tasks whose call target was already collected.
+     */
+    private final Lane sharedLane = new Lane(null);
+    private final Map<EngineData, Lane> lanes = new ConcurrentHashMap<>();
+    private volatile Lane[] laneArray = NO_LANES;
+    private final Object laneLock = new Object();
+    private final AtomicInteger nextLane = new AtomicInteger();
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final Set<Runnable> runningLastTier = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger runningLastTierCount = new AtomicInteger();
+
+    /**
+     * Incremented whenever a task is added or a last tier compilation finishes, i.e., whenever a
+     * waiting compiler thread may find a task it can take.
+     */
+    private final AtomicInteger version = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Object signal = new Object();
+
+    EngineFairBlockingQueue(int maxRunningLastTier) {
+        this.maxRunningLastTier = maxRunningLastTier;
+    }
+
+    private static CompilationTask task(Runnable entry) {
+        return ((CompilationTask.ExecutorServiceWrapper) entry).getCompileTask();
+    }
+
+    private final class Lane {
+
+        final EngineData engine;
+        final ArrayDeque<Runnable> firstTier = new ArrayDeque<>();
+        final ArrayDeque<Runnable> lastTier = new ArrayDeque<>();
+        /**
+         * The engine of this lane was flushed, the lane is removed once it is empty.
+         */
+        boolean flushed;
+        boolean removed;
+
+        Lane(EngineData engine) {
+            this.engine = engine;
+        }
+
+        boolean restrictsLastTier() {
+            return engine != null && engine.multiTier;
+        }
+
+        synchronized boolean add(Runnable entry, boolean isLastTier) {
+            if (removed) {
+                return false;
+            }
+            (isLastTier ? lastTier : firstTier).add(entry);
+            return true;
+        }
+
+        synchronized Runnable poll(boolean isLastTier) {
+            ArrayDeque<Runnable> entries = isLastTier ? lastTier : firstTier;
+            Runnable max = null;
+            if (!entries.isEmpty()) {
+                long time = System.nanoTime();
+                Iterator<Runnable> it = entries.iterator();
+                while (it.hasNext()) {
+                    Runnable entry = it.next();
+                    CompilationTask task = task(entry);
+                    // updateWeight returns false only if the task's target does not exist
+                    if (task.isCancelled() || !task.updateWeight(time)) {
+                        it.remove();
+                        size.decrementAndGet();
+                        continue;
+                    }
+                    if (max == null || task.isHigherPriorityThan(task(max))) {
+                        max = entry;
+                    }
+                }
+                if (max != null) {
+                    entries.remove(max);
+                    size.decrementAndGet();
+                }
+            }
+            removeIfFlushed();
+            return max;
+        }
+
+        synchronized boolean remove(Object entry) {
+            if (firstTier.remove(entry) || lastTier.remove(entry)) {
+                size.decrementAndGet();
+                removeIfFlushed();
+                return true;
+            }
+            return false;
+        }
+
+        synchronized int drainTo(Collection<? super Runnable> c, int maxElements) {
+            int count = 0;
+            while (count < maxElements && !firstTier.isEmpty()) {
+                c.add(firstTier.poll());
+                count++;
+            }
+            while (count < maxElements && !lastTier.isEmpty()) {
+                c.add(lastTier.poll());
+                count++;
+            }
+            size.addAndGet(-count);
+            removeIfFlushed();
+            return count;
+        }
+
+        synchronized void addAllTo(List<Runnable> list) {
+            list.addAll(firstTier);
+            list.addAll(lastTier);
+        }
+
+        synchronized void flush() {
+            flushed = true;
+            removeIfFlushed();
+        }
+
+        private void removeIfFlushed() {
+            assert Thread.holdsLock(this);
+            if (flushed && !removed && engine != null && firstTier.isEmpty() && lastTier.isEmpty()) {
+                removed = true;
+                removeLane(this);
+            }
+        }
+    }
+
+    private Lane getLane(CompilationTask task) {
+        EngineData engine = task.isInitialization() ? null : task.getEngineData();
+        if (engine == null) {
+            return sharedLane;
+        }
+        Lane lane = lanes.get(engine);
+        if (lane == null) {
+            synchronized (laneLock) {
+                lane = lanes.get(engine);
+                if (lane == null) {
+                    lane = new Lane(engine);
+                    lanes.put(engine, lane);
+                    Lane[] newLanes = Arrays.copyOf(laneArray, laneArray.length + 1);
+                    newLanes[newLanes.length - 1] = lane;
+                    laneArray = newLanes;
+                }
+            }
+        }
+        return lane;
+    }
+
+    private void removeLane(Lane lane) {
+        synchronized (laneLock) {
+            lanes.remove(lane.engine, lane);
+            List<Lane> newLanes = new ArrayList<>(Arrays.asList(laneArray));
+            newLanes.remove(lane);
+            laneArray = newLanes.toArray(NO_LANES);
+        }
+    }
+
+    /**
+     * Allows the lane of {@code engine} to be dropped once it is empty.
+     */
+    void flush(EngineData engine) {
+        Lane lane = lanes.get(engine);
+        if (lane != null) {
+            lane.flush();
+        }
+    }
+
+    /**
+     * Must be called when the executor starts running {@code entry}. Counts last tier tasks that
+     * were not taken from this queue, e.g., because the executor started a new thread for them.
+     */
+    void beforeExecute(Runnable entry) {
+        CompilationTask task = task(entry);
+        EngineData engine = task.getEngineData();
+        if (task.isLastTier() && engine != null && engine.multiTier && runningLastTier.add(entry)) {
+            runningLastTierCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Must be called when the executor finished running {@code entry}.
+     */
+    void afterExecute(Runnable entry) {
+        if (runningLastTier.remove(entry)) {
+            runningLastTierCount.decrementAndGet();
+            signalChange();
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable e) {
+        Objects.requireNonNull(e);
+        CompilationTask task = task(e);
+        boolean isLastTier = task.isLastTier();
+        // count the entry first, so that the size never drops below the number of entries
+        size.incrementAndGet();
+        while (!getLane(task).add(e, isLastTier)) {
+            // the lane was removed concurrently, retry with a new lane
+        }
+        signalChange();
+        return true;
+    }
+
+    @Override
+    public void put(Runnable e) {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(Runnable e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    @Override
+    public Runnable poll() {
+        if (size.get() == 0) {
+            return null;
+        }
+        Runnable entry = sharedLane.poll(false);
+        if (entry != null) {
+            return entry;
+        }
+        Lane[] current = laneArray;
+        int start = current.length == 0 ? 0 : Math.floorMod(nextLane.getAndIncrement(), current.length);
+        for (int i = 0; i < current.length; i++) {
+            entry = current[(start + i) % current.length].poll(false);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        for (int i = 0; i < current.length; i++) {
+            Lane lane = current[(start + i) % current.length];
+            if (lane.restrictsLastTier()) {
+                if (!tryAcquireLastTier()) {
+                    continue;
+                }
+                entry = lane.poll(true);
+                if (entry != null) {
+                    runningLastTier.add(entry);
+                    return entry;
+                }
+                runningLastTierCount.decrementAndGet();
+            } else {
+                entry = lane.poll(true);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+        }
+        // last tier tasks of collected call targets are only removed from the shared lane
+        return sharedLane.poll(true);
+    }
+
+    private boolean tryAcquireLastTier() {
+        while (true) {
+            int running = runningLastTierCount.get();
+            if (running >= maxRunningLastTier) {
+                return false;
+            }
+            if (runningLastTierCount.compareAndSet(running, running + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        while (true) {
+            int observed = version.get();
+            Runnable entry = poll();
+            if (entry != null) {
+                return entry;
+            }
+            awaitChange(observed, 0L);
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            int observed = version.get();
+            Runnable entry = poll();
+            if (entry != null) {
+                return entry;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0L) {
+                return null;
+            }
+            awaitChange(observed, remaining);
+        }
+    }
+
+    /**
+     * Waits until the {@link #version} differs from {@code observed}, or until {@code nanos}
+     * elapsed if {@code nanos} is positive.
+     */
+    private void awaitChange(int observed, long nanos) throws InterruptedException {
+        synchronized (signal) {
+            waiting.incrementAndGet();
+            try {
+                if (version.get() == observed) {
+                    if (nanos > 0L) {
+                        TimeUnit.NANOSECONDS.timedWait(signal, nanos);
+                    } else {
+                        signal.wait();
+                    }
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    private void signalChange() {
+        version.incrementAndGet();
+        if (waiting.get() > 0) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public Runnable peek() {
+        Iterator<Runnable> it = iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (sharedLane.remove(o)) {
+            return true;
+        }
+        for (Lane lane : laneArray) {
+            if (lane.remove(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int count = sharedLane.drainTo(c, maxElements);
+        for (Lane lane : laneArray) {
+            count += lane.drainTo(c, maxElements - count);
+        }
+        return count;
+    }
+
+    /**
+     * Returns a weakly consistent iterator over a snapshot of the queued tasks.
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot = new ArrayList<>();
+        sharedLane.addAllTo(snapshot);
+        for (Lane lane : laneArray) {
+            lane.addAllTo(snapshot);
+        }
+        Iterator<Runnable> it = snapshot.iterator();
+        return new Iterator<Runnable>() {
+            private Runnable last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Runnable next() {
+                last = it.next();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                EngineFairBlockingQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+}
@@ -168,6 +168,7 @@ final class GraalRuntimeSupport extends RuntimeSupport {
             for (OptimizedCallTarget target : queue.getQueuedTargets(engine)) {
                 target.cancelCompilation("Polyglot engine was closed.");
             }
+            queue.flush(engine);
         }
     }
 
@@ -629,6 +629,7 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
         CompilerAsserts.neverPartOfCompilation();
         final OptimizedCallTarget target = createClonedCallTarget(rootNode, null);
         TruffleSplittingStrategy.newTargetCreated(target);
+        engineCacheSupport.onCallTargetCreated(target);
         return target;
     }
 
@@ -712,7 +713,8 @@ public abstract class GraalTruffleRuntime implements TruffleRuntime, TruffleComp
                 if (debug == null) {
                     debug = compiler.openDebugContext(optionsMap, compilation);
                 }
-                listeners.onCompilationStarted(callTarget, task.tier());
+                long queueTime = task instanceof CompilationTask ? ((CompilationTask) task).getQueueTime() : 0L;
+                listeners.onCompilationStarted(callTarget, task.tier(), queueTime);
                 compilationStarted = true;
                 try {
                     compiler.doCompile(debug, compilation, optionsMap, task, listeners.isEmpty() ? null : listeners);
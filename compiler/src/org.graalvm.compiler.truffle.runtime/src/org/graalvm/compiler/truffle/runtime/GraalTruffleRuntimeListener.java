@@ -128,6 +128,19 @@ public interface GraalTruffleRuntimeListener {
     default void onCompilationStarted(OptimizedCallTarget target, int tier) {
     }
 
+    /**
+     * Notifies this object when compilation of {@code target} is about to start. The default
+     * implementation delegates to {@link #onCompilationStarted(OptimizedCallTarget, int)}.
+     *
+     * @param target the call target about to be compiled
+     * @param tier Which compilation tier is in question.
+     * @param queueTime the time in nanoseconds the compilation waited in the compilation queue, or
+     *            {@code 0} if the compilation was not queued
+     */
+    default void onCompilationStarted(OptimizedCallTarget target, int tier, long queueTime) {
+        onCompilationStarted(target, tier);
+    }
+
     /**
      * Notifies this object when compilation of {@code target} has completed partial evaluation and
      * is about to perform compilation of the graph produced by partial evaluation.
@@ -78,6 +78,11 @@ final class GraalTruffleRuntimeListenerDispatcher extends CopyOnWriteArrayList<G
         invokeListeners((l) -> l.onCompilationStarted(target, tier));
     }
 
+    @Override
+    public void onCompilationStarted(OptimizedCallTarget target, int tier, long queueTime) {
+        invokeListeners((l) -> l.onCompilationStarted(target, tier, queueTime));
+    }
+
     @Override
     public void onCompilationTruffleTierFinished(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph) {
         invokeListeners((l) -> l.onCompilationTruffleTierFinished(target, inliningDecision, graph));
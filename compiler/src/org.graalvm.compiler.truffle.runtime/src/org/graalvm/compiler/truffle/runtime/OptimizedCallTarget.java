@@ -587,6 +587,23 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         return !isValid() && shouldCompileImpl(this.callCount, this.callAndLoopCount);
     }
 
+    /**
+     * Raises the call and loop counts of this call target to the thresholds of the interpreter and,
+     * if {@code lastTier} is set in a multi-tier engine, of the first tier. The compilation is then
+     * submitted by the regular profiling of the next call, without waiting for the thresholds.
+     */
+    final void seedCompilationThresholds(boolean lastTier) {
+        CompilerAsserts.neverPartOfCompilation();
+        int calls = engine.callThresholdInInterpreter;
+        int callsAndLoops = scaledThreshold(engine.callAndLoopThresholdInInterpreter);
+        if (lastTier && engine.multiTier) {
+            calls = Math.max(calls, engine.callThresholdInFirstTier);
+            callsAndLoops = Math.max(callsAndLoops, scaledThreshold(engine.callAndLoopThresholdInFirstTier));
+        }
+        this.callCount = Math.max(this.callCount, calls);
+        this.callAndLoopCount = Math.max(this.callAndLoopCount, callsAndLoops);
+    }
+
     public final boolean wasExecuted() {
         return this.callCount > 0 || this.callAndLoopCount > 0;
     }
@@ -680,6 +697,7 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
                 this.initializedTimestamp = 0L;
             }
             initialized = true;
+            runtime().getEngineCacheSupport().onCallTargetInitialized(this);
         }
     }
 
@@ -1375,6 +1393,114 @@ public abstract class OptimizedCallTarget implements CompilableTruffleAST, RootC
         return value;
     }
 
+    // endregion
+    // region Profile snapshots
+
+    /**
+     * Snapshot of the runtime profile of a call target that can be restored in a call target of
+     * another engine, possibly in another process. Types are referenced by name, a {@code null}
+     * argument type stands for an unprofiled argument.
+     */
+    public static final class ProfileSnapshot {
+
+        final int callCount;
+        final int callAndLoopCount;
+        final String[] argumentTypes;
+        final boolean argumentsInvalid;
+        final String returnType;
+        final boolean returnInvalid;
+        final boolean needsSplit;
+
+        ProfileSnapshot(int callCount, int callAndLoopCount, String[] argumentTypes, boolean argumentsInvalid, String returnType, boolean returnInvalid, boolean needsSplit) {
+            assert argumentTypes == null || !argumentsInvalid;
+            assert returnType == null || !returnInvalid;
+            this.callCount = callCount;
+            this.callAndLoopCount = callAndLoopCount;
+            this.argumentTypes = argumentTypes;
+            this.argumentsInvalid = argumentsInvalid;
+            this.returnType = returnType;
+            this.returnInvalid = returnInvalid;
+            this.needsSplit = needsSplit;
+        }
+    }
+
+    final ProfileSnapshot createProfileSnapshot() {
+        String[] argumentTypes = null;
+        boolean argumentsInvalid = false;
+        ArgumentsProfile arguments = this.argumentsProfile;
+        if (arguments != null && !callProfiled) {
+            if (arguments.assumption.isValid()) {
+                argumentTypes = new String[arguments.types.length];
+                for (int i = 0; i < argumentTypes.length; i++) {
+                    argumentTypes[i] = arguments.types[i] != null ? arguments.types[i].getName() : null;
+                }
+            } else {
+                argumentsInvalid = true;
+            }
+        }
+        String returnType = null;
+        boolean returnInvalid = false;
+        ReturnProfile ret = this.returnProfile;
+        if (ret != null && !callProfiled) {
+            if (ret.assumption.isValid()) {
+                returnType = ret.type.getName();
+            } else {
+                returnInvalid = true;
+            }
+        }
+        return new ProfileSnapshot(callCount, callAndLoopCount, argumentTypes, argumentsInvalid, returnType, returnInvalid, needsSplit);
+    }
+
+    /**
+     * Seeds the profile of this call target with {@code snapshot}. Must be called before the call
+     * target is executed. Profiled types that cannot be resolved are treated as unprofiled. The
+     * restored argument and return types are speculations guarded by the usual assumptions, so a
+     * stale snapshot only costs a deoptimization.
+     */
+    final void restoreProfileSnapshot(ProfileSnapshot snapshot) {
+        CompilerAsserts.neverPartOfCompilation();
+        if (wasExecuted() || callProfiled) {
+            return;
+        }
+        this.callCount = snapshot.callCount;
+        this.callAndLoopCount = snapshot.callAndLoopCount;
+        if (engine.argumentTypeSpeculation) {
+            if (snapshot.argumentsInvalid) {
+                updateArgumentsProfile(null, ArgumentsProfile.INVALID);
+            } else if (snapshot.argumentTypes != null && snapshot.argumentTypes.length <= MAX_PROFILED_ARGUMENTS) {
+                Class<?>[] types = snapshot.argumentTypes.length == 0 ? ArgumentsProfile.EMPTY_ARGUMENT_TYPES : new Class<?>[snapshot.argumentTypes.length];
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = resolveProfiledType(snapshot.argumentTypes[i]);
+                }
+                updateArgumentsProfile(null, new ArgumentsProfile(types, ArgumentsProfile.ARGUMENT_TYPES_ASSUMPTION_NAME));
+            }
+        }
+        if (engine.returnTypeSpeculation) {
+            if (snapshot.returnInvalid) {
+                RETURN_PROFILE_UPDATER.compareAndSet(this, null, ReturnProfile.INVALID);
+            } else {
+                Class<?> type = resolveProfiledType(snapshot.returnType);
+                if (type != null) {
+                    RETURN_PROFILE_UPDATER.compareAndSet(this, null, new ReturnProfile(type));
+                }
+            }
+        }
+        if (snapshot.needsSplit && engine.splitting) {
+            needsSplit = true;
+        }
+    }
+
+    private Class<?> resolveProfiledType(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Class.forName(name, false, rootNode.getClass().getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
     // endregion
 
     private static Class<?> classOf(Object arg) {
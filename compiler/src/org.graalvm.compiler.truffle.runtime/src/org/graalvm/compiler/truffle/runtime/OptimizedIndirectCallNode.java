@@ -24,20 +24,31 @@
  */
 package org.graalvm.compiler.truffle.runtime;
 
+import java.util.Arrays;
+
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.IndirectCallNode;
 import com.oracle.truffle.api.nodes.NodeInfo;
 import com.oracle.truffle.api.profiles.ValueProfile;
 
 /**
  * A call node with a dynamic {@link CallTarget} that can be optimized by Graal.
+ *
+ * Up to {@link EngineData#indirectCallCacheLimit} call targets seen at this call site are called
+ * through cached {@link OptimizedDirectCallNode direct call nodes}, which makes them candidates for
+ * splitting and inlining. Call targets beyond the limit are called indirectly. A split call target is
+ * cached as its source call target, which the direct call node may split again.
  */
 @NodeInfo
 public final class OptimizedIndirectCallNode extends IndirectCallNode {
 
     @CompilationFinal private ValueProfile exceptionProfile;
+    @Children private OptimizedDirectCallNode[] cachedCalls;
+    @CompilationFinal private boolean megamorphic;
 
     /*
      * Should be instantiated with the runtime.
@@ -45,10 +56,27 @@ public final class OptimizedIndirectCallNode extends IndirectCallNode {
     OptimizedIndirectCallNode() {
     }
 
+    @ExplodeLoop
     @Override
     public Object call(CallTarget target, Object... arguments) {
+        OptimizedCallTarget optimizedTarget = ((OptimizedCallTarget) target);
+        OptimizedDirectCallNode[] calls = this.cachedCalls;
+        if (calls != null) {
+            OptimizedCallTarget cacheKey = cacheKey(optimizedTarget);
+            for (OptimizedDirectCallNode cachedCall : calls) {
+                if (cachedCall.getCallTarget() == cacheKey) {
+                    return cachedCall.call(arguments);
+                }
+            }
+        }
+        if (!megamorphic && optimizedTarget.engine.indirectCallCacheLimit > 0) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            OptimizedDirectCallNode newCall = cacheCall(cacheKey(optimizedTarget));
+            if (newCall != null) {
+                return newCall.call(arguments);
+            }
+        }
         try {
-            OptimizedCallTarget optimizedTarget = ((OptimizedCallTarget) target);
             return optimizedTarget.callIndirect(this, arguments);
         } catch (Throwable t) {
             if (exceptionProfile == null) {
@@ -61,4 +89,50 @@ public final class OptimizedIndirectCallNode extends IndirectCallNode {
         }
     }
 
+    /**
+     * Split call targets cannot be the target of a new direct call node, they are cached as their
+     * source call target instead.
+     */
+    private static OptimizedCallTarget cacheKey(OptimizedCallTarget target) {
+        OptimizedCallTarget source = target.getSourceCallTarget();
+        return source != null ? source : target;
+    }
+
+    /**
+     * Adds a direct call node for {@code target} to the cache, or marks this call site as
+     * megamorphic once the cache is full.
+     *
+     * @return the cached direct call node for {@code target} or {@code null} if {@code target}
+     *         needs to be called indirectly
+     */
+    private OptimizedDirectCallNode cacheCall(OptimizedCallTarget target) {
+        CompilerAsserts.neverPartOfCompilation();
+        OptimizedDirectCallNode newCall = atomic(() -> {
+            OptimizedDirectCallNode[] calls = cachedCalls;
+            int count = calls == null ? 0 : calls.length;
+            for (int i = 0; i < count; i++) {
+                if (calls[i].getCallTarget() == target) {
+                    // cached concurrently by another thread
+                    return calls[i];
+                }
+            }
+            if (megamorphic) {
+                return null;
+            }
+            if (count >= target.engine.indirectCallCacheLimit) {
+                megamorphic = true;
+                return null;
+            }
+            OptimizedDirectCallNode[] newCalls = calls == null ? new OptimizedDirectCallNode[1] : Arrays.copyOf(calls, count + 1);
+            newCalls[count] = (OptimizedDirectCallNode) OptimizedCallTarget.runtime().createDirectCallNode(target);
+            cachedCalls = insert(newCalls);
+            return newCalls[count];
+        });
+        OptimizedDirectCallNode[] calls = cachedCalls;
+        if (calls != null && (megamorphic || calls.length > 1)) {
+            reportPolymorphicSpecialize();
+        }
+        return newCall;
+    }
+
 }
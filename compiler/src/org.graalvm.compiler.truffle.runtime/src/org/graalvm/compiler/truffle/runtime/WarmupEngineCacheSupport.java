@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.runtime;
+
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.WarmupCacheLoad;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.WarmupCacheProfiles;
+import static org.graalvm.compiler.truffle.options.PolyglotCompilerOptions.WarmupCacheStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.CompilationResultInfo;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget.ProfileSnapshot;
+import org.graalvm.compiler.truffle.runtime.OptimizedOSRLoopNode.OSRRootNode;
+import org.graalvm.options.OptionValues;
+
+import com.oracle.truffle.api.TruffleLogger;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.SourceSection;
+
+/**
+ * Engine cache available on all Truffle runtimes. Persisting a whole engine, including its parsed
+ * sources and compiled code, requires a snapshot of the heap and is therefore not supported by this
+ * implementation: {@link #isStoreEnabled(OptionValues)} is always {@code false} and
+ * {@link #tryLoadingCachedEngine(OptionValues, Function)} never returns an engine. Instead, the
+ * guest language roots compiled by an engine are stored to the file given by
+ * {@link org.graalvm.compiler.truffle.options.PolyglotCompilerOptions#WarmupCacheStore} when the
+ * engine is closed. An engine loading that file with
+ * {@link org.graalvm.compiler.truffle.options.PolyglotCompilerOptions#WarmupCacheLoad} submits a
+ * listed root for compilation as soon as it is executed for the first time, without waiting for
+ * the compilation thresholds to be reached. To do so, the call and loop counts of the root are
+ * raised to the thresholds of the recorded tier when its call target is initialized, so that the
+ * compilation is submitted by the regular profiling of the call, outside of the initialization.
+ * <p>
+ * Unless {@link org.graalvm.compiler.truffle.options.PolyglotCompilerOptions#WarmupCacheProfiles}
+ * is disabled, a {@link ProfileSnapshot} of each cached root is stored as well and restored into
+ * the call target of the root when it is created, so that the fresh compilations speculate on the
+ * profiles of the previous run.
+ * <p>
+ * Roots are identified by their name and source section, the latter including a hash of its
+ * characters, so that entries of modified sources are not used. Roots without an available source
+ * section are not cached.
+ */
+public final class WarmupEngineCacheSupport implements EngineCacheSupport {
+
+    private static final String LAST_TIER = "last";
+    private static final String FIRST_TIER = "first";
+    private static final String INVALID_PROFILE = "!";
+    private static final String UNPROFILED_TYPE = "?";
+
+    private volatile boolean listenerInstalled;
+
+    @Override
+    public void onEngineCreated(EngineData e) {
+        initialize(e);
+    }
+
+    @Override
+    public void onEnginePatch(EngineData e) {
+        e.clearEngineLocal(WarmupCache.class);
+        initialize(e);
+    }
+
+    private void initialize(EngineData e) {
+        String loadPath = e.getEngineOptions().get(WarmupCacheLoad);
+        String storePath = e.getEngineOptions().get(WarmupCacheStore);
+        if (loadPath.isEmpty() && storePath.isEmpty()) {
+            return;
+        }
+        WarmupCache cache = new WarmupCache(storePath.isEmpty() ? null : Paths.get(storePath), e.getEngineOptions().get(WarmupCacheProfiles));
+        if (!loadPath.isEmpty()) {
+            Path path = Paths.get(loadPath);
+            if (Files.exists(path)) {
+                try {
+                    cache.load(path);
+                } catch (IOException | IllegalArgumentException ex) {
+                    e.getEngineLogger().log(Level.WARNING, "Failed to load the warmup cache " + path + ": " + ex.getMessage());
+                    cache.loaded.clear();
+                }
+            }
+        }
+        if (cache.store != null) {
+            installListener();
+        }
+        e.putEngineLocal(WarmupCache.class, cache);
+    }
+
+    private void installListener() {
+        if (!listenerInstalled) {
+            synchronized (this) {
+                if (!listenerInstalled) {
+                    GraalTruffleRuntime.getRuntime().addListener(new CompiledRootsListener());
+                    listenerInstalled = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onCallTargetCreated(OptimizedCallTarget target) {
+        CachedRoot root = lookup(target);
+        if (root != null && root.profile != null) {
+            target.restoreProfileSnapshot(root.profile);
+        }
+    }
+
+    @Override
+    public void onCallTargetInitialized(OptimizedCallTarget target) {
+        if (target.isSplit()) {
+            return;
+        }
+        CachedRoot root = lookup(target);
+        if (root != null) {
+            target.seedCompilationThresholds(root.lastTier);
+        }
+    }
+
+    private static CachedRoot lookup(OptimizedCallTarget target) {
+        WarmupCache cache = target.engine.getEngineLocal(WarmupCache.class);
+        if (cache == null || cache.loaded.isEmpty() || target.getRootNode() instanceof OSRRootNode) {
+            return null;
+        }
+        String key = rootKey(target.getRootNode());
+        if (key == null) {
+            return null;
+        }
+        return cache.loaded.get(key);
+    }
+
+    @Override
+    public boolean onEngineClosing(EngineData e) {
+        return false;
+    }
+
+    @Override
+    public void onEngineClosed(EngineData e) {
+        WarmupCache cache = e.getEngineLocal(WarmupCache.class);
+        if (cache == null) {
+            return;
+        }
+        e.clearEngineLocal(WarmupCache.class);
+        if (cache.store != null && !cache.compiled.isEmpty()) {
+            try {
+                cache.store();
+            } catch (IOException | IllegalArgumentException ex) {
+                e.getEngineLogger().log(Level.WARNING, "Failed to store the warmup cache " + cache.store + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isStoreEnabled(OptionValues options) {
+        return false;
+    }
+
+    @Override
+    public Object tryLoadingCachedEngine(OptionValues options, Function<String, TruffleLogger> loggerFactory) {
+        return null;
+    }
+
+    /**
+     * Returns a key identifying {@code rootNode} across engines and processes, or {@code null} if
+     * the root has no available source section.
+     */
+    static String rootKey(RootNode rootNode) {
+        SourceSection section = rootNode.getSourceSection();
+        if (section == null || !section.isAvailable()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(rootNode.getName()).append('@').append(section.getSource().getName());
+        sb.append(':').append(section.getCharIndex()).append('+').append(section.getCharLength());
+        sb.append('#').append(Integer.toHexString(section.getCharacters().toString().hashCode()));
+        return sb.toString();
+    }
+
+    /**
+     * A cached root: the highest tier it was compiled in and, if profiles are cached, the snapshot
+     * of its profile.
+     */
+    static final class CachedRoot {
+
+        final boolean lastTier;
+        final ProfileSnapshot profile;
+
+        CachedRoot(boolean lastTier, ProfileSnapshot profile) {
+            this.lastTier = lastTier;
+            this.profile = profile;
+        }
+
+        /**
+         * Merges two entries of the same root, {@code other} being the more recent one.
+         */
+        CachedRoot merge(CachedRoot other) {
+            return new CachedRoot(lastTier || other.lastTier, other.profile != null ? other.profile : profile);
+        }
+
+        /**
+         * Encodes this entry as the tier followed by the space separated profile properties.
+         */
+        String encode() {
+            StringBuilder sb = new StringBuilder(lastTier ? LAST_TIER : FIRST_TIER);
+            if (profile != null) {
+                sb.append(" calls=").append(profile.callCount);
+                sb.append(" loops=").append(profile.callAndLoopCount);
+                sb.append(" split=").append(profile.needsSplit);
+                if (profile.returnInvalid) {
+                    sb.append(" return=").append(INVALID_PROFILE);
+                } else if (profile.returnType != null) {
+                    sb.append(" return=").append(profile.returnType);
+                }
+                if (profile.argumentsInvalid) {
+                    sb.append(" args=").append(INVALID_PROFILE);
+                } else if (profile.argumentTypes != null) {
+                    sb.append(" args=");
+                    for (int i = 0; i < profile.argumentTypes.length; i++) {
+                        if (i > 0) {
+                            sb.append(',');
+                        }
+                        sb.append(profile.argumentTypes[i] != null ? profile.argumentTypes[i] : UNPROFILED_TYPE);
+                    }
+                }
+            }
+            return sb.toString();
+        }
+
+        static CachedRoot decode(String value) {
+            String[] tokens = value.trim().split(" +");
+            boolean lastTier;
+            if (LAST_TIER.equals(tokens[0])) {
+                lastTier = true;
+            } else if (FIRST_TIER.equals(tokens[0])) {
+                lastTier = false;
+            } else {
+                throw new IllegalArgumentException("Invalid tier '" + tokens[0] + "'.");
+            }
+            if (tokens.length == 1) {
+                return new CachedRoot(lastTier, null);
+            }
+            int callCount = 0;
+            int callAndLoopCount = 0;
+            boolean needsSplit = false;
+            String returnType = null;
+            boolean returnInvalid = false;
+            String[] argumentTypes = null;
+            boolean argumentsInvalid = false;
+            for (int i = 1; i < tokens.length; i++) {
+                int separator = tokens[i].indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid profile property '" + tokens[i] + "'.");
+                }
+                String name = tokens[i].substring(0, separator);
+                String property = tokens[i].substring(separator + 1);
+                switch (name) {
+                    case "calls":
+                        callCount = Integer.parseInt(property);
+                        break;
+                    case "loops":
+                        callAndLoopCount = Integer.parseInt(property);
+                        break;
+                    case "split":
+                        needsSplit = Boolean.parseBoolean(property);
+                        break;
+                    case "return":
+                        returnInvalid = INVALID_PROFILE.equals(property);
+                        returnType = returnInvalid ? null : property;
+                        break;
+                    case "args":
+                        argumentsInvalid = INVALID_PROFILE.equals(property);
+                        if (!argumentsInvalid) {
+                            argumentTypes = property.isEmpty() ? new String[0] : property.split(",", -1);
+                            for (int j = 0; j < argumentTypes.length; j++) {
+                                if (UNPROFILED_TYPE.equals(argumentTypes[j])) {
+                                    argumentTypes[j] = null;
+                                }
+                            }
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown profile property '" + name + "'.");
+                }
+            }
+            return new CachedRoot(lastTier, new ProfileSnapshot(callCount, callAndLoopCount, argumentTypes, argumentsInvalid, returnType, returnInvalid, needsSplit));
+        }
+    }
+
+    private static final class WarmupCache {
+
+        /**
+         * Roots to restore and compile on their first execution.
+         */
+        final Map<String, CachedRoot> loaded = new ConcurrentHashMap<>();
+        final Map<String, CachedRoot> compiled = new ConcurrentHashMap<>();
+        /**
+         * The call targets of the compiled roots, used to take a snapshot of their final profile
+         * when the cache is stored.
+         */
+        final Map<String, WeakReference<OptimizedCallTarget>> compiledTargets = new ConcurrentHashMap<>();
+        final Path store;
+        final boolean profiles;
+
+        WarmupCache(Path store, boolean profiles) {
+            this.store = store;
+            this.profiles = profiles;
+        }
+
+        void load(Path path) throws IOException {
+            Map<String, CachedRoot> entries = read(path);
+            if (!profiles) {
+                entries.replaceAll((key, root) -> new CachedRoot(root.lastTier, null));
+            }
+            loaded.putAll(entries);
+        }
+
+        void onCompilationSuccess(OptimizedCallTarget target, String key, boolean lastTier) {
+            OptimizedCallTarget profiledTarget = target.isSplit() ? target.getSourceCallTarget() : target;
+            ProfileSnapshot profile = profiles ? profiledTarget.createProfileSnapshot() : null;
+            compiled.merge(key, new CachedRoot(lastTier, profile), CachedRoot::merge);
+            if (profiles) {
+                compiledTargets.put(key, new WeakReference<>(profiledTarget));
+            }
+        }
+
+        void store() throws IOException {
+            Map<String, CachedRoot> entries = Files.exists(store) ? read(store) : new HashMap<>();
+            compiled.forEach((key, root) -> {
+                CachedRoot latest = root;
+                WeakReference<OptimizedCallTarget> ref = compiledTargets.get(key);
+                OptimizedCallTarget target = ref != null ? ref.get() : null;
+                if (target != null) {
+                    latest = root.merge(new CachedRoot(root.lastTier, target.createProfileSnapshot()));
+                }
+                entries.merge(key, latest, CachedRoot::merge);
+            });
+            Properties properties = new Properties();
+            entries.forEach((key, root) -> properties.setProperty(key, root.encode()));
+            Path parent = store.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, store.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream out = Files.newOutputStream(tmp)) {
+                    properties.store(out, "Truffle warmup cache");
+                }
+                Files.move(tmp, store, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        private static Map<String, CachedRoot> read(Path path) throws IOException {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+            }
+            Map<String, CachedRoot> entries = new HashMap<>();
+            for (String key : properties.stringPropertyNames()) {
+                try {
+                    entries.put(key, CachedRoot.decode(properties.getProperty(key)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Invalid entry for root " + key + ": " + e.getMessage(), e);
+                }
+            }
+            return entries;
+        }
+    }
+
+    private static final class CompiledRootsListener implements GraalTruffleRuntimeListener {
+
+        @Override
+        public void onCompilationSuccess(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph, CompilationResultInfo result, int tier) {
+            EngineData engine = target.engine;
+            if (engine == null || target.getRootNode() instanceof OSRRootNode) {
+                return;
+            }
+            WarmupCache cache = engine.getEngineLocal(WarmupCache.class);
+            if (cache == null || cache.store == null) {
+                return;
+            }
+            String key = rootKey(target.getRootNode());
+            if (key != null) {
+                cache.onCompilationSuccess(target, key, tier > 1);
+            }
+        }
+    }
+}
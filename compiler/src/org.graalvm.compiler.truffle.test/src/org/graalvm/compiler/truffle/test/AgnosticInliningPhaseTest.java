@@ -54,6 +54,10 @@ public class AgnosticInliningPhaseTest extends PartialEvaluationTest {
     }
 
     protected StructuredGraph runLanguageAgnosticInliningPhase(OptimizedCallTarget callTarget) {
+        return runLanguageAgnosticInliningPhase(callTarget, false);
+    }
+
+    protected StructuredGraph runLanguageAgnosticInliningPhase(OptimizedCallTarget callTarget, boolean cancelled) {
         final PartialEvaluator partialEvaluator = getTruffleCompiler(callTarget).getPartialEvaluator();
         final CompilationIdentifier compilationIdentifier = new CompilationIdentifier() {
             @Override
@@ -63,29 +67,33 @@ public class AgnosticInliningPhaseTest extends PartialEvaluationTest {
         };
         final PartialEvaluator.Request request = partialEvaluator.new Request(callTarget.getOptionValues(), getDebugContext(), callTarget, partialEvaluator.rootForCallTarget(callTarget),
                         compilationIdentifier, getSpeculationLog(),
-                        new TruffleCompilerImpl.CancellableTruffleCompilationTask(new TruffleCompilationTask() {
-                            private TruffleInliningData inlining = new TruffleInlining();
-
-                            @Override
-                            public boolean isCancelled() {
-                                return false;
-                            }
-
-                            @Override
-                            public boolean isLastTier() {
-                                return true;
-                            }
-
-                            @Override
-                            public TruffleInliningData inliningData() {
-                                return inlining;
-                            }
-                        }));
+                        newTask(cancelled));
         final AgnosticInliningPhase agnosticInliningPhase = new AgnosticInliningPhase(partialEvaluator, request);
         agnosticInliningPhase.apply(request.graph, getTruffleCompiler(callTarget).getPartialEvaluator().getProviders());
         return request.graph;
     }
 
+    protected static TruffleCompilerImpl.CancellableTruffleCompilationTask newTask(boolean cancelled) {
+        return new TruffleCompilerImpl.CancellableTruffleCompilationTask(new TruffleCompilationTask() {
+            private TruffleInliningData inlining = new TruffleInlining();
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled;
+            }
+
+            @Override
+            public boolean isLastTier() {
+                return true;
+            }
+
+            @Override
+            public TruffleInliningData inliningData() {
+                return inlining;
+            }
+        });
+    }
+
     protected final OptimizedCallTarget createDummyNode() {
         return (OptimizedCallTarget) runtime.createCallTarget(new RootNode(null) {
             @Override
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.truffle.compiler.TruffleCompilerImpl;
+import org.graalvm.compiler.truffle.compiler.phases.inlining.CancelledCompilationCache;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.polyglot.Context;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
+import com.oracle.truffle.api.nodes.RootNode;
+
+/**
+ * Runs the agnostic inlining phase for a cancelled compilation task, which retains the partially
+ * evaluated callee graphs for the recompilation.
+ */
+public class CancelledCompilationCacheTest extends AgnosticInliningPhaseTest {
+
+    @Override
+    @Before
+    public void before() {
+        setupContext(Context.newBuilder().allowAllAccess(true).allowExperimentalOptions(true).option("engine.LanguageAgnosticInlining", Boolean.TRUE.toString()).option(
+                        "engine.CancelledCompilationCacheCapacity", "4").build());
+    }
+
+    private CancelledCompilationCache getCache(OptimizedCallTarget target) {
+        return getTruffleCompiler(target).getPartialEvaluator().getCancelledCompilationCache();
+    }
+
+    private long reusedGraphsOfRecompilation(OptimizedCallTarget caller) {
+        long before = getCache(caller).getReusedGraphCount();
+        runLanguageAgnosticInliningPhase(caller, true);
+        return getCache(caller).getReusedGraphCount() - before;
+    }
+
+    @SuppressWarnings("try")
+    private void compileAST(OptimizedCallTarget target) {
+        DebugContext debug = new DebugContext.Builder(GraalTruffleRuntime.getRuntime().getGraalOptions(OptionValues.class)).build();
+        try (DebugContext.Scope s = debug.scope("CancelledCompilationCacheTest")) {
+            TruffleCompilerImpl compiler = getTruffleCompiler(target);
+            compiler.compileAST(target.getOptionValues(), debug, target, compiler.createCompilationIdentifier(target), newTask(false), null);
+            Assert.assertTrue(target.isValid());
+        }
+    }
+
+    @Test
+    public void testReuseAfterCancellation() {
+        OptimizedCallTarget callee = (OptimizedCallTarget) runtime.createCallTarget(new ValueRootNode());
+        OptimizedCallTarget caller = (OptimizedCallTarget) runtime.createCallTarget(new CallsInnerNodeTwice(callee));
+        Assert.assertEquals(0, reusedGraphsOfRecompilation(caller));
+        Assert.assertEquals(1, reusedGraphsOfRecompilation(caller));
+    }
+
+    @Test
+    public void testNoReuseAfterCompletedCompilation() {
+        OptimizedCallTarget callee = (OptimizedCallTarget) runtime.createCallTarget(new ValueRootNode());
+        OptimizedCallTarget caller = (OptimizedCallTarget) runtime.createCallTarget(new CallsInnerNodeTwice(callee));
+        runLanguageAgnosticInliningPhase(caller, true);
+        compileAST(caller);
+        Assert.assertEquals(0, reusedGraphsOfRecompilation(caller));
+    }
+
+    @Test
+    public void testNoReuseWithInvalidAssumptions() {
+        ValueRootNode calleeRoot = new ValueRootNode();
+        OptimizedCallTarget callee = (OptimizedCallTarget) runtime.createCallTarget(calleeRoot);
+        OptimizedCallTarget caller = (OptimizedCallTarget) runtime.createCallTarget(new CallsInnerNodeTwice(callee));
+        runLanguageAgnosticInliningPhase(caller, true);
+        // invalidates the node rewriting assumption the callee graph was partially evaluated under
+        calleeRoot.value.replace(new ValueNode(43));
+        Assert.assertEquals(0, reusedGraphsOfRecompilation(caller));
+    }
+
+    private static final class ValueRootNode extends RootNode {
+
+        @Child ValueNode value = new ValueNode(42);
+
+        ValueRootNode() {
+            super(null);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            return value.execute();
+        }
+    }
+
+    private static final class ValueNode extends Node {
+
+        private final int value;
+
+        ValueNode(int value) {
+            this.value = value;
+        }
+
+        int execute() {
+            return value;
+        }
+    }
+}
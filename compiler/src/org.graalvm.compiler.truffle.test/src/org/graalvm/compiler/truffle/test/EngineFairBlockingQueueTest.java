@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.graalvm.compiler.truffle.runtime.BackgroundCompileQueue;
+import org.graalvm.compiler.truffle.runtime.CompilationTask;
+import org.graalvm.compiler.truffle.runtime.EngineData;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.polyglot.Context;
+import org.junit.After;
+import org.junit.Test;
+
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.test.ReflectionUtils;
+
+/**
+ * Tests the engine fair compilation queue. Most tests use the queue directly, without compiler
+ * threads, so that the order in which the tasks are handed out is deterministic.
+ */
+public class EngineFairBlockingQueueTest {
+
+    private static final String RUNTIME_PACKAGE = "org.graalvm.compiler.truffle.runtime.";
+
+    private final List<Context> contexts = new ArrayList<>();
+    // keeps the call targets of the queued tasks alive
+    private final List<OptimizedCallTarget> targets = new ArrayList<>();
+
+    @After
+    public void closeContexts() {
+        for (Context context : contexts) {
+            context.close();
+        }
+        contexts.clear();
+        targets.clear();
+    }
+
+    private OptimizedCallTarget createTarget(boolean multiTier) {
+        return createTarget(Context.newBuilder().allowExperimentalOptions(true).option("engine.MultiTier", String.valueOf(multiTier)));
+    }
+
+    private OptimizedCallTarget createTarget(Context.Builder builder) {
+        Context context = builder.build();
+        contexts.add(context);
+        context.enter();
+        try {
+            OptimizedCallTarget target = (OptimizedCallTarget) GraalTruffleRuntime.getRuntime().createCallTarget(RootNode.createConstantNode(42));
+            targets.add(target);
+            return target;
+        } finally {
+            context.leave();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BlockingQueue<Runnable> createQueue(int maxRunningLastTier) {
+        return (BlockingQueue<Runnable>) ReflectionUtils.newInstance(loadRuntimeClass("EngineFairBlockingQueue"), new Class<?>[]{int.class}, maxRunningLastTier);
+    }
+
+    private static Class<?> loadRuntimeClass(String name) {
+        try {
+            return Class.forName(RUNTIME_PACKAGE + name);
+        } catch (ClassNotFoundException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object createPriority(boolean lastTier) {
+        Class<? extends Enum> tierClass = (Class<? extends Enum>) loadRuntimeClass("BackgroundCompileQueue$Priority$Tier");
+        return ReflectionUtils.newInstance(loadRuntimeClass("BackgroundCompileQueue$Priority"), new Class<?>[]{int.class, tierClass}, 0, Enum.valueOf(tierClass, lastTier ? "LAST" : "FIRST"));
+    }
+
+    private static Runnable createEntry(OptimizedCallTarget target, boolean lastTier) {
+        Class<?> priorityClass = loadRuntimeClass("BackgroundCompileQueue$Priority");
+        CompilationTask task = (CompilationTask) ReflectionUtils.invokeStatic(CompilationTask.class, "createCompilationTask", new Class<?>[]{priorityClass, WeakReference.class, long.class},
+                        createPriority(lastTier), new WeakReference<>(target), 0L);
+        CompilationTask.ExecutorServiceWrapper entry = ReflectionUtils.newInstance(CompilationTask.ExecutorServiceWrapper.class, new Class<?>[]{CompilationTask.class}, task);
+        ReflectionUtils.invoke(task, "setFuture", new Class<?>[]{Future.class}, entry);
+        return entry;
+    }
+
+    /**
+     * Submits a task that runs {@code action} instead of compiling {@code target} to the executor
+     * of {@code compileQueue}.
+     */
+    private static void submit(BackgroundCompileQueue compileQueue, OptimizedCallTarget target, boolean lastTier, Consumer<CompilationTask> action) {
+        CompilationTask task = ReflectionUtils.newInstance(CompilationTask.class, new Class<?>[]{loadRuntimeClass("BackgroundCompileQueue$Priority"), WeakReference.class, Consumer.class, long.class},
+                        createPriority(lastTier), new WeakReference<>(target), action, 0L);
+        ReflectionUtils.invoke(compileQueue, "submitTask", new Class<?>[]{CompilationTask.class}, task);
+    }
+
+    private static EngineData engineOf(Runnable entry) {
+        return (EngineData) ReflectionUtils.invoke(((CompilationTask.ExecutorServiceWrapper) entry).getCompileTask(), "getEngineData", new Class<?>[0]);
+    }
+
+    private static void afterExecute(BlockingQueue<Runnable> queue, Runnable entry) {
+        ReflectionUtils.invoke(queue, "afterExecute", new Class<?>[]{Runnable.class}, entry);
+    }
+
+    private static void flush(BlockingQueue<Runnable> queue, EngineData engine) {
+        ReflectionUtils.invoke(queue, "flush", new Class<?>[]{EngineData.class}, engine);
+    }
+
+    @Test
+    public void testEnginesServedInTurn() {
+        BlockingQueue<Runnable> queue = createQueue(Integer.MAX_VALUE);
+        OptimizedCallTarget busy = createTarget(true);
+        OptimizedCallTarget quiet = createTarget(true);
+        for (int i = 0; i < 3; i++) {
+            queue.offer(createEntry(busy, false));
+        }
+        queue.offer(createEntry(quiet, false));
+
+        Set<EngineData> served = new HashSet<>();
+        served.add(engineOf(queue.poll()));
+        served.add(engineOf(queue.poll()));
+        assertEquals("each engine gets one of the first two compiler threads", 2, served.size());
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void testFirstTierBeforeLastTier() {
+        BlockingQueue<Runnable> queue = createQueue(Integer.MAX_VALUE);
+        Runnable lastTier = createEntry(createTarget(true), true);
+        Runnable firstTier = createEntry(createTarget(true), false);
+        queue.offer(lastTier);
+        queue.offer(firstTier);
+        assertSame(firstTier, queue.poll());
+        assertSame(lastTier, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testReservedFirstTierThreads() {
+        BlockingQueue<Runnable> queue = createQueue(1);
+        OptimizedCallTarget target = createTarget(true);
+        queue.offer(createEntry(target, true));
+        queue.offer(createEntry(target, true));
+
+        Runnable running = queue.poll();
+        assertNotNull(running);
+        assertNull("the remaining compiler threads are reserved for the first tier", queue.poll());
+
+        Runnable firstTier = createEntry(target, false);
+        queue.offer(firstTier);
+        assertSame(firstTier, queue.poll());
+
+        // single tier engines are not restricted
+        Runnable singleTier = createEntry(createTarget(false), true);
+        queue.offer(singleTier);
+        assertSame(singleTier, queue.poll());
+
+        afterExecute(queue, running);
+        Runnable next = queue.poll();
+        assertNotNull(next);
+        assertTrue(next != running);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testReservedFirstTierThreadsInExecutor() throws InterruptedException {
+        OptimizedCallTarget target = createTarget(Context.newBuilder().allowExperimentalOptions(true) //
+                        .option("engine.MultiTier", "true") //
+                        .option("engine.EngineFairCompilationQueue", "true") //
+                        .option("engine.CompilerThreads", "2") //
+                        .option("engine.FirstTierReservedCompilerThreads", "1"));
+        BackgroundCompileQueue compileQueue = new BackgroundCompileQueue(GraalTruffleRuntime.getRuntime());
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runningLastTier = new AtomicInteger();
+        AtomicInteger maxRunningLastTier = new AtomicInteger();
+        Consumer<CompilationTask> lastTierAction = task -> {
+            maxRunningLastTier.accumulateAndGet(runningLastTier.incrementAndGet(), Math::max);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            } finally {
+                runningLastTier.decrementAndGet();
+            }
+        };
+        try {
+            // the executor has no threads yet and starts them for the first tasks
+            submit(compileQueue, target, true, lastTierAction);
+            submit(compileQueue, target, true, lastTierAction);
+            CountDownLatch firstTierDone = new CountDownLatch(1);
+            submit(compileQueue, target, false, task -> firstTierDone.countDown());
+            assertTrue("a compiler thread is reserved for first tier compilations", firstTierDone.await(60, TimeUnit.SECONDS));
+            assertEquals(1, maxRunningLastTier.get());
+        } finally {
+            release.countDown();
+            compileQueue.shutdownAndAwaitTermination(60_000);
+        }
+    }
+
+    @Test
+    public void testCancelledTaskReleasesLastTierThread() {
+        BlockingQueue<Runnable> queue = createQueue(1);
+        OptimizedCallTarget target = createTarget(true);
+
+        // a task cancelled while it is queued is dropped without holding on to the thread
+        Runnable queued = createEntry(target, true);
+        queue.offer(queued);
+        ((CompilationTask.ExecutorServiceWrapper) queued).getCompileTask().cancel();
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+
+        Runnable polled = createEntry(target, true);
+        queue.offer(polled);
+        assertSame(polled, queue.poll());
+
+        // a task cancelled after it was handed out is still reported by the executor
+        ((CompilationTask.ExecutorServiceWrapper) polled).getCompileTask().cancel();
+        polled.run();
+        afterExecute(queue, polled);
+
+        Runnable next = createEntry(target, true);
+        queue.offer(next);
+        assertSame(next, queue.poll());
+    }
+
+    @Test
+    public void testLaneRemovalRacingWithOffer() throws InterruptedException {
+        final int producers = 4;
+        final int tasksPerProducer = 500;
+        BlockingQueue<Runnable> queue = createQueue(Integer.MAX_VALUE);
+        OptimizedCallTarget target = createTarget(true);
+        EngineData engine = engineOf(createEntry(target, false));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            Thread producer = new Thread(() -> {
+                for (int j = 0; j < tasksPerProducer; j++) {
+                    queue.offer(createEntry(target, false));
+                }
+            });
+            threads.add(producer);
+            producer.start();
+        }
+
+        AtomicInteger polled = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (polled.get() < producers * tasksPerProducer && System.nanoTime() < deadline) {
+            // drops the lane whenever it runs empty, while the producers keep adding to it
+            flush(queue, engine);
+            if (queue.poll(1, TimeUnit.MILLISECONDS) != null) {
+                polled.incrementAndGet();
+            }
+        }
+        for (Thread producer : threads) {
+            producer.join();
+        }
+        assertEquals("no task is lost when its lane is removed", producers * tasksPerProducer, polled.get());
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+}
@@ -24,11 +24,19 @@
  */
 package org.graalvm.compiler.truffle.test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.compiler.truffle.common.CompilableTruffleAST;
+import org.graalvm.compiler.truffle.common.TruffleCompilerListener.GraphInfo;
 import org.graalvm.compiler.truffle.options.PolyglotCompilerOptions;
 import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntimeListener;
 import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
 import org.graalvm.compiler.truffle.runtime.OptimizedDirectCallNode;
 import org.graalvm.compiler.truffle.runtime.OptimizedIndirectCallNode;
+import org.graalvm.compiler.truffle.runtime.TruffleInlining;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -330,4 +338,69 @@ public class IndirectCallSiteTest extends TestWithSynchronousCompiling {
             calleeListener.assertValid();
         }
     }
+
+    @Test
+    public void testIndirectCallCache() {
+        setupContext("engine.MultiTier", "false", "engine.IndirectCallCacheLimit", "1");
+        final OptimizedCallTarget cachedCallee = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(0));
+        final OptimizedCallTarget uncachedCallee = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(1));
+        final OptimizedCallTarget indirectCall = (OptimizedCallTarget) runtime.createCallTarget(new IndirectCallTargetFromArgument());
+        final int compilationThreshold = indirectCall.getOptionValue(PolyglotCompilerOptions.SingleTierCompilationThreshold);
+
+        Assert.assertEquals(0, indirectCall.call(cachedCallee));
+        // the first call target is called through a direct call node
+        Assert.assertEquals(1, cachedCallee.getKnownCallSiteCount());
+        Assert.assertEquals(1, indirectCall.call(uncachedCallee));
+        // the cache is full, further call targets are called indirectly
+        Assert.assertEquals(0, uncachedCallee.getKnownCallSiteCount());
+
+        List<CompilableTruffleAST> inlined = new ArrayList<>();
+        GraalTruffleRuntimeListener listener = new GraalTruffleRuntimeListener() {
+            @Override
+            public void onCompilationTruffleTierFinished(OptimizedCallTarget target, TruffleInlining inliningDecision, GraphInfo graph) {
+                if (target == indirectCall) {
+                    inlined.addAll(Arrays.asList(inliningDecision.inlinedTargets()));
+                }
+            }
+        };
+        runtime.addListener(listener);
+        try {
+            for (int i = 0; i < compilationThreshold; i++) {
+                indirectCall.call(cachedCallee);
+            }
+        } finally {
+            runtime.removeListener(listener);
+        }
+        assertCompiled(indirectCall);
+        // the cached call target is inlined into the compiled caller
+        Assert.assertTrue(inlined.contains(cachedCallee));
+        Assert.assertEquals(1, indirectCall.call(uncachedCallee));
+        assertCompiled(indirectCall);
+    }
+
+    @Test
+    public void testIndirectCallCacheWithSplitTarget() {
+        setupContext("engine.MultiTier", "false", "engine.IndirectCallCacheLimit", "1");
+        final OptimizedCallTarget source = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(0));
+        final OptimizedCallTarget split = runtime.createClonedCallTarget(RootNode.createConstantNode(0), source);
+        final OptimizedCallTarget other = (OptimizedCallTarget) runtime.createCallTarget(RootNode.createConstantNode(1));
+        final OptimizedCallTarget indirectCall = (OptimizedCallTarget) runtime.createCallTarget(new IndirectCallTargetFromArgument());
+        final int compilationThreshold = indirectCall.getOptionValue(PolyglotCompilerOptions.SingleTierCompilationThreshold);
+
+        Assert.assertEquals(0, indirectCall.call(split));
+        // a split call target is cached as its source call target
+        Assert.assertEquals(1, source.getKnownCallSiteCount());
+        Assert.assertEquals(0, indirectCall.call(source));
+        Assert.assertEquals(1, source.getKnownCallSiteCount());
+        // the split did not make the call site megamorphic, the cache is full now
+        Assert.assertEquals(1, indirectCall.call(other));
+        Assert.assertEquals(0, other.getKnownCallSiteCount());
+
+        for (int i = 0; i < compilationThreshold; i++) {
+            indirectCall.call(source);
+        }
+        assertCompiled(indirectCall);
+        Assert.assertEquals(0, indirectCall.call(split));
+        assertCompiled(indirectCall);
+    }
 }
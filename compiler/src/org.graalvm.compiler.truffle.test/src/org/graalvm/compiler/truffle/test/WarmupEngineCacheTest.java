@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.truffle.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.graalvm.compiler.truffle.runtime.GraalTruffleRuntime;
+import org.graalvm.compiler.truffle.runtime.OptimizedCallTarget;
+import org.graalvm.polyglot.Context;
+import org.junit.Test;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.api.source.SourceSection;
+import com.oracle.truffle.api.test.polyglot.ProxyLanguage;
+
+public class WarmupEngineCacheTest {
+
+    private static final Source SOURCE = Source.newBuilder(ProxyLanguage.ID, "hot cold", "WarmupSource").build();
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        Path cache = Files.createTempFile("warmup", ".properties");
+        Files.delete(cache);
+        try {
+            storeCache(cache);
+
+            Context context = newContext("engine.WarmupCacheLoad", cache.toString());
+            context.enter();
+            OptimizedCallTarget hot = createCallTarget("hot", SOURCE.createSection(0, 3));
+            OptimizedCallTarget cold = createCallTarget("cold", SOURCE.createSection(4, 4));
+            // the compilation is submitted by the first call, not by the initialization
+            hot.ensureInitialized();
+            assertFalse(hot.isValid());
+            hot.call();
+            cold.call();
+            assertTrue(hot.isValid());
+            assertFalse(cold.isValid());
+            context.leave();
+            context.close();
+        } finally {
+            Files.deleteIfExists(cache);
+        }
+    }
+
+    @Test
+    public void testProfilesRestored() throws IOException {
+        Path cache = Files.createTempFile("warmup", ".properties");
+        Files.delete(cache);
+        try {
+            storeCache(cache);
+
+            Context context = newContext("engine.WarmupCacheLoad", cache.toString());
+            context.enter();
+            OptimizedCallTarget hot = createCallTarget("hot", SOURCE.createSection(0, 3));
+            OptimizedCallTarget cold = createCallTarget("cold", SOURCE.createSection(4, 4));
+            assertTrue(hot.getCallCount() > 0);
+            assertEquals(0, cold.getCallCount());
+            context.leave();
+            context.close();
+
+            context = newContext("engine.WarmupCacheLoad", cache.toString(), "engine.WarmupCacheProfiles", "false");
+            context.enter();
+            hot = createCallTarget("hot", SOURCE.createSection(0, 3));
+            assertEquals(0, hot.getCallCount());
+            context.leave();
+            context.close();
+        } finally {
+            Files.deleteIfExists(cache);
+        }
+    }
+
+    private static void storeCache(Path cache) throws IOException {
+        Context context = newContext("engine.WarmupCacheStore", cache.toString());
+        context.enter();
+        OptimizedCallTarget hot = createCallTarget("hot", SOURCE.createSection(0, 3));
+        OptimizedCallTarget cold = createCallTarget("cold", SOURCE.createSection(4, 4));
+        for (int i = 0; i < 10; i++) {
+            hot.call();
+        }
+        cold.call();
+        assertTrue(hot.isValid());
+        assertFalse(cold.isValid());
+        context.leave();
+        context.close();
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(cache)) {
+            properties.load(in);
+        }
+        assertEquals(1, properties.size());
+    }
+
+    private static Context newContext(String... options) {
+        Context.Builder builder = Context.newBuilder().allowExperimentalOptions(true).option("engine.BackgroundCompilation", "false").option("engine.MultiTier", "false").option(
+                        "engine.SingleTierCompilationThreshold", "3");
+        for (int i = 0; i < options.length; i += 2) {
+            builder.option(options[i], options[i + 1]);
+        }
+        return builder.build();
+    }
+
+    private static OptimizedCallTarget createCallTarget(String name, SourceSection section) {
+        return (OptimizedCallTarget) GraalTruffleRuntime.getRuntime().createCallTarget(new RootNode(null) {
+
+            @Override
+            public Object execute(VirtualFrame frame) {
+                return name;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public SourceSection getSourceSection() {
+                return section;
+            }
+
+            @Override
+            public String toString() {
+                return getName();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.virtual.nodes;
+
+import static org.graalvm.compiler.nodeinfo.InputType.Memory;
+import static org.graalvm.compiler.nodeinfo.NodeCycles.CYCLES_4;
+import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_4;
+
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.lir.VirtualStackSlot;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaConstant;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Reserves a block of memory in the stack frame for the elements of a primitive array that does not
+ * escape the compiled method. The node produces the address of the first element, the array has no
+ * header. The block is reserved in the frame for the entire execution of the method, so the
+ * allocation must not be executed more than once per invocation.
+ */
+@NodeInfo(nameTemplate = "StackArray#{p#elementKind/s}", allowedUsageTypes = Memory, cycles = CYCLES_4, size = SIZE_4)
+public final class StackArrayNode extends FixedWithNextNode implements LIRLowerable, SingleMemoryKill {
+
+    public static final NodeClass<StackArrayNode> TYPE = NodeClass.create(StackArrayNode.class);
+
+    private final JavaKind elementKind;
+    private final JavaKind wordKind;
+    private final int sizeInBytes;
+    private final boolean fillContents;
+
+    public StackArrayNode(JavaKind elementKind, JavaKind wordKind, int sizeInBytes, boolean fillContents) {
+        super(TYPE, StampFactory.forKind(wordKind));
+        assert elementKind.isPrimitive() && sizeInBytes > 0 && sizeInBytes % wordKind.getByteCount() == 0;
+        this.elementKind = elementKind;
+        this.wordKind = wordKind;
+        this.sizeInBytes = sizeInBytes;
+        this.fillContents = fillContents;
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    public int getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    @Override
+    public LocationIdentity getKilledLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        LIRGeneratorTool lirGen = gen.getLIRGeneratorTool();
+        VirtualStackSlot array = lirGen.allocateStackMemory(sizeInBytes, wordKind.getByteCount());
+        Value result = lirGen.emitAddress(array);
+        if (fillContents) {
+            lirGen.emitZeroMemory(result, lirGen.emitJavaConstant(JavaConstant.forIntegerKind(wordKind, sizeInBytes)), true);
+        }
+        gen.setResult(this, result);
+    }
+}
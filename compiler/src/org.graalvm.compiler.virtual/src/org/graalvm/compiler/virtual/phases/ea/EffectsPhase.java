@@ -28,6 +28,7 @@ import static org.graalvm.compiler.phases.common.DeadCodeEliminationPhase.Option
 
 import org.graalvm.collections.EconomicSet;
 import org.graalvm.compiler.core.common.util.CompilationAlarm;
+import org.graalvm.compiler.core.common.util.CompilationBudget;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.graph.Graph.NodeEventScope;
 import org.graalvm.compiler.graph.Node;
@@ -86,8 +87,14 @@ public abstract class EffectsPhase<CoreProvidersT extends CoreProviders> extends
         assert unscheduled || strategy != null;
         boolean changed = false;
         CompilationAlarm compilationAlarm = CompilationAlarm.current();
+        CompilationBudget budget = CompilationBudget.current();
         DebugContext debug = graph.getDebug();
         for (int iteration = 0; iteration < maxIterations && !compilationAlarm.hasExpired(); iteration++) {
+            if (iteration > 0 && budget.isExhausted(graph.getNodeCount())) {
+                // the first iteration always runs, further iterations are optional
+                budget.recordSkipped(getName() + " iterations");
+                break;
+            }
             try (DebugContext.Scope s = debug.scope(debug.areScopesEnabled() ? "iteration " + iteration : null)) {
                 ScheduleResult schedule;
                 ControlFlowGraph cfg;
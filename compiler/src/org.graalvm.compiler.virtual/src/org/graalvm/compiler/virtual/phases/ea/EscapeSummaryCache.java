@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.virtual.phases.ea;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeBitMap;
+import org.graalvm.compiler.graph.NodeStack;
+import org.graalvm.compiler.nodes.AbstractDeoptimizeNode;
+import org.graalvm.compiler.nodes.DeoptimizingGuard;
+import org.graalvm.compiler.nodes.GuardNode;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.PiNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.StructuredGraph.AllowAssumptions;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.ValueProxyNode;
+import org.graalvm.compiler.nodes.VirtualState;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.calc.ObjectEqualsNode;
+import org.graalvm.compiler.nodes.extended.GetClassNode;
+import org.graalvm.compiler.nodes.extended.LoadHubNode;
+import org.graalvm.compiler.nodes.extended.UnboxNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.InstanceOfNode;
+import org.graalvm.compiler.nodes.java.LoadFieldNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.OptimisticOptimizations;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+
+import jdk.vm.ci.code.BailoutException;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Interprocedural escape summaries of methods, used by the {@link PartialEscapeClosure} for
+ * virtual objects that are passed to calls that are not inlined.
+ *
+ * A parameter is {@linkplain EscapeSummary#isLocal(int) local} if the method only reads from the
+ * object passed for it: it is never stored, returned, thrown, locked or passed to another method
+ * in which it is not local, and none of its fields or elements are written. For such a parameter,
+ * the caller may pass a temporary copy of a virtual object and keep the object itself virtual,
+ * since the callee can neither observe the identity of the copy nor make it reachable after the
+ * call.
+ *
+ * Summaries are computed from a graph of the method that is built without profiles, assumptions
+ * or speculation. If this graph contains a deoptimization, the code after it is not represented,
+ * and all parameters are conservatively treated as escaping.
+ */
+public final class EscapeSummaryCache {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Use interprocedural escape summaries to keep objects virtual that are passed to calls which are not inlined.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> OptEscapeSummaries = new OptionKey<>(false);
+        @Option(help = "Maximum bytecode size of a method for which an escape summary is computed.", type = OptionType.Expert)
+        public static final OptionKey<Integer> EscapeSummaryMaxBytecodeSize = new OptionKey<>(150);
+        @Option(help = "Maximum depth of nested calls followed when computing an escape summary.", type = OptionType.Expert)
+        public static final OptionKey<Integer> EscapeSummaryMaxDepth = new OptionKey<>(3);
+        // @formatter:on
+    }
+
+    /**
+     * The escape summary of a method.
+     */
+    public static final class EscapeSummary {
+
+        static final EscapeSummary ALL_ESCAPE = new EscapeSummary(new boolean[0]);
+
+        private final boolean[] local;
+
+        EscapeSummary(boolean[] local) {
+            this.local = local;
+        }
+
+        /**
+         * Determines if the object passed as argument {@code index} (including the receiver) is
+         * only read by the method and does not escape it.
+         */
+        public boolean isLocal(int index) {
+            return index >= 0 && index < local.length && local[index];
+        }
+    }
+
+    /**
+     * Summaries shared by all compilations. The keys are weak so that the cache does not keep
+     * methods alive.
+     */
+    private static final Map<ResolvedJavaMethod, EscapeSummary> SUMMARIES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final HighTierContext context;
+    private final StructuredGraph caller;
+    private final int maxBytecodeSize;
+    private final int maxDepth;
+
+    EscapeSummaryCache(HighTierContext context, StructuredGraph caller) {
+        OptionValues options = caller.getOptions();
+        this.context = new HighTierContext(context.getProviders(), context.getGraphBuilderSuite(), OptimisticOptimizations.NONE);
+        this.caller = caller;
+        this.maxBytecodeSize = Options.EscapeSummaryMaxBytecodeSize.getValue(options);
+        this.maxDepth = Options.EscapeSummaryMaxDepth.getValue(options);
+    }
+
+    /**
+     * Determines if argument {@code index} of {@code callTarget} is local to the callee.
+     */
+    public boolean isLocalArgument(MethodCallTargetNode callTarget, int index) {
+        return isLocalArgument(callTarget, index, 0);
+    }
+
+    private boolean isLocalArgument(MethodCallTargetNode callTarget, int index, int depth) {
+        ResolvedJavaMethod target = callTarget.targetMethod();
+        if (target == null || !(callTarget.invokeKind().isDirect() || target.canBeStaticallyBound())) {
+            return false;
+        }
+        return getSummary(target, depth).isLocal(index);
+    }
+
+    private EscapeSummary getSummary(ResolvedJavaMethod method, int depth) {
+        EscapeSummary summary = SUMMARIES.get(method);
+        if (summary == null) {
+            if (depth >= maxDepth) {
+                return EscapeSummary.ALL_ESCAPE;
+            }
+            // provisional entry for recursive calls
+            SUMMARIES.put(method, EscapeSummary.ALL_ESCAPE);
+            summary = computeSummary(method, depth);
+            SUMMARIES.put(method, summary);
+        }
+        return summary;
+    }
+
+    @SuppressWarnings("try")
+    private EscapeSummary computeSummary(ResolvedJavaMethod method, int depth) {
+        if (!method.hasBytecodes() || method.getCodeSize() > maxBytecodeSize || method.isSynchronized()) {
+            return EscapeSummary.ALL_ESCAPE;
+        }
+        DebugContext debug = caller.getDebug();
+        StructuredGraph graph = new StructuredGraph.Builder(caller.getOptions(), debug, AllowAssumptions.NO).method(method).useProfilingInfo(false).build();
+        try (DebugContext.Scope s = debug.scope("EscapeSummary", graph)) {
+            context.getGraphBuilderSuite().apply(graph, context);
+        } catch (BailoutException e) {
+            return EscapeSummary.ALL_ESCAPE;
+        } catch (Throwable e) {
+            throw debug.handle(e);
+        }
+        for (Node node : graph.getNodes()) {
+            if (node instanceof AbstractDeoptimizeNode || node instanceof DeoptimizingGuard || node instanceof GuardNode) {
+                return EscapeSummary.ALL_ESCAPE;
+            }
+        }
+        boolean[] local = new boolean[method.getSignature().getParameterCount(!method.isStatic())];
+        for (ParameterNode parameter : graph.getNodes(ParameterNode.TYPE)) {
+            if (parameter.getStackKind() == JavaKind.Object && parameter.index() < local.length) {
+                local[parameter.index()] = isLocal(graph, parameter, depth);
+            }
+        }
+        return new EscapeSummary(local);
+    }
+
+    /**
+     * Follows the usages of {@code parameter} and all values that it flows into.
+     */
+    private boolean isLocal(StructuredGraph graph, ParameterNode parameter, int depth) {
+        NodeBitMap aliases = graph.createNodeBitMap();
+        aliases.mark(parameter);
+        NodeStack worklist = new NodeStack();
+        worklist.push(parameter);
+        while (!worklist.isEmpty()) {
+            ValueNode value = (ValueNode) worklist.pop();
+            for (Node usage : value.usages()) {
+                if (usage instanceof VirtualState || usage instanceof IsNullNode || usage instanceof ObjectEqualsNode || usage instanceof InstanceOfNode || usage instanceof LoadHubNode ||
+                                usage instanceof GetClassNode || usage instanceof UnboxNode || usage instanceof ArrayLengthNode) {
+                    continue;
+                } else if (usage instanceof LoadFieldNode && ((LoadFieldNode) usage).object() == value) {
+                    continue;
+                } else if (usage instanceof LoadIndexedNode && ((LoadIndexedNode) usage).array() == value) {
+                    continue;
+                } else if (usage instanceof PiNode || usage instanceof ValuePhiNode || usage instanceof ValueProxyNode) {
+                    if (!aliases.isMarked(usage)) {
+                        aliases.mark(usage);
+                        worklist.push(usage);
+                    }
+                } else if (usage instanceof MethodCallTargetNode) {
+                    MethodCallTargetNode callTarget = (MethodCallTargetNode) usage;
+                    int index = -1;
+                    for (int i = 0; i < callTarget.arguments().size(); i++) {
+                        if (aliases.isMarked(callTarget.arguments().get(i))) {
+                            if (index != -1) {
+                                // the callee could compare the arguments
+                                return false;
+                            }
+                            index = i;
+                        }
+                    }
+                    if (!isLocalArgument(callTarget, index, depth + 1)) {
+                        return false;
+                    }
+                } else {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -26,6 +26,7 @@ package org.graalvm.compiler.virtual.phases.ea;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.graalvm.compiler.debug.DebugCloseable;
@@ -248,6 +249,54 @@ public abstract class PartialEscapeBlockState<T extends PartialEscapeBlockState<
         });
     }
 
+    /**
+     * Materializes a new object with the current contents of {@code virtual} before {@code fixed},
+     * while {@code virtual} itself stays virtual. This is only valid if the copy is used in a way
+     * that cannot observe its identity or modify it, see {@link EscapeSummaryCache}.
+     *
+     * @return the materialized copy, or {@code null} if no copy can be created
+     */
+    public ValueNode materializeCopyBefore(FixedNode fixed, VirtualObjectNode virtual, GraphEffectList materializeEffects) {
+        ObjectState obj = getObjectState(virtual);
+        if (obj.getLocks() != null || obj.getEnsureVirtualized()) {
+            return null;
+        }
+        ValueNode[] entries = obj.getEntries().clone();
+        for (ValueNode entry : entries) {
+            if (entry instanceof VirtualObjectNode) {
+                return null;
+            }
+        }
+        VirtualObjectNode copy = virtual.duplicate();
+        ValueNode representation = copy.getMaterializedRepresentation(fixed, entries, null);
+        if (!(representation instanceof AllocatedObjectNode)) {
+            return null;
+        }
+        AllocatedObjectNode allocated = (AllocatedObjectNode) representation;
+        PartialEscapeClosure.COUNTER_MATERIALIZATION_COPIES.increment(fixed.getDebug());
+        VirtualUtil.trace(options, debug, "materialized copy of %s as %s", virtual, representation);
+        materializeEffects.add("materializeCopyBefore", new Effect() {
+            @Override
+            public void apply(StructuredGraph graph, ArrayList<Node> obsoleteNodes) {
+                CommitAllocationNode commit;
+                try (DebugCloseable context = graph.withNodeSourcePosition(NodeSourcePosition.placeholder(graph.method()))) {
+                    commit = graph.add(new CommitAllocationNode());
+                    graph.addBeforeFixed(fixed, commit);
+                }
+                graph.addWithoutUnique(copy);
+                graph.addWithoutUnique(allocated);
+                commit.getVirtualObjects().add(copy);
+                allocated.setCommit(commit);
+                for (ValueNode value : entries) {
+                    commit.getValues().add(graph.addOrUniqueWithInputs(value));
+                }
+                commit.addLocks(Collections.emptyList());
+                commit.getEnsureVirtual().add(false);
+            }
+        });
+        return allocated;
+    }
+
     private void materializeWithCommit(FixedNode fixed, VirtualObjectNode virtual, List<AllocatedObjectNode> objects, List<List<MonitorIdNode>> locks, List<ValueNode> values,
                     List<Boolean> ensureVirtual, List<ValueNode> otherAllocations) {
         ObjectState obj = getObjectState(virtual);
@@ -67,6 +67,7 @@ import org.graalvm.compiler.nodes.ValuePhiNode;
 import org.graalvm.compiler.nodes.ValueProxyNode;
 import org.graalvm.compiler.nodes.VirtualState;
 import org.graalvm.compiler.nodes.cfg.Block;
+import org.graalvm.compiler.nodes.java.MethodCallTargetNode;
 import org.graalvm.compiler.nodes.spi.CoreProviders;
 import org.graalvm.compiler.nodes.spi.NodeWithState;
 import org.graalvm.compiler.nodes.spi.Virtualizable;
@@ -75,6 +76,7 @@ import org.graalvm.compiler.nodes.spi.VirtualizerTool;
 import org.graalvm.compiler.nodes.virtual.AllocatedObjectNode;
 import org.graalvm.compiler.nodes.virtual.EnsureVirtualizedNode;
 import org.graalvm.compiler.nodes.virtual.VirtualObjectNode;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
 import org.graalvm.compiler.virtual.nodes.VirtualObjectState;
 
 import jdk.vm.ci.meta.JavaConstant;
@@ -88,6 +90,7 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
     public static final CounterKey COUNTER_MATERIALIZATIONS_UNHANDLED = DebugContext.counter("MaterializationsUnhandled");
     public static final CounterKey COUNTER_MATERIALIZATIONS_LOOP_REITERATION = DebugContext.counter("MaterializationsLoopReiteration");
     public static final CounterKey COUNTER_MATERIALIZATIONS_LOOP_END = DebugContext.counter("MaterializationsLoopEnd");
+    public static final CounterKey COUNTER_MATERIALIZATION_COPIES = DebugContext.counter("MaterializationCopies");
     public static final CounterKey COUNTER_ALLOCATION_REMOVED = DebugContext.counter("AllocationsRemoved");
     public static final CounterKey COUNTER_MEMORYCHECKPOINT = DebugContext.counter("MemoryCheckpoint");
 
@@ -102,6 +105,12 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
      */
     protected final VirtualizerToolImpl tool;
 
+    /**
+     * Escape summaries of call targets, or {@code null} if
+     * {@link EscapeSummaryCache.Options#OptEscapeSummaries} is disabled.
+     */
+    private final EscapeSummaryCache escapeSummaries;
+
     /**
      * The indexes into this array correspond to {@link VirtualObjectNode#getObjectId()}.
      */
@@ -187,6 +196,11 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         StructuredGraph graph = schedule.getCFG().graph;
         this.hasVirtualInputs = graph.createNodeBitMap();
         this.tool = new VirtualizerToolImpl(providers, this, graph.getAssumptions(), graph.getOptions(), debug);
+        if (EscapeSummaryCache.Options.OptEscapeSummaries.getValue(graph.getOptions()) && providers instanceof HighTierContext) {
+            this.escapeSummaries = new EscapeSummaryCache((HighTierContext) providers, graph);
+        } else {
+            this.escapeSummaries = null;
+        }
     }
 
     /**
@@ -406,6 +420,15 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
             if (input instanceof ValueNode) {
                 ValueNode alias = getAlias((ValueNode) input);
                 if (alias instanceof VirtualObjectNode) {
+                    ValueNode copy = null;
+                    if (escapeSummaries != null && node instanceof MethodCallTargetNode) {
+                        copy = materializeLocalArgument((MethodCallTargetNode) node, (ValueNode) input, (VirtualObjectNode) alias, insertBefore, state, effects);
+                    }
+                    if (copy != null) {
+                        effects.replaceFirstInput(node, input, copy);
+                        VirtualUtil.trace(node.getOptions(), debug, "replacing input %s at %s with copy", input, node);
+                        continue;
+                    }
                     int id = ((VirtualObjectNode) alias).getObjectId();
                     ensureMaterialized(state, id, insertBefore, effects, COUNTER_MATERIALIZATIONS_UNHANDLED);
                     effects.replaceFirstInput(node, input, state.getObjectState(id).getMaterializedValue());
@@ -418,6 +441,54 @@ public abstract class PartialEscapeClosure<BlockT extends PartialEscapeBlockStat
         }
     }
 
+    /**
+     * Passes a materialized copy of {@code virtual} to a call that only reads from the argument and
+     * does not let it escape, so that {@code virtual} can stay virtual after the call. The copy is
+     * only valid if no other argument refers to the object, since the callee could otherwise
+     * observe that the copy is not the original.
+     *
+     * @return the copy, or {@code null} if {@code virtual} needs to be materialized
+     */
+    private ValueNode materializeLocalArgument(MethodCallTargetNode callTarget, ValueNode input, VirtualObjectNode virtual, FixedNode insertBefore, BlockT state, GraphEffectList effects) {
+        if (insertBefore == null || input instanceof AllocatedObjectNode || !state.getObjectState(virtual).isVirtual()) {
+            /*
+             * AllocatedObjectNodes are copies or materializations from a previous iteration, which
+             * are not copied again.
+             */
+            return null;
+        }
+        int index = -1;
+        for (int i = 0; i < callTarget.arguments().size(); i++) {
+            ValueNode argument = callTarget.arguments().get(i);
+            ValueNode argumentAlias = argument == null ? null : getAlias(argument);
+            if (argumentAlias instanceof VirtualObjectNode) {
+                if (argumentAlias != virtual || index != -1) {
+                    return null;
+                }
+                index = i;
+            }
+        }
+        if (index == -1 || !isAllocatedInSameIteration(input, insertBefore) || !escapeSummaries.isLocalArgument(callTarget, index)) {
+            return null;
+        }
+        return state.materializeCopyBefore(insertBefore, virtual, effects);
+    }
+
+    /**
+     * A copy is allocated every time the call is executed, while an object that is live across
+     * the iterations of a loop is usually materialized only once, before the loop. Copies are
+     * therefore only made if {@code input} is defined in the same iteration of the innermost loop
+     * containing {@code insertBefore}.
+     */
+    private boolean isAllocatedInSameIteration(ValueNode input, FixedNode insertBefore) {
+        if (input instanceof PhiNode && ((PhiNode) input).merge() instanceof LoopBeginNode) {
+            return false;
+        }
+        Block inputBlock = schedule.getNodeToBlockMap().get(input);
+        Block callBlock = schedule.getCFG().blockFor(insertBefore);
+        return inputBlock != null && callBlock != null && inputBlock.getLoop() == callBlock.getLoop();
+    }
+
     private void processNodeWithState(NodeWithState nodeWithState, BlockT state, GraphEffectList effects) {
         for (FrameState fs : nodeWithState.states()) {
             FrameState frameState = getUniqueFramestate(nodeWithState, fs);
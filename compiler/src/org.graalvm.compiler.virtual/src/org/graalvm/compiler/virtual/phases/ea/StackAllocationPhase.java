@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.virtual.phases.ea;
+
+import org.graalvm.compiler.core.common.type.Stamp;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedGuardNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.IntegerBelowNode;
+import org.graalvm.compiler.nodes.calc.LeftShiftNode;
+import org.graalvm.compiler.nodes.calc.NarrowNode;
+import org.graalvm.compiler.nodes.calc.SignExtendNode;
+import org.graalvm.compiler.nodes.calc.ZeroExtendNode;
+import org.graalvm.compiler.nodes.cfg.ControlFlowGraph;
+import org.graalvm.compiler.nodes.extended.GuardingNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.NewArrayNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.memory.OnHeapMemoryAccess.BarrierType;
+import org.graalvm.compiler.nodes.memory.ReadNode;
+import org.graalvm.compiler.nodes.memory.WriteNode;
+import org.graalvm.compiler.nodes.memory.address.AddressNode;
+import org.graalvm.compiler.nodes.memory.address.OffsetAddressNode;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.nodes.virtual.VirtualArrayNode;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionKey;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.virtual.nodes.StackArrayNode;
+import org.graalvm.compiler.virtual.nodes.VirtualObjectState;
+
+import jdk.vm.ci.code.CodeUtil;
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.DeoptimizationReason;
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Places small primitive arrays that survived {@link PartialEscapePhase} but never leave the method
+ * in the stack frame. This covers arrays that cannot be virtualized because they are accessed with
+ * variable indices, as long as all their accesses are outside of loops.
+ *
+ * An array is a candidate if it has a constant length, is not allocated inside a loop, and is only
+ * used by indexed loads and stores, array length nodes and frame states. The allocation is replaced
+ * by a {@link StackArrayNode} and the accesses by raw reads and writes, with explicit bounds checks.
+ * Frame states that refer to the array describe it as a virtual array whose elements are read from
+ * the stack, so that the array is materialized on the heap during deoptimization. These reads are
+ * executed every time the state's owner is, so arrays that are live in the state of a loop header
+ * are left on the heap. In particular, this excludes scratch buffers that are filled or read in a
+ * loop, which would need the array to be materialized lazily at the deoptimization itself.
+ *
+ * The elements of primitive arrays contain no references, so the stack memory does not need to be
+ * visited by the garbage collector, and the address of the memory is never visible as an object.
+ */
+public class StackAllocationPhase extends BasePhase<CoreProviders> {
+
+    public static class Options {
+        // @formatter:off
+        @Option(help = "Allocate small primitive arrays that do not escape the compiled method in its stack frame.", type = OptionType.Expert)
+        public static final OptionKey<Boolean> StackAllocation = new OptionKey<>(false);
+        @Option(help = "Maximum length of an array that is allocated in the stack frame.", type = OptionType.Expert)
+        public static final OptionKey<Integer> StackAllocationMaxArrayLength = new OptionKey<>(32);
+        // @formatter:on
+    }
+
+    private static final CounterKey STACK_ALLOCATED_ARRAYS = DebugContext.counter("StackAllocatedArrays");
+
+    private final JavaKind wordKind;
+
+    public StackAllocationPhase(JavaKind wordKind) {
+        this.wordKind = wordKind;
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        int maxLength = Options.StackAllocationMaxArrayLength.getValue(graph.getOptions());
+        ControlFlowGraph cfg = null;
+        for (NewArrayNode newArray : graph.getNodes().filter(NewArrayNode.class).snapshot()) {
+            if (!isCandidate(newArray, maxLength)) {
+                continue;
+            }
+            if (graph.hasLoops()) {
+                if (cfg == null) {
+                    cfg = ControlFlowGraph.compute(graph, true, true, false, false);
+                }
+                if (cfg.blockFor(newArray).getLoop() != null) {
+                    // all iterations would share the same stack memory
+                    continue;
+                }
+            }
+            allocateOnStack(graph, context, newArray);
+            STACK_ALLOCATED_ARRAYS.increment(graph.getDebug());
+        }
+    }
+
+    private static boolean isCandidate(NewArrayNode newArray, int maxLength) {
+        if (!newArray.elementType().getJavaKind().isPrimitive() || !newArray.length().isJavaConstant()) {
+            return false;
+        }
+        int length = newArray.length().asJavaConstant().asInt();
+        if (length <= 0 || length > maxLength) {
+            return false;
+        }
+        for (Node usage : newArray.usages()) {
+            if (usage instanceof LoadIndexedNode && ((LoadIndexedNode) usage).array() == newArray) {
+                continue;
+            } else if (usage instanceof StoreIndexedNode && ((StoreIndexedNode) usage).array() == newArray && ((StoreIndexedNode) usage).value() != newArray) {
+                continue;
+            } else if (usage instanceof ArrayLengthNode) {
+                continue;
+            } else if (usage instanceof FrameState) {
+                FixedNode owner = findStateOwner((FrameState) usage);
+                if (owner != null && !(owner instanceof LoopBeginNode)) {
+                    continue;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the single fixed node that uses {@code state}, either directly or through inner frame
+     * states. The contents of the stack array are read at this node for deoptimization.
+     */
+    private static FixedNode findStateOwner(FrameState state) {
+        FrameState current = state;
+        while (current.hasExactlyOneUsage()) {
+            Node usage = current.singleUsage();
+            if (usage instanceof FrameState) {
+                current = (FrameState) usage;
+            } else if (usage instanceof FixedNode) {
+                return (FixedNode) usage;
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void allocateOnStack(StructuredGraph graph, CoreProviders context, NewArrayNode newArray) {
+        JavaKind elementKind = newArray.elementType().getJavaKind();
+        int length = newArray.length().asJavaConstant().asInt();
+        int scale = context.getMetaAccess().getArrayIndexScale(elementKind);
+        int wordSize = wordKind.getByteCount();
+        int size = (length * scale + wordSize - 1) / wordSize * wordSize;
+
+        StackArrayNode stackArray = graph.add(new StackArrayNode(elementKind, wordKind, size, newArray.fillContents()));
+        graph.addBeforeFixed(newArray, stackArray);
+
+        VirtualArrayNode virtual = graph.addWithoutUnique(new VirtualArrayNode(newArray.elementType(), length));
+        for (FrameState state : newArray.usages().filter(FrameState.class).snapshot()) {
+            if (!state.values().contains(newArray)) {
+                // a state that uses the array more than once is already processed
+                continue;
+            }
+            FixedNode owner = findStateOwner(state);
+            ValueNode[] values = new ValueNode[length];
+            if (owner instanceof AbstractBeginNode || (owner instanceof StoreIndexedNode && ((StoreIndexedNode) owner).array() == newArray)) {
+                // the state describes the contents after the owner
+                FixedWithNextNode position = (FixedWithNextNode) owner;
+                for (int i = 0; i < length; i++) {
+                    ReadNode read = createRead(graph, stackArray, elementKind, ConstantNode.forIntegerKind(wordKind, (long) i * scale, graph));
+                    graph.addAfterFixed(position, read);
+                    position = read;
+                    values[i] = loadConvert(graph, elementKind, read);
+                }
+            } else {
+                for (int i = 0; i < length; i++) {
+                    ReadNode read = createRead(graph, stackArray, elementKind, ConstantNode.forIntegerKind(wordKind, (long) i * scale, graph));
+                    graph.addBeforeFixed(owner, read);
+                    values[i] = loadConvert(graph, elementKind, read);
+                }
+            }
+            state.replaceAllInputs(newArray, virtual);
+            state.addVirtualObjectMapping(graph.addWithoutUnique(new VirtualObjectState(virtual, values)));
+        }
+
+        ConstantNode arrayLength = ConstantNode.forInt(length, graph);
+        for (Node usage : newArray.usages().snapshot()) {
+            if (usage instanceof ArrayLengthNode) {
+                graph.replaceFixedWithFloating((ArrayLengthNode) usage, arrayLength);
+            } else if (usage instanceof LoadIndexedNode) {
+                LoadIndexedNode load = (LoadIndexedNode) usage;
+                GuardingNode boundsCheck = createBoundsCheck(graph, load, arrayLength);
+                ReadNode read = createRead(graph, stackArray, load.elementKind(), elementOffset(graph, load.index(), scale));
+                read.setGuard(boundsCheck);
+                load.replaceAtUsages(loadConvert(graph, load.elementKind(), read));
+                graph.replaceFixed(load, read);
+            } else {
+                StoreIndexedNode store = (StoreIndexedNode) usage;
+                GuardingNode boundsCheck = createBoundsCheck(graph, store, arrayLength);
+                AddressNode address = graph.unique(new OffsetAddressNode(stackArray, elementOffset(graph, store.index(), scale)));
+                WriteNode write = graph.add(new WriteNode(address, NamedLocationIdentity.getArrayLocation(store.elementKind()), storeConvert(graph, store.elementKind(), store.value()),
+                                BarrierType.NONE));
+                write.setGuard(boundsCheck);
+                write.setStateAfter(store.stateAfter());
+                graph.replaceFixedWithFixed(store, write);
+            }
+        }
+        assert newArray.hasNoUsages() : newArray;
+        GraphUtil.removeFixedWithUnusedInputs(newArray);
+    }
+
+    private static GuardingNode createBoundsCheck(StructuredGraph graph, AccessIndexedNode access, ValueNode arrayLength) {
+        if (access.getBoundsCheck() != null) {
+            return access.getBoundsCheck();
+        }
+        LogicNode condition = IntegerBelowNode.create(access.index(), arrayLength, NodeView.DEFAULT);
+        if (condition.isTautology()) {
+            return null;
+        }
+        FixedGuardNode guard = graph.add(new FixedGuardNode(graph.addOrUniqueWithInputs(condition), DeoptimizationReason.BoundsCheckException, DeoptimizationAction.InvalidateReprofile));
+        graph.addBeforeFixed(access, guard);
+        return guard;
+    }
+
+    private ValueNode elementOffset(StructuredGraph graph, ValueNode index, int scale) {
+        ValueNode offset = index;
+        if (wordKind.getBitCount() > index.getStackKind().getBitCount()) {
+            offset = SignExtendNode.create(offset, wordKind.getBitCount(), NodeView.DEFAULT);
+        }
+        if (scale > 1) {
+            offset = LeftShiftNode.create(offset, ConstantNode.forInt(CodeUtil.log2(scale)), NodeView.DEFAULT);
+        }
+        return graph.addOrUniqueWithInputs(offset);
+    }
+
+    private static ReadNode createRead(StructuredGraph graph, StackArrayNode stackArray, JavaKind kind, ValueNode offset) {
+        AddressNode address = graph.unique(new OffsetAddressNode(stackArray, offset));
+        return graph.add(new ReadNode(address, NamedLocationIdentity.getArrayLocation(kind), loadStamp(kind), BarrierType.NONE));
+    }
+
+    private static Stamp loadStamp(JavaKind kind) {
+        switch (kind) {
+            case Boolean:
+            case Byte:
+                return StampFactory.forInteger(8);
+            case Char:
+            case Short:
+                return StampFactory.forInteger(16);
+            default:
+                return StampFactory.forKind(kind);
+        }
+    }
+
+    private static ValueNode loadConvert(StructuredGraph graph, JavaKind kind, ValueNode value) {
+        switch (kind) {
+            case Byte:
+            case Short:
+                return graph.addOrUniqueWithInputs(SignExtendNode.create(value, 32, NodeView.DEFAULT));
+            case Boolean:
+            case Char:
+                return graph.addOrUniqueWithInputs(ZeroExtendNode.create(value, 32, NodeView.DEFAULT));
+            default:
+                return value;
+        }
+    }
+
+    private static ValueNode storeConvert(StructuredGraph graph, JavaKind kind, ValueNode value) {
+        switch (kind) {
+            case Boolean:
+            case Byte:
+                return graph.addOrUniqueWithInputs(NarrowNode.create(value, 8, NodeView.DEFAULT));
+            case Char:
+            case Short:
+                return graph.addOrUniqueWithInputs(NarrowNode.create(value, 16, NodeView.DEFAULT));
+            default:
+                return value;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks cost of {@link Arrays#hashCode}, {@link Arrays#fill} and hashing of freshly created
+ * strings, as it happens for keys of hash maps that are built from parsed input.
+ */
+public class ArrayHashCodeFillBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        @Param({"16", "1024"}) int length;
+
+        byte[] bytes;
+        char[] chars;
+        int[] ints;
+        long[] longs;
+        double[] doubles;
+
+        @Setup
+        public void setup() {
+            bytes = new byte[length];
+            chars = new char[length];
+            ints = new int[length];
+            longs = new long[length];
+            doubles = new double[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) ('a' + i % 26);
+                chars[i] = (char) ('a' + i % 26);
+                ints[i] = i * 31;
+            }
+        }
+    }
+
+    @Benchmark
+    public int hashCodeByteArray(BenchState state) {
+        return Arrays.hashCode(state.bytes);
+    }
+
+    @Benchmark
+    public int hashCodeCharArray(BenchState state) {
+        return Arrays.hashCode(state.chars);
+    }
+
+    @Benchmark
+    public int hashCodeIntArray(BenchState state) {
+        return Arrays.hashCode(state.ints);
+    }
+
+    @Benchmark
+    public int hashCodeNewLatin1String(BenchState state) {
+        // String caches its hash code, so a new string is needed for every invocation
+        return new String(state.bytes, StandardCharsets.ISO_8859_1).hashCode();
+    }
+
+    @Benchmark
+    public byte[] fillByteArray(BenchState state) {
+        Arrays.fill(state.bytes, (byte) 'x');
+        return state.bytes;
+    }
+
+    @Benchmark
+    public int[] fillIntArray(BenchState state) {
+        Arrays.fill(state.ints, 42);
+        return state.ints;
+    }
+
+    @Benchmark
+    public long[] fillLongArray(BenchState state) {
+        Arrays.fill(state.longs, 42L);
+        return state.longs;
+    }
+
+    @Benchmark
+    public double[] fillDoubleArrayRange(BenchState state) {
+        Arrays.fill(state.doubles, 1, state.length - 1, 1.0d);
+        return state.doubles;
+    }
+}
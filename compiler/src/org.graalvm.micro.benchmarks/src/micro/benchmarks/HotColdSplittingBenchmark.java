@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A service-like workload with many request handlers whose hot paths are interleaved with rarely
+ * executed validation and error handling code. Compares code layout with and without
+ * {@code HotColdSplitting}. The instruction cache misses are reported by running the benchmark with
+ * the perf based JMH profiler, e.g., {@code -prof perfnorm}, and comparing
+ * {@code L1-icache-load-misses} of the two benchmarks.
+ */
+@State(Scope.Thread)
+public class HotColdSplittingBenchmark extends BenchmarkBase {
+
+    static final class Request {
+        final int kind;
+        final String path;
+        final Map<String, String> headers;
+        final byte[] body;
+
+        Request(int kind, String path, Map<String, String> headers, byte[] body) {
+            this.kind = kind;
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    static final class ServiceException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ServiceException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    @Param({"4096"}) int requestCount;
+
+    Request[] requests;
+    final Map<String, Integer> inventory = new HashMap<>();
+    final List<String> auditLog = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        requests = new Request[requestCount];
+        for (int i = 0; i < requestCount; i++) {
+            Map<String, String> headers = new HashMap<>();
+            headers.put("user", "user" + random.nextInt(100));
+            headers.put("token", Integer.toHexString(random.nextInt()));
+            byte[] body = new byte[16 + random.nextInt(48)];
+            random.nextBytes(body);
+            requests[i] = new Request(random.nextInt(8), "/item/" + random.nextInt(256), headers, body);
+        }
+        for (int i = 0; i < 256; i++) {
+            inventory.put("/item/" + i, i);
+        }
+    }
+
+    @Benchmark
+    public int service() {
+        return serveAll();
+    }
+
+    @Benchmark
+    @Fork(jvmArgsAppend = "-Dgraal.HotColdSplitting=true")
+    public int serviceHotColdSplitting() {
+        return serveAll();
+    }
+
+    private int serveAll() {
+        int result = 0;
+        for (Request request : requests) {
+            try {
+                result += dispatch(request);
+            } catch (ServiceException e) {
+                result += e.status;
+            }
+        }
+        return result;
+    }
+
+    private int dispatch(Request request) throws ServiceException {
+        switch (request.kind) {
+            case 0:
+                return get(request);
+            case 1:
+                return put(request);
+            case 2:
+                return delete(request);
+            case 3:
+                return list(request);
+            case 4:
+                return checksum(request);
+            case 5:
+                return search(request);
+            case 6:
+                return update(request);
+            default:
+                return status(request);
+        }
+    }
+
+    private void authenticate(Request request) throws ServiceException {
+        String user = request.headers.get("user");
+        String token = request.headers.get("token");
+        if (user == null || token == null) {
+            audit("missing credentials for " + request.path);
+            throw new ServiceException(401, "unauthorized: " + request.path);
+        }
+        if (token.length() > 8) {
+            audit("malformed token " + token + " from " + user);
+            throw new ServiceException(400, "bad token");
+        }
+    }
+
+    private void audit(String message) {
+        if (auditLog.size() > 1000) {
+            auditLog.clear();
+        }
+        auditLog.add(message);
+    }
+
+    private Integer lookup(Request request) throws ServiceException {
+        Integer value = inventory.get(request.path);
+        if (value == null) {
+            audit("unknown item " + request.path + " requested by " + request.headers.get("user"));
+            throw new ServiceException(404, "not found: " + request.path);
+        }
+        return value;
+    }
+
+    private int get(Request request) throws ServiceException {
+        authenticate(request);
+        return lookup(request);
+    }
+
+    private int put(Request request) throws ServiceException {
+        authenticate(request);
+        if (request.body.length == 0) {
+            audit("empty body for " + request.path);
+            throw new ServiceException(400, "empty body");
+        }
+        int value = request.body[0] & 0xFF;
+        if (value > 255) {
+            audit("value out of range: " + value);
+            throw new ServiceException(422, "out of range");
+        }
+        inventory.put(request.path, value);
+        return value;
+    }
+
+    private int delete(Request request) throws ServiceException {
+        authenticate(request);
+        Integer old = lookup(request);
+        if (old < 0) {
+            audit("inconsistent inventory for " + request.path + ": " + old);
+            throw new ServiceException(500, "inconsistent");
+        }
+        return old;
+    }
+
+    private int list(Request request) throws ServiceException {
+        authenticate(request);
+        int count = 0;
+        for (int i = 0; i < 16; i++) {
+            Integer value = inventory.get("/item/" + i);
+            if (value == null) {
+                audit("hole in inventory at " + i + " while listing " + request.path);
+                continue;
+            }
+            count += value;
+        }
+        return count;
+    }
+
+    private int checksum(Request request) throws ServiceException {
+        byte[] body = request.body;
+        if (body.length > 1024) {
+            audit("body too large: " + body.length + " bytes for " + request.path);
+            throw new ServiceException(413, "too large");
+        }
+        int hash = 1;
+        for (byte b : body) {
+            hash = 31 * hash + b;
+        }
+        return hash;
+    }
+
+    private int search(Request request) throws ServiceException {
+        authenticate(request);
+        String path = request.path;
+        int slash = path.lastIndexOf('/');
+        if (slash < 0 || slash == path.length() - 1) {
+            audit("invalid search path " + path);
+            throw new ServiceException(400, "invalid path: " + path);
+        }
+        int id = 0;
+        for (int i = slash + 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                audit("non numeric id in " + path + " at " + i);
+                throw new ServiceException(400, "invalid id");
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private int update(Request request) throws ServiceException {
+        authenticate(request);
+        Integer old = lookup(request);
+        int delta = request.body.length > 1 ? request.body[1] : 0;
+        long updated = (long) old + delta;
+        if (updated > Integer.MAX_VALUE || updated < Integer.MIN_VALUE) {
+            audit("overflow updating " + request.path + " by " + delta);
+            throw new ServiceException(422, "overflow");
+        }
+        inventory.put(request.path, (int) updated);
+        return (int) updated;
+    }
+
+    private int status(Request request) {
+        if (request.headers.isEmpty()) {
+            audit("status request without headers for " + request.path);
+            return -1;
+        }
+        return request.headers.size() + auditLog.size();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks loops dominated by loads whose results are consumed immediately, a pattern that
+ * stalls in-order cores. Compare runs with {@code -Dgraal.AArch64LIRScheduling=CortexA55} or
+ * {@code -Dgraal.AArch64LIRScheduling=NeoverseN1} against the default on AArch64.
+ */
+@State(Scope.Thread)
+public class LoadUseBenchmark extends BenchmarkBase {
+
+    @Param({"1024", "65536"}) int size;
+
+    int[] keys;
+    int[] values;
+    long[] longs;
+    double[] xs;
+    double[] ys;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        keys = new int[size];
+        values = new int[size];
+        longs = new long[size];
+        xs = new double[size];
+        ys = new double[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt(size);
+            values[i] = random.nextInt();
+            longs[i] = random.nextLong();
+            xs[i] = random.nextDouble();
+            ys[i] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public int gather() {
+        int[] k = keys;
+        int[] v = values;
+        int sum = 0;
+        for (int i = 0; i < k.length; i++) {
+            sum += v[k[i]] ^ (k[i] << 3);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long hashLongs() {
+        long[] a = longs;
+        long h = 0;
+        for (int i = 0; i + 1 < a.length; i += 2) {
+            long x = a[i];
+            long y = a[i + 1];
+            h = h * 31 + (x * 0x9E3779B97F4A7C15L) + (y ^ (y >>> 29));
+        }
+        return h;
+    }
+
+    @Benchmark
+    public double dotProduct() {
+        double[] x = xs;
+        double[] y = ys;
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks codec style loops whose array accesses are indexed by induction variables other than
+ * the loop counter, e.g., a second index advancing at a different stride, an index derived from
+ * the counter with an offset, or a down-counting loop.
+ */
+@State(Scope.Thread)
+public class RangeCheckBenchmark extends BenchmarkBase {
+
+    private static final byte[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes();
+
+    @Param({"96", "12288"}) int size;
+
+    byte[] input;
+    byte[] encoded;
+    byte[] copy;
+    int[] ints;
+    byte[] varints;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        input = new byte[size];
+        random.nextBytes(input);
+        encoded = new byte[size / 3 * 4];
+        copy = new byte[size];
+        ints = new int[size / 4];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = random.nextInt() >>> random.nextInt(32);
+        }
+        varints = new byte[ints.length * 5];
+        int pos = 0;
+        for (int value : ints) {
+            while ((value & ~0x7f) != 0) {
+                varints[pos++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            varints[pos++] = (byte) value;
+        }
+    }
+
+    @Benchmark
+    public byte[] base64Encode() {
+        byte[] src = input;
+        byte[] dst = encoded;
+        int groups = src.length / 3;
+        int sp = 0;
+        int dp = 0;
+        for (int i = 0; i < groups; i++) {
+            int bits = (src[sp] & 0xff) << 16 | (src[sp + 1] & 0xff) << 8 | (src[sp + 2] & 0xff);
+            dst[dp] = BASE64[(bits >>> 18) & 0x3f];
+            dst[dp + 1] = BASE64[(bits >>> 12) & 0x3f];
+            dst[dp + 2] = BASE64[(bits >>> 6) & 0x3f];
+            dst[dp + 3] = BASE64[bits & 0x3f];
+            sp += 3;
+            dp += 4;
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public int checksumDown() {
+        byte[] src = input;
+        int a = 1;
+        int b = 0;
+        for (int i = src.length - 1; i >= 0; i--) {
+            a += src[i] & 0xff;
+            b += a;
+        }
+        return (b << 16) | (a & 0xffff);
+    }
+
+    @Benchmark
+    public byte[] copyWithOffset() {
+        byte[] src = input;
+        byte[] dst = copy;
+        int offset = 1;
+        for (int i = offset; i < src.length; i++) {
+            dst[i - offset] = src[i];
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public int varintDecode() {
+        byte[] src = varints;
+        int sum = 0;
+        int pos = 0;
+        for (int i = 0; i < ints.length; i++) {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = src[pos++];
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            sum += value;
+        }
+        return sum;
+    }
+}
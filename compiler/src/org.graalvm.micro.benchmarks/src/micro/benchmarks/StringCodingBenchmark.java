@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2021, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks cost of UTF-8 encoding and decoding of mostly ASCII strings and of case-insensitive
+ * string comparisons, as they are typical for HTTP header and JSON processing.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StringCodingBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        // @formatter:off
+        String lorem = "Lorem ipsum dolor sit amet, consectetur adipisici elit, sed eiusmod tempor incidunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation ullamco laboris nisi ut aliquid ex ea commodi consequat. Quis aute iure reprehenderit in voluptate velit esse cillum dolore eu fugiat nulla pariatur. Excepteur sint obcaecat cupiditat non proident, sunt in culpa qui officia deserunt mollit anim id est laborum.";
+        String json = "{\"id\":4711,\"name\":\"Lorem ipsum\",\"tags\":[\"dolor\",\"sit\",\"amet\"],\"description\":\"consectetur adipisici elit, sed eiusmod tempor incidunt\"}";
+        // @formatter:on
+
+        String header = "Content-Type";
+        String headerUpperCase = header.toUpperCase();
+        String headerLowerCase = header.toLowerCase();
+        String longHeader = "Access-Control-Allow-Credentials";
+        String longHeaderLowerCase = longHeader.toLowerCase();
+
+        byte[] smallAsciiBytes = lorem.substring(0, 13).getBytes(StandardCharsets.UTF_8);
+        byte[] largeAsciiBytes = lorem.concat(lorem).getBytes(StandardCharsets.UTF_8);
+        byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        byte[] largeNonAsciiBytes = lorem.concat("\u00e4").getBytes(StandardCharsets.UTF_8);
+
+        String largeLorem = lorem.concat(lorem);
+        String largeLoremUpperCase = largeLorem.toUpperCase();
+    }
+
+    @Benchmark
+    public String decodeSmallAscii(BenchState state) {
+        return new String(state.smallAsciiBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decodeLargeAscii(BenchState state) {
+        return new String(state.largeAsciiBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decodeJson(BenchState state) {
+        return new String(state.jsonBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String decodeLargeNonAscii(BenchState state) {
+        return new String(state.largeNonAsciiBytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeLargeAscii(BenchState state) {
+        return state.largeLorem.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeJson(BenchState state) {
+        return state.json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCaseHeader(BenchState state) {
+        return state.header.equalsIgnoreCase(state.headerLowerCase);
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCaseHeaderUpperCase(BenchState state) {
+        return state.headerUpperCase.equalsIgnoreCase(state.headerLowerCase);
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCaseLongHeader(BenchState state) {
+        return state.longHeader.equalsIgnoreCase(state.longHeaderLowerCase);
+    }
+
+    @Benchmark
+    public boolean equalsIgnoreCaseLarge(BenchState state) {
+        return state.largeLorem.equalsIgnoreCase(state.largeLoremUpperCase);
+    }
+
+    @Benchmark
+    public boolean regionMatchesIgnoreCase(BenchState state) {
+        return state.largeLorem.regionMatches(true, state.lorem.length(), state.largeLoremUpperCase, 0, state.lorem.length());
+    }
+}